@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.asm.amd64.test;
+
+import static com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize.DWORD;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.code.CallingConvention;
+import jdk.internal.jvmci.code.CompilationResult;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.RegisterConfig;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.meta.JavaKind;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Assembler;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64MROp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.test.AssemblerTest;
+
+/**
+ * Tests the VEX encoding of AVX2 instructions. Using registers above 7 forces the three byte form
+ * of the VEX prefix.
+ */
+public class AVX2Test extends AssemblerTest {
+
+    @Before
+    public void checkAVX2() {
+        assumeTrue("skipping AMD64 specific test", codeCache.getTarget().arch instanceof AMD64);
+        assumeTrue("skipping AVX2 specific test", ((AMD64) codeCache.getTarget().arch).getFeatures().contains(CPUFeature.AVX2));
+    }
+
+    @Test
+    public void vpcmpeqbTest() {
+        CodeGenTest test = new CodeGenTest() {
+
+            @Override
+            public byte[] generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                AMD64Assembler asm = new AMD64Assembler(target, registerConfig);
+                Register ret = registerConfig.getReturnRegister(JavaKind.Int);
+                int base = UNSAFE.arrayBaseOffset(byte[].class);
+                asm.vmovdqu(AMD64.xmm0, new AMD64Address(asRegister(cc.getArgument(0)), base), AVXSize.YMM);
+                asm.vmovdqu(AMD64.xmm1, new AMD64Address(asRegister(cc.getArgument(1)), base), AVXSize.YMM);
+                asm.vpcmpeqb(AMD64.xmm0, AMD64.xmm0, AMD64.xmm1, AVXSize.YMM);
+                asm.vpmovmskb(ret, AMD64.xmm0, AVXSize.YMM);
+                asm.vzeroupper();
+                asm.ret(0);
+                return asm.close(true);
+            }
+        };
+        byte[] a = new byte[32];
+        byte[] b = new byte[32];
+        b[0] = 1;
+        b[17] = 1;
+        b[31] = 1;
+        assertReturn("byteArrayStub", test, ~((1 << 0) | (1 << 17) | (1 << 31)), a, b);
+    }
+
+    @Test
+    public void vpadddTest() {
+        CodeGenTest test = new CodeGenTest() {
+
+            @Override
+            public byte[] generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                AMD64Assembler asm = new AMD64Assembler(target, registerConfig);
+                Register ret = registerConfig.getReturnRegister(JavaKind.Int);
+                int base = UNSAFE.arrayBaseOffset(int[].class);
+                asm.movq(AMD64.r10, asRegister(cc.getArgument(0)));
+                asm.movq(AMD64.r11, asRegister(cc.getArgument(1)));
+                asm.vmovdqu(AMD64.xmm9, new AMD64Address(AMD64.r10, base), AVXSize.YMM);
+                asm.vmovdqu(AMD64.xmm12, new AMD64Address(AMD64.r11, base), AVXSize.YMM);
+                asm.vpaddd(AMD64.xmm13, AMD64.xmm9, AMD64.xmm12, AVXSize.YMM);
+                asm.vmovdqu(new AMD64Address(AMD64.r10, base), AMD64.xmm13, AVXSize.YMM);
+                asm.vextracti128(AMD64.xmm2, AMD64.xmm13, 1);
+                asm.vzeroupper();
+                AMD64MROp.MOVD.emit(asm, DWORD, ret, AMD64.xmm2);
+                asm.ret(0);
+                return asm.close(true);
+            }
+        };
+        int[] a = {1, 2, 3, 4, 5, 6, 7, 8};
+        int[] b = {10, 20, 30, 40, 50, 60, 70, 80};
+        assertReturn("intArrayStub", test, 55, a, b);
+        Assert.assertArrayEquals(new int[]{11, 22, 33, 44, 55, 66, 77, 88}, a);
+    }
+
+    @Test
+    public void vptestTest() {
+        CodeGenTest test = new CodeGenTest() {
+
+            @Override
+            public byte[] generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                AMD64Assembler asm = new AMD64Assembler(target, registerConfig);
+                Register ret = registerConfig.getReturnRegister(JavaKind.Int);
+                int base = UNSAFE.arrayBaseOffset(byte[].class);
+                asm.vmovdqu(AMD64.xmm8, new AMD64Address(asRegister(cc.getArgument(0)), base), AVXSize.YMM);
+                asm.vmovdqu(AMD64.xmm15, new AMD64Address(asRegister(cc.getArgument(1)), base), AVXSize.YMM);
+                asm.vpxor(AMD64.xmm8, AMD64.xmm8, AMD64.xmm15, AVXSize.YMM);
+                asm.movl(ret, 0);
+                asm.movl(AMD64.r10, 1);
+                asm.vptest(AMD64.xmm8, AMD64.xmm8, AVXSize.YMM);
+                asm.cmovl(ConditionFlag.Zero, ret, AMD64.r10);
+                asm.vzeroupper();
+                asm.ret(0);
+                return asm.close(true);
+            }
+        };
+        byte[] a = new byte[32];
+        assertReturn("byteArrayStub", test, 1, a, Arrays.copyOf(a, 32));
+        byte[] b = Arrays.copyOf(a, 32);
+        b[30] = 1;
+        assertReturn("byteArrayStub", test, 0, a, b);
+    }
+
+    @SuppressWarnings("unused")
+    public static int byteArrayStub(byte[] a, byte[] b) {
+        return 0;
+    }
+
+    @SuppressWarnings("unused")
+    public static int intArrayStub(int[] a, int[] b) {
+        return 0;
+    }
+}
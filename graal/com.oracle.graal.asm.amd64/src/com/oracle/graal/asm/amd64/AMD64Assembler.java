@@ -25,6 +25,7 @@ package com.oracle.graal.asm.amd64;
 import static com.oracle.graal.asm.NumUtil.isByte;
 import static com.oracle.graal.asm.NumUtil.isInt;
 import static com.oracle.graal.asm.NumUtil.isShiftCount;
+import static com.oracle.graal.asm.NumUtil.isUByte;
 import static com.oracle.graal.asm.amd64.AMD64AsmOptions.UseAddressNop;
 import static com.oracle.graal.asm.amd64.AMD64AsmOptions.UseNormalNop;
 import static com.oracle.graal.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic.ADD;
@@ -186,6 +187,41 @@ public class AMD64Assembler extends Assembler {
         private static final int REXWRXB = 0x4F;
     }
 
+    /**
+     * Constants for the fields of the VEX prefix that select the implied legacy prefix (pp) and the
+     * implied leading opcode bytes (m-mmmm).
+     */
+    private static class VexPrefix {
+
+        private static final int PP_NONE = 0x0;
+        private static final int PP_66 = 0x1;
+        private static final int PP_F3 = 0x2;
+
+        private static final int M_0F = 0x1;
+        private static final int M_0F38 = 0x2;
+        private static final int M_0F3A = 0x3;
+    }
+
+    /**
+     * The vector lengths of VEX encoded instructions.
+     */
+    public static enum AVXSize {
+        XMM(0, 16),
+        YMM(1, 32);
+
+        private final int l;
+        private final int bytes;
+
+        private AVXSize(int l, int bytes) {
+            this.l = l;
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
     /**
      * The x86 operand sizes.
      */
@@ -1701,6 +1737,173 @@ public class AMD64Assembler extends Assembler {
         }
     }
 
+    /**
+     * Emits an SSE2 instruction of the form {@code 66 0F op /r} with two XMM register operands, which
+     * covers the packed integer arithmetic.
+     */
+    private void emitPackedIntegerOp(int op, Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(op);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void paddb(Register dst, Register src) {
+        emitPackedIntegerOp(0xFC, dst, src);
+    }
+
+    public final void paddd(Register dst, Register src) {
+        emitPackedIntegerOp(0xFE, dst, src);
+    }
+
+    public final void paddq(Register dst, Register src) {
+        emitPackedIntegerOp(0xD4, dst, src);
+    }
+
+    public final void paddw(Register dst, Register src) {
+        emitPackedIntegerOp(0xFD, dst, src);
+    }
+
+    public final void pand(Register dst, Register src) {
+        emitPackedIntegerOp(0xDB, dst, src);
+    }
+
+    public final void pcmpeqb(Register dst, Register src) {
+        emitPackedIntegerOp(0x74, dst, src);
+    }
+
+    public final void pcmpeqd(Register dst, Register src) {
+        emitPackedIntegerOp(0x76, dst, src);
+    }
+
+    public final void pcmpeqw(Register dst, Register src) {
+        emitPackedIntegerOp(0x75, dst, src);
+    }
+
+    public final void pcmpgtb(Register dst, Register src) {
+        emitPackedIntegerOp(0x64, dst, src);
+    }
+
+    public final void pcmpgtd(Register dst, Register src) {
+        emitPackedIntegerOp(0x66, dst, src);
+    }
+
+    public final void pcmpgtw(Register dst, Register src) {
+        emitPackedIntegerOp(0x65, dst, src);
+    }
+
+    /**
+     * Moves the most significant bit of each byte of {@code src} to the general purpose register
+     * {@code dst}.
+     */
+    public final void pmovmskb(Register dst, Register src) {
+        assert dst.getRegisterCategory().equals(AMD64.CPU) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0xD7);
+        emitByte(0xC0 | encode);
+    }
+
+    private void emitPackedExtendOp(int op, Register dst, AMD64Address src) {
+        assert supports(CPUFeature.SSE4_1);
+        assert dst.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        prefix(src, dst);
+        emitByte(0x0F);
+        emitByte(0x38);
+        emitByte(op);
+        emitOperandHelper(dst, src);
+    }
+
+    /**
+     * Loads 4 bytes and sign extends them to 4 ints.
+     */
+    public final void pmovsxbd(Register dst, AMD64Address src) {
+        emitPackedExtendOp(0x21, dst, src);
+    }
+
+    /**
+     * Loads 4 shorts and sign extends them to 4 ints.
+     */
+    public final void pmovsxwd(Register dst, AMD64Address src) {
+        emitPackedExtendOp(0x23, dst, src);
+    }
+
+    /**
+     * Loads 4 chars and zero extends them to 4 ints.
+     */
+    public final void pmovzxwd(Register dst, AMD64Address src) {
+        emitPackedExtendOp(0x33, dst, src);
+    }
+
+    public final void pmulld(Register dst, Register src) {
+        assert supports(CPUFeature.SSE4_1);
+        assert dst.getRegisterCategory().equals(AMD64.XMM) && src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x38);
+        emitByte(0x40);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pmullw(Register dst, Register src) {
+        emitPackedIntegerOp(0xD5, dst, src);
+    }
+
+    public final void por(Register dst, Register src) {
+        emitPackedIntegerOp(0xEB, dst, src);
+    }
+
+    public final void pshufd(Register dst, Register src, int imm8) {
+        assert isUByte(imm8) : "invalid value";
+        emitPackedIntegerOp(0x70, dst, src);
+        emitByte(imm8);
+    }
+
+    public final void psubb(Register dst, Register src) {
+        emitPackedIntegerOp(0xF8, dst, src);
+    }
+
+    public final void psubd(Register dst, Register src) {
+        emitPackedIntegerOp(0xFA, dst, src);
+    }
+
+    public final void psubq(Register dst, Register src) {
+        emitPackedIntegerOp(0xFB, dst, src);
+    }
+
+    public final void psubw(Register dst, Register src) {
+        emitPackedIntegerOp(0xF9, dst, src);
+    }
+
+    public final void punpckhbw(Register dst, Register src) {
+        emitPackedIntegerOp(0x68, dst, src);
+    }
+
+    public final void punpckhdq(Register dst, Register src) {
+        emitPackedIntegerOp(0x6A, dst, src);
+    }
+
+    public final void punpckhwd(Register dst, Register src) {
+        emitPackedIntegerOp(0x69, dst, src);
+    }
+
+    public final void punpcklbw(Register dst, Register src) {
+        emitPackedIntegerOp(0x60, dst, src);
+    }
+
+    public final void punpckldq(Register dst, Register src) {
+        emitPackedIntegerOp(0x62, dst, src);
+    }
+
+    public final void punpcklwd(Register dst, Register src) {
+        emitPackedIntegerOp(0x61, dst, src);
+    }
+
     public final void pop(Register dst) {
         int encode = prefixAndEncode(dst.encoding);
         emitByte(0x58 | encode);
@@ -2124,6 +2327,15 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void movdqu(AMD64Address dst, Register src) {
+        assert src.getRegisterCategory().equals(AMD64.XMM);
+        emitByte(0xF3);
+        prefix(dst, src);
+        emitByte(0x0F);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
     public final void movslq(AMD64Address dst, int imm32) {
         prefixq(dst);
         emitByte(0xC7);
@@ -2466,6 +2678,201 @@ public class AMD64Assembler extends Assembler {
         emitOperandHelper(1, src);
     }
 
+    /**
+     * Emits a VEX prefix. The two byte form is used if the instruction does not need the X, B or W
+     * bits and uses the 0F opcode map, otherwise the three byte form is used.
+     *
+     * @param rxb the R, X and B bits as computed by {@link #getRXB}, i.e., not yet inverted
+     * @param nds the additional source register encoded in VEX.vvvv, or {@link Register#None}
+     */
+    private void emitVexPrefix(int rxb, int m, boolean w, Register nds, AVXSize size, int pp) {
+        int vvvv = nds.equals(Register.None) ? 0 : nds.encoding;
+        if ((rxb & 0x3) == 0 && m == VexPrefix.M_0F && !w) {
+            emitByte(0xC5);
+            emitByte(((~rxb & 0x4) << 5) | ((~vvvv & 0xF) << 3) | (size.l << 2) | pp);
+        } else {
+            emitByte(0xC4);
+            emitByte(((~rxb & 0x7) << 5) | m);
+            emitByte((w ? 0x80 : 0) | ((~vvvv & 0xF) << 3) | (size.l << 2) | pp);
+        }
+    }
+
+    private void emitVexOp(AVXSize size, int pp, int m, int op, Register dst, Register nds, Register src) {
+        emitVexPrefix(getRXB(dst, src), m, false, nds, size, pp);
+        emitByte(op);
+        emitModRM(dst, src);
+    }
+
+    private void emitVexOp(AVXSize size, int pp, int m, int op, Register reg, Register nds, AMD64Address addr) {
+        emitVexPrefix(getRXB(reg, addr), m, false, nds, size, pp);
+        emitByte(op);
+        emitOperandHelper(reg, addr);
+    }
+
+    /**
+     * Emits a VEX encoded instruction that operates on packed integers. The 256-bit forms of these
+     * instructions require AVX2.
+     */
+    private void emitPackedIntegerVexOp(int op, Register dst, Register nds, Register src, AVXSize size) {
+        assert supports(size == AVXSize.YMM ? CPUFeature.AVX2 : CPUFeature.AVX);
+        assert dst.getRegisterCategory().equals(XMM) && nds.getRegisterCategory().equals(XMM) && src.getRegisterCategory().equals(XMM);
+        emitVexOp(size, VexPrefix.PP_66, VexPrefix.M_0F, op, dst, nds, src);
+    }
+
+    private void emitPackedFloatVexOp(int op, boolean doublePrecision, Register dst, Register nds, Register src, AVXSize size) {
+        assert supports(CPUFeature.AVX);
+        assert dst.getRegisterCategory().equals(XMM) && nds.getRegisterCategory().equals(XMM) && src.getRegisterCategory().equals(XMM);
+        emitVexOp(size, doublePrecision ? VexPrefix.PP_66 : VexPrefix.PP_NONE, VexPrefix.M_0F, op, dst, nds, src);
+    }
+
+    public final void vaddpd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x58, true, dst, nds, src, size);
+    }
+
+    public final void vaddps(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x58, false, dst, nds, src, size);
+    }
+
+    /**
+     * Extracts the 128-bit lane selected by {@code imm8} from the 256-bit register {@code src}.
+     */
+    public final void vextracti128(Register dst, Register src, int imm8) {
+        assert supports(CPUFeature.AVX2);
+        assert dst.getRegisterCategory().equals(XMM) && src.getRegisterCategory().equals(XMM);
+        assert imm8 == 0 || imm8 == 1;
+        // the destination is encoded in ModRM.rm
+        emitVexOp(AVXSize.YMM, VexPrefix.PP_66, VexPrefix.M_0F3A, 0x39, src, Register.None, dst);
+        emitByte(imm8);
+    }
+
+    /**
+     * Copies {@code nds} to {@code dst} and replaces the 128-bit lane selected by {@code imm8} with
+     * {@code src}.
+     */
+    public final void vinserti128(Register dst, Register nds, Register src, int imm8) {
+        assert supports(CPUFeature.AVX2);
+        assert dst.getRegisterCategory().equals(XMM) && nds.getRegisterCategory().equals(XMM) && src.getRegisterCategory().equals(XMM);
+        assert imm8 == 0 || imm8 == 1;
+        emitVexOp(AVXSize.YMM, VexPrefix.PP_66, VexPrefix.M_0F3A, 0x38, dst, nds, src);
+        emitByte(imm8);
+    }
+
+    public final void vmovdqu(Register dst, AMD64Address src, AVXSize size) {
+        assert supports(CPUFeature.AVX);
+        assert dst.getRegisterCategory().equals(XMM);
+        emitVexOp(size, VexPrefix.PP_F3, VexPrefix.M_0F, 0x6F, dst, Register.None, src);
+    }
+
+    public final void vmovdqu(AMD64Address dst, Register src, AVXSize size) {
+        assert supports(CPUFeature.AVX);
+        assert src.getRegisterCategory().equals(XMM);
+        emitVexOp(size, VexPrefix.PP_F3, VexPrefix.M_0F, 0x7F, src, Register.None, dst);
+    }
+
+    public final void vmulpd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x59, true, dst, nds, src, size);
+    }
+
+    public final void vmulps(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x59, false, dst, nds, src, size);
+    }
+
+    public final void vpaddb(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xFC, dst, nds, src, size);
+    }
+
+    public final void vpaddd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xFE, dst, nds, src, size);
+    }
+
+    public final void vpaddq(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xD4, dst, nds, src, size);
+    }
+
+    public final void vpaddw(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xFD, dst, nds, src, size);
+    }
+
+    public final void vpand(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xDB, dst, nds, src, size);
+    }
+
+    public final void vpcmpeqb(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0x74, dst, nds, src, size);
+    }
+
+    public final void vpcmpeqd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0x76, dst, nds, src, size);
+    }
+
+    public final void vpcmpeqw(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0x75, dst, nds, src, size);
+    }
+
+    /**
+     * Moves the most significant bit of each byte of {@code src} to the general purpose register
+     * {@code dst}.
+     */
+    public final void vpmovmskb(Register dst, Register src, AVXSize size) {
+        assert supports(size == AVXSize.YMM ? CPUFeature.AVX2 : CPUFeature.AVX);
+        assert dst.getRegisterCategory().equals(CPU) && src.getRegisterCategory().equals(XMM);
+        emitVexOp(size, VexPrefix.PP_66, VexPrefix.M_0F, 0xD7, dst, Register.None, src);
+    }
+
+    public final void vpmullw(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xD5, dst, nds, src, size);
+    }
+
+    public final void vpor(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xEB, dst, nds, src, size);
+    }
+
+    public final void vpsubb(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xF8, dst, nds, src, size);
+    }
+
+    public final void vpsubd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xFA, dst, nds, src, size);
+    }
+
+    public final void vpsubq(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xFB, dst, nds, src, size);
+    }
+
+    public final void vpsubw(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xF9, dst, nds, src, size);
+    }
+
+    public final void vptest(Register dst, Register src, AVXSize size) {
+        assert supports(CPUFeature.AVX);
+        assert dst.getRegisterCategory().equals(XMM) && src.getRegisterCategory().equals(XMM);
+        emitVexOp(size, VexPrefix.PP_66, VexPrefix.M_0F38, 0x17, dst, Register.None, src);
+    }
+
+    public final void vpxor(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedIntegerVexOp(0xEF, dst, nds, src, size);
+    }
+
+    public final void vsubpd(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x5C, true, dst, nds, src, size);
+    }
+
+    public final void vsubps(Register dst, Register nds, Register src, AVXSize size) {
+        emitPackedFloatVexOp(0x5C, false, dst, nds, src, size);
+    }
+
+    /**
+     * Zeroes the upper 128 bits of all YMM registers. This must be emitted after code that uses
+     * 256-bit registers before any legacy SSE instruction is executed, which otherwise incurs a
+     * state transition penalty on many processors.
+     */
+    public final void vzeroupper() {
+        assert supports(CPUFeature.AVX);
+        emitByte(0xC5);
+        emitByte(0xF8);
+        emitByte(0x77);
+    }
+
     /**
      * Emits an instruction which is considered to be illegal. This is used if we deliberately want
      * to crash the program (debugging etc.).
@@ -108,6 +108,7 @@ import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
 import com.oracle.graal.asm.amd64.AMD64Assembler.SSEOp;
 import com.oracle.graal.compiler.common.calc.Condition;
 import com.oracle.graal.compiler.common.calc.FloatConvert;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
 import com.oracle.graal.compiler.common.spi.LIRKindTool;
 import com.oracle.graal.compiler.common.util.Util;
@@ -123,6 +124,10 @@ import com.oracle.graal.lir.amd64.AMD64AddressValue;
 import com.oracle.graal.lir.amd64.AMD64Arithmetic.FPDivRemOp;
 import com.oracle.graal.lir.amd64.AMD64ArithmeticLIRGenerator;
 import com.oracle.graal.lir.amd64.AMD64ArrayEqualsOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayFillOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayHashCodeOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayIndexOfOp;
+import com.oracle.graal.lir.amd64.AMD64ArrayMismatchOp;
 import com.oracle.graal.lir.amd64.AMD64Binary;
 import com.oracle.graal.lir.amd64.AMD64BinaryConsumer;
 import com.oracle.graal.lir.amd64.AMD64ByteSwapOp;
@@ -152,6 +157,7 @@ import com.oracle.graal.lir.amd64.AMD64MulDivOp;
 import com.oracle.graal.lir.amd64.AMD64ShiftOp;
 import com.oracle.graal.lir.amd64.AMD64SignExtendOp;
 import com.oracle.graal.lir.amd64.AMD64Unary;
+import com.oracle.graal.lir.amd64.AMD64VectorizedArrayOp;
 import com.oracle.graal.lir.framemap.FrameMapBuilder;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 import com.oracle.graal.lir.gen.LIRGenerator;
@@ -1546,6 +1552,48 @@ public abstract class AMD64LIRGenerator extends LIRGenerator implements AMD64Ari
         return result;
     }
 
+    @Override
+    public void emitVectorizedArrayStore(JavaKind kind, VectorOperation operation, Value dst, Value dstIndex, Value x, Value xIndex, Value y, Value yIndex, Value length) {
+        append(AMD64VectorizedArrayOp.createStore(this, kind, operation, load(dst), load(dstIndex), load(x), loadOrIllegal(xIndex), loadOrIllegal(y), loadOrIllegal(yIndex), load(length)));
+    }
+
+    @Override
+    public Variable emitVectorizedArrayReduction(JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, Value array, Value index, Value length) {
+        Variable result = newVariable(LIRKind.value(kind == JavaKind.Long ? AMD64Kind.QWORD : AMD64Kind.DWORD));
+        append(AMD64VectorizedArrayOp.createReduction(this, kind, elementKind, zeroExtend, operation, result, load(array), load(index), load(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayIndexOf(JavaKind kind, Value array, Value fromIndex, Value length, Value value) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayIndexOfOp(this, kind, result, load(array), load(fromIndex), load(length), load(value)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayMismatch(JavaKind kind, Value array1, Value offset1, Value array2, Value offset2, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayMismatchOp(this, kind, result, load(array1), load(offset1), load(array2), load(offset2), load(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind kind, Value array, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayHashCodeOp(this, kind, result, load(array), load(length)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value index, Value length, Value value) {
+        append(new AMD64ArrayFillOp(this, kind, load(array), load(index), load(length), load(value)));
+    }
+
+    private Value loadOrIllegal(Value value) {
+        return value == null ? Value.ILLEGAL : load(value);
+    }
+
     @Override
     public void emitReturn(JavaKind kind, Value input) {
         AllocatableValue operand = Value.ILLEGAL;
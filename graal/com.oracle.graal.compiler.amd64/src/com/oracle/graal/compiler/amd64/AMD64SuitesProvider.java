@@ -23,12 +23,23 @@
 package com.oracle.graal.compiler.amd64;
 
 import static com.oracle.graal.compiler.common.BackendOptions.ShouldOptimizeStackToStackMoves;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
+import static com.oracle.graal.compiler.common.GraalOptions.VectorizeLoops;
+
+import java.util.ListIterator;
 
 import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.java.DefaultSuitesProvider;
+import com.oracle.graal.lir.amd64.AMD64VectorizedArrayOp;
 import com.oracle.graal.lir.amd64.phases.StackMoveOptimizationPhase;
 import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.loop.phases.LoopPartialUnrollPhase;
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.common.RemoveValueProxyPhase;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.Suites;
 
 public class AMD64SuitesProvider extends DefaultSuitesProvider {
 
@@ -36,6 +47,21 @@ public class AMD64SuitesProvider extends DefaultSuitesProvider {
         super(compilerConfiguration, plugins);
     }
 
+    @Override
+    public Suites createSuites() {
+        Suites suites = super.createSuites();
+        if (OptLoopTransform.getValue() && VectorizeLoops.getValue()) {
+            // vectorize before partial unrolling, which would otherwise hide the simple loop shape
+            ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(LoopPartialUnrollPhase.class);
+            if (position == null) {
+                position = suites.getHighTier().findPhase(RemoveValueProxyPhase.class);
+            }
+            position.previous();
+            position.add(new LoopVectorizationPhase(AMD64VectorizedArrayOp.VECTOR_SIZE));
+        }
+        return suites;
+    }
+
     @Override
     public LIRSuites createLIRSuites() {
         LIRSuites lirSuites = super.createLIRSuites();
@@ -103,9 +103,18 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> FullUnroll = new OptionValue<>(true);
 
+    @Option(help = "Unroll hot counted loops into a main and a post loop", type = OptionType.Debug)
+    public static final OptionValue<Boolean> PartialUnroll = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionValue<Boolean> LoopUnswitch = new OptionValue<>(true);
 
+    @Option(help = "Replace range checks and invariant guards in counted loops by guards in front of the loop", type = OptionType.Debug)
+    public static final OptionValue<Boolean> LoopPredication = new OptionValue<>(false);
+
+    @Option(help = "Execute fills, copies, element-wise arithmetic and reductions over arrays in counted loops with vector instructions", type = OptionType.Debug)
+    public static final OptionValue<Boolean> VectorizeLoops = new OptionValue<>(false);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionValue<Float> MinimumPeelProbability = new OptionValue<>(0.35f);
 
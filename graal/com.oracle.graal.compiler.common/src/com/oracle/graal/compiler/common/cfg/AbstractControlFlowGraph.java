@@ -22,9 +22,7 @@
  */
 package com.oracle.graal.compiler.common.cfg;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -49,27 +47,11 @@ public interface AbstractControlFlowGraph<T extends AbstractBlockBase<T>> {
 
     /**
      * Computes the dominators of control flow graph.
+     *
+     * @see SemiNCADominators
      */
-    @SuppressWarnings("unchecked")
     static <T extends AbstractBlockBase<T>> void computeDominators(AbstractControlFlowGraph<T> cfg) {
-        List<T> reversePostOrder = cfg.getBlocks();
-        assert reversePostOrder.get(0).getPredecessorCount() == 0 : "start block has no predecessor and therefore no dominator";
-        for (int i = 1; i < reversePostOrder.size(); i++) {
-            T block = reversePostOrder.get(i);
-            assert block.getPredecessorCount() > 0;
-            T dominator = null;
-            for (T pred : block.getPredecessors()) {
-                if (!pred.isLoopEnd()) {
-                    dominator = (T) ((dominator == null) ? pred : commonDominatorRaw(dominator, pred));
-                }
-            }
-            // set dominator
-            block.setDominator(dominator);
-            if (dominator.getDominated().equals(Collections.emptyList())) {
-                dominator.setDominated(new ArrayList<>());
-            }
-            dominator.getDominated().add(block);
-        }
+        SemiNCADominators.compute(cfg);
         calcDominatorRanges(cfg.getStartBlock());
     }
 
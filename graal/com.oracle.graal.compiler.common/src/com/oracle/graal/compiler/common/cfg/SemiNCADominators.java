@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.common.cfg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes immediate dominators with the semi-NCA algorithm (Georgiadis, "Linear-Time Algorithms
+ * for Dominators and Related Problems", 2005): semidominators are computed as in Lengauer-Tarjan,
+ * and the immediate dominator of each vertex is then found as the nearest common ancestor of its
+ * semidominator and its DFS tree parent. All per-vertex state is kept in {@code int} arrays indexed
+ * by DFS preorder number, and all traversals are iterative, so the computation neither allocates
+ * per block nor walks long dominator chains for each merge.
+ *
+ * Like the original computation, edges leaving {@linkplain AbstractBlockBase#isLoopEnd() loop
+ * ends} are ignored. Since they are back edges, this does not change the result.
+ */
+final class SemiNCADominators {
+
+    private SemiNCADominators() {
+    }
+
+    static <T extends AbstractBlockBase<T>> void compute(AbstractControlFlowGraph<T> cfg) {
+        List<T> blocks = cfg.getBlocks();
+        int n = blocks.size();
+        assert blocks.get(0).getPredecessorCount() == 0 : "start block has no predecessor and therefore no dominator";
+
+        // preorder number -> block id and block id -> preorder number
+        int[] vertex = new int[n];
+        int[] number = new int[n];
+        int[] parent = new int[n];
+        int count = depthFirstSearch(blocks, vertex, number, parent);
+        assert count == n : "all blocks must be reachable from the start block";
+
+        int[] semi = new int[n];
+        int[] label = new int[n];
+        int[] ancestor = new int[n];
+        int[] stack = new int[n];
+        for (int v = 0; v < n; v++) {
+            semi[v] = v;
+            label[v] = v;
+            ancestor[v] = -1;
+        }
+        for (int w = n - 1; w > 0; w--) {
+            int semiW = semi[w];
+            for (T pred : blocks.get(vertex[w]).getPredecessors()) {
+                if (pred.isLoopEnd()) {
+                    continue;
+                }
+                int u = eval(number[pred.getId()], ancestor, label, semi, stack);
+                if (semi[u] < semiW) {
+                    semiW = semi[u];
+                }
+            }
+            semi[w] = semiW;
+            ancestor[w] = parent[w];
+        }
+
+        // parent[] is reused for the immediate dominators
+        int[] idom = parent;
+        for (int w = 1; w < n; w++) {
+            int d = idom[w];
+            while (d > semi[w]) {
+                d = idom[d];
+            }
+            idom[w] = d;
+        }
+
+        // Set the dominators in reverse post order so that the dominator depth of a block's
+        // dominator is always known and the dominated lists are ordered by block id.
+        for (int i = 1; i < n; i++) {
+            T block = blocks.get(i);
+            T dominator = blocks.get(vertex[idom[number[i]]]);
+            block.setDominator(dominator);
+            if (dominator.getDominated().isEmpty()) {
+                dominator.setDominated(new ArrayList<>());
+            }
+            dominator.getDominated().add(block);
+        }
+    }
+
+    /**
+     * Numbers the blocks in DFS preorder starting at the start block.
+     *
+     * @return the number of reached blocks
+     */
+    private static <T extends AbstractBlockBase<T>> int depthFirstSearch(List<T> blocks, int[] vertex, int[] number, int[] parent) {
+        int n = blocks.size();
+        for (int i = 0; i < n; i++) {
+            number[i] = -1;
+        }
+        // stack of preorder numbers and the index of the next successor to visit
+        int[] stackVertex = new int[n];
+        int[] stackSuccessor = new int[n];
+        int sp = 0;
+        int count = 0;
+
+        number[0] = count;
+        vertex[count] = 0;
+        parent[count] = 0;
+        count++;
+        stackVertex[sp] = 0;
+        stackSuccessor[sp] = 0;
+        sp++;
+        while (sp > 0) {
+            int v = stackVertex[sp - 1];
+            T block = blocks.get(vertex[v]);
+            List<T> successors = block.getSuccessors();
+            int index = stackSuccessor[sp - 1];
+            if (block.isLoopEnd() || index >= successors.size()) {
+                sp--;
+                continue;
+            }
+            stackSuccessor[sp - 1] = index + 1;
+            int successorId = successors.get(index).getId();
+            if (number[successorId] < 0) {
+                number[successorId] = count;
+                vertex[count] = successorId;
+                parent[count] = v;
+                stackVertex[sp] = count;
+                stackSuccessor[sp] = 0;
+                sp++;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the vertex with the minimal semidominator on the path from {@code v} to the root of
+     * its tree in the forest built so far, compressing that path.
+     */
+    private static int eval(int v, int[] ancestor, int[] label, int[] semi, int[] stack) {
+        if (ancestor[v] < 0) {
+            return v;
+        }
+        int sp = 0;
+        int u = v;
+        while (ancestor[ancestor[u]] >= 0) {
+            stack[sp++] = u;
+            u = ancestor[u];
+        }
+        while (sp > 0) {
+            int x = stack[--sp];
+            int a = ancestor[x];
+            if (semi[label[a]] < semi[label[x]]) {
+                label[x] = label[a];
+            }
+            ancestor[x] = ancestor[a];
+        }
+        return label[v];
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.common.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * An immutable hash map implemented as a hash array mapped trie. Updates return a new map that
+ * shares all unchanged subtrees with the original, so copying a map is free and two maps derived
+ * from a common ancestor can be {@linkplain #forEachDifference compared} by only walking the
+ * subtrees in which they differ.
+ *
+ * Keys are compared with {@link Object#equals(Object)}, values are compared by identity. Neither
+ * keys nor values may be {@code null}.
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Maximum number of trie levels: the bitmap levels for shifts 0 to 30, a collision node and
+     * the artificial root level used by the iterator.
+     */
+    private static final int MAX_DEPTH = 32 / BITS + 3;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    /**
+     * Receives the entries that differ between two maps.
+     */
+    public interface DifferenceVisitor<K, V> {
+
+        /**
+         * Visits a key whose value differs between the two maps.
+         *
+         * @param value the value in the receiver map, or {@code null} if the key is absent
+         * @param otherValue the value in the other map, or {@code null} if the key is absent
+         * @return {@code false} to stop the traversal
+         */
+        boolean visit(K key, V value, V otherValue);
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Leaf leaf = root.find(key, hash(key), 0);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    /**
+     * Gets the entry for {@code key}, or {@code null} if there is none. The entry of an unchanged
+     * mapping is the same object in every map that shares it.
+     */
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> getEntry(Object key) {
+        if (root == null) {
+            return null;
+        }
+        return (Map.Entry<K, V>) root.find(key, hash(key), 0);
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map that additionally maps {@code key} to {@code value}. Returns this map if it
+     * already maps {@code key} to exactly {@code value}.
+     */
+    public PersistentHashMap<K, V> put(K key, V value) {
+        assert key != null && value != null;
+        int hash = hash(key);
+        if (root == null) {
+            return new PersistentHashMap<>(new Leaf(key, value, hash), 1);
+        }
+        Leaf leaf = new Leaf(key, value, hash);
+        Node newRoot = root.put(leaf, 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, root.find(key, hash, 0) == null ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without a mapping for {@code key}. Returns this map if there is no such
+     * mapping.
+     */
+    public PersistentHashMap<K, V> remove(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns a map without the mappings for which {@code predicate} returns {@code true}.
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentHashMap<K, V> removeIf(BiPredicate<? super K, ? super V> predicate) {
+        PersistentHashMap<K, V> result = this;
+        for (Iterator<Leaf> iter = new LeafIterator(root); iter.hasNext();) {
+            Leaf leaf = iter.next();
+            if (predicate.test((K) leaf.key, (V) leaf.value)) {
+                result = result.remove(leaf.key);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Iterator<Leaf> iter = new LeafIterator(root); iter.hasNext();) {
+            Leaf leaf = iter.next();
+            action.accept((K) leaf.key, (V) leaf.value);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return (Iterator) new LeafIterator(root);
+    }
+
+    /**
+     * Visits every key that is mapped to a different value (or only present) in one of this map
+     * and {@code other}. Subtrees shared by both maps are skipped, so the cost is proportional to
+     * the number of updates that separate the two maps rather than to their size.
+     *
+     * @return {@code false} if the visitor stopped the traversal
+     */
+    public boolean forEachDifference(PersistentHashMap<K, V> other, DifferenceVisitor<K, V> visitor) {
+        return diff(root, other.root, 0, visitor);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Iterator<Leaf> iter = new LeafIterator(root); iter.hasNext();) {
+            sb.append(iter.next());
+            if (iter.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> boolean diff(Node a, Node b, int shift, DifferenceVisitor<K, V> visitor) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            for (Iterator<Leaf> iter = new LeafIterator(a == null ? b : a); iter.hasNext();) {
+                Leaf leaf = iter.next();
+                if (!(a == null ? visitor.visit((K) leaf.key, null, (V) leaf.value) : visitor.visit((K) leaf.key, (V) leaf.value, null))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof BitmapNode && b instanceof BitmapNode) {
+            BitmapNode left = (BitmapNode) a;
+            BitmapNode right = (BitmapNode) b;
+            int remaining = left.bitmap | right.bitmap;
+            while (remaining != 0) {
+                int bit = Integer.lowestOneBit(remaining);
+                remaining ^= bit;
+                if (!diff(left.child(bit), right.child(bit), shift + BITS, visitor)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Leaf && b instanceof Leaf) {
+            Leaf left = (Leaf) a;
+            Leaf right = (Leaf) b;
+            if (left.matches(right.key, right.hash)) {
+                return left.value == right.value || visitor.visit((K) left.key, (V) left.value, (V) right.value);
+            }
+        }
+        /*
+         * Different node kinds at the same position: fall back to lookups. Both subtrees are
+         * small in practice since they cover the same hash prefix.
+         */
+        for (Iterator<Leaf> iter = new LeafIterator(a); iter.hasNext();) {
+            Leaf leaf = iter.next();
+            Leaf otherLeaf = b.find(leaf.key, leaf.hash, shift);
+            if (otherLeaf == null || otherLeaf.value != leaf.value) {
+                if (!visitor.visit((K) leaf.key, (V) leaf.value, otherLeaf == null ? null : (V) otherLeaf.value)) {
+                    return false;
+                }
+            }
+        }
+        for (Iterator<Leaf> iter = new LeafIterator(b); iter.hasNext();) {
+            Leaf leaf = iter.next();
+            if (a.find(leaf.key, leaf.hash, shift) == null) {
+                if (!visitor.visit((K) leaf.key, null, (V) leaf.value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the smallest subtree at {@code shift} containing the two nodes, whose (full) hashes
+     * must be different.
+     */
+    private static Node merge(Node a, int hashA, Node b, int hashB, int shift) {
+        assert hashA != hashB;
+        int bitA = bit(hashA, shift);
+        int bitB = bit(hashB, shift);
+        if (bitA == bitB) {
+            return new BitmapNode(bitA, new Node[]{merge(a, hashA, b, hashB, shift + BITS)});
+        }
+        return new BitmapNode(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0 ? new Node[]{a, b} : new Node[]{b, a});
+    }
+
+    /**
+     * A trie node. {@link Leaf} and {@link CollisionNode} do not depend on their depth and may
+     * therefore be placed at any level, which keeps removal simple.
+     */
+    private abstract static class Node {
+
+        abstract Leaf find(Object key, int hash, int shift);
+
+        abstract Node put(Leaf leaf, int shift);
+
+        /**
+         * @return the replacement for this node, {@code null} if it became empty
+         */
+        abstract Node remove(Object key, int hash, int shift);
+
+        /**
+         * The nodes below this node, used for iteration.
+         */
+        abstract Node[] children();
+    }
+
+    private static final class Leaf extends Node implements Map.Entry<Object, Object> {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final Object key;
+        final Object value;
+        final int hash;
+
+        Leaf(Object key, Object value, int hash) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+        }
+
+        boolean matches(Object otherKey, int otherHash) {
+            return hash == otherHash && (key == otherKey || key.equals(otherKey));
+        }
+
+        @Override
+        Leaf find(Object k, int h, int shift) {
+            return matches(k, h) ? this : null;
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift) {
+            if (matches(leaf.key, leaf.hash)) {
+                return value == leaf.value ? this : leaf;
+            }
+            if (hash == leaf.hash) {
+                return new CollisionNode(hash, new Leaf[]{this, leaf});
+            }
+            return merge(this, hash, leaf, leaf.hash, shift);
+        }
+
+        @Override
+        Node remove(Object k, int h, int shift) {
+            return matches(k, h) ? null : this;
+        }
+
+        @Override
+        Node[] children() {
+            return NO_CHILDREN;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object newValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Map.Entry) {
+                Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+                return key.equals(other.getKey()) && value.equals(other.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Leaf find(Object key, int h, int shift) {
+            if (h == hash) {
+                for (Leaf leaf : leaves) {
+                    if (leaf.matches(key, h)) {
+                        return leaf;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift) {
+            if (leaf.hash != hash) {
+                return merge(this, hash, leaf, leaf.hash, shift);
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].matches(leaf.key, leaf.hash)) {
+                    if (leaves[i].value == leaf.value) {
+                        return this;
+                    }
+                    Leaf[] newLeaves = leaves.clone();
+                    newLeaves[i] = leaf;
+                    return new CollisionNode(hash, newLeaves);
+                }
+            }
+            Leaf[] newLeaves = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+            newLeaves[leaves.length] = leaf;
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Node remove(Object key, int h, int shift) {
+            if (h != hash) {
+                return this;
+            }
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].matches(key, h)) {
+                    if (leaves.length == 2) {
+                        return leaves[1 - i];
+                    }
+                    Leaf[] newLeaves = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, newLeaves, 0, i);
+                    System.arraycopy(leaves, i + 1, newLeaves, i, leaves.length - i - 1);
+                    return new CollisionNode(hash, newLeaves);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Node[] children() {
+            return leaves;
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+
+        final int bitmap;
+        final Node[] nodes;
+
+        BitmapNode(int bitmap, Node[] nodes) {
+            assert Integer.bitCount(bitmap) == nodes.length;
+            this.bitmap = bitmap;
+            this.nodes = nodes;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Node child(int bit) {
+            return (bitmap & bit) == 0 ? null : nodes[index(bit)];
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            Node node = child(bit(hash, shift));
+            return node == null ? null : node.find(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Leaf leaf, int shift) {
+            int bit = bit(leaf.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Node[] newNodes = new Node[nodes.length + 1];
+                System.arraycopy(nodes, 0, newNodes, 0, index);
+                newNodes[index] = leaf;
+                System.arraycopy(nodes, index, newNodes, index + 1, nodes.length - index);
+                return new BitmapNode(bitmap | bit, newNodes);
+            }
+            Node node = nodes[index];
+            Node newNode = node.put(leaf, shift + BITS);
+            if (newNode == node) {
+                return this;
+            }
+            Node[] newNodes = nodes.clone();
+            newNodes[index] = newNode;
+            return new BitmapNode(bitmap, newNodes);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Node node = nodes[index];
+            Node newNode = node.remove(key, hash, shift + BITS);
+            if (newNode == node) {
+                return this;
+            }
+            if (newNode == null) {
+                if (nodes.length == 1) {
+                    return null;
+                }
+                if (nodes.length == 2 && !(nodes[1 - index] instanceof BitmapNode)) {
+                    return nodes[1 - index];
+                }
+                Node[] newNodes = new Node[nodes.length - 1];
+                System.arraycopy(nodes, 0, newNodes, 0, index);
+                System.arraycopy(nodes, index + 1, newNodes, index, nodes.length - index - 1);
+                return new BitmapNode(bitmap ^ bit, newNodes);
+            }
+            if (nodes.length == 1 && !(newNode instanceof BitmapNode)) {
+                return newNode;
+            }
+            Node[] newNodes = nodes.clone();
+            newNodes[index] = newNode;
+            return new BitmapNode(bitmap, newNodes);
+        }
+
+        @Override
+        Node[] children() {
+            return nodes;
+        }
+    }
+
+    /**
+     * Depth-first iterator over the leaves of a trie that does not allocate per entry.
+     */
+    private static final class LeafIterator implements Iterator<Leaf> {
+
+        private final Node[][] stack = new Node[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf next;
+
+        LeafIterator(Node root) {
+            if (root == null) {
+                depth = -1;
+            } else {
+                stack[0] = new Node[]{root};
+            }
+            advance();
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Node[] nodes = stack[depth];
+                if (positions[depth] == nodes.length) {
+                    depth--;
+                    continue;
+                }
+                Node node = nodes[positions[depth]++];
+                if (node instanceof Leaf) {
+                    next = (Leaf) node;
+                    return;
+                }
+                depth++;
+                stack[depth] = node.children();
+                positions[depth] = 0;
+            }
+            next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Leaf next() {
+            Leaf result = next;
+            if (result == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return result;
+        }
+    }
+}
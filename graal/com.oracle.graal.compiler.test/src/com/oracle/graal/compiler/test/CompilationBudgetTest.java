@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.phases.CompilationBudget;
+import com.oracle.graal.phases.CompilationBudget.BudgetExceededException;
+import com.oracle.graal.phases.CompilationBudget.Resource;
+
+public class CompilationBudgetTest extends GraalCompilerTest {
+
+    public static int callee(int a, int b) {
+        return a * b + (a ^ b);
+    }
+
+    public static int snippet(int a) {
+        int sum = 0;
+        for (int i = 0; i < a; i++) {
+            sum += callee(i, a) + callee(a, i);
+        }
+        return sum;
+    }
+
+    @SuppressWarnings("try")
+    private void compileWithBudget(OptionValue<Integer> option, int value, Resource expected) {
+        try (OverrideScope s = OptionValue.override(option, value)) {
+            compile(getResolvedJavaMethod("snippet"), null);
+            Assert.fail("expected budget to be exceeded");
+        } catch (BudgetExceededException e) {
+            Assert.assertEquals(expected, e.getResource());
+        }
+    }
+
+    @Test
+    public void testNodes() {
+        compileWithBudget(CompilationBudget.Options.CompilationBudgetNodes, 5, Resource.Nodes);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testWithinBudget() {
+        try (OverrideScope s = OptionValue.override(CompilationBudget.Options.CompilationBudgetNodes, 100000)) {
+            test("snippet", 10);
+        }
+    }
+}
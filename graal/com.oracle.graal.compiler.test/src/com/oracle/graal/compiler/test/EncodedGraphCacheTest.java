@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.EncodedGraphCache;
+import com.oracle.graal.nodes.GraphEncoder;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class EncodedGraphCacheTest extends GraalCompilerTest {
+
+    public static int snippet1(int a) {
+        return a + 1;
+    }
+
+    public static int snippet2(int a, int b) {
+        return a < b ? a * b : a - b;
+    }
+
+    private EncodedGraph encode(ResolvedJavaMethod method) {
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+        return GraphEncoder.encodeSingleGraph(graph, getTarget().arch);
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        EncodedGraphCache cache = new EncodedGraphCache("TestEncodedGraphCache", Long.MAX_VALUE, null);
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet1");
+        Assert.assertNull(cache.get(method));
+        EncodedGraph encodedGraph = encode(method);
+        cache.put(method, encodedGraph);
+        Assert.assertSame(encodedGraph, cache.get(method));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEviction() {
+        ResolvedJavaMethod method1 = getResolvedJavaMethod("snippet1");
+        ResolvedJavaMethod method2 = getResolvedJavaMethod("snippet2");
+        EncodedGraph graph1 = encode(method1);
+        EncodedGraph graph2 = encode(method2);
+
+        EncodedGraphCache probe = new EncodedGraphCache("TestEncodedGraphCache", Long.MAX_VALUE, null);
+        probe.put(method1, graph1);
+        probe.put(method2, graph2);
+
+        /* Only one of the two graphs fits, the least recently used one must go. */
+        EncodedGraphCache cache = new EncodedGraphCache("TestEncodedGraphCache", probe.getSize() - 1, null);
+        cache.put(method1, graph1);
+        cache.put(method2, graph2);
+        Assert.assertEquals(1, cache.getEntryCount());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertNull(cache.get(method1));
+        Assert.assertSame(graph2, cache.get(method2));
+    }
+
+    @Test
+    public void testInvalidateMethod() {
+        EncodedGraphCache cache = new EncodedGraphCache("TestEncodedGraphCache", Long.MAX_VALUE, null);
+        ResolvedJavaMethod method1 = getResolvedJavaMethod("snippet1");
+        ResolvedJavaMethod method2 = getResolvedJavaMethod("snippet2");
+        cache.put(method1, encode(method1));
+        cache.put(method2, encode(method2));
+        cache.invalidate(method1);
+        Assert.assertNull(cache.get(method1));
+        Assert.assertNotNull(cache.get(method2));
+        Assert.assertEquals(1, cache.getInvalidations());
+    }
+
+    public abstract static class Shape {
+        public abstract int area();
+    }
+
+    public static final class Square extends Shape {
+        @Override
+        public int area() {
+            return 4;
+        }
+    }
+
+    /**
+     * Only loaded by {@link #testStaleAssumption()}, which invalidates the assumption that
+     * {@link Square#area()} is the only implementation of {@link Shape#area()}.
+     */
+    public static final class Circle extends Shape {
+        @Override
+        public int area() {
+            return 3;
+        }
+    }
+
+    public static int shapeSnippet(Shape shape) {
+        return shape.area();
+    }
+
+    private EncodedGraph encodeWithAssumptions(ResolvedJavaMethod method) {
+        StructuredGraph graph = parseEager(method, AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        Assume.assumeFalse("no class hierarchy assumption was made", graph.getAssumptions().isEmpty());
+        return GraphEncoder.encodeSingleGraph(graph, getTarget().arch);
+    }
+
+    @Test
+    public void testStaleAssumption() {
+        new Square().area();
+        EncodedGraphCache cache = new EncodedGraphCache("TestEncodedGraphCache", Long.MAX_VALUE, EncodedGraphCache::isStillValid);
+        ResolvedJavaMethod method = getResolvedJavaMethod("shapeSnippet");
+        EncodedGraph encodedGraph = encodeWithAssumptions(method);
+        cache.put(method, encodedGraph);
+        Assert.assertSame(encodedGraph, cache.get(method));
+
+        // loading a second implementation invalidates the devirtualization
+        Assert.assertEquals(3, new Circle().area());
+        Assert.assertNull(cache.get(method));
+        Assert.assertEquals(1, cache.getInvalidations());
+        Assert.assertEquals(0, cache.getEntryCount());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.loop.LoopPolicies;
+import com.oracle.graal.loop.phases.LoopPartialUnrollPhase;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopBeginNode.LoopType;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+
+public class LoopPartialUnrollTest extends GraalCompilerTest {
+
+    public static int sumSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static long stepSnippet(int start, int end) {
+        long result = 1;
+        for (int i = start; i < end; i += 3) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    public static int downSnippet(int n, int[] a) {
+        int last = -1;
+        for (int i = n; i > 0; i -= 2) {
+            a[i & 7] = i;
+            last = i;
+        }
+        return last;
+    }
+
+    @SuppressWarnings("try")
+    private void testUnrolled(String name, Object... args) {
+        try (OverrideScope s = OptionValue.override(GraalOptions.PartialUnroll, true, LoopPolicies.PartialUnrollMinFrequency, 0.0)) {
+            test(name, args);
+        }
+    }
+
+    @Test
+    public void testSum() {
+        for (int length = 0; length < 12; length++) {
+            int[] a = new int[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = i * 7 + 1;
+            }
+            testUnrolled("sumSnippet", a, length);
+        }
+    }
+
+    @Test
+    public void testStep() {
+        for (int end = -2; end < 30; end++) {
+            testUnrolled("stepSnippet", 0, end);
+        }
+        testUnrolled("stepSnippet", Integer.MIN_VALUE, Integer.MIN_VALUE + 5);
+        testUnrolled("stepSnippet", Integer.MIN_VALUE, Integer.MIN_VALUE + 10);
+        testUnrolled("stepSnippet", Integer.MAX_VALUE - 10, Integer.MAX_VALUE - 2);
+    }
+
+    @Test
+    public void testDown() {
+        for (int n = -2; n < 30; n++) {
+            testUnrolled("downSnippet", n, new int[8]);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testStructure() {
+        StructuredGraph graph = parseEager("sumSnippet", AllowAssumptions.YES);
+        try (OverrideScope s = OptionValue.override(GraalOptions.PartialUnroll, true, LoopPolicies.PartialUnrollMinFrequency, 0.0)) {
+            new LoopPartialUnrollPhase().apply(graph);
+        }
+        assertDeepEquals(2, graph.getNodes().filter(LoopBeginNode.class).count());
+        int mainLoops = 0;
+        for (LoopBeginNode loopBegin : graph.getNodes().filter(LoopBeginNode.class)) {
+            if (loopBegin.getLoopType() == LoopType.MAIN_LOOP) {
+                assertDeepEquals(LoopPolicies.PartialUnrollFactor.getValue().intValue(), loopBegin.getUnrollFactor());
+                mainLoops++;
+            }
+        }
+        assertDeepEquals(1, mainLoops);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import jdk.internal.jvmci.meta.DeoptimizationReason;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.loop.phases.LoopPredicationPhase;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.spi.LoweringTool;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.common.FloatingReadPhase;
+import com.oracle.graal.phases.common.LoweringPhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    public static int sumSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int offsetSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 1; i < n; i++) {
+            sum += a[i - 1] * a[i];
+        }
+        return sum;
+    }
+
+    public static int downSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = n; i >= 0; i--) {
+            sum = sum * 3 + a[i];
+        }
+        return sum;
+    }
+
+    private static int[] array(int length) {
+        int[] a = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 7 + 1;
+        }
+        return a;
+    }
+
+    @SuppressWarnings("try")
+    private void testPredicated(String name, Object... args) {
+        try (OverrideScope s = OptionValue.override(GraalOptions.LoopPredication, true)) {
+            test(name, args);
+        }
+    }
+
+    @Test
+    public void testSum() {
+        for (int n = -1; n < 12; n++) {
+            testPredicated("sumSnippet", array(8), n);
+        }
+        testPredicated("sumSnippet", null, 0);
+        testPredicated("sumSnippet", null, 1);
+    }
+
+    @Test
+    public void testOffset() {
+        for (int n = -1; n < 12; n++) {
+            testPredicated("offsetSnippet", array(8), n);
+        }
+        testPredicated("offsetSnippet", array(8), Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void testDown() {
+        for (int n = -2; n < 12; n++) {
+            testPredicated("downSnippet", array(8), n);
+        }
+        testPredicated("downSnippet", array(8), Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testStructure() {
+        StructuredGraph graph = parseEager("sumSnippet", AllowAssumptions.YES);
+        PhaseContext context = new PhaseContext(getProviders());
+        CanonicalizerPhase canonicalizer = new CanonicalizerPhase();
+        new LoweringPhase(canonicalizer, LoweringTool.StandardLoweringStage.HIGH_TIER).apply(graph, context);
+        new FloatingReadPhase().apply(graph);
+        canonicalizer.apply(graph, context);
+        MidTierContext midTierContext = new MidTierContext(getProviders(), getTargetProvider(), OptimisticOptimizations.ALL, graph.method().getProfilingInfo());
+        new LoopPredicationPhase().apply(graph, midTierContext);
+
+        int predicates = 0;
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            Assert.assertNotEquals(DeoptimizationReason.BoundsCheckException, guard.reason());
+            Assert.assertNotEquals(DeoptimizationReason.NullCheckException, guard.reason());
+            if (guard.reason() == DeoptimizationReason.LoopLimitCheck && !guard.isNegated()) {
+                // the overflow guard aside, every predicate must pass if the loop is not entered
+                Assert.assertTrue(guard.condition() instanceof ShortCircuitOrNode);
+                predicates++;
+            }
+        }
+        Assert.assertTrue(predicates > 0);
+    }
+}
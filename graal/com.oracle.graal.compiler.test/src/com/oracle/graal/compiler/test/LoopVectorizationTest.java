@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.loop.phases.LoopVectorizationPhase;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.extended.VectorizedArrayReductionNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayStoreNode;
+import com.oracle.graal.phases.common.CanonicalizerPhase;
+import com.oracle.graal.phases.tiers.PhaseContext;
+
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    private static final int[] LENGTHS = {0, 1, 3, 4, 7, 8, 15, 16, 17, 33, 100};
+
+    public static int[] fillSnippet(int[] a, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            a[i] = value;
+        }
+        return a;
+    }
+
+    public static byte[] copySnippet(byte[] dst, byte[] src, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i + 1] = src[i];
+        }
+        return dst;
+    }
+
+    public static float[] addSnippet(float[] dst, float[] x, float[] y, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = x[i] + y[i];
+        }
+        return dst;
+    }
+
+    public static short[] scaleSnippet(short[] dst, short[] x, short factor, int n) {
+        for (int i = 0; i < n; i++) {
+            dst[i] = (short) (x[i] * factor);
+        }
+        return dst;
+    }
+
+    public static int[] shiftDownSnippet(int[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i] = a[i + 1] - 3;
+        }
+        return a;
+    }
+
+    public static long[] shiftUpSnippet(long[] a, int n) {
+        for (int i = 0; i < n; i++) {
+            a[i + 1] = a[i] ^ 5;
+        }
+        return a;
+    }
+
+    public static int sumSnippet(int[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static long checksumSnippet(long[] a, int start, int n) {
+        long checksum = 17;
+        for (int i = start; i < n; i++) {
+            checksum ^= a[i];
+        }
+        return checksum;
+    }
+
+    public static int byteSumSnippet(byte[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static int unsignedByteSumSnippet(byte[] a, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i] & 0xff;
+        }
+        return sum;
+    }
+
+    public static int charXorSnippet(char[] a, int n) {
+        int checksum = 0;
+        for (int i = 0; i < n; i++) {
+            checksum ^= a[i];
+        }
+        return checksum;
+    }
+
+    public static long byteToLongSumSnippet(byte[] a, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    public static long unsignedIntSumSnippet(int[] a, int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i] & 0xffffffffL;
+        }
+        return sum;
+    }
+
+    private static int[] ints(int length) {
+        int[] a = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 31 + 7;
+        }
+        return a;
+    }
+
+    private static int[] negativeInts(int length) {
+        int[] a = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * -0x1234567;
+        }
+        return a;
+    }
+
+    private static long[] longs(int length) {
+        long[] a = new long[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 0x123456789L;
+        }
+        return a;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] a = new byte[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = (byte) (i * 37);
+        }
+        return a;
+    }
+
+    private static short[] shorts(int length) {
+        short[] a = new short[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = (short) (i * 1021);
+        }
+        return a;
+    }
+
+    private static char[] chars(int length) {
+        char[] a = new char[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = (char) (i * 4099);
+        }
+        return a;
+    }
+
+    private static float[] floats(int length) {
+        float[] a = new float[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 0.37f;
+        }
+        return a;
+    }
+
+    @SuppressWarnings("try")
+    private void testVectorized(String name, Object... args) {
+        try (OverrideScope s = OptionValue.override(GraalOptions.VectorizeLoops, true)) {
+            test(name, args);
+        }
+    }
+
+    @Test
+    public void testFill() {
+        for (int length : LENGTHS) {
+            testVectorized("fillSnippet", supply(() -> new int[length]), length, 42);
+            testVectorized("fillSnippet", supply(() -> new int[length]), length + 1, 42);
+        }
+        testVectorized("fillSnippet", null, 0, 42);
+        testVectorized("fillSnippet", null, 20, 42);
+    }
+
+    @Test
+    public void testCopy() {
+        for (int length : LENGTHS) {
+            testVectorized("copySnippet", supply(() -> new byte[length + 1]), bytes(length), length);
+            testVectorized("copySnippet", supply(() -> new byte[length]), bytes(length), length);
+        }
+        testVectorized("copySnippet", new byte[40], null, 20);
+    }
+
+    @Test
+    public void testAdd() {
+        for (int length : LENGTHS) {
+            testVectorized("addSnippet", supply(() -> new float[length]), floats(length), floats(length + 3), length);
+            testVectorized("addSnippet", supply(() -> new float[length]), floats(length), floats(length / 2), length);
+        }
+    }
+
+    @Test
+    public void testScale() {
+        for (int length : LENGTHS) {
+            testVectorized("scaleSnippet", supply(() -> new short[length]), shorts(length), (short) -77, length);
+        }
+    }
+
+    @Test
+    public void testOverlap() {
+        for (int length : LENGTHS) {
+            testVectorized("shiftDownSnippet", supply(() -> ints(length + 1)), length);
+            testVectorized("shiftUpSnippet", supply(() -> longs(length + 1)), length);
+            testVectorized("shiftDownSnippet", supply(() -> ints(length)), length);
+        }
+    }
+
+    @Test
+    public void testReduction() {
+        for (int length : LENGTHS) {
+            testVectorized("sumSnippet", ints(length), length);
+            testVectorized("sumSnippet", ints(length), length + 1);
+            testVectorized("checksumSnippet", longs(length), 1, length);
+            testVectorized("checksumSnippet", longs(length), -1, length);
+        }
+        testVectorized("sumSnippet", null, 0);
+        testVectorized("sumSnippet", null, 20);
+    }
+
+    @Test
+    public void testExtendingReduction() {
+        for (int length : LENGTHS) {
+            testVectorized("byteSumSnippet", bytes(length), length);
+            testVectorized("unsignedByteSumSnippet", bytes(length), length);
+            testVectorized("charXorSnippet", chars(length), length);
+            testVectorized("byteToLongSumSnippet", bytes(length), length);
+            testVectorized("unsignedIntSumSnippet", negativeInts(length), length);
+        }
+        testVectorized("byteSumSnippet", bytes(20), 21);
+    }
+
+    private StructuredGraph vectorize(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        new LoopVectorizationPhase(16).apply(graph);
+        new CanonicalizerPhase().apply(graph, new PhaseContext(getProviders()));
+        return graph;
+    }
+
+    @Test
+    public void testStructure() {
+        Assert.assertEquals(1, vectorize("fillSnippet").getNodes().filter(VectorizedArrayStoreNode.class).count());
+        Assert.assertEquals(1, vectorize("addSnippet").getNodes().filter(VectorizedArrayStoreNode.class).count());
+        Assert.assertEquals(1, vectorize("scaleSnippet").getNodes().filter(VectorizedArrayStoreNode.class).count());
+        Assert.assertEquals(1, vectorize("checksumSnippet").getNodes().filter(VectorizedArrayReductionNode.class).count());
+    }
+
+    private VectorizedArrayReductionNode vectorizeReduction(String snippet) {
+        return vectorize(snippet).getNodes().filter(VectorizedArrayReductionNode.class).first();
+    }
+
+    @Test
+    public void testExtendingReductionStructure() {
+        VectorizedArrayReductionNode signed = vectorizeReduction("byteSumSnippet");
+        Assert.assertEquals(JavaKind.Byte, signed.getElementKind());
+        Assert.assertFalse(signed.isZeroExtend());
+        VectorizedArrayReductionNode unsigned = vectorizeReduction("unsignedByteSumSnippet");
+        Assert.assertEquals(JavaKind.Byte, unsigned.getElementKind());
+        Assert.assertTrue(unsigned.isZeroExtend());
+        Assert.assertTrue(vectorizeReduction("charXorSnippet").isZeroExtend());
+        Assert.assertEquals(JavaKind.Byte, vectorizeReduction("byteToLongSumSnippet").getElementKind());
+        VectorizedArrayReductionNode unsignedInt = vectorizeReduction("unsignedIntSumSnippet");
+        Assert.assertEquals(JavaKind.Int, unsignedInt.getElementKind());
+        Assert.assertTrue(unsignedInt.isZeroExtend());
+    }
+}
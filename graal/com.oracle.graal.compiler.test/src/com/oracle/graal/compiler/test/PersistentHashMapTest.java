@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
+
+public class PersistentHashMapTest {
+
+    /**
+     * Key with a configurable hash code, used to force hash collisions.
+     */
+    private static final class Key {
+        private final int id;
+        private final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == id;
+        }
+
+        @Override
+        public String toString() {
+            return "Key" + id;
+        }
+    }
+
+    private static void assertSameContents(Map<Key, Object> expected, PersistentHashMap<Key, Object> actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<Key, Object> iterated = new HashMap<>();
+        for (Map.Entry<Key, Object> entry : actual) {
+            assertTrue(iterated.put(entry.getKey(), entry.getValue()) == null);
+        }
+        assertEquals(expected, iterated);
+        for (Map.Entry<Key, Object> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    private static void randomOperations(int keyRange, int hashRange) {
+        Random random = new Random(keyRange * 31 + hashRange);
+        PersistentHashMap<Key, Object> map = PersistentHashMap.empty();
+        Map<Key, Object> expected = new HashMap<>();
+        PersistentHashMap<Key, Object> snapshot = map;
+        Map<Key, Object> expectedSnapshot = new HashMap<>();
+        for (int i = 0; i < 4000; i++) {
+            int id = random.nextInt(keyRange);
+            Key key = new Key(id, id % hashRange);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                Object value = new Object();
+                map = map.put(key, value);
+                expected.put(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+            if (i == 2000) {
+                snapshot = map;
+                expectedSnapshot = new HashMap<>(expected);
+            }
+        }
+        assertSameContents(expected, map);
+        assertSameContents(expectedSnapshot, snapshot);
+
+        Set<Key> expectedDifferences = new HashSet<>(expected.keySet());
+        expectedDifferences.addAll(expectedSnapshot.keySet());
+        Map<Key, Object> finalSnapshot = expectedSnapshot;
+        expectedDifferences.removeIf(key -> expected.get(key) == finalSnapshot.get(key));
+        Set<Key> differences = new HashSet<>();
+        assertTrue(map.forEachDifference(snapshot, (key, value, otherValue) -> {
+            assertSame(expected.get(key), value);
+            assertSame(finalSnapshot.get(key), otherValue);
+            assertTrue(differences.add(key));
+            return true;
+        }));
+        assertEquals(expectedDifferences, differences);
+    }
+
+    @Test
+    public void testRandom() {
+        randomOperations(100, Integer.MAX_VALUE);
+        randomOperations(10000, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testCollisions() {
+        randomOperations(100, 3);
+        randomOperations(1000, 64);
+    }
+
+    @Test
+    public void testSharing() {
+        PersistentHashMap<Key, Object> map = PersistentHashMap.empty();
+        Object value = new Object();
+        for (int i = 0; i < 1000; i++) {
+            map = map.put(new Key(i, i), value);
+        }
+        assertSame(map, map.put(new Key(5, 5), value));
+        assertSame(map, map.remove(new Key(1000, 1000)));
+        assertSame(map.getEntry(new Key(7, 7)), map.put(new Key(8, 8), new Object()).getEntry(new Key(7, 7)));
+        assertTrue(map.forEachDifference(map, (key, v, otherValue) -> false));
+
+        PersistentHashMap<Key, Object> changed = map.put(new Key(3, 3), new Object());
+        assertFalse(changed.forEachDifference(map, (key, v, otherValue) -> false));
+        assertTrue(map.removeIf((key, v) -> true).isEmpty());
+    }
+}
@@ -22,19 +22,30 @@
  */
 package com.oracle.graal.compiler.test;
 
+import java.util.HashSet;
 import java.util.List;
 
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
 import org.junit.Test;
 
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeMap;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
 import com.oracle.graal.nodes.FrameState;
 import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.AddNode;
 import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
+import com.oracle.graal.nodes.calc.NegateNode;
 import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.schedule.SchedulePhase;
 import com.oracle.graal.phases.schedule.SchedulePhase.SchedulingStrategy;
@@ -72,4 +83,93 @@ public class SchedulingTest extends GraphScheduleTest {
             }
         }
     }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testScheduleReuse() {
+        try (OverrideScope s = OptionValue.override(SchedulePhase.Options.ReuseSchedules, true)) {
+            checkScheduleReuse();
+        }
+    }
+
+    private void checkScheduleReuse() {
+        StructuredGraph graph = parseEager("testValueProxyInputsSnippet", AllowAssumptions.YES);
+        SchedulePhase schedule = new SchedulePhase(SchedulingStrategy.EARLIEST);
+        schedule.apply(graph);
+        ControlFlowGraph cfg = schedule.getCFG();
+
+        SchedulePhase unchanged = new SchedulePhase(SchedulingStrategy.EARLIEST);
+        unchanged.apply(graph);
+        assertTrue(unchanged.getCFG() == cfg);
+
+        SchedulePhase latest = new SchedulePhase(SchedulingStrategy.LATEST);
+        latest.apply(graph);
+        assertTrue(latest.getCFG() != cfg);
+        cfg = latest.getCFG();
+
+        ConstantNode.forInt(42, graph);
+        SchedulePhase changed = new SchedulePhase(SchedulingStrategy.LATEST);
+        changed.apply(graph);
+        assertTrue(changed.getCFG() != cfg);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testEarliestScheduleUpdate() {
+        StructuredGraph graph = parseEager("testValueProxyInputsSnippet", AllowAssumptions.YES);
+        ReturnNode ret = graph.getNodes(ReturnNode.TYPE).first();
+        ValueNode result = ret.result();
+
+        try (OverrideScope s = OptionValue.override(SchedulePhase.Options.ReuseSchedules, true)) {
+            SchedulePhase schedule = new SchedulePhase(SchedulingStrategy.EARLIEST);
+            schedule.apply(graph);
+            ControlFlowGraph cfg = schedule.getCFG();
+
+            // a new floating node is placed and the return is ordered after it
+            NegateNode negate = graph.addWithoutUnique(new NegateNode(result));
+            ret.replaceFirstInput(result, negate);
+            assertScheduleUpdated(graph, cfg);
+
+            // a deleted node is dropped from its block
+            ret.replaceFirstInput(negate, result);
+            negate.safeDelete();
+            assertScheduleUpdated(graph, cfg);
+
+            // control flow changes force a recomputation
+            FixedWithNextNode pred = (FixedWithNextNode) ret.predecessor();
+            pred.setNext(null);
+            pred.setNext(ret);
+            SchedulePhase changed = new SchedulePhase(SchedulingStrategy.EARLIEST);
+            changed.apply(graph);
+            assertTrue(changed.getCFG() != cfg);
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void assertScheduleUpdated(StructuredGraph graph, ControlFlowGraph cfg) {
+        SchedulePhase updated = new SchedulePhase(SchedulingStrategy.EARLIEST);
+        updated.apply(graph);
+        assertTrue("schedule was not updated", updated.getCFG() == cfg);
+
+        SchedulePhase fresh = new SchedulePhase(SchedulingStrategy.EARLIEST);
+        try (OverrideScope s = OptionValue.override(SchedulePhase.Options.ReuseSchedules, false)) {
+            fresh.apply(graph);
+        }
+        List<Block> updatedBlocks = cfg.getBlocks();
+        List<Block> freshBlocks = fresh.getCFG().getBlocks();
+        assertDeepEquals(freshBlocks.size(), updatedBlocks.size());
+        for (int i = 0; i < updatedBlocks.size(); i++) {
+            List<Node> updatedNodes = updated.nodesFor(updatedBlocks.get(i));
+            assertDeepEquals(new HashSet<>(fresh.nodesFor(freshBlocks.get(i))), new HashSet<>(updatedNodes));
+            for (int j = 0; j < updatedNodes.size(); j++) {
+                Node node = updatedNodes.get(j);
+                assertTrue(node.toString(), node.isAlive());
+                for (Node input : node.inputs()) {
+                    if (!(input instanceof StateSplit && ((StateSplit) input).stateAfter() == node) && updatedNodes.contains(input)) {
+                        assertTrue(input + " scheduled after its usage " + node, updatedNodes.indexOf(input) < j);
+                    }
+                }
+            }
+        }
+    }
 }
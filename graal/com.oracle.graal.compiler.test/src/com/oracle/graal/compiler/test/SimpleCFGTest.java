@@ -38,6 +38,7 @@ import com.oracle.graal.nodes.MergeNode;
 import com.oracle.graal.nodes.ReturnNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.extended.ValueAnchorNode;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 
@@ -113,6 +114,68 @@ public class SimpleCFGTest extends GraalCompilerTest {
         assertPostdominator(blocks.get(3), null);
     }
 
+    @Test
+    public void testCachedCFG() {
+        StructuredGraph graph = new StructuredGraph(AllowAssumptions.YES);
+
+        EndNode trueEnd = graph.add(new EndNode());
+        EndNode falseEnd = graph.add(new EndNode());
+
+        AbstractBeginNode trueBegin = graph.add(new BeginNode());
+        trueBegin.setNext(trueEnd);
+        AbstractBeginNode falseBegin = graph.add(new BeginNode());
+        falseBegin.setNext(falseEnd);
+
+        IfNode ifNode = graph.add(new IfNode(null, trueBegin, falseBegin, 0.5));
+        graph.start().setNext(ifNode);
+
+        AbstractMergeNode merge = graph.add(new MergeNode());
+        merge.addForwardEnd(trueEnd);
+        merge.addForwardEnd(falseEnd);
+        ReturnNode returnNode = graph.add(new ReturnNode(null));
+        merge.setNext(returnNode);
+
+        ControlFlowGraph cfg = ControlFlowGraph.computeCached(graph, false, true, false);
+        Assert.assertSame(cfg, ControlFlowGraph.computeCached(graph, true, true, true));
+        assertPostdominator(cfg.getStartBlock(), cfg.blockFor(merge));
+
+        // local edits of fixed nodes update the cached graph
+        Block mergeBlock = cfg.blockFor(merge);
+        ValueAnchorNode anchor = graph.add(new ValueAnchorNode(null));
+        graph.addBeforeFixed(returnNode, anchor);
+        Assert.assertSame(cfg, ControlFlowGraph.computeCached(graph, true, true, true));
+        assertDeepEquals(mergeBlock, cfg.blockFor(anchor));
+        assertDeepEquals(returnNode, mergeBlock.getEndNode());
+
+        ValueAnchorNode lastAnchor = graph.add(new ValueAnchorNode(null));
+        graph.addAfterFixed(trueBegin, lastAnchor);
+        Assert.assertSame(cfg, ControlFlowGraph.computeCached(graph, true, true, true));
+        Block trueBlock = cfg.blockFor(trueBegin);
+        assertDeepEquals(trueBlock, cfg.blockFor(lastAnchor));
+
+        graph.removeFixed(anchor);
+        Assert.assertSame(cfg, ControlFlowGraph.computeCached(graph, true, true, true));
+
+        // other control flow changes invalidate it
+        merge.setNext(null);
+        merge.setNext(returnNode);
+        ControlFlowGraph newCfg = ControlFlowGraph.computeCached(graph, true, true, true);
+        Assert.assertNotSame(cfg, newCfg);
+        assertDeepEquals(4, newCfg.getBlocks().size());
+
+        // including changes of the ends of a merge, which are inputs rather than successors
+        merge.removeEnd(falseEnd);
+        Assert.assertNull(graph.getCachedControlFlowGraph());
+        merge.addForwardEnd(falseEnd);
+        Assert.assertNotSame(newCfg, ControlFlowGraph.computeCached(graph, true, true, true));
+
+        // branch probabilities change the block probabilities but not the cached graph
+        ControlFlowGraph probabilityCfg = ControlFlowGraph.computeCached(graph, false, false, false);
+        ifNode.setTrueSuccessorProbability(0.25);
+        Assert.assertSame(probabilityCfg, ControlFlowGraph.computeCached(graph, false, false, false));
+        Assert.assertEquals(0.25, probabilityCfg.blockFor(trueBegin).probability(), 0.0);
+    }
+
     public static void assertDominator(Block block, Block expectedDominator) {
         Assert.assertEquals("dominator of " + block, expectedDominator, block.getDominator());
     }
@@ -23,11 +23,19 @@
 package com.oracle.graal.compiler;
 
 import static com.oracle.graal.compiler.GraalCompiler.Options.EmitLIRRepeatCount;
+import static com.oracle.graal.compiler.common.GraalOptions.ConditionalElimination;
+import static com.oracle.graal.compiler.common.GraalOptions.FullUnroll;
+import static com.oracle.graal.compiler.common.GraalOptions.OptEliminatePartiallyRedundantGuards;
+import static com.oracle.graal.compiler.common.GraalOptions.OptLoopTransform;
+import static com.oracle.graal.compiler.common.GraalOptions.OptReadElimination;
+import static com.oracle.graal.compiler.common.GraalOptions.PartialEscapeAnalysis;
 import static com.oracle.graal.compiler.common.GraalOptions.RegisterPressure;
 import static com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig.ALL_REGISTERS;
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Optional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import jdk.internal.jvmci.code.CallingConvention;
@@ -53,6 +61,7 @@ import com.oracle.graal.compiler.LIRGenerationPhase.LIRGenerationContext;
 import com.oracle.graal.compiler.common.alloc.ComputeBlockOrder;
 import com.oracle.graal.compiler.common.alloc.RegisterAllocationConfig;
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.compiler.phases.HighTier;
 import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
@@ -74,6 +83,7 @@ import com.oracle.graal.lir.phases.PreAllocationOptimizationPhase.PreAllocationO
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.cfg.Block;
 import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+import com.oracle.graal.phases.CompilationBudget;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.PhaseSuite;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
@@ -185,7 +195,7 @@ public class GraalCompiler {
     @SuppressWarnings("try")
     public static <T extends CompilationResult> T compile(Request<T> r) {
         assert !r.graph.isFrozen();
-        try (Scope s0 = Debug.scope("GraalCompiler", r.graph, r.providers.getCodeCache())) {
+        try (Scope s0 = Debug.scope("GraalCompiler", r.graph, r.providers.getCodeCache()); CompilationBudget budget = CompilationBudget.open()) {
             SchedulePhase schedule = emitFrontEnd(r.providers, r.backend, r.graph, r.graphBuilderSuite, r.optimisticOpts, r.profilingInfo, r.suites);
             emitBackEnd(r.graph, null, r.cc, r.installedCodeOwner, r.backend, r.compilationResult, r.factory, schedule, null, r.lirSuites);
         } catch (Throwable e) {
@@ -194,6 +204,24 @@ public class GraalCompiler {
         return r.compilationResult;
     }
 
+    /**
+     * Gets option overrides that disable the optional optimizations whose cost grows fastest with
+     * the size of a graph (inlining, partial escape analysis, loop transformations, read and
+     * conditional elimination). Suites created while these overrides are in effect still contain
+     * all phases required for correct code.
+     */
+    public static Map<OptionValue<?>, Object> getReducedOptimizationOverrides() {
+        Map<OptionValue<?>, Object> overrides = new HashMap<>();
+        overrides.put(HighTier.Options.Inline, false);
+        overrides.put(FullUnroll, false);
+        overrides.put(OptLoopTransform, false);
+        overrides.put(PartialEscapeAnalysis, false);
+        overrides.put(ConditionalElimination, false);
+        overrides.put(OptReadElimination, false);
+        overrides.put(OptEliminatePartiallyRedundantGuards, false);
+        return overrides;
+    }
+
     public static ProfilingInfo getProfilingInfo(StructuredGraph graph) {
         if (graph.method() != null) {
             return graph.method().getProfilingInfo();
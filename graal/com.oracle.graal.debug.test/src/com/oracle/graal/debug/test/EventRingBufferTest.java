@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.debug.EventRingBuffer;
+import com.oracle.graal.debug.EventRingBuffer.Kind;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testRegisterName() {
+        int id = EventRingBuffer.registerName("EventRingBufferTest.testRegisterName");
+        Assert.assertEquals(id, EventRingBuffer.registerName("EventRingBufferTest.testRegisterName"));
+        Assert.assertNotEquals(id, EventRingBuffer.registerName("EventRingBufferTest.otherName"));
+    }
+
+    @Test
+    public void testDump() throws InterruptedException {
+        Assume.assumeTrue(EventRingBuffer.isEnabled());
+        String threadName = "EventRingBufferTest.testDump";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Thread thread = new Thread(threadName) {
+            @Override
+            public void run() {
+                String method = "Test.method()";
+                int phase = EventRingBuffer.registerName("TestPhase");
+                EventRingBuffer.compilationStarted(42, method);
+                EventRingBuffer.recordInCompilation(Kind.PhaseStart, phase);
+                EventRingBuffer.recordInCompilation(Kind.PhaseEnd, phase);
+                EventRingBuffer.compilationFinished(method);
+                // the buffer of a thread that ended may already be reclaimed
+                EventRingBuffer.dumpAll(new PrintStream(outputStream));
+            }
+        };
+        thread.start();
+        thread.join();
+
+        String[] lines = outputStream.toString().split("\r?\n");
+        int start = 0;
+        while (!lines[start].contains(threadName)) {
+            start++;
+        }
+        Assert.assertTrue(lines[start], lines[start].contains("(4 of 4 retained)"));
+        Assert.assertTrue(lines[start + 1], lines[start + 1].matches(".* CompilationStart +Test\\.method\\(\\) 42"));
+        Assert.assertTrue(lines[start + 2], lines[start + 2].matches(".* PhaseStart +TestPhase 42"));
+        Assert.assertTrue(lines[start + 3], lines[start + 3].matches(".* PhaseEnd +TestPhase 42"));
+        Assert.assertTrue(lines[start + 4], lines[start + 4].matches(".* CompilationEnd +Test\\.method\\(\\) 42"));
+    }
+
+    @Test
+    public void testWrapAround() throws InterruptedException {
+        Assume.assumeTrue(EventRingBuffer.isEnabled());
+        String threadName = "EventRingBufferTest.testWrapAround";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Thread thread = new Thread(threadName) {
+            @Override
+            public void run() {
+                int name = EventRingBuffer.registerName("Wrap");
+                for (int i = 0; i < 100000; i++) {
+                    EventRingBuffer.record(Kind.CodeInstall, name, i);
+                }
+                EventRingBuffer.dumpAll(new PrintStream(outputStream));
+            }
+        };
+        thread.start();
+        thread.join();
+
+        String[] lines = outputStream.toString().split("\r?\n");
+        int start = 0;
+        while (!lines[start].contains(threadName)) {
+            start++;
+        }
+        Assert.assertTrue(lines[start], lines[start].matches(".*\\(\\d+ of 100000 retained\\):"));
+        int end = start + 1;
+        while (end < lines.length && lines[end].startsWith("  ")) {
+            end++;
+        }
+        Assert.assertTrue(lines[end - 1], lines[end - 1].endsWith(" Wrap 99999"));
+    }
+}
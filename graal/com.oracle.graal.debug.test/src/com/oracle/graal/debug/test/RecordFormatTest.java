@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.graal.debug.RecordFormat;
+
+public class RecordFormatTest {
+
+    private static final String[] COLUMNS = {"name", "value", "reason"};
+
+    @Test
+    public void testJSON() {
+        Assert.assertNull(RecordFormat.JSON.header(COLUMNS));
+        String line = RecordFormat.JSON.format(COLUMNS, new Object[]{"a\"b\n", 42L, null});
+        Assert.assertEquals("{\"name\":\"a\\\"b\\n\",\"value\":42,\"reason\":null}", line);
+    }
+
+    @Test
+    public void testCSV() {
+        Assert.assertEquals("name,value,reason", RecordFormat.CSV.header(COLUMNS));
+        String line = RecordFormat.CSV.format(COLUMNS, new Object[]{"a,\"b\"", 42L, null});
+        Assert.assertEquals("\"a,\"\"b\"\"\",42,", line);
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(RecordFormat.JSON, RecordFormat.parse("json"));
+        Assert.assertEquals(RecordFormat.CSV, RecordFormat.parse("CSV"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknown() {
+        RecordFormat.parse("xml");
+    }
+}
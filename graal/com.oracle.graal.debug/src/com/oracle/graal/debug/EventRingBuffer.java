@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug;
+
+import java.io.PrintStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.internal.jvmci.meta.JavaMethod;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.StableOptionValue;
+
+/**
+ * A fixed-size ring buffer of compact compilation events per thread. Unlike {@link DebugMetric}s
+ * and {@link DebugTimer}s, recording an event neither allocates nor takes a lock, so the buffers
+ * can be enabled in production. The most recent events of all threads can be
+ * {@linkplain #dumpAll dumped} on demand or when a compilation fails.
+ *
+ * Each event occupies two preallocated {@code long} slots: a {@link System#nanoTime()} timestamp and
+ * the {@link Kind}, a {@linkplain #registerName registered name} and a 32-bit value packed into a
+ * single word. Events about a method refer to the method object itself instead of a name, which is
+ * only formatted when the buffer is dumped; the reference is dropped once the event is overwritten.
+ * A buffer is only written by its owning thread. Other threads reading it while it is written may
+ * see the most recent events partially updated.
+ *
+ * The buffers are only weakly referenced from the list of all buffers, so the buffer of a thread
+ * that ended is eventually reclaimed.
+ */
+public final class EventRingBuffer {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Number of compilation events retained per thread (rounded up to a power of 2, 0 disables the event buffers)", type = OptionType.Debug)
+        public static final StableOptionValue<Integer> EventRingBufferSize = new StableOptionValue<>(1024);
+        @Option(help = "Dump the event buffers of all threads when a compilation fails with an exception", type = OptionType.Debug)
+        public static final StableOptionValue<Boolean> DumpEventRingBufferOnFailure = new StableOptionValue<>(false);
+        // @formatter:on
+    }
+
+    public enum Kind {
+        /** A compilation started. The subject is the method and the value the compile id. */
+        CompilationStart,
+        /** A compilation ended. The subject is the method and the value the compile id. */
+        CompilationEnd,
+        /** A phase started. The value is the id of the current compilation. */
+        PhaseStart,
+        /** A phase ended. The value is the id of the current compilation. */
+        PhaseEnd,
+        /** A compilation bailed out. The subject is the method and the value the compile id. */
+        Bailout,
+        /** A compilation failed with an exception. The subject is the method and the value the compile id. */
+        Failure,
+        /**
+         * A method is compiled after its code was deoptimized. The subject is the method and the
+         * value the number of deoptimizations recorded in its profile.
+         */
+        Recompile,
+        /** Code was installed. The subject is the method and the value the code size. */
+        CodeInstall
+    }
+
+    private static final int MAX_NAMES = 1 << 24;
+    private static final int SIZE = roundUpToPowerOfTwo(Options.EventRingBufferSize.getValue());
+
+    private static final ConcurrentHashMap<String, Integer> nameIds = new ConcurrentHashMap<>();
+    private static String[] names = {"<unknown>"};
+    private static int nameCount = 1;
+
+    private static final List<WeakReference<EventRingBuffer>> buffers = new ArrayList<>();
+
+    private static final ThreadLocal<EventRingBuffer> current = new ThreadLocal<EventRingBuffer>() {
+        @Override
+        protected EventRingBuffer initialValue() {
+            EventRingBuffer buffer = new EventRingBuffer(Thread.currentThread().getName());
+            synchronized (buffers) {
+                buffers.removeIf(ref -> ref.get() == null);
+                buffers.add(new WeakReference<>(buffer));
+            }
+            return buffer;
+        }
+    };
+
+    private final String threadName;
+    private final long[] slots;
+
+    /**
+     * The subject of each event, or null if the event refers to a registered name.
+     */
+    private final Object[] subjects;
+
+    /**
+     * The number of events ever recorded in this buffer.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    private int compileId;
+
+    private EventRingBuffer(String threadName) {
+        this.threadName = threadName;
+        this.slots = new long[SIZE * 2];
+        this.subjects = new Object[SIZE];
+    }
+
+    private static int roundUpToPowerOfTwo(int size) {
+        return size <= 0 ? 0 : Integer.highestOneBit(size * 2 - 1);
+    }
+
+    public static boolean isEnabled() {
+        return SIZE != 0;
+    }
+
+    /**
+     * Gets the id under which {@code name} is recorded in events. Registering the same name twice
+     * returns the same id. Registered names are retained until VM exit, so they must come from a
+     * small, fixed set such as the phase names. Names should be registered once, e.g. per phase
+     * object, rather than before recording each event.
+     */
+    public static int registerName(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (nameIds) {
+            id = nameIds.get(name);
+            if (id == null) {
+                if (nameCount == MAX_NAMES) {
+                    return 0;
+                }
+                id = nameCount++;
+                if (id == names.length) {
+                    names = Arrays.copyOf(names, names.length * 2);
+                }
+                names[id] = name;
+                nameIds.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static String getName(int id) {
+        synchronized (nameIds) {
+            return id < nameCount ? names[id] : names[0];
+        }
+    }
+
+    /**
+     * Records an event in the current thread's buffer.
+     */
+    public static void record(Kind kind, int nameId, int value) {
+        if (SIZE != 0) {
+            current.get().add(kind, nameId, null, value);
+        }
+    }
+
+    /**
+     * Records an event about {@code method} in the current thread's buffer.
+     *
+     * @param method a {@link JavaMethod} in a VM, but may be any object whose
+     *            {@link Object#toString()} describes the method
+     */
+    public static void record(Kind kind, Object method, int value) {
+        if (SIZE != 0) {
+            current.get().add(kind, 0, method, value);
+        }
+    }
+
+    /**
+     * Records an event whose value is the id of the compilation in progress on the current thread.
+     */
+    public static void recordInCompilation(Kind kind, int nameId) {
+        if (SIZE != 0) {
+            EventRingBuffer buffer = current.get();
+            buffer.add(kind, nameId, null, buffer.compileId);
+        }
+    }
+
+    /**
+     * Records the start of a compilation of {@code method} and makes {@code id} the current
+     * compilation of this thread.
+     *
+     * @param method the method being compiled, see {@link #record(Kind, Object, int)}
+     */
+    public static void compilationStarted(int id, Object method) {
+        if (SIZE != 0) {
+            EventRingBuffer buffer = current.get();
+            buffer.compileId = id;
+            buffer.add(Kind.CompilationStart, 0, method, id);
+        }
+    }
+
+    /**
+     * Records the end of the current compilation of this thread.
+     */
+    public static void compilationFinished(Object method) {
+        if (SIZE != 0) {
+            EventRingBuffer buffer = current.get();
+            buffer.add(Kind.CompilationEnd, 0, method, buffer.compileId);
+            buffer.compileId = 0;
+        }
+    }
+
+    private void add(Kind kind, int nameId, Object subject, int value) {
+        long n = count.get();
+        int event = (int) (n & (SIZE - 1));
+        slots[event * 2] = System.nanoTime();
+        slots[event * 2 + 1] = ((long) kind.ordinal() << 56) | ((long) (nameId & (MAX_NAMES - 1)) << 32) | (value & 0xFFFFFFFFL);
+        subjects[event] = subject;
+        count.lazySet(n + 1);
+    }
+
+    /**
+     * Prints the events retained in this buffer, oldest first.
+     */
+    public void dump(PrintStream out) {
+        long n = count.get();
+        long first = Math.max(0, n - SIZE);
+        out.printf("Events of thread \"%s\" (%d of %d retained):%n", threadName, n - first, n);
+        Kind[] kinds = Kind.values();
+        long start = -1;
+        for (long i = first; i < n; i++) {
+            int index = (int) (i & (SIZE - 1));
+            long time = slots[index * 2];
+            long event = slots[index * 2 + 1];
+            Object subject = subjects[index];
+            if (start == -1) {
+                start = time;
+            }
+            int kind = (int) (event >>> 56);
+            String name;
+            if (subject instanceof JavaMethod) {
+                name = ((JavaMethod) subject).format("%H.%n(%p)");
+            } else if (subject != null) {
+                name = subject.toString();
+            } else {
+                name = getName((int) ((event >>> 32) & (MAX_NAMES - 1)));
+            }
+            out.printf("  %+12d ns %-16s %s %d%n", time - start, kind < kinds.length ? kinds[kind] : "?", name, (int) event);
+        }
+    }
+
+    /**
+     * Prints the events retained in the buffers of all threads.
+     */
+    public static void dumpAll(PrintStream out) {
+        List<EventRingBuffer> snapshot = new ArrayList<>();
+        synchronized (buffers) {
+            for (Iterator<WeakReference<EventRingBuffer>> iterator = buffers.iterator(); iterator.hasNext();) {
+                EventRingBuffer buffer = iterator.next().get();
+                if (buffer == null) {
+                    iterator.remove();
+                } else {
+                    snapshot.add(buffer);
+                }
+            }
+        }
+        for (EventRingBuffer buffer : snapshot) {
+            buffer.dump(out);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.debug;
+
+/**
+ * Machine-readable formats for writing flat records with a fixed set of named columns. Values that
+ * are {@link Number}s are written as numbers, {@code null} values as missing values and all other
+ * values as strings.
+ */
+public enum RecordFormat {
+    /**
+     * One JSON object per record and line.
+     */
+    JSON {
+        @Override
+        public String header(String[] columns) {
+            return null;
+        }
+
+        @Override
+        public String format(String[] columns, Object[] values) {
+            StringBuilder sb = new StringBuilder("{");
+            for (int i = 0; i < values.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                sb.append('"').append(columns[i]).append("\":");
+                Object value = values[i];
+                if (value == null) {
+                    sb.append("null");
+                } else if (value instanceof Number) {
+                    sb.append(value);
+                } else {
+                    appendJSONString(sb, value.toString());
+                }
+            }
+            return sb.append('}').toString();
+        }
+    },
+
+    /**
+     * Comma separated values, preceded by a header line naming the columns.
+     */
+    CSV {
+        @Override
+        public String header(String[] columns) {
+            return String.join(",", columns);
+        }
+
+        @Override
+        public String format(String[] columns, Object[] values) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                if (i != 0) {
+                    sb.append(',');
+                }
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                String s = value.toString();
+                if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                    sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+                } else {
+                    sb.append(s);
+                }
+            }
+            return sb.toString();
+        }
+    };
+
+    /**
+     * Gets the line to be written before the first record or null if this format has no header.
+     */
+    public abstract String header(String[] columns);
+
+    /**
+     * Formats a single record as one line.
+     *
+     * @param columns the column names
+     * @param values the value of each column
+     */
+    public abstract String format(String[] columns, Object[] values);
+
+    /**
+     * Gets the format whose name is {@code value}, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static RecordFormat parse(String value) {
+        for (RecordFormat f : values()) {
+            if (f.name().equalsIgnoreCase(value)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("unknown record format: " + value);
+    }
+
+    private static void appendJSONString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
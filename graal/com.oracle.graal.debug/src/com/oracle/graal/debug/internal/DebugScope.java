@@ -127,6 +127,17 @@ public final class DebugScope implements Debug.Scope {
         }
     }
 
+    /**
+     * Gets the root of the tree of {@link DebugValue}s recorded by the current thread.
+     */
+    public static DebugValueMap getThreadValueMap() {
+        DebugScope scope = getInstance();
+        while (scope.parent != null) {
+            scope = scope.parent;
+        }
+        return scope.getValueMap();
+    }
+
     public static DebugConfig getConfig() {
         return configTL.get();
     }
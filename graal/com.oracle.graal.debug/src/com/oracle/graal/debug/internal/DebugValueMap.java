@@ -99,6 +99,27 @@ public class DebugValueMap {
         }
     }
 
+    /**
+     * Adds the values of this map and all its descendants to {@code totals}. Values with an index
+     * not less than {@code totals.length} are ignored. If this map belongs to another thread, the
+     * values read may be stale.
+     */
+    public void addTotals(long[] totals) {
+        long[] v = values;
+        if (v != null) {
+            int length = Math.min(v.length, totals.length);
+            for (int i = 0; i < length; i++) {
+                totals[i] += v[i];
+            }
+        }
+        List<DebugValueMap> c = children;
+        if (c != null) {
+            for (int i = 0; i < c.size(); i++) {
+                c.get(i).addTotals(totals);
+            }
+        }
+    }
+
     public boolean hasChildren() {
         return children != null && !children.isEmpty();
     }
@@ -40,14 +40,26 @@ public final class MemUseTrackerImpl extends AccumulatedDebugValue implements De
      */
     private static final ThreadLocal<CloseableCounterImpl> currentTracker = new ThreadLocal<>();
 
-    public MemUseTrackerImpl(String name, boolean conditional) {
-        super(name, conditional, new DebugValue(name + "_Flat", conditional) {
+    static class FlatMemUseTracker extends DebugValue implements DebugMemUseTracker {
+        private MemUseTrackerImpl accm;
+
+        public FlatMemUseTracker(String name, boolean conditional) {
+            super(name + "_Flat", conditional);
+        }
+
+        @Override
+        public String toString(long value) {
+            return valueToString(value);
+        }
 
-            @Override
-            public String toString(long value) {
-                return valueToString(value);
-            }
-        });
+        public DebugCloseable start() {
+            return accm.start();
+        }
+    }
+
+    public MemUseTrackerImpl(String name, boolean conditional) {
+        super(name, conditional, new FlatMemUseTracker(name, conditional));
+        ((FlatMemUseTracker) flat).accm = this;
     }
 
     @Override
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.runtime.Graal;
+import com.oracle.graal.graph.Edges;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeInputList;
+import com.oracle.graal.graph.NodeSuccessorList;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+public class EdgeAccessorTest {
+
+    @NodeInfo
+    static final class LeafNode extends Node {
+        public static final NodeClass<LeafNode> TYPE = NodeClass.create(LeafNode.class);
+
+        protected LeafNode() {
+            super(TYPE);
+        }
+    }
+
+    @NodeInfo
+    abstract static class BaseNode extends Node {
+        public static final NodeClass<BaseNode> TYPE = NodeClass.create(BaseNode.class);
+
+        @Input LeafNode x;
+        @Successor LeafNode next;
+
+        protected BaseNode(NodeClass<? extends BaseNode> c, LeafNode x, LeafNode next) {
+            super(c);
+            this.x = x;
+            this.next = next;
+        }
+    }
+
+    @NodeInfo
+    static final class EdgesNode extends BaseNode {
+        public static final NodeClass<EdgesNode> TYPE = NodeClass.create(EdgesNode.class);
+
+        @OptionalInput LeafNode y;
+        @Input NodeInputList<LeafNode> values;
+        @Successor NodeSuccessorList<LeafNode> branches;
+
+        protected EdgesNode(LeafNode x, LeafNode y, LeafNode[] values, LeafNode next) {
+            super(TYPE, x, next);
+            this.y = y;
+            this.values = new NodeInputList<>(this, values);
+            this.branches = new NodeSuccessorList<>(this, 2);
+        }
+    }
+
+    private Graph graph;
+    private LeafNode[] leaves;
+    private EdgesNode node;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        leaves = new LeafNode[6];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = graph.add(new LeafNode());
+        }
+        node = graph.add(new EdgesNode(leaves[0], null, new LeafNode[]{leaves[1], null, leaves[2]}, leaves[3]));
+    }
+
+    private static List<Node> toList(Iterable<Node> nodes) {
+        List<Node> result = new ArrayList<>();
+        for (Node n : nodes) {
+            result.add(n);
+        }
+        return result;
+    }
+
+    @Test
+    public void testAccessorInstalled() {
+        Assume.assumeTrue(Graph.Options.GeneratedEdgeAccessors.getValue());
+        Edges inputs = EdgesNode.TYPE.getInputEdges();
+        // The accessor is only used if the field layout follows declaration order
+        Assume.assumeTrue(inputs.hasGeneratedAccessor());
+        for (int i = 0; i < inputs.getDirectCount(); i++) {
+            assertSame(Edges.getNode(node, inputs.getOffsets(), i), inputs.getNode(node, i));
+        }
+        for (int i = inputs.getDirectCount(); i < inputs.getCount(); i++) {
+            assertSame(Edges.getNodeList(node, inputs.getOffsets(), i), inputs.getNodeList(node, i));
+        }
+    }
+
+    @Test
+    public void testIteration() {
+        assertEquals(Arrays.asList(leaves[0], leaves[1], leaves[2]), toList(node.inputs()));
+        assertEquals(Arrays.asList(leaves[3]), toList(node.successors()));
+        List<Node> accepted = new ArrayList<>();
+        node.acceptInputs((n, input) -> accepted.add(input));
+        assertEquals(Arrays.asList(leaves[0], leaves[1], leaves[2]), accepted);
+    }
+
+    @Test
+    public void testReplace() {
+        node.replaceFirstInput(leaves[1], leaves[4]);
+        node.replaceFirstInput(leaves[0], leaves[5]);
+        assertSame(leaves[5], node.x);
+        assertSame(leaves[4], node.values.get(0));
+        assertEquals(Arrays.asList(leaves[5], leaves[4], leaves[2]), toList(node.inputs()));
+    }
+
+    @Test
+    public void testCopy() {
+        @SuppressWarnings("unchecked")
+        Map<Node, Node>[] duplicates = new Map[1];
+        graph.copy(map -> duplicates[0] = map);
+        EdgesNode copy = (EdgesNode) duplicates[0].get(node);
+        assertNotSame(node, copy);
+        assertSame(duplicates[0].get(leaves[0]), copy.x);
+        assertEquals(null, copy.y);
+        assertNotSame(node.values, copy.values);
+        assertEquals(3, copy.values.size());
+        assertSame(duplicates[0].get(leaves[1]), copy.values.get(0));
+        assertEquals(null, copy.values.get(1));
+        assertSame(duplicates[0].get(leaves[2]), copy.values.get(2));
+        assertSame(duplicates[0].get(leaves[3]), copy.next);
+    }
+}
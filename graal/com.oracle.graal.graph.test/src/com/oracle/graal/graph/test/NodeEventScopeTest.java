@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Graph.NodeEvent;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+import com.oracle.graal.graph.Graph.NodeEventScope;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Checks that a {@link NodeEventScope} only unregisters its own listener, also when scopes are not
+ * closed in the reverse order of their creation.
+ */
+public class NodeEventScopeTest {
+
+    @NodeInfo
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    static final class RecordingListener implements NodeEventListener {
+        final List<Node> added = new ArrayList<>();
+
+        @Override
+        public void event(NodeEvent e, Node node) {
+            if (e == NodeEvent.NODE_ADDED) {
+                added.add(node);
+            }
+        }
+    }
+
+    @Test
+    public void testCloseOutOfOrder() {
+        Graph graph = new Graph();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        NodeEventScope firstScope = graph.trackNodeEvents(first);
+        NodeEventScope secondScope = graph.trackNodeEvents(second);
+
+        TestNode a = graph.add(new TestNode());
+        firstScope.close();
+        TestNode b = graph.add(new TestNode());
+        secondScope.close();
+        graph.add(new TestNode());
+
+        assertEquals(1, first.added.size());
+        assertTrue(first.added.contains(a));
+        assertEquals(2, second.added.size());
+        assertTrue(second.added.contains(a) && second.added.contains(b));
+    }
+
+    @Test
+    public void testCloseMiddle() {
+        Graph graph = new Graph();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        RecordingListener third = new RecordingListener();
+        NodeEventScope firstScope = graph.trackNodeEvents(first);
+        NodeEventScope secondScope = graph.trackNodeEvents(second);
+        NodeEventScope thirdScope = graph.trackNodeEvents(third);
+
+        secondScope.close();
+        graph.add(new TestNode());
+        assertEquals(1, first.added.size());
+        assertEquals(0, second.added.size());
+        assertEquals(1, third.added.size());
+
+        firstScope.close();
+        graph.add(new TestNode());
+        assertEquals(1, first.added.size());
+        assertEquals(2, third.added.size());
+
+        thirdScope.close();
+        graph.add(new TestNode());
+        assertEquals(2, third.added.size());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Test;
+
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Checks the id recycling of graphs created with {@link Graph.Options#ReuseNodeIds}.
+ */
+public class NodeIdReuseTest {
+
+    @NodeInfo
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static Graph createGraph() {
+        try (OverrideScope s = OptionValue.override(Graph.Options.ReuseNodeIds, true)) {
+            return new Graph();
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        Graph graph = createGraph();
+        graph.add(new TestNode());
+        TestNode deleted = graph.add(new TestNode());
+        graph.add(new TestNode());
+        int id = deleted.getId();
+        deleted.safeDelete();
+        assertEquals(2, graph.getNodeCount());
+
+        TestNode added = graph.add(new TestNode());
+        assertEquals(id, added.getId());
+        assertSame(added, graph.getNode(id));
+        assertEquals(3, graph.getNodeCount());
+    }
+
+    @Test
+    public void testTrimTail() {
+        Graph graph = createGraph();
+        graph.add(new TestNode());
+        TestNode a = graph.add(new TestNode());
+        TestNode b = graph.add(new TestNode());
+        int id = a.getId();
+        a.safeDelete();
+        b.safeDelete();
+        assertEquals(1, graph.getNodeCount());
+        assertEquals(id, graph.add(new TestNode()).getId());
+        assertEquals(id + 1, graph.add(new TestNode()).getId());
+    }
+
+    @Test
+    public void testMarkRetainsIds() {
+        Graph graph = createGraph();
+        TestNode old = graph.add(new TestNode());
+        graph.add(new TestNode());
+        Mark mark = graph.getMark();
+        old.safeDelete();
+        TestNode added = graph.add(new TestNode());
+        assertTrue(graph.isNew(mark, added));
+        assertEquals(1, graph.getNewNodes(mark).count());
+    }
+
+    @Test
+    public void testNodeMapRetainsIds() {
+        Graph graph = createGraph();
+        graph.add(new TestNode());
+        NodeBitMap map = graph.createNodeBitMap();
+        TestNode marked = graph.add(new TestNode());
+        graph.add(new TestNode());
+        map.mark(marked);
+        int id = marked.getId();
+        marked.safeDelete();
+        TestNode added = graph.add(new TestNode());
+        assertNotEquals(id, added.getId());
+        assertFalse(map.isMarked(added));
+    }
+
+    @Test
+    public void testNodeCount() {
+        Random random = new Random(17);
+        Graph graph = createGraph();
+        List<TestNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            int operation = random.nextInt(20);
+            if (operation < 10 || nodes.isEmpty()) {
+                nodes.add(graph.add(new TestNode()));
+            } else if (operation < 18) {
+                nodes.remove(random.nextInt(nodes.size())).safeDelete();
+            } else if (operation < 19) {
+                graph.getMark();
+            } else {
+                graph.maybeCompress();
+            }
+            assertEquals(nodes.size(), graph.getNodeCount());
+        }
+        assertEquals(nodes.size(), graph.getNodes().count());
+        for (TestNode node : nodes) {
+            assertSame(node, graph.getNode(node.getId()));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.api.runtime.Graal;
+import com.oracle.graal.graph.Graph;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.graph.NodeIntMap;
+import com.oracle.graal.graph.NodeLongMap;
+import com.oracle.graal.graph.NodeMap;
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Checks that the sparse forms of the node collections behave like the dense forms, also across
+ * the switch to the dense form.
+ */
+public class SparseNodeCollectionsTest {
+
+    @NodeInfo
+    static final class TestNode extends Node {
+        public static final NodeClass<TestNode> TYPE = NodeClass.create(TestNode.class);
+
+        protected TestNode() {
+            super(TYPE);
+        }
+    }
+
+    private static final int NODE_COUNT = 1000;
+    private static final int OPERATION_COUNT = 4000;
+
+    private Graph graph;
+    private TestNode[] nodes;
+
+    @Before
+    public void before() {
+        // Need to initialize HotSpotGraalRuntime before any Node class is initialized.
+        Graal.getRuntime();
+
+        graph = new Graph();
+        nodes = new TestNode[NODE_COUNT];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graph.add(new TestNode());
+        }
+    }
+
+    @Test
+    public void testBitMap() {
+        Random random = new Random(11);
+        NodeBitMap dense = new NodeBitMap(graph);
+        NodeBitMap sparse = new NodeBitMap(graph, true);
+        assertTrue(sparse.isSparse());
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            TestNode node = nodes[random.nextInt(i < OPERATION_COUNT / 2 ? NODE_COUNT / 10 : NODE_COUNT)];
+            if (random.nextInt(3) == 0) {
+                dense.clear(node);
+                sparse.clear(node);
+            } else {
+                dense.mark(node);
+                sparse.mark(node);
+            }
+            assertEquals(dense.count(), sparse.count());
+        }
+        assertFalse(sparse.isSparse());
+        assertEquals(dense.snapshot(), sparse.snapshot());
+    }
+
+    @Test
+    public void testBitMapIntersect() {
+        NodeBitMap dense = new NodeBitMap(graph);
+        NodeBitMap sparse = new NodeBitMap(graph, true);
+        for (int i = 0; i < 10; i++) {
+            dense.mark(nodes[i * 2]);
+            sparse.mark(nodes[i * 3]);
+        }
+        NodeBitMap sparseCopy = sparse.copy();
+        sparseCopy.intersect(dense);
+        assertTrue(sparseCopy.isSparse());
+        dense.intersect(sparse);
+        assertEquals(dense.snapshot(), sparseCopy.snapshot());
+        assertEquals(4, dense.count());
+    }
+
+    @Test
+    public void testNodeMap() {
+        Random random = new Random(12);
+        NodeMap<Integer> dense = new NodeMap<>(graph);
+        NodeMap<Integer> sparse = new NodeMap<>(graph, true);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            TestNode node = nodes[random.nextInt(i < OPERATION_COUNT / 2 ? NODE_COUNT / 10 : NODE_COUNT)];
+            Integer value = random.nextInt(4) == 0 ? null : i;
+            dense.set(node, value);
+            sparse.set(node, value);
+            if (i == OPERATION_COUNT / 2) {
+                assertTrue(sparse.isSparse());
+                assertEntriesEqual(dense, sparse);
+            }
+        }
+        assertFalse(sparse.isSparse());
+        assertEntriesEqual(dense, sparse);
+    }
+
+    private static void assertEntriesEqual(NodeMap<Integer> expected, NodeMap<Integer> actual) {
+        StringBuilder expectedEntries = new StringBuilder();
+        for (Entry<Node, Integer> e : expected.entries()) {
+            expectedEntries.append(e.getKey()).append('=').append(e.getValue()).append(' ');
+        }
+        StringBuilder actualEntries = new StringBuilder();
+        for (Entry<Node, Integer> e : actual.entries()) {
+            actualEntries.append(e.getKey()).append('=').append(e.getValue()).append(' ');
+        }
+        assertEquals(expectedEntries.toString(), actualEntries.toString());
+    }
+
+    @Test
+    public void testIntAndLongMaps() {
+        Random random = new Random(13);
+        NodeIntMap denseInts = new NodeIntMap(graph, -1, false);
+        NodeIntMap sparseInts = new NodeIntMap(graph, -1, true);
+        NodeLongMap sparseLongs = new NodeLongMap(graph, Long.MIN_VALUE, true);
+        int[] expected = new int[NODE_COUNT];
+        Arrays.fill(expected, -1);
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int index = random.nextInt(i < OPERATION_COUNT / 2 ? NODE_COUNT / 10 : NODE_COUNT);
+            int value = random.nextInt(5) == 0 ? -1 : i;
+            expected[index] = value;
+            denseInts.set(nodes[index], value);
+            sparseInts.set(nodes[index], value);
+            sparseLongs.set(nodes[index], value == -1 ? Long.MIN_VALUE : value * 1000000000L);
+        }
+        assertFalse(sparseInts.isSparse());
+        for (int i = 0; i < NODE_COUNT; i++) {
+            assertEquals(expected[i], denseInts.get(nodes[i]));
+            assertEquals(expected[i], sparseInts.get(nodes[i]));
+            assertEquals(expected[i] == -1 ? Long.MIN_VALUE : expected[i] * 1000000000L, sparseLongs.get(nodes[i]));
+            assertEquals(expected[i] != -1, sparseInts.containsKey(nodes[i]));
+        }
+    }
+
+    @Test
+    public void testGrow() {
+        NodeIntMap map = new NodeIntMap(graph, 7, true);
+        TestNode node = graph.add(new TestNode());
+        assertTrue(map.isNew(node));
+        assertEquals(7, map.getAndGrow(node));
+        map.setAndGrow(node, 3);
+        assertEquals(3, map.get(node));
+        NodeBitMap bitMap = new NodeBitMap(graph, true);
+        TestNode other = graph.add(new TestNode());
+        bitMap.markAndGrow(other);
+        assertTrue(bitMap.isMarked(other));
+    }
+}
@@ -50,4 +50,20 @@ public class DefaultNodeCollectionsProvider extends DefaultCollectionsProvider i
     public <K extends Node, V> Map<K, V> newNodeIdentityMap(Map<K, V> initFrom) {
         return new IdentityHashMap<>(initFrom);
     }
+
+    public NodeBitMap newNodeBitMap(Graph graph) {
+        return new NodeBitMap(graph);
+    }
+
+    public <V> NodeMap<V> newNodeMap(Graph graph) {
+        return new NodeMap<>(graph);
+    }
+
+    public NodeIntMap newNodeIntMap(Graph graph, int defaultValue) {
+        return new NodeIntMap(graph, defaultValue, false);
+    }
+
+    public NodeLongMap newNodeLongMap(Graph graph, long defaultValue) {
+        return new NodeLongMap(graph, defaultValue, false);
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Reflection-free access to the {@link Edges} of a single {@link Node} class. Subclasses are
+ * generated by the {@code GraphNodeProcessor} annotation processor for each concrete node class
+ * whose edge fields can be accessed from a class in the same package. The generated methods read
+ * and write the edge fields directly instead of going through the {@link Edges#getOffsets()
+ * offsets} and {@code Unsafe}, which gives each node class its own straight-line code for the
+ * operations that walk all edges of a node.
+ *
+ * The generated class for a node class {@code p.Outer$FooNode} is named
+ * {@code p.Outer_FooNode_EdgeAccessors} and contains a nested {@code Inputs} and/or
+ * {@code Successors} subclass of this class (only for non-empty edge sets).
+ */
+public abstract class EdgeAccessor {
+
+    /**
+     * Suffix appended to the flattened node class name to form the name of the generated class.
+     */
+    public static final String GENERATED_CLASS_SUFFIX = "_EdgeAccessors";
+
+    /**
+     * The edges accessed by this object in the order in which they are generated, each name being
+     * the binary name of the declaring class followed by {@code '.'} and the field name.
+     */
+    private final String[] edgeNames;
+
+    protected EdgeAccessor(String... edgeNames) {
+        this.edgeNames = edgeNames;
+    }
+
+    /**
+     * @see Edges#getNode(Node, long[], int)
+     */
+    public abstract Node getNode(Node node, int index);
+
+    /**
+     * @see Edges#getNodeList(Node, long[], int)
+     */
+    public abstract NodeList<Node> getNodeList(Node node, int index);
+
+    /**
+     * @see Edges#initializeNode(Node, long[], int, Node)
+     */
+    public abstract void initializeNode(Node node, int index, Node value);
+
+    /**
+     * @see Edges#initializeList(Node, long[], int, NodeList)
+     */
+    public abstract void initializeList(Node node, int index, NodeList<Node> value);
+
+    /**
+     * @see Edges#copy(Node, Node)
+     */
+    public abstract void copy(Node fromNode, Node toNode);
+
+    /**
+     * @see Edges#accept(Node, BiConsumer)
+     */
+    public abstract void accept(Node node, BiConsumer<Node, Node> consumer);
+
+    /**
+     * @see Edges#pushAll(Node, NodeStack)
+     */
+    public abstract void pushAll(Node node, NodeStack stack);
+
+    protected static NodeList<Node> copyInputList(Node toNode, NodeList<Node> toList, NodeList<Node> fromList) {
+        if (toList == null || toList == fromList) {
+            return new NodeInputList<>(toNode, fromList);
+        }
+        toList.copy(fromList);
+        return toList;
+    }
+
+    protected static NodeList<Node> copySuccessorList(Node toNode, NodeList<Node> toList, NodeList<Node> fromList) {
+        if (toList == null || toList == fromList) {
+            return new NodeSuccessorList<>(toNode, fromList);
+        }
+        toList.copy(fromList);
+        return toList;
+    }
+
+    protected static void acceptList(Node node, BiConsumer<Node, Node> consumer, NodeList<Node> list) {
+        if (list != null) {
+            for (int i = 0; i < list.size(); ++i) {
+                Node curNode = list.get(i);
+                if (curNode != null) {
+                    consumer.accept(node, curNode);
+                }
+            }
+        }
+    }
+
+    protected static void pushAllList(NodeStack stack, NodeList<Node> list) {
+        if (list != null) {
+            for (int i = 0; i < list.size(); ++i) {
+                Node curNode = list.get(i);
+                if (curNode != null) {
+                    stack.push(curNode);
+                }
+            }
+        }
+    }
+
+    protected static IndexOutOfBoundsException outOfBounds(int index) {
+        return new IndexOutOfBoundsException(String.valueOf(index));
+    }
+
+    /**
+     * Gets the name of the class generated for {@code nodeClass}.
+     */
+    public static String getGeneratedClassName(Class<?> nodeClass) {
+        String name = nodeClass.getName();
+        int lastDot = name.lastIndexOf('.');
+        String packagePrefix = name.substring(0, lastDot + 1);
+        return packagePrefix + name.substring(lastDot + 1).replace('$', '_') + GENERATED_CLASS_SUFFIX;
+    }
+
+    /**
+     * Gets the generated accessor for {@code edges} of {@code nodeClass}.
+     *
+     * @return {@code null} if no accessor was generated for {@code nodeClass} or the generated
+     *         accessor does not describe the same edges in the same order as {@code edges}
+     */
+    static EdgeAccessor lookup(Class<?> nodeClass, Edges edges) {
+        if (edges.getCount() == 0) {
+            return null;
+        }
+        String nestedName = edges.type() == Edges.Type.Inputs ? "$Inputs" : "$Successors";
+        Class<?> accessorClass;
+        try {
+            accessorClass = Class.forName(getGeneratedClassName(nodeClass) + nestedName, true, nodeClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        EdgeAccessor accessor;
+        try {
+            accessor = (EdgeAccessor) accessorClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            return null;
+        }
+        return accessor.matches(edges) ? accessor : null;
+    }
+
+    /**
+     * Determines if the generated edge order is the same as the order of {@code edges}. The latter
+     * sorts edges by field offset which usually but not necessarily follows declaration order.
+     */
+    private boolean matches(Edges edges) {
+        if (edgeNames.length != edges.getCount()) {
+            return false;
+        }
+        for (int i = 0; i < edgeNames.length; i++) {
+            if (!edgeNames[i].equals(edges.getDeclaringClass(i).getName() + "." + edges.getName(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
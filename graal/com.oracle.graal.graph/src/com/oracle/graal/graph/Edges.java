@@ -52,6 +52,12 @@ public abstract class Edges extends Fields {
     private final int directCount;
     private final Type type;
 
+    /**
+     * The generated accessor for these edges or {@code null} if the edges are accessed via
+     * {@link #offsets}.
+     */
+    private EdgeAccessor accessor;
+
     public Edges(Type type, int directCount, ArrayList<? extends FieldsScanner.FieldInfo> edges) {
         super(edges);
         this.type = type;
@@ -81,6 +87,21 @@ public abstract class Edges extends Fields {
         UNSAFE.putObject(node, offset, value);
     }
 
+    /**
+     * Installs a generated accessor for these edges. This must be called before any node with these
+     * edges is created.
+     */
+    void setAccessor(EdgeAccessor accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Determines if these edges are accessed via a generated {@link EdgeAccessor}.
+     */
+    public boolean hasGeneratedAccessor() {
+        return accessor != null;
+    }
+
     /**
      * Get the number of direct edges represented by this object. A direct edge goes directly to
      * another {@link Node}. An indirect edge goes via a {@link NodeList}.
@@ -112,6 +133,30 @@ public abstract class Edges extends Fields {
         return getNodeListUnsafe(node, offsets[index]);
     }
 
+    /**
+     * Gets the {@link Node} at the end point of a {@linkplain #getDirectCount() direct} edge, using
+     * the generated {@link EdgeAccessor} if available.
+     */
+    public Node getNode(Node node, int index) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            return curAccessor.getNode(node, index);
+        }
+        return getNodeUnsafe(node, offsets[index]);
+    }
+
+    /**
+     * Gets the {@link NodeList} at the end point of an indirect edge, using the generated
+     * {@link EdgeAccessor} if available.
+     */
+    public NodeList<Node> getNodeList(Node node, int index) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            return curAccessor.getNodeList(node, index);
+        }
+        return getNodeListUnsafe(node, offsets[index]);
+    }
+
     /**
      * Clear edges in a given node. This is accomplished by setting {@linkplain #getDirectCount()
      * direct} edges to null and replacing the lists containing indirect edges with new lists. The
@@ -120,22 +165,21 @@ public abstract class Edges extends Fields {
      * @param node the node whose edges are to be cleared
      */
     public void clear(Node node) {
-        final long[] curOffsets = this.offsets;
         final Type curType = this.type;
         int index = 0;
         int curDirectCount = getDirectCount();
         while (index < curDirectCount) {
-            initializeNode(node, curOffsets, index++, null);
+            initializeNode(node, index++, null);
         }
         int curCount = getCount();
         while (index < curCount) {
-            NodeList<Node> list = getNodeList(node, curOffsets, index);
+            NodeList<Node> list = getNodeList(node, index);
             if (list != null) {
                 int size = list.initialSize;
                 NodeList<Node> newList = curType == Edges.Type.Inputs ? new NodeInputList<>(node, size) : new NodeSuccessorList<>(node, size);
 
                 // replacing with a new list object is the expected behavior!
-                initializeList(node, curOffsets, index, newList);
+                initializeList(node, index, newList);
             }
             index++;
         }
@@ -150,14 +194,13 @@ public abstract class Edges extends Fields {
      */
     public void initializeLists(Node node, Node prototype) {
         int index = getDirectCount();
-        final long[] curOffsets = this.offsets;
         final Edges.Type curType = this.type;
         while (index < getCount()) {
-            NodeList<Node> list = getNodeList(prototype, curOffsets, index);
+            NodeList<Node> list = getNodeList(prototype, index);
             if (list != null) {
                 int size = list.initialSize;
                 NodeList<Node> newList = curType == Edges.Type.Inputs ? new NodeInputList<>(node, size) : new NodeSuccessorList<>(node, size);
-                initializeList(node, curOffsets, index, newList);
+                initializeList(node, index, newList);
             }
             index++;
         }
@@ -173,6 +216,11 @@ public abstract class Edges extends Fields {
     public void copy(Node fromNode, Node toNode) {
         assert fromNode != toNode;
         assert fromNode.getNodeClass().getClazz() == toNode.getNodeClass().getClazz();
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            curAccessor.copy(fromNode, toNode);
+            return;
+        }
         int index = 0;
         final long[] curOffsets = this.offsets;
         final Type curType = this.type;
@@ -206,20 +254,19 @@ public abstract class Edges extends Fields {
      */
     public boolean replaceFirst(Node node, Node key, Node replacement) {
         int index = 0;
-        final long[] curOffsets = this.getOffsets();
         int curDirectCount = getDirectCount();
         while (index < curDirectCount) {
-            Node edge = getNode(node, curOffsets, index);
+            Node edge = getNode(node, index);
             if (edge == key) {
                 assert replacement == null || getType(index).isAssignableFrom(replacement.getClass()) : "Can not assign " + replacement.getClass() + " to " + getType(index) + " in " + node;
-                initializeNode(node, curOffsets, index, replacement);
+                initializeNode(node, index, replacement);
                 return true;
             }
             index++;
         }
         int curCount = getCount();
         while (index < curCount) {
-            NodeList<Node> list = getNodeList(node, curOffsets, index);
+            NodeList<Node> list = getNodeList(node, index);
             if (list != null) {
                 if (list.replaceFirst(key, replacement)) {
                     return true;
@@ -251,6 +298,28 @@ public abstract class Edges extends Fields {
         putNodeListUnsafe(node, offsets[index], value);
     }
 
+    /**
+     * Sets the value of a given edge without notifying the new and old nodes on the other end of
+     * the edge of the change, using the generated {@link EdgeAccessor} if available.
+     */
+    public void initializeNode(Node node, int index, Node value) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            curAccessor.initializeNode(node, index, value);
+        } else {
+            putNodeUnsafe(node, offsets[index], value);
+        }
+    }
+
+    public void initializeList(Node node, int index, NodeList<Node> value) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            curAccessor.initializeList(node, index, value);
+        } else {
+            putNodeListUnsafe(node, offsets[index], value);
+        }
+    }
+
     /**
      * Sets the value of a given edge and notifies the new and old nodes on the other end of the
      * edge of the change.
@@ -261,22 +330,21 @@ public abstract class Edges extends Fields {
      */
     public void setNode(Node node, int index, Node value) {
         assert index < directCount;
-        Node old = getNodeUnsafe(node, offsets[index]);
-        putNodeUnsafe(node, offsets[index], value);
+        Node old = getNode(node, index);
+        initializeNode(node, index, value);
         update(node, old, value);
     }
 
     public abstract void update(Node node, Node oldValue, Node newValue);
 
     public boolean contains(Node node, Node value) {
-        final long[] curOffsets = this.offsets;
         for (int i = 0; i < directCount; i++) {
-            if (getNode(node, curOffsets, i) == value) {
+            if (getNode(node, i) == value) {
                 return true;
             }
         }
         for (int i = directCount; i < getCount(); i++) {
-            NodeList<?> curList = getNodeList(node, curOffsets, i);
+            NodeList<?> curList = getNodeList(node, i);
             if (curList != null && curList.contains(value)) {
                 return true;
             }
@@ -290,16 +358,15 @@ public abstract class Edges extends Fields {
     public boolean areEqualIn(Node node, Node other) {
         assert node.getNodeClass().getClazz() == other.getNodeClass().getClazz();
         int index = 0;
-        final long[] curOffsets = this.offsets;
         while (index < directCount) {
-            if (getNode(other, curOffsets, index) != getNode(node, curOffsets, index)) {
+            if (getNode(other, index) != getNode(node, index)) {
                 return false;
             }
             index++;
         }
         while (index < getCount()) {
-            NodeList<Node> list = getNodeList(other, curOffsets, index);
-            if (!Objects.equals(list, getNodeList(node, curOffsets, index))) {
+            NodeList<Node> list = getNodeList(other, index);
+            if (!Objects.equals(list, getNodeList(node, index))) {
                 return false;
             }
             index++;
@@ -323,7 +390,6 @@ public abstract class Edges extends Fields {
         protected Node nextElement;
         protected final int directCount;
         protected final int count;
-        protected final long[] offsets;
 
         /**
          * Creates an iterator that will iterate over some given edges in a given node.
@@ -335,7 +401,6 @@ public abstract class Edges extends Fields {
             subIndex = 0;
             needsForward = true;
             this.directCount = edges.getDirectCount();
-            this.offsets = edges.getOffsets();
             this.count = edges.getCount();
         }
 
@@ -344,7 +409,7 @@ public abstract class Edges extends Fields {
             if (index < directCount) {
                 index++;
                 while (index < directCount) {
-                    nextElement = Edges.getNode(node, offsets, index);
+                    nextElement = edges.getNode(node, index);
                     if (nextElement != null) {
                         return;
                     }
@@ -361,7 +426,7 @@ public abstract class Edges extends Fields {
         private void forwardNodeList() {
             do {
                 if (subIndex == 0) {
-                    list = Edges.getNodeList(node, offsets, index);
+                    list = edges.getNodeList(node, index);
                 }
                 if (list != null) {
                     while (subIndex < list.size()) {
@@ -431,7 +496,7 @@ public abstract class Edges extends Fields {
             if (index < directCount) {
                 index++;
                 if (index < edges.getDirectCount()) {
-                    nextElement = Edges.getNode(node, edges.getOffsets(), index);
+                    nextElement = edges.getNode(node, index);
                     return;
                 }
             } else {
@@ -439,7 +504,7 @@ public abstract class Edges extends Fields {
             }
             while (index < edges.getCount()) {
                 if (subIndex == 0) {
-                    list = Edges.getNodeList(node, edges.getOffsets(), index);
+                    list = edges.getNodeList(node, index);
                 }
                 if (list != null) {
                     if (subIndex < list.size()) {
@@ -521,6 +586,11 @@ public abstract class Edges extends Fields {
     }
 
     public void accept(Node node, BiConsumer<Node, Node> consumer) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            curAccessor.accept(node, consumer);
+            return;
+        }
         int index = 0;
         int curDirectCount = this.directCount;
         final long[] curOffsets = this.offsets;
@@ -551,6 +621,11 @@ public abstract class Edges extends Fields {
     }
 
     public void pushAll(Node node, NodeStack stack) {
+        EdgeAccessor curAccessor = accessor;
+        if (curAccessor != null) {
+            curAccessor.pushAll(node, stack);
+            return;
+        }
         int index = 0;
         int curDirectCount = this.directCount;
         final long[] curOffsets = this.offsets;
@@ -55,12 +55,19 @@ public class Graph {
         public static final OptionValue<Boolean> VerifyGraalGraphs = new OptionValue<>(true);
         @Option(help = "Perform expensive verification of graph inputs, usages, successors and predecessors", type = OptionType.Debug)//
         public static final OptionValue<Boolean> VerifyGraalGraphEdges = new OptionValue<>(false);
+        @Option(help = "Start the node bit maps and node maps created through the NodeCollectionsProvider in a sparse form", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> SparseNodeCollections = new OptionValue<>(false);
+        @Option(help = "Access node inputs and successors through the accessors generated by the node annotation processor instead of Unsafe", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> GeneratedEdgeAccessors = new OptionValue<>(true);
+        @Option(help = "Reuse the ids of deleted nodes that were never observed by node maps, marks or iterators", type = OptionType.Expert)//
+        public static final OptionValue<Boolean> ReuseNodeIds = new OptionValue<>(false);
     }
 
     public final String name;
 
     /**
-     * The set of nodes in the graph, ordered by {@linkplain #register(Node) registration} time.
+     * The set of nodes in the graph, ordered by {@linkplain #register(Node) registration} time
+     * unless the ids of deleted nodes are {@linkplain Options#ReuseNodeIds reused}.
      */
     Node[] nodes;
 
@@ -87,11 +94,39 @@ public class Graph {
     private int nodesDeletedSinceLastCompression;
     private int nodesDeletedBeforeLastCompression;
 
+    /**
+     * Ids of deleted nodes that {@link #register(Node)} may hand out again if
+     * {@link Options#ReuseNodeIds} was enabled when this graph was created, otherwise {@code null}.
+     * Entries that became invalid in the meantime are skipped when taken.
+     */
+    private int[] freeIds;
+    private int freeIdsSize;
+
+    /**
+     * Ids below this limit may have been observed through a {@link NodeIdAccessor} or a node
+     * iterator and are never reused before the next compression. Marks, node maps and running
+     * iterations therefore remain valid while ids above the limit are recycled.
+     */
+    private int retainedIdLimit;
+
+    /**
+     * The number of deleted node ids that were reused or trimmed off the end of {@link #nodes}
+     * since the last compression.
+     */
+    private int nodeIdsRecycledSinceLastCompression;
+
     /**
      * The number of times this graph has been compressed.
      */
     int compressions;
 
+    /**
+     * Incremented whenever a successor edge changes, a node with a predecessor is deleted or the
+     * graph is compressed. Structures derived from the control flow of this graph, such as a cached
+     * control flow graph, are valid as long as this count does not change.
+     */
+    private int controlFlowModCount;
+
     NodeEventListener nodeEventListener;
 
     /**
@@ -175,6 +210,9 @@ public class Graph {
         iterableNodesFirst = new ArrayList<>(NodeClass.allocatedNodeIterabledIds());
         iterableNodesLast = new ArrayList<>(NodeClass.allocatedNodeIterabledIds());
         this.name = name;
+        if (Options.ReuseNodeIds.getValue()) {
+            freeIds = new int[INITIAL_NODES_SIZE];
+        }
         if (MODIFICATION_COUNTS_ENABLED) {
             nodeModCounts = new int[INITIAL_NODES_SIZE];
             nodeUsageModCounts = new int[INITIAL_NODES_SIZE];
@@ -281,7 +319,7 @@ public class Graph {
      * @return the number of live nodes in this graph
      */
     public int getNodeCount() {
-        return nodesSize - getNodesDeletedSinceLastCompression();
+        return nodesSize - getNodesDeletedSinceLastCompression() + nodeIdsRecycledSinceLastCompression;
     }
 
     /**
@@ -293,6 +331,22 @@ public class Graph {
         return compressions;
     }
 
+    /**
+     * Gets the {@linkplain #controlFlowModCount control flow modification count} of this graph.
+     */
+    public int getControlFlowModCount() {
+        return controlFlowModCount;
+    }
+
+    /**
+     * Notifies this graph that its control flow changed. Successor edge changes are detected
+     * automatically; nodes must call this for control flow edges modeled as inputs, such as the
+     * ends of a merge.
+     */
+    public void controlFlowChanged() {
+        controlFlowModCount++;
+    }
+
     /**
      * Gets the number of nodes which have been deleted from this graph since it was last
      * {@linkplain #maybeCompress() compressed}.
@@ -429,7 +483,10 @@ public class Graph {
      * {@linkplain #close() closed}.
      */
     public final class NodeEventScope implements AutoCloseable {
+        private final NodeEventListener listener;
+
         NodeEventScope(NodeEventListener listener) {
+            this.listener = listener;
             if (nodeEventListener == null) {
                 nodeEventListener = listener;
             } else {
@@ -437,13 +494,27 @@ public class Graph {
             }
         }
 
+        /**
+         * Unregisters the listener of this scope. Scopes are usually closed in the reverse order
+         * of their creation, but a scope that outlives the ones created after it, such as the one
+         * tracking changes to a cached analysis result, can be closed at any time.
+         */
         public void close() {
             assert nodeEventListener != null;
-            if (nodeEventListener instanceof ChainedNodeEventListener) {
-                nodeEventListener = ((ChainedNodeEventListener) nodeEventListener).next;
-            } else {
-                nodeEventListener = null;
+            nodeEventListener = remove(nodeEventListener, listener);
+        }
+
+        private NodeEventListener remove(NodeEventListener chain, NodeEventListener l) {
+            if (chain == l) {
+                return null;
+            }
+            assert chain instanceof ChainedNodeEventListener : "listener not registered: " + l;
+            ChainedNodeEventListener chained = (ChainedNodeEventListener) chain;
+            if (chained.head == l) {
+                return chained.next;
             }
+            chained.next = remove(chained.next, l);
+            return chained.next == null ? chained.head : chained;
         }
     }
 
@@ -701,6 +772,9 @@ public class Graph {
         if (Debug.isDumpEnabledForMethod() || Debug.isLogEnabledForMethod()) {
             return false;
         }
+        if (nodesSize == 0) {
+            return false;
+        }
         int liveNodeCount = getNodeCount();
         int liveNodePercent = liveNodeCount * 100 / nodesSize;
         if (COMPRESSION_THRESHOLD == 0 || liveNodePercent >= COMPRESSION_THRESHOLD) {
@@ -728,8 +802,12 @@ public class Graph {
         }
         nodesSize = nextId;
         compressions++;
+        controlFlowModCount++;
         nodesDeletedBeforeLastCompression += nodesDeletedSinceLastCompression;
         nodesDeletedSinceLastCompression = 0;
+        nodeIdsRecycledSinceLastCompression = 0;
+        freeIdsSize = 0;
+        retainedIdLimit = 0;
         return true;
     }
 
@@ -848,14 +926,17 @@ public class Graph {
     void register(Node node) {
         assert !isFrozen();
         assert node.id() == Node.INITIAL_ID;
-        if (nodes.length == nodesSize) {
-            Node[] newNodes = new Node[(nodesSize * 2) + 1];
-            System.arraycopy(nodes, 0, newNodes, 0, nodesSize);
-            nodes = newNodes;
+        int id = freeIdsSize == 0 ? -1 : takeFreeId();
+        if (id == -1) {
+            if (nodes.length == nodesSize) {
+                Node[] newNodes = new Node[(nodesSize * 2) + 1];
+                System.arraycopy(nodes, 0, newNodes, 0, nodesSize);
+                nodes = newNodes;
+            }
+            id = nodesSize;
+            nodesSize++;
         }
-        int id = nodesSize;
         nodes[id] = node;
-        nodesSize++;
 
         updateNodeCaches(node);
 
@@ -910,10 +991,66 @@ public class Graph {
         assert !node.isDeleted() : "cannot delete a node twice! node=" + node;
         nodes[node.id] = null;
         nodesDeletedSinceLastCompression++;
+        if (node.predecessor() != null) {
+            controlFlowModCount++;
+        }
+        if (freeIds != null && !Debug.isDumpEnabledForMethod() && !Debug.isLogEnabledForMethod()) {
+            // like compression, reusing ids would make dumps and logs ambiguous
+            recycleId(node.id);
+        }
 
         // nodes aren't removed from the type cache here - they will be removed during iteration
     }
 
+    /**
+     * Makes the id of a deleted node available to {@link #register(Node)} or, if it is at the end
+     * of {@link #nodes}, removes it together with any other unretained trailing holes.
+     */
+    private void recycleId(int id) {
+        if (id < retainedIdLimit) {
+            return;
+        }
+        if (id == nodesSize - 1) {
+            do {
+                nodesSize--;
+                nodeIdsRecycledSinceLastCompression++;
+            } while (nodesSize > retainedIdLimit && nodes[nodesSize - 1] == null);
+            return;
+        }
+        if (freeIdsSize == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIdsSize * 2);
+        }
+        freeIds[freeIdsSize++] = id;
+    }
+
+    private int takeFreeId() {
+        while (freeIdsSize > 0) {
+            int id = freeIds[--freeIdsSize];
+            if (id >= retainedIdLimit && id < nodesSize && nodes[id] == null) {
+                nodeIdsRecycledSinceLastCompression++;
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if the ids of deleted nodes may be reused, i.e., if {@link Options#ReuseNodeIds}
+     * was enabled when this graph was created.
+     */
+    boolean isReusingNodeIds() {
+        return freeIds != null;
+    }
+
+    /**
+     * Prevents the ids below {@code limit} from being reused until the next compression.
+     */
+    void retainNodeIds(int limit) {
+        if (freeIds != null && limit > retainedIdLimit) {
+            retainedIdLimit = limit;
+        }
+    }
+
     public boolean verify() {
         if (Options.VerifyGraalGraphs.getValue()) {
             for (Node node : getNodes()) {
@@ -48,6 +48,8 @@ class GraphNodeIterator implements Iterator<Node> {
                 index++;
             } while (index < graph.nodesSize && graph.nodes[index] == null);
         }
+        // ids behind the iterator must not be reused or new nodes could be missed
+        graph.retainNodeIds(index);
     }
 
     @Override
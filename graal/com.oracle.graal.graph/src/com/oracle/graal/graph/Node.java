@@ -527,6 +527,9 @@ public abstract class Node implements Cloneable, Formattable {
         assert isAlive() && (newSuccessor == null || newSuccessor.isAlive()) : "adding " + newSuccessor + " to " + this + " instead of " + oldSuccessor;
         assert graph == null || !graph.isFrozen();
         if (oldSuccessor != newSuccessor) {
+            if (graph != null) {
+                graph.controlFlowChanged();
+            }
             if (oldSuccessor != null) {
                 assert assertTrue(oldSuccessor.predecessor == this, "wrong predecessor in old successor (%s): %s, should be %s", oldSuccessor, oldSuccessor.predecessor, this);
                 oldSuccessor.predecessor = null;
@@ -715,7 +718,12 @@ public abstract class Node implements Cloneable, Formattable {
     }
 
     private void unregisterSuccessors() {
-        this.acceptSuccessors((n, successor) -> successor.predecessor = null);
+        this.acceptSuccessors((n, successor) -> {
+            successor.predecessor = null;
+            if (n.graph != null) {
+                n.graph.controlFlowChanged();
+            }
+        });
     }
 
     public void clearSuccessors() {
@@ -27,17 +27,47 @@ import java.util.Iterator;
 
 import com.oracle.graal.graph.iterators.NodeIterable;
 
+/**
+ * A set of nodes of a graph. The set is either a bit map over the whole node id space or, if
+ * created as sparse, a hash table of the ids of the marked nodes until more than 1/64 of the node
+ * ids are marked, at which point it switches to the bit map.
+ */
 public final class NodeBitMap implements NodeIterable<Node> {
     private static final int SHIFT = 6;
 
+    /**
+     * The sparse form costs about 12 bytes per marked id and the bit map 1/8 byte per node id, so
+     * switching at this density bounds the sparse form to about 1.5 times the size of the bit map.
+     */
+    private static final int SPARSE_DENSITY_DIVISOR = 64;
+
+    /**
+     * The bits of the dense form or {@code null} if {@link #sparse} is used.
+     */
     private long[] bits;
+
+    /**
+     * The marked ids of the sparse form or {@code null} if {@link #bits} is used.
+     */
+    private NodeIdTable sparse;
     private int nodeCount;
     private final NodeIdAccessor nodeIdAccessor;
     private int counter;
 
     public NodeBitMap(Graph graph) {
+        this(graph, false);
+    }
+
+    /**
+     * @param sparse specifies whether to start with the sparse form
+     */
+    public NodeBitMap(Graph graph, boolean sparse) {
         nodeCount = graph.nodeIdCount();
-        bits = new long[sizeForNodeCount(nodeCount)];
+        if (sparse) {
+            this.sparse = new NodeIdTable(0);
+        } else {
+            bits = new long[sizeForNodeCount(nodeCount)];
+        }
         this.nodeIdAccessor = new NodeIdAccessor(graph);
     }
 
@@ -50,7 +80,8 @@ public final class NodeBitMap implements NodeIterable<Node> {
     }
 
     private NodeBitMap(NodeBitMap other) {
-        this.bits = other.bits.clone();
+        this.bits = other.bits == null ? null : other.bits.clone();
+        this.sparse = other.sparse == null ? null : new NodeIdTable(other.sparse);
         this.nodeCount = other.nodeCount;
         this.nodeIdAccessor = other.nodeIdAccessor;
     }
@@ -80,9 +111,48 @@ public final class NodeBitMap implements NodeIterable<Node> {
     }
 
     public boolean isMarked(int id) {
+        if (sparse != null) {
+            return sparse.find(id) >= 0;
+        }
         return (bits[id >> SHIFT] & (1L << id)) != 0;
     }
 
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    private void markId(int id) {
+        if (sparse != null) {
+            if (sparse.find(id) < 0) {
+                sparse.add(id);
+                if (sparse.size() > Math.max(nodeCount, graph().nodeIdCount()) / SPARSE_DENSITY_DIVISOR) {
+                    makeDense();
+                }
+            }
+        } else {
+            bits[id >> SHIFT] |= (1L << id);
+        }
+    }
+
+    private void clearId(int id) {
+        if (sparse != null) {
+            sparse.remove(id);
+        } else {
+            bits[id >> SHIFT] &= ~(1L << id);
+        }
+    }
+
+    private void makeDense() {
+        nodeCount = Math.max(nodeCount, graph().nodeIdCount());
+        long[] newBits = new long[sizeForNodeCount(nodeCount)];
+        for (int entry = 0; entry < sparse.size(); entry++) {
+            int id = sparse.idAt(entry);
+            newBits[id >> SHIFT] |= (1L << id);
+        }
+        bits = newBits;
+        sparse = null;
+    }
+
     public boolean isMarkedAndGrow(Node node) {
         assert check(node, true);
         int id = nodeIdAccessor.getNodeId(node);
@@ -93,32 +163,34 @@ public final class NodeBitMap implements NodeIterable<Node> {
     public void mark(Node node) {
         assert check(node, false);
         int id = nodeIdAccessor.getNodeId(node);
-        bits[id >> SHIFT] |= (1L << id);
+        markId(id);
     }
 
     public void markAndGrow(Node node) {
         assert check(node, true);
         int id = nodeIdAccessor.getNodeId(node);
         checkGrow(id);
-        bits[id >> SHIFT] |= (1L << id);
+        markId(id);
     }
 
     public void clear(Node node) {
         assert check(node, false);
         int id = nodeIdAccessor.getNodeId(node);
-        bits[id >> SHIFT] &= ~(1L << id);
+        clearId(id);
     }
 
     public void clearAndGrow(Node node) {
         assert check(node, true);
         int id = nodeIdAccessor.getNodeId(node);
         checkGrow(id);
-        bits[id >> SHIFT] &= ~(1L << id);
+        clearId(id);
     }
 
     private void checkGrow(int id) {
         if (id >= nodeCount) {
-            if ((id >> SHIFT) >= bits.length) {
+            if (sparse != null) {
+                nodeCount = Math.max(id + 1, graph().nodeIdCount());
+            } else if ((id >> SHIFT) >= bits.length) {
                 grow();
             } else {
                 nodeCount = id + 1;
@@ -127,11 +199,35 @@ public final class NodeBitMap implements NodeIterable<Node> {
     }
 
     public void clearAll() {
-        Arrays.fill(bits, 0);
+        if (sparse != null) {
+            sparse.clear();
+        } else {
+            Arrays.fill(bits, 0);
+        }
     }
 
     public void intersect(NodeBitMap other) {
         assert graph() == other.graph();
+        if (sparse != null) {
+            for (int entry = sparse.size() - 1; entry >= 0; entry--) {
+                int id = sparse.idAt(entry);
+                if (!other.isMarkedSafe(id)) {
+                    sparse.remove(id);
+                }
+            }
+            return;
+        }
+        if (other.sparse != null) {
+            long[] newBits = new long[bits.length];
+            for (int entry = 0; entry < other.sparse.size(); entry++) {
+                int id = other.sparse.idAt(entry);
+                if ((id >> SHIFT) < bits.length && isMarked(id)) {
+                    newBits[id >> SHIFT] |= (1L << id);
+                }
+            }
+            bits = newBits;
+            return;
+        }
         int commonLength = Math.min(bits.length, other.bits.length);
         for (int i = commonLength; i < bits.length; i++) {
             bits[i] = 0;
@@ -141,8 +237,18 @@ public final class NodeBitMap implements NodeIterable<Node> {
         }
     }
 
+    private boolean isMarkedSafe(int id) {
+        if (sparse == null && (id >> SHIFT) >= bits.length) {
+            return false;
+        }
+        return isMarked(id);
+    }
+
     public void grow() {
         nodeCount = Math.max(nodeCount, graph().nodeIdCount());
+        if (sparse != null) {
+            return;
+        }
         int newLength = sizeForNodeCount(nodeCount);
         if (newLength > bits.length) {
             newLength = Math.max(newLength, (bits.length * 3 / 2) + 1);
@@ -226,6 +332,9 @@ public final class NodeBitMap implements NodeIterable<Node> {
 
     @Override
     public int count() {
+        if (sparse != null) {
+            return sparse.size();
+        }
         int count = 0;
         for (long l : bits) {
             count += Long.bitCount(l);
@@ -174,6 +174,10 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         try (DebugCloseable t1 = Init_Edges.start()) {
             successors = new SuccessorEdges(fs.directSuccessors, fs.successors);
             inputs = new InputEdges(fs.directInputs, fs.inputs);
+            if (Graph.Options.GeneratedEdgeAccessors.getValue()) {
+                successors.setAccessor(EdgeAccessor.lookup(clazz, successors));
+                inputs.setAccessor(EdgeAccessor.lookup(clazz, inputs));
+            }
         }
         try (DebugCloseable t1 = Init_Data.start()) {
             data = new Fields(fs.data);
@@ -628,9 +632,8 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
         int index = 0;
         Type curType = edges.type();
         int directCount = edges.getDirectCount();
-        final long[] curOffsets = edges.getOffsets();
         while (index < directCount) {
-            Node edge = Edges.getNode(node, curOffsets, index);
+            Node edge = edges.getNode(node, index);
             if (edge != null) {
                 Node newEdge = duplicationReplacement.replacement(edge, curType);
                 if (curType == Edges.Type.Inputs) {
@@ -639,15 +642,15 @@ public final class NodeClass<T> extends FieldIntrospection<T> {
                     node.updatePredecessor(null, newEdge);
                 }
                 assert assertUpdateValid(node, edges, index, newEdge);
-                Edges.initializeNode(node, curOffsets, index, newEdge);
+                edges.initializeNode(node, index, newEdge);
             }
             index++;
         }
 
         while (index < edges.getCount()) {
-            NodeList<Node> list = Edges.getNodeList(node, curOffsets, index);
+            NodeList<Node> list = edges.getNodeList(node, index);
             if (list != null) {
-                Edges.initializeList(node, curOffsets, index, updateEdgeListCopy(node, list, duplicationReplacement, curType));
+                edges.initializeList(node, index, updateEdgeListCopy(node, list, duplicationReplacement, curType));
             }
             index++;
         }
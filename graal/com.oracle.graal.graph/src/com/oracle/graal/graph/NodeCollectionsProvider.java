@@ -57,4 +57,30 @@ public interface NodeCollectionsProvider extends CollectionsProvider {
      * @param initFrom the returned map is populated with the entries in this map
      */
     <K extends Node, V> Map<K, V> newNodeIdentityMap(Map<K, V> initFrom);
+
+    /**
+     * Creates a set of nodes in {@code graph}. The returned set may start in a sparse form that
+     * switches to a bit map once enough nodes are marked.
+     */
+    NodeBitMap newNodeBitMap(Graph graph);
+
+    /**
+     * Creates a map whose keys are nodes in {@code graph}. The returned map may start in a sparse
+     * form that switches to an array indexed by node id once enough nodes have a value.
+     */
+    <V> NodeMap<V> newNodeMap(Graph graph);
+
+    /**
+     * Creates a map from the nodes in {@code graph} to unboxed {@code int} values.
+     *
+     * @param defaultValue the value of nodes that are not in the map
+     */
+    NodeIntMap newNodeIntMap(Graph graph, int defaultValue);
+
+    /**
+     * Creates a map from the nodes in {@code graph} to unboxed {@code long} values.
+     *
+     * @param defaultValue the value of nodes that are not in the map
+     */
+    NodeLongMap newNodeLongMap(Graph graph, long defaultValue);
 }
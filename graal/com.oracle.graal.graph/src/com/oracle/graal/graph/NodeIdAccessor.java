@@ -29,9 +29,19 @@ class NodeIdAccessor {
     final Graph graph;
     final int epoch;
 
+    /**
+     * Caches {@link Graph#isReusingNodeIds()} so that {@link #getNodeId} does not touch the graph
+     * when {@link Graph.Options#ReuseNodeIds} is disabled.
+     */
+    private final boolean retainNodeIds;
+
     public NodeIdAccessor(Graph graph) {
         this.graph = graph;
         this.epoch = graph.compressions;
+        this.retainNodeIds = graph.isReusingNodeIds();
+        if (retainNodeIds) {
+            graph.retainNodeIds(graph.nodeIdCount());
+        }
     }
 
     Graph getGraph() {
@@ -54,10 +64,15 @@ class NodeIdAccessor {
 
     /**
      * Gets the identifier for a node. If assertions are enabled, this method asserts that the
-     * identifier is stable.
+     * identifier is stable. The identifier will not be {@linkplain Graph.Options#ReuseNodeIds
+     * reused} for another node before the next compression.
      */
     public int getNodeId(Node node) {
         assert verifyIdsAreStable();
-        return node.id();
+        int id = node.id();
+        if (retainNodeIds) {
+            graph.retainNodeIds(id + 1);
+        }
+        return id;
     }
 }
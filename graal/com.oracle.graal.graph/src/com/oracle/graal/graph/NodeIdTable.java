@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table of node ids used by the sparse representation of the node
+ * collections. Each id is associated with an entry index in {@code [0, size())}, which the owner
+ * uses to index its own value array. Entries are kept contiguous: removing an entry moves the last
+ * entry into its index, so the owner must move the corresponding value too (see
+ * {@link #remove(int)}).
+ */
+final class NodeIdTable {
+
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * Linear probing table of entry index + 1, or 0 for an empty slot. The length is a power of two
+     * and at least twice {@link #size}.
+     */
+    private int[] slots;
+
+    /**
+     * The node id of each entry.
+     */
+    private int[] ids;
+
+    private int size;
+
+    NodeIdTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        ids = new int[capacity / 2];
+    }
+
+    NodeIdTable(NodeIdTable copyFrom) {
+        slots = copyFrom.slots.clone();
+        ids = copyFrom.ids.clone();
+        size = copyFrom.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of entries that can be added before the entry index space grows.
+     */
+    int entryCapacity() {
+        return ids.length;
+    }
+
+    int idAt(int entry) {
+        assert entry < size;
+        return ids[entry];
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(int id) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != 0) {
+            if (ids[slots[slot] - 1] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the entry index of {@code id} or -1 if {@code id} is not in this table.
+     */
+    int find(int id) {
+        int slot = findSlot(id);
+        return slot < 0 ? -1 : slots[slot] - 1;
+    }
+
+    /**
+     * Adds {@code id}, which must not be in this table yet.
+     *
+     * @return the entry index of {@code id}, which is the previous {@linkplain #size() size}
+     */
+    int add(int id) {
+        assert find(id) < 0;
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        int entry = size++;
+        ids[entry] = id;
+        insertSlot(id, entry);
+        return entry;
+    }
+
+    private void insertSlot(int id, int entry) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int entry = 0; entry < size; entry++) {
+            insertSlot(ids[entry], entry);
+        }
+    }
+
+    /**
+     * Removes {@code id} from this table. If the removed entry was not the last one, the last
+     * entry takes its index. The owner must therefore move the value at index {@link #size()}
+     * (after the removal) to the returned index.
+     *
+     * @return the entry index {@code id} had or -1 if {@code id} was not in this table
+     */
+    int remove(int id) {
+        int slot = findSlot(id);
+        if (slot < 0) {
+            return -1;
+        }
+        int entry = slots[slot] - 1;
+        deleteSlot(slot);
+        int last = --size;
+        if (entry != last) {
+            int lastId = ids[last];
+            slots[findSlot(lastId)] = entry + 1;
+            ids[entry] = lastId;
+        }
+        return entry;
+    }
+
+    /**
+     * Empties {@code slot} and moves later entries of the same probe sequence backwards so that
+     * no tombstones are needed.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        int i = (slot + 1) & mask;
+        while (slots[i] != 0) {
+            int home = hash(ids[slots[i] - 1]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /**
+     * Gets the ids in this table in ascending order.
+     */
+    int[] sortedIds() {
+        int[] result = Arrays.copyOf(ids, size);
+        Arrays.sort(result);
+        return result;
+    }
+}
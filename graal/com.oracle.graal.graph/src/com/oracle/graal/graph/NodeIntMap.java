@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.Arrays;
+
+/**
+ * A map from the nodes of a graph to {@code int} values that does not box the values. Nodes
+ * without a value are mapped to the default value given at construction, and setting a node to the
+ * default value removes it.
+ *
+ * The map is either an array indexed by node id or, if created as sparse, a hash table of the ids
+ * of the nodes with a value until more than a quarter of the node ids have a value, at which point
+ * it switches to the array.
+ */
+public final class NodeIntMap extends NodeIdAccessor {
+
+    private static final int SPARSE_DENSITY_DIVISOR = 4;
+
+    private final int defaultValue;
+
+    /**
+     * The values indexed by node id or, in the sparse form, by the entry index in {@link #sparse}.
+     */
+    private int[] values;
+
+    /**
+     * The node ids of the sparse form or {@code null} if {@link #values} is indexed by node id.
+     */
+    private NodeIdTable sparse;
+
+    private int nodeCount;
+
+    /**
+     * @param sparse specifies whether to start with the sparse form
+     */
+    public NodeIntMap(Graph graph, int defaultValue, boolean sparse) {
+        super(graph);
+        this.defaultValue = defaultValue;
+        this.nodeCount = graph.nodeIdCount();
+        if (sparse) {
+            this.sparse = new NodeIdTable(0);
+            this.values = new int[this.sparse.entryCapacity()];
+        } else {
+            this.values = newDenseValues(nodeCount);
+        }
+    }
+
+    public NodeIntMap(NodeIntMap copyFrom) {
+        super(copyFrom.graph);
+        this.defaultValue = copyFrom.defaultValue;
+        this.values = copyFrom.values.clone();
+        this.sparse = copyFrom.sparse == null ? null : new NodeIdTable(copyFrom.sparse);
+        this.nodeCount = copyFrom.nodeCount;
+    }
+
+    private int[] newDenseValues(int length) {
+        int[] result = new int[length];
+        if (defaultValue != 0) {
+            Arrays.fill(result, defaultValue);
+        }
+        return result;
+    }
+
+    public int getDefaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    public int get(Node node) {
+        assert check(node);
+        int id = getNodeId(node);
+        if (sparse != null) {
+            int entry = sparse.find(id);
+            return entry < 0 ? defaultValue : values[entry];
+        }
+        return values[id];
+    }
+
+    public int getAndGrow(Node node) {
+        grow(node);
+        return get(node);
+    }
+
+    public boolean containsKey(Node node) {
+        return get(node) != defaultValue;
+    }
+
+    public void set(Node node, int value) {
+        assert check(node);
+        int id = getNodeId(node);
+        if (sparse == null) {
+            values[id] = value;
+            return;
+        }
+        int entry = sparse.find(id);
+        if (value == defaultValue) {
+            if (entry >= 0) {
+                sparse.remove(id);
+                values[entry] = values[sparse.size()];
+            }
+        } else if (entry >= 0) {
+            values[entry] = value;
+        } else if (sparse.size() >= Math.max(nodeCount, graph.nodeIdCount()) / SPARSE_DENSITY_DIVISOR) {
+            makeDense();
+            values[id] = value;
+        } else {
+            entry = sparse.add(id);
+            if (entry >= values.length) {
+                values = Arrays.copyOf(values, sparse.entryCapacity());
+            }
+            values[entry] = value;
+        }
+    }
+
+    public void setAndGrow(Node node, int value) {
+        grow(node);
+        set(node, value);
+    }
+
+    public void remove(Node node) {
+        set(node, defaultValue);
+    }
+
+    private void makeDense() {
+        nodeCount = Math.max(nodeCount, graph.nodeIdCount());
+        int[] newValues = newDenseValues(nodeCount);
+        for (int entry = 0; entry < sparse.size(); entry++) {
+            newValues[sparse.idAt(entry)] = values[entry];
+        }
+        values = newValues;
+        sparse = null;
+    }
+
+    private void grow(Node node) {
+        if (isNew(node)) {
+            int oldLength = nodeCount;
+            nodeCount = Math.max(nodeCount, graph.nodeIdCount());
+            if (sparse == null) {
+                values = Arrays.copyOf(values, nodeCount);
+                if (defaultValue != 0) {
+                    Arrays.fill(values, oldLength, nodeCount, defaultValue);
+                }
+            }
+        }
+    }
+
+    public boolean isNew(Node node) {
+        return getNodeId(node) >= nodeCount;
+    }
+
+    public void clear() {
+        if (sparse != null) {
+            sparse.clear();
+        } else {
+            Arrays.fill(values, defaultValue);
+        }
+    }
+
+    private boolean check(Node node) {
+        assert node.graph() == graph : String.format("%s is not part of the graph", node);
+        assert !isNew(node) : "this node was added to the graph after creating the node map : " + node;
+        return true;
+    }
+}
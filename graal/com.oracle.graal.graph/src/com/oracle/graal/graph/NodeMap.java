@@ -27,37 +27,126 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
+/**
+ * A map from the nodes of a graph to values. The map is either an array indexed by node id or, if
+ * created as sparse, a hash table of the ids of the nodes with a non-null value until more than a
+ * quarter of the node ids have a value, at which point it switches to the array.
+ */
 public class NodeMap<T> extends NodeIdAccessor {
 
     private static final int MIN_REALLOC_SIZE = 16;
 
+    /**
+     * An entry of the sparse form costs about 16 bytes and the array 4 bytes per node id.
+     */
+    private static final int SPARSE_DENSITY_DIVISOR = 4;
+
+    /**
+     * The values indexed by node id or, in the sparse form, by the entry index in {@link #sparse}.
+     */
     protected Object[] values;
 
+    /**
+     * The node ids of the sparse form or {@code null} if {@link #values} is indexed by node id.
+     */
+    private NodeIdTable sparse;
+
+    /**
+     * The number of node ids covered by the sparse form.
+     */
+    private int sparseNodeCount;
+
     public NodeMap(Graph graph) {
+        this(graph, false);
+    }
+
+    /**
+     * @param sparse specifies whether to start with the sparse form
+     */
+    public NodeMap(Graph graph, boolean sparse) {
         super(graph);
-        this.values = new Object[graph.nodeIdCount()];
+        if (sparse) {
+            this.sparse = new NodeIdTable(0);
+            this.values = new Object[this.sparse.entryCapacity()];
+            this.sparseNodeCount = graph.nodeIdCount();
+        } else {
+            this.values = new Object[graph.nodeIdCount()];
+        }
     }
 
     public NodeMap(NodeMap<T> copyFrom) {
         super(copyFrom.graph);
         this.values = Arrays.copyOf(copyFrom.values, copyFrom.values.length);
+        this.sparse = copyFrom.sparse == null ? null : new NodeIdTable(copyFrom.sparse);
+        this.sparseNodeCount = copyFrom.sparseNodeCount;
     }
 
     @SuppressWarnings("unchecked")
     public T get(Node node) {
         assert check(node);
-        return (T) values[getNodeId(node)];
+        return (T) getById(getNodeId(node));
     }
 
     @SuppressWarnings("unchecked")
     public T getAndGrow(Node node) {
         checkAndGrow(node);
-        return (T) values[getNodeId(node)];
+        return (T) getById(getNodeId(node));
+    }
+
+    private Object getById(int id) {
+        if (sparse != null) {
+            int entry = sparse.find(id);
+            return entry < 0 ? null : values[entry];
+        }
+        return values[id];
+    }
+
+    private void setById(int id, T value) {
+        if (sparse == null) {
+            values[id] = value;
+            return;
+        }
+        int entry = sparse.find(id);
+        if (value == null) {
+            if (entry >= 0) {
+                sparse.remove(id);
+                values[entry] = values[sparse.size()];
+                values[sparse.size()] = null;
+            }
+        } else if (entry >= 0) {
+            values[entry] = value;
+        } else if (sparse.size() >= Math.max(sparseNodeCount, graph.nodeIdCount()) / SPARSE_DENSITY_DIVISOR) {
+            makeDense();
+            values[id] = value;
+        } else {
+            entry = sparse.add(id);
+            if (entry >= values.length) {
+                values = Arrays.copyOf(values, sparse.entryCapacity());
+            }
+            values[entry] = value;
+        }
+    }
+
+    private void makeDense() {
+        Object[] newValues = new Object[Math.max(sparseNodeCount, graph.nodeIdCount())];
+        for (int entry = 0; entry < sparse.size(); entry++) {
+            newValues[sparse.idAt(entry)] = values[entry];
+        }
+        values = newValues;
+        sparse = null;
+    }
+
+    public boolean isSparse() {
+        return sparse != null;
     }
 
     private void checkAndGrow(Node node) {
         if (isNew(node)) {
-            this.values = Arrays.copyOf(values, Math.max(MIN_REALLOC_SIZE, graph.nodeIdCount() * 3 / 2));
+            if (sparse != null) {
+                sparseNodeCount = Math.max(sparseNodeCount, graph.nodeIdCount());
+            } else {
+                this.values = Arrays.copyOf(values, Math.max(MIN_REALLOC_SIZE, graph.nodeIdCount() * 3 / 2));
+            }
         }
         assert check(node);
     }
@@ -77,8 +166,9 @@ public class NodeMap<T> extends NodeIdAccessor {
     }
 
     public boolean containsValue(Object value) {
-        for (Object o : values) {
-            if (o == value) {
+        int length = sparse != null ? sparse.size() : values.length;
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
                 return true;
             }
         }
@@ -91,12 +181,12 @@ public class NodeMap<T> extends NodeIdAccessor {
 
     public void set(Node node, T value) {
         assert check(node);
-        values[getNodeId(node)] = value;
+        setById(getNodeId(node), value);
     }
 
     public void setAndGrow(Node node, T value) {
         checkAndGrow(node);
-        values[getNodeId(node)] = value;
+        setById(getNodeId(node), value);
     }
 
     /**
@@ -108,6 +198,9 @@ public class NodeMap<T> extends NodeIdAccessor {
     }
 
     public int size() {
+        if (sparse != null) {
+            return sparseNodeCount;
+        }
         return values.length;
     }
 
@@ -122,6 +215,9 @@ public class NodeMap<T> extends NodeIdAccessor {
     }
 
     public void clear() {
+        if (sparse != null) {
+            sparse.clear();
+        }
         Arrays.fill(values, null);
     }
 
@@ -130,6 +226,9 @@ public class NodeMap<T> extends NodeIdAccessor {
 
             @Override
             public Iterator<Entry<Node, T>> iterator() {
+                if (sparse != null) {
+                    return sparseEntries();
+                }
                 return new Iterator<Entry<Node, T>>() {
 
                     int i = 0;
@@ -176,6 +275,54 @@ public class NodeMap<T> extends NodeIdAccessor {
         };
     }
 
+    /**
+     * Iterates over the entries of the sparse form in node id order, like the dense form.
+     */
+    private Iterator<Entry<Node, T>> sparseEntries() {
+        final int[] ids = sparse.sortedIds();
+        return new Iterator<Entry<Node, T>>() {
+
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                forward();
+                return i < ids.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Entry<Node, T> next() {
+                forward();
+                final Node key = NodeMap.this.getKey(ids[i]);
+                T value = (T) getById(ids[i]);
+                i++;
+                return new SimpleEntry<Node, T>(key, value) {
+
+                    private static final long serialVersionUID = -1840417411389932934L;
+
+                    @Override
+                    public T setValue(T v) {
+                        T oldv = super.setValue(v);
+                        NodeMap.this.set(key, v);
+                        return oldv;
+                    }
+                };
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private void forward() {
+                while (i < ids.length && (NodeMap.this.getKey(ids[i]) == null || getById(ids[i]) == null)) {
+                    i++;
+                }
+            }
+        };
+    }
+
     @Override
     public String toString() {
         Iterator<Entry<Node, T>> i = entries().iterator();
@@ -53,9 +53,9 @@ public final class Position {
 
     public Node get(Node node) {
         if (index < edges.getDirectCount()) {
-            return Edges.getNode(node, edges.getOffsets(), index);
+            return edges.getNode(node, index);
         } else {
-            return Edges.getNodeList(node, edges.getOffsets(), index).get(subIndex);
+            return edges.getNodeList(node, index).get(subIndex);
         }
     }
 
@@ -75,15 +75,15 @@ public final class Position {
         if (index < edges.getDirectCount()) {
             edges.setNode(node, index, value);
         } else {
-            Edges.getNodeList(node, edges.getOffsets(), index).set(subIndex, value);
+            edges.getNodeList(node, index).set(subIndex, value);
         }
     }
 
     public void initialize(Node node, Node value) {
         if (index < edges.getDirectCount()) {
-            Edges.initializeNode(node, edges.getOffsets(), index, value);
+            edges.initializeNode(node, index, value);
         } else {
-            Edges.getNodeList(node, edges.getOffsets(), index).initialize(subIndex, value);
+            edges.getNodeList(node, index).initialize(subIndex, value);
         }
     }
 
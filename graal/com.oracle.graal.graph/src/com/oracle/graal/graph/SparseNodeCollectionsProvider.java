@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+/**
+ * A {@link NodeCollectionsProvider} whose node bit maps and node maps start in their sparse form.
+ * This reduces the footprint of the many short-lived collections created for small regions of large
+ * graphs.
+ */
+public class SparseNodeCollectionsProvider extends DefaultNodeCollectionsProvider {
+
+    @Override
+    public NodeBitMap newNodeBitMap(Graph graph) {
+        return new NodeBitMap(graph, true);
+    }
+
+    @Override
+    public <V> NodeMap<V> newNodeMap(Graph graph) {
+        return new NodeMap<>(graph, true);
+    }
+
+    @Override
+    public NodeIntMap newNodeIntMap(Graph graph, int defaultValue) {
+        return new NodeIntMap(graph, defaultValue, true);
+    }
+
+    @Override
+    public NodeLongMap newNodeLongMap(Graph graph, long defaultValue) {
+        return new NodeLongMap(graph, defaultValue, true);
+    }
+}
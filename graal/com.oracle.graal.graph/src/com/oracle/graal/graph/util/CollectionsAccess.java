@@ -28,8 +28,13 @@ import java.util.Set;
 import com.oracle.graal.api.collections.CollectionsProvider;
 import com.oracle.graal.api.runtime.Graal;
 import com.oracle.graal.api.runtime.GraalRuntime;
+import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.graph.NodeCollectionsProvider;
+import com.oracle.graal.graph.NodeIntMap;
+import com.oracle.graal.graph.NodeLongMap;
+import com.oracle.graal.graph.NodeMap;
 
 /**
  * Static methods for accessing the methods in the installed {@link GraalRuntime}'s
@@ -88,6 +93,34 @@ public class CollectionsAccess {
         return provider.newNodeIdentityMap(initFrom);
     }
 
+    /**
+     * @see NodeCollectionsProvider#newNodeBitMap(Graph)
+     */
+    public static NodeBitMap newNodeBitMap(Graph graph) {
+        return provider.newNodeBitMap(graph);
+    }
+
+    /**
+     * @see NodeCollectionsProvider#newNodeMap(Graph)
+     */
+    public static <V> NodeMap<V> newNodeMap(Graph graph) {
+        return provider.newNodeMap(graph);
+    }
+
+    /**
+     * @see NodeCollectionsProvider#newNodeIntMap(Graph, int)
+     */
+    public static NodeIntMap newNodeIntMap(Graph graph, int defaultValue) {
+        return provider.newNodeIntMap(graph, defaultValue);
+    }
+
+    /**
+     * @see NodeCollectionsProvider#newNodeLongMap(Graph, long)
+     */
+    public static NodeLongMap newNodeLongMap(Graph graph, long defaultValue) {
+        return provider.newNodeLongMap(graph, defaultValue);
+    }
+
     /**
      * Creates an identity set.
      */
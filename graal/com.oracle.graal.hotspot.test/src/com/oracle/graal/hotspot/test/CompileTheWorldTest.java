@@ -23,9 +23,16 @@
 package com.oracle.graal.hotspot.test;
 
 import static jdk.internal.jvmci.compiler.Compiler.ExitVMOnException;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
 import jdk.internal.jvmci.hotspot.HotSpotJVMCIRuntime;
 import jdk.internal.jvmci.hotspot.HotSpotJVMCIRuntimeProvider;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.graal.compiler.test.GraalCompilerTest;
@@ -48,4 +55,23 @@ public class CompileTheWorldTest extends GraalCompilerTest {
         assert ExitVMOnException.getValue() == originalSetting;
     }
 
+    @Test
+    public void testRtJarWorkStealingShard() throws Throwable {
+        // Compile the second half of a couple classes in rt.jar and record the results
+        String file = System.getProperty("java.home") + "/lib/rt.jar";
+        File results = File.createTempFile("ctw", ".csv");
+        try {
+            HotSpotJVMCIRuntimeProvider runtime = HotSpotJVMCIRuntime.runtime();
+            new CompileTheWorld(runtime, (HotSpotGraalCompiler) runtime.getCompiler(), file, new Config(null), 1, 10, "1/2", null, null, false, true, results.getPath(), "csv").compile();
+            List<String> lines = Files.readAllLines(results.toPath(), StandardCharsets.UTF_8);
+            Assert.assertTrue(lines.get(0).startsWith("classIndex,method,status"));
+            for (String line : lines.subList(1, lines.size())) {
+                int classIndex = Integer.parseInt(line.substring(0, line.indexOf(',')));
+                Assert.assertTrue(line, classIndex >= 6 && classIndex <= 10);
+            }
+        } finally {
+            results.delete();
+        }
+    }
+
 }
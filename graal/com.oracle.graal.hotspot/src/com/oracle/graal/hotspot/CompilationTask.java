@@ -48,18 +48,28 @@ import jdk.internal.jvmci.hotspot.events.EmptyEventProvider;
 import jdk.internal.jvmci.hotspot.events.EventProvider;
 import jdk.internal.jvmci.hotspot.events.EventProvider.CompilationEvent;
 import jdk.internal.jvmci.hotspot.events.EventProvider.CompilerFailureEvent;
+import jdk.internal.jvmci.meta.DeoptimizationReason;
+import jdk.internal.jvmci.meta.ProfilingInfo;
 import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
 import jdk.internal.jvmci.service.Services;
 import sun.misc.Unsafe;
 
+import com.oracle.graal.compiler.GraalCompiler;
 import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugDumpScope;
 import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.EventRingBuffer;
 import com.oracle.graal.debug.Management;
 import com.oracle.graal.debug.TTY;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.CompilationBudget;
+import com.oracle.graal.phases.CompilationBudget.BudgetExceededException;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 
 //JaCoCo Exclude
 
@@ -82,6 +92,7 @@ public class CompilationTask {
     }
 
     private static final DebugMetric BAILOUTS = Debug.metric("Bailouts");
+    private static final DebugMetric BudgetRetries = Debug.metric("CompilationBudgetRetries");
 
     private static final EventProvider eventProvider;
 
@@ -121,6 +132,16 @@ public class CompilationTask {
      */
     private final long jvmciEnv;
 
+    /**
+     * The outcome of {@link #runCompilation()}. These are only meaningful once the compilation has
+     * run and are intended for tools such as {@link CompileTheWorld} that report per-method
+     * results.
+     */
+    private CompilationResult compilationResult;
+    private HotSpotInstalledCode installed;
+    private int graphNodeCount = -1;
+    private Throwable failure;
+
     public CompilationTask(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalCompiler compiler, HotSpotResolvedJavaMethod method, int entryBCI, long jvmciEnv, int id, boolean installAsDefault) {
         this.jvmciRuntime = jvmciRuntime;
         this.compiler = compiler;
@@ -148,6 +169,35 @@ public class CompilationTask {
         return entryBCI;
     }
 
+    /**
+     * Gets the result of the compilation or null if the compilation did not produce one.
+     */
+    public CompilationResult getCompilationResult() {
+        return compilationResult;
+    }
+
+    /**
+     * Gets the code installed by the compilation or null if no code was installed.
+     */
+    public HotSpotInstalledCode getInstalledCode() {
+        return installed;
+    }
+
+    /**
+     * Gets the number of nodes in the graph at the end of the compilation or -1 if not available.
+     */
+    public int getGraphNodeCount() {
+        return graphNodeCount;
+    }
+
+    /**
+     * Gets the bailout or exception that aborted the compilation or null if the compilation did
+     * not fail.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
     /**
      * Time spent in compilation.
      */
@@ -178,6 +228,14 @@ public class CompilationTask {
             return;
         }
 
+        if (EventRingBuffer.isEnabled()) {
+            int deopts = getDeoptimizationCount(method);
+            if (deopts != 0) {
+                EventRingBuffer.record(EventRingBuffer.Kind.Recompile, method, deopts);
+            }
+        }
+        EventRingBuffer.compilationStarted(id, method);
+
         CompilationResult result = null;
         try (DebugCloseable a = CompilationTime.start()) {
             CompilationStatistics stats = CompilationStatistics.create(method, isOSR);
@@ -198,11 +256,32 @@ public class CompilationTask {
                 allocatedBytesBefore = 0L;
             }
 
+            final long[] debugValuesBefore = DebugValuesExporter.beginCompilation();
             try (Scope s = Debug.scope("Compiling", new DebugDumpScope(String.valueOf(id), true))) {
                 // Begin the compilation event.
                 compilationEvent.begin();
 
-                result = compiler.compile(method, entryBCI, mustRecordMethodInlining(config));
+                StructuredGraph graph = compiler.createGraph(method, entryBCI, mustRecordMethodInlining(config));
+                try {
+                    result = compiler.compile(method, graph, entryBCI);
+                } catch (BudgetExceededException e) {
+                    if (!CompilationBudget.Options.CompilationBudgetRetry.getValue()) {
+                        throw e;
+                    }
+                    /*
+                     * Retry once with the optimizations whose cost grows fastest with the graph
+                     * size disabled. If this exceeds the budget too, the bailout is final.
+                     */
+                    BudgetRetries.increment();
+                    if (PrintBailout.getValue()) {
+                        TTY.out.println(method.format("Retrying %H.%n(%p) with reduced optimizations: ") + e.getMessage());
+                    }
+                    graph = compiler.createGraph(method, entryBCI, mustRecordMethodInlining(config));
+                    try (OverrideScope o = OptionValue.override(GraalCompiler.getReducedOptimizationOverrides())) {
+                        result = compiler.compile(method, graph, entryBCI);
+                    }
+                }
+                graphNodeCount = graph.getNodeCount();
 
                 result.setId(getId());
             } catch (Throwable e) {
@@ -211,6 +290,8 @@ public class CompilationTask {
                 // End the compilation event.
                 compilationEvent.end();
 
+                DebugValuesExporter.endCompilation(method, debugValuesBefore);
+
                 filter.remove();
 
                 if (printAfterCompilation || printCompilation) {
@@ -230,9 +311,14 @@ public class CompilationTask {
             try (DebugCloseable b = CodeInstallationTime.start()) {
                 installedCode = (HotSpotInstalledCode) installMethod(result);
             }
+            if (installedCode != null) {
+                EventRingBuffer.record(EventRingBuffer.Kind.CodeInstall, method, installedCode.getSize());
+            }
             stats.finish(method, installedCode);
         } catch (BailoutException bailout) {
+            failure = bailout;
             BAILOUTS.increment();
+            EventRingBuffer.record(EventRingBuffer.Kind.Bailout, method, id);
             if (ExitVMOnBailout.getValue()) {
                 TTY.out.println(method.format("Bailout in %H.%n(%p)"));
                 bailout.printStackTrace(TTY.out);
@@ -242,9 +328,14 @@ public class CompilationTask {
                 bailout.printStackTrace(TTY.out);
             }
         } catch (Throwable t) {
+            failure = t;
+            EventRingBuffer.record(EventRingBuffer.Kind.Failure, method, id);
             if (PrintStackTraceOnException.getValue() || ExitVMOnException.getValue()) {
                 t.printStackTrace(TTY.out);
             }
+            if (EventRingBuffer.Options.DumpEventRingBufferOnFailure.getValue()) {
+                EventRingBuffer.dumpAll(TTY.out);
+            }
 
             // Log a failure event.
             CompilerFailureEvent event = eventProvider.newCompilerFailureEvent();
@@ -258,6 +349,9 @@ public class CompilationTask {
                 System.exit(-1);
             }
         } finally {
+            EventRingBuffer.compilationFinished(method);
+            this.compilationResult = result;
+            this.installed = installedCode;
             int compiledBytecodes = 0;
             int codeSize = 0;
             if (result != null) {
@@ -294,6 +388,18 @@ public class CompilationTask {
         }
     }
 
+    /**
+     * Gets the number of deoptimizations recorded in the profile of {@code m} for all reasons.
+     */
+    private static int getDeoptimizationCount(HotSpotResolvedJavaMethod m) {
+        ProfilingInfo profile = m.getProfilingInfo();
+        int count = 0;
+        for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+            count += profile.getDeoptimizationCount(reason);
+        }
+        return count;
+    }
+
     /**
      * Determines whether to disable method inlining recording for the method being compiled.
      */
@@ -319,6 +425,16 @@ public class CompilationTask {
         try (Scope s = Debug.scope("CodeInstall", new DebugDumpScope(String.valueOf(id), true), codeCache, method)) {
             installedCode = codeCache.installMethod(method, compResult, jvmciEnv, installAsDefault);
         } catch (Throwable e) {
+            if (e instanceof BailoutException && !((BailoutException) e).isPermanent()) {
+                /*
+                 * Installation failed because dependencies were invalidated so the shared inlining
+                 * graphs built under assumptions may be stale too.
+                 */
+                InliningGraphCache graphCache = InliningGraphCache.getInstance();
+                if (graphCache != null) {
+                    graphCache.invalidateAssumptionDependents();
+                }
+            }
             throw Debug.handle(e);
         }
         return installedCode;
@@ -26,9 +26,13 @@ import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldCla
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldConfig;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldExcludeMethodFilter;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldMethodFilter;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldResultsFile;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldResultsFormat;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldShard;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStartAt;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldStopAt;
 import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldVerbose;
+import static com.oracle.graal.hotspot.CompileTheWorldOptions.CompileTheWorldWorkStealing;
 import static jdk.internal.jvmci.compiler.Compiler.ExitVMOnException;
 import static jdk.internal.jvmci.compiler.Compiler.PrintBailout;
 import static jdk.internal.jvmci.compiler.Compiler.PrintStackTraceOnException;
@@ -42,12 +46,17 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -55,6 +64,7 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
+import jdk.internal.jvmci.common.JVMCIError;
 import jdk.internal.jvmci.compiler.Compiler;
 import jdk.internal.jvmci.hotspot.HotSpotJVMCIRuntime;
 import jdk.internal.jvmci.hotspot.HotSpotJVMCIRuntimeProvider;
@@ -74,9 +84,11 @@ import com.oracle.graal.bytecode.Bytecodes;
 import com.oracle.graal.compiler.CompilerThreadFactory;
 import com.oracle.graal.compiler.CompilerThreadFactory.DebugConfigAccess;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugDumpHandler;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.GraalDebugConfig;
 import com.oracle.graal.debug.MethodFilter;
+import com.oracle.graal.debug.RecordFormat;
 import com.oracle.graal.debug.TTY;
 import com.oracle.graal.debug.internal.DebugScope;
 import com.oracle.graal.debug.internal.MemUseTrackerImpl;
@@ -160,6 +172,12 @@ public final class CompileTheWorld {
      */
     private final int stopAt;
 
+    /**
+     * The shard of the class index range to compile as {@code {index, count}} (see
+     * {@link CompileTheWorldOptions#CompileTheWorldShard}) or null to compile the whole range.
+     */
+    private final int[] shard;
+
     /** Only compile methods matching one of the filters in this array if the array is non-null. */
     private final MethodFilter[] methodFilters;
 
@@ -169,6 +187,7 @@ public final class CompileTheWorld {
     // Counters
     private int classFileCounter = 0;
     private AtomicLong compiledMethodsCounter = new AtomicLong();
+    /** Sum of the compilation times in nanoseconds. */
     private AtomicLong compileTime = new AtomicLong();
     private AtomicLong memoryUsed = new AtomicLong();
 
@@ -182,6 +201,17 @@ public final class CompileTheWorld {
 
     private ThreadPoolExecutor threadPool;
 
+    /**
+     * The pool used instead of {@link #threadPool} if
+     * {@link CompileTheWorldOptions#CompileTheWorldWorkStealing} is enabled.
+     */
+    private ForkJoinPool workStealingPool;
+
+    private final boolean workStealing;
+    private final String resultsFile;
+    private final RecordFormat resultsFormat;
+    private CompileTheWorldResultWriter resultWriter;
+
     /**
      * Creates a compile-the-world instance.
      *
@@ -193,6 +223,26 @@ public final class CompileTheWorld {
      */
     public CompileTheWorld(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalCompiler compiler, String files, Config config, int startAt, int stopAt, String methodFilters,
                     String excludeMethodFilters, boolean verbose) {
+        this(jvmciRuntime, compiler, files, config, startAt, stopAt, null, methodFilters, excludeMethodFilters, verbose, false, null, null);
+    }
+
+    /**
+     * Creates a compile-the-world instance.
+     *
+     * @param files {@link File#pathSeparator} separated list of Zip/Jar files to compile
+     * @param startAt index of the class file to start compilation at
+     * @param stopAt index of the class file to stop compilation at
+     * @param shard the shard of the classes between {@code startAt} and {@code stopAt} to compile
+     *            in the format described by {@link CompileTheWorldOptions#CompileTheWorldShard} or
+     *            null to compile all of them
+     * @param methodFilters
+     * @param excludeMethodFilters
+     * @param workStealing compile per-class batches on a work-stealing thread pool
+     * @param resultsFile file to which per-method results are written or null
+     * @param resultsFormat format of {@code resultsFile}
+     */
+    public CompileTheWorld(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalCompiler compiler, String files, Config config, int startAt, int stopAt, String shard, String methodFilters,
+                    String excludeMethodFilters, boolean verbose, boolean workStealing, String resultsFile, String resultsFormat) {
         this.jvmciRuntime = jvmciRuntime;
         this.compiler = compiler;
         this.files = files;
@@ -202,6 +252,10 @@ public final class CompileTheWorld {
         this.excludeMethodFilters = excludeMethodFilters == null || excludeMethodFilters.isEmpty() ? null : MethodFilter.parse(excludeMethodFilters);
         this.verbose = verbose;
         this.config = config;
+        this.shard = shard == null || shard.isEmpty() ? null : parseShard(shard);
+        this.workStealing = workStealing;
+        this.resultsFile = resultsFile == null || resultsFile.isEmpty() ? null : resultsFile;
+        this.resultsFormat = this.resultsFile == null ? null : CompileTheWorldResultWriter.parseFormat(resultsFormat);
 
         // We don't want the VM to exit when a method fails to compile...
         config.putIfAbsent(ExitVMOnException, false);
@@ -214,7 +268,46 @@ public final class CompileTheWorld {
 
     public CompileTheWorld(HotSpotJVMCIRuntimeProvider jvmciRuntime, HotSpotGraalCompiler compiler) {
         this(jvmciRuntime, compiler, CompileTheWorldClasspath.getValue(), new Config(CompileTheWorldConfig.getValue()), CompileTheWorldStartAt.getValue(), CompileTheWorldStopAt.getValue(),
-                        CompileTheWorldMethodFilter.getValue(), CompileTheWorldExcludeMethodFilter.getValue(), CompileTheWorldVerbose.getValue());
+                        CompileTheWorldShard.getValue(), CompileTheWorldMethodFilter.getValue(), CompileTheWorldExcludeMethodFilter.getValue(), CompileTheWorldVerbose.getValue(),
+                        CompileTheWorldWorkStealing.getValue(), CompileTheWorldResultsFile.getValue(), CompileTheWorldResultsFormat.getValue());
+    }
+
+    private static int[] parseShard(String shard) {
+        int slash = shard.indexOf('/');
+        try {
+            if (slash > 0) {
+                int index = Integer.parseInt(shard.substring(0, slash).trim());
+                int count = Integer.parseInt(shard.substring(slash + 1).trim());
+                if (count > 0 && index >= 0 && index < count) {
+                    return new int[]{index, count};
+                }
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new JVMCIError("invalid CompileTheWorld shard (expected 'i/n' with 0 <= i < n): %s", shard);
+    }
+
+    /**
+     * Counts the class files in the Zip/Jar files of {@code entries} the same way
+     * {@link #compile(String)} numbers them.
+     */
+    private static int countClassFiles(String[] entries) throws IOException {
+        int count = 0;
+        for (String entry : entries) {
+            if (!entry.endsWith(".zip") && !entry.endsWith(".jar")) {
+                continue;
+            }
+            try (JarFile jarFile = new JarFile(entry)) {
+                Enumeration<JarEntry> e = jarFile.entries();
+                while (e.hasMoreElements()) {
+                    JarEntry je = e.nextElement();
+                    if (!je.isDirectory() && je.getName().endsWith(".class")) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
     }
 
     /**
@@ -280,14 +373,15 @@ public final class CompileTheWorld {
         final String[] entries = fileList.split(File.pathSeparator);
         long start = System.currentTimeMillis();
 
-        CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorld", new DebugConfigAccess() {
+        DebugConfigAccess debugConfigAccess = new DebugConfigAccess() {
             public GraalDebugConfig getDebugConfig() {
                 if (Debug.isEnabled() && DebugScope.getConfig() == null) {
                     return DebugEnvironment.initialize(System.out);
                 }
                 return null;
             }
-        });
+        };
+        CompilerThreadFactory factory = new CompilerThreadFactory("CompileTheWorld", debugConfigAccess);
 
         try {
             // compile dummy method to get compiler initilized outside of the config debug override.
@@ -304,15 +398,35 @@ public final class CompileTheWorld {
          * DebugValueThreadFilter to filter on the thread names.
          */
         int threadCount = 1;
-        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue()) {
+        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue() || workStealing) {
             threadCount = CompileTheWorldOptions.CompileTheWorldThreads.getValue();
             if (threadCount == 0) {
                 threadCount = Runtime.getRuntime().availableProcessors();
             }
-        } else {
+        }
+        if (workStealing) {
+            // Batches are submitted while classes are still being loaded.
             running = true;
+            workStealingPool = new ForkJoinPool(threadCount, pool -> new CompileTheWorldWorkerThread(pool, debugConfigAccess), null, false);
+        } else {
+            if (!CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue()) {
+                running = true;
+            }
+            threadPool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
+        }
+
+        int first = startAt;
+        int last = stopAt;
+        if (shard != null) {
+            long length = Math.max(Math.min(stopAt, countClassFiles(entries)) - startAt + 1, 0);
+            first = startAt + (int) (length * shard[0] / shard[1]);
+            last = startAt + (int) (length * (shard[0] + 1) / shard[1]) - 1;
+            println("CompileTheWorld : Compiling shard %d/%d (classes %d to %d)", shard[0], shard[1], first, last);
+        }
+
+        if (resultsFile != null) {
+            resultWriter = new CompileTheWorldResultWriter(resultsFile, resultsFormat);
         }
-        threadPool = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), factory);
 
         try (OverrideScope s = config.apply()) {
             for (int i = 0; i < entries.length; i++) {
@@ -350,7 +464,7 @@ public final class CompileTheWorld {
                     }
 
                     // Are we done?
-                    if (classFileCounter >= stopAt) {
+                    if (classFileCounter >= last) {
                         break;
                     }
 
@@ -387,19 +501,27 @@ public final class CompileTheWorld {
 
                         // Are we compiling this class?
                         MetaAccessProvider metaAccess = JVMCI.getRuntime().getHostJVMCIBackend().getMetaAccess();
-                        if (classFileCounter >= startAt) {
+                        if (classFileCounter >= first) {
                             println("CompileTheWorld (%d) : %s", classFileCounter, className);
 
                             // Compile each constructor/method in the class.
+                            List<HotSpotResolvedJavaMethod> methods = new ArrayList<>();
                             for (Constructor<?> constructor : javaClass.getDeclaredConstructors()) {
                                 HotSpotResolvedJavaMethod javaMethod = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(constructor);
                                 if (canBeCompiled(javaMethod, constructor.getModifiers())) {
-                                    compileMethod(javaMethod);
+                                    methods.add(javaMethod);
                                 }
                             }
                             for (Method method : javaClass.getDeclaredMethods()) {
                                 HotSpotResolvedJavaMethod javaMethod = (HotSpotResolvedJavaMethod) metaAccess.lookupJavaMethod(method);
                                 if (canBeCompiled(javaMethod, method.getModifiers())) {
+                                    methods.add(javaMethod);
+                                }
+                            }
+                            if (workStealing) {
+                                compileBatch(methods, classFileCounter);
+                            } else {
+                                for (HotSpotResolvedJavaMethod javaMethod : methods) {
                                     compileMethod(javaMethod);
                                 }
                             }
@@ -416,30 +538,56 @@ public final class CompileTheWorld {
         if (!running) {
             startThreads();
         }
-        int wakeups = 0;
-        while (threadPool.getCompletedTaskCount() != threadPool.getTaskCount()) {
-            if (wakeups % 15 == 0) {
-                TTY.println("CompileTheWorld : Waiting for " + (threadPool.getTaskCount() - threadPool.getCompletedTaskCount()) + " compiles");
-            }
-            try {
-                threadPool.awaitTermination(1, TimeUnit.SECONDS);
-                wakeups++;
-            } catch (InterruptedException e) {
+        if (workStealing) {
+            awaitWorkStealingPool();
+        } else {
+            int wakeups = 0;
+            while (threadPool.getCompletedTaskCount() != threadPool.getTaskCount()) {
+                if (wakeups % 15 == 0) {
+                    TTY.println("CompileTheWorld : Waiting for " + (threadPool.getTaskCount() - threadPool.getCompletedTaskCount()) + " compiles");
+                }
+                try {
+                    threadPool.awaitTermination(1, TimeUnit.SECONDS);
+                    wakeups++;
+                } catch (InterruptedException e) {
+                }
             }
+            threadPool = null;
+        }
+
+        if (resultWriter != null) {
+            resultWriter.close();
+            resultWriter = null;
         }
-        threadPool = null;
 
         long elapsedTime = System.currentTimeMillis() - start;
+        long compileTimeMillis = TimeUnit.NANOSECONDS.toMillis(compileTime.get());
 
         println();
-        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue()) {
+        if (CompileTheWorldOptions.CompileTheWorldMultiThreaded.getValue() || workStealing) {
             TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms elapsed, %d ms compile time, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), elapsedTime,
-                            compileTime.get(), memoryUsed.get());
+                            compileTimeMillis, memoryUsed.get());
         } else {
-            TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), compileTime.get(), memoryUsed.get());
+            TTY.println("CompileTheWorld : Done (%d classes, %d methods, %d ms, %d bytes of memory used)", classFileCounter, compiledMethodsCounter.get(), compileTimeMillis, memoryUsed.get());
         }
     }
 
+    private void awaitWorkStealingPool() {
+        workStealingPool.shutdown();
+        int wakeups = 0;
+        while (!workStealingPool.isTerminated()) {
+            if (wakeups % 15 == 0) {
+                TTY.println("CompileTheWorld : Waiting for " + (workStealingPool.getQueuedSubmissionCount() + workStealingPool.getQueuedTaskCount()) + " batches");
+            }
+            try {
+                workStealingPool.awaitTermination(1, TimeUnit.SECONDS);
+                wakeups++;
+            } catch (InterruptedException e) {
+            }
+        }
+        workStealingPool = null;
+    }
+
     private synchronized void startThreads() {
         running = true;
         // Wake up any waiting threads
@@ -455,12 +603,116 @@ public final class CompileTheWorld {
         }
     }
 
-    @SuppressWarnings("try")
-    private void compileMethod(HotSpotResolvedJavaMethod method) throws InterruptedException, ExecutionException {
+    private boolean isIncluded(HotSpotResolvedJavaMethod method) {
         if (methodFilters != null && !MethodFilter.matches(methodFilters, method)) {
-            return;
+            return false;
         }
         if (excludeMethodFilters != null && MethodFilter.matches(excludeMethodFilters, method)) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Submits the methods of one class as a single task to the {@link #workStealingPool}.
+     */
+    private void compileBatch(List<HotSpotResolvedJavaMethod> methods, int classIndex) {
+        HotSpotResolvedJavaMethod[] batch = methods.stream().filter(this::isIncluded).toArray(HotSpotResolvedJavaMethod[]::new);
+        if (batch.length != 0) {
+            workStealingPool.execute(new CompileBatch(batch, 0, batch.length, classIndex));
+        }
+    }
+
+    /**
+     * Compiles a range of the methods of one class. As long as other workers of the
+     * {@link #workStealingPool} run out of work, the upper half of the range is forked off so that
+     * it can be stolen. Otherwise the whole range is compiled by the current worker, which avoids
+     * the per-method scheduling overhead for the common case of all workers being busy.
+     */
+    @SuppressWarnings("serial")
+    private final class CompileBatch extends RecursiveAction {
+
+        private final HotSpotResolvedJavaMethod[] methods;
+        private final int from;
+        private final int to;
+        private final int classIndex;
+
+        CompileBatch(HotSpotResolvedJavaMethod[] methods, int from, int to, int classIndex) {
+            this.methods = methods;
+            this.from = from;
+            this.to = to;
+            this.classIndex = classIndex;
+        }
+
+        @Override
+        @SuppressWarnings("try")
+        protected void compute() {
+            int end = to;
+            List<CompileBatch> forked = null;
+            while (end - from > 1 && getSurplusQueuedTaskCount() == 0) {
+                int mid = (from + end) >>> 1;
+                CompileBatch upper = new CompileBatch(methods, mid, end, classIndex);
+                upper.fork();
+                if (forked == null) {
+                    forked = new ArrayList<>();
+                }
+                forked.add(upper);
+                end = mid;
+            }
+            try (OverrideScope s = config.apply()) {
+                for (int i = from; i < end; i++) {
+                    compileMethod(methods[i], classIndex);
+                }
+            }
+            if (forked != null) {
+                for (CompileBatch upper : forked) {
+                    upper.join();
+                }
+            }
+        }
+    }
+
+    /**
+     * A worker thread of the {@link #workStealingPool}. Like a {@link CompilerThreadFactory
+     * compiler thread} it is named after CompileTheWorld and runs with a thread-local debug
+     * configuration.
+     */
+    private static final class CompileTheWorldWorkerThread extends ForkJoinWorkerThread {
+
+        private final DebugConfigAccess debugConfigAccess;
+        private GraalDebugConfig debugConfig;
+
+        CompileTheWorldWorkerThread(ForkJoinPool pool, DebugConfigAccess debugConfigAccess) {
+            super(pool);
+            this.setName("CompileTheWorld-" + this.getId());
+            this.setPriority(Thread.MAX_PRIORITY);
+            this.debugConfigAccess = debugConfigAccess;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            debugConfig = debugConfigAccess.getDebugConfig();
+            setContextClassLoader(getClass().getClassLoader());
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            if (debugConfig != null) {
+                for (DebugDumpHandler dumpHandler : debugConfig.dumpHandlers()) {
+                    try {
+                        dumpHandler.close();
+                    } catch (Throwable t) {
+                    }
+                }
+            }
+            super.onTermination(exception);
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void compileMethod(HotSpotResolvedJavaMethod method) throws InterruptedException, ExecutionException {
+        if (!isIncluded(method)) {
             return;
         }
         Future<?> task = threadPool.submit(new Runnable() {
@@ -480,20 +732,28 @@ public final class CompileTheWorld {
      * Compiles a method and gathers some statistics.
      */
     private void compileMethod(HotSpotResolvedJavaMethod method, int counter) {
+        long start = System.nanoTime();
+        long allocatedAtStart = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
+        CompilationTask task = null;
         try {
-            long start = System.currentTimeMillis();
-            long allocatedAtStart = MemUseTrackerImpl.getCurrentThreadAllocatedBytes();
-
-            CompilationTask task = new CompilationTask(jvmciRuntime, compiler, method, Compiler.INVOCATION_ENTRY_BCI, 0L, method.allocateCompileId(Compiler.INVOCATION_ENTRY_BCI), false);
+            task = new CompilationTask(jvmciRuntime, compiler, method, Compiler.INVOCATION_ENTRY_BCI, 0L, method.allocateCompileId(Compiler.INVOCATION_ENTRY_BCI), false);
             task.runCompilation();
 
-            memoryUsed.getAndAdd(MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart);
-            compileTime.getAndAdd(System.currentTimeMillis() - start);
+            long allocated = MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+            long time = System.nanoTime() - start;
+            memoryUsed.getAndAdd(allocated);
+            compileTime.getAndAdd(time);
             compiledMethodsCounter.incrementAndGet();
+            if (resultWriter != null) {
+                resultWriter.record(counter, method, task, null, time, allocated);
+            }
         } catch (Throwable t) {
             // Catch everything and print a message
             println("CompileTheWorld (%d) : Error compiling method: %s", counter, method.format("%H.%n(%p):%r"));
             t.printStackTrace(TTY.out);
+            if (resultWriter != null) {
+                resultWriter.record(counter, method, task, t, System.nanoTime() - start, MemUseTrackerImpl.getCurrentThreadAllocatedBytes() - allocatedAtStart);
+            }
         }
     }
 
@@ -58,6 +58,18 @@ public class CompileTheWorldOptions {
     public static final OptionValue<Boolean> CompileTheWorldMultiThreaded = new OptionValue<>(false);
     @Option(help = "Number of threads to use for multithreaded CTW.  Defaults to Runtime.getRuntime().availableProcessors()", type = OptionType.Debug)
     public static final OptionValue<Integer> CompileTheWorldThreads = new OptionValue<>(0);
+    @Option(help = "Compile the methods of each class as one batch on a work-stealing thread pool. " +
+                   "Uses CompileTheWorldThreads threads, even if CompileTheWorldMultiThreaded is false.", type = OptionType.Debug)
+    public static final OptionValue<Boolean> CompileTheWorldWorkStealing = new OptionValue<>(false);
+    @Option(help = "Only compile shard i of n (format 'i/n' with 0 <= i < n) of the classes between CompileTheWorldStartAt " +
+                   "and CompileTheWorldStopAt. Each shard is a contiguous class index range, so n worker VMs " +
+                   "with shards 0/n to n-1/n together compile all classes.", type = OptionType.Debug)
+    public static final OptionValue<String> CompileTheWorldShard = new OptionValue<>(null);
+    @Option(help = "File to which a record per compiled method is written (compile time, allocated bytes, " +
+                   "node count, code size and bailout reason)", type = OptionType.Debug)
+    public static final OptionValue<String> CompileTheWorldResultsFile = new OptionValue<>(null);
+    @Option(help = "Format of CompileTheWorldResultsFile: 'json' (one JSON object per line) or 'csv'", type = OptionType.Debug)
+    public static final OptionValue<String> CompileTheWorldResultsFormat = new OptionValue<>("json");
     // @formatter:on
 
     /**
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import jdk.internal.jvmci.code.BailoutException;
+import jdk.internal.jvmci.code.CompilationResult;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.hotspot.HotSpotInstalledCode;
+import jdk.internal.jvmci.hotspot.HotSpotResolvedJavaMethod;
+
+import com.oracle.graal.debug.RecordFormat;
+
+/**
+ * Writes one machine-readable record per method compiled by {@link CompileTheWorld} (see
+ * {@link CompileTheWorldOptions#CompileTheWorldResultsFile}). The records are either JSON objects,
+ * one per line, or CSV rows with a header line. Records are written in completion order, i.e.,
+ * tools comparing two runs should sort by class index and method.
+ */
+public final class CompileTheWorldResultWriter implements Closeable {
+
+    /**
+     * The outcome of a single method compilation.
+     */
+    public enum Status {
+        /** Code was produced and installed. */
+        Installed,
+        /** The compilation bailed out. */
+        Bailout,
+        /** The compilation failed with an exception. */
+        Failed,
+        /** The method was not compiled, e.g., because code for it already existed. */
+        Skipped
+    }
+
+    private static final String[] COLUMNS = {"classIndex", "method", "status", "bytecodeSize", "compileTimeNs", "allocatedBytes", "nodes", "codeSize", "reason"};
+
+    private final RecordFormat format;
+    private final PrintWriter out;
+
+    public CompileTheWorldResultWriter(String fileName, RecordFormat format) throws IOException {
+        this.format = format;
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8)));
+        String header = format.header(COLUMNS);
+        if (header != null) {
+            out.println(header);
+        }
+    }
+
+    public static RecordFormat parseFormat(String value) {
+        try {
+            return RecordFormat.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new JVMCIError("unknown CompileTheWorld results format: %s", value);
+        }
+    }
+
+    /**
+     * Records the outcome of a compilation.
+     *
+     * @param classIndex the index of the class declaring {@code method}
+     * @param task the task that compiled {@code method} or null if the compilation did not get as
+     *            far as creating a task
+     * @param failure the exception that escaped the compilation or null
+     * @param compileTime the wall clock time taken by the compilation in nanoseconds
+     * @param allocatedBytes the bytes allocated by the compiling thread during the compilation
+     */
+    public void record(int classIndex, HotSpotResolvedJavaMethod method, CompilationTask task, Throwable failure, long compileTime, long allocatedBytes) {
+        Throwable t = failure != null || task == null ? failure : task.getFailure();
+        CompilationResult result = task == null ? null : task.getCompilationResult();
+        HotSpotInstalledCode installedCode = task == null ? null : task.getInstalledCode();
+
+        Status status;
+        if (t instanceof BailoutException) {
+            status = Status.Bailout;
+        } else if (t != null) {
+            status = Status.Failed;
+        } else if (installedCode != null) {
+            status = Status.Installed;
+        } else {
+            status = Status.Skipped;
+        }
+
+        Object[] values = new Object[COLUMNS.length];
+        values[0] = classIndex;
+        values[1] = method.format("%H.%n(%p)");
+        values[2] = status;
+        values[3] = method.getCodeSize();
+        values[4] = compileTime;
+        values[5] = allocatedBytes;
+        values[6] = task == null ? -1 : task.getGraphNodeCount();
+        values[7] = installedCode != null ? installedCode.getSize() : result != null ? result.getTargetCodeSize() : -1;
+        values[8] = t == null ? null : t.getMessage() == null ? t.getClass().getName() : t.getMessage();
+
+        String line = format.format(COLUMNS, values);
+        synchronized (this) {
+            out.println(line);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+}
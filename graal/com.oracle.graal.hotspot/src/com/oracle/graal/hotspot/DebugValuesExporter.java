@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.hotspot;
+
+import static com.oracle.graal.debug.GraalDebugConfig.SuppressZeroDebugValues;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
+
+import com.oracle.graal.debug.DebugMemUseTracker;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.RecordFormat;
+import com.oracle.graal.debug.internal.DebugScope;
+import com.oracle.graal.debug.internal.DebugValue;
+import com.oracle.graal.debug.internal.DebugValueMap;
+import com.oracle.graal.debug.internal.KeyRegistry;
+
+/**
+ * Periodically writes the {@linkplain KeyRegistry#getDebugValues() debug values} (timers, metrics
+ * and memory use trackers) as machine-readable records, as opposed to {@link DebugValuesPrinter}
+ * which prints a human-readable tree once at VM exit.
+ *
+ * Each export writes one record per thread and non-zero value, summed over all scopes of the
+ * thread. If {@link Options#DebugValuesExportPerMethod} is enabled, it also writes one record per
+ * root method of a compilation and non-zero value. In {@linkplain Options#DebugValuesExportDelta
+ * delta mode}, each export only includes the changes since the previous export.
+ *
+ * The exporter is only useful if values are collected, i.e., if debugging or unconditional metrics
+ * or timers are enabled.
+ */
+public class DebugValuesExporter {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File to which debug values are periodically exported", type = OptionType.Debug)
+        public static final OptionValue<String> DebugValuesExportFile = new OptionValue<>(null);
+        @Option(help = "Format of DebugValuesExportFile: 'json' (one JSON object per line) or 'csv'", type = OptionType.Debug)
+        public static final OptionValue<String> DebugValuesExportFormat = new OptionValue<>("json");
+        @Option(help = "Interval in milliseconds between exports of debug values. " +
+                       "If 0, the values are only exported at VM exit.", type = OptionType.Debug)
+        public static final OptionValue<Integer> DebugValuesExportInterval = new OptionValue<>(0);
+        @Option(help = "Export only the change of each debug value since the previous export", type = OptionType.Debug)
+        public static final OptionValue<Boolean> DebugValuesExportDelta = new OptionValue<>(false);
+        @Option(help = "Also export debug values per root method of a compilation. Unless DebugValuesExportDelta " +
+                       "is enabled, this retains values for every compiled method until VM exit.", type = OptionType.Debug)
+        public static final OptionValue<Boolean> DebugValuesExportPerMethod = new OptionValue<>(false);
+        // @formatter:on
+    }
+
+    private static final String[] COLUMNS = {"time", "thread", "method", "name", "kind", "value"};
+
+    /**
+     * The exporter to which per-method values are reported, if any.
+     */
+    private static volatile DebugValuesExporter instance;
+
+    private final RecordFormat format;
+    private final PrintWriter out;
+    private final boolean delta;
+    private final boolean perMethod;
+
+    /**
+     * The thread totals written by the last export, used in delta mode.
+     */
+    private final Map<DebugValueMap, long[]> lastThreadTotals = new IdentityHashMap<>();
+
+    /**
+     * The values recorded per root method since the last export in delta mode or since VM start
+     * otherwise.
+     */
+    private final Map<String, long[]> methodTotals = new HashMap<>();
+
+    private Thread exportThread;
+
+    public DebugValuesExporter(Writer out, RecordFormat format, boolean delta, boolean perMethod) {
+        this.format = format;
+        this.out = new PrintWriter(out);
+        this.delta = delta;
+        this.perMethod = perMethod;
+        String header = format.header(COLUMNS);
+        if (header != null) {
+            this.out.println(header);
+        }
+    }
+
+    /**
+     * Creates an exporter configured by {@link Options}, or returns null if
+     * {@link Options#DebugValuesExportFile} is not set. If {@link Options#DebugValuesExportInterval}
+     * is positive, a daemon thread is started that exports the values at that interval.
+     */
+    public static DebugValuesExporter create() {
+        String fileName = Options.DebugValuesExportFile.getValue();
+        if (fileName == null) {
+            return null;
+        }
+        RecordFormat format;
+        try {
+            format = RecordFormat.parse(Options.DebugValuesExportFormat.getValue());
+        } catch (IllegalArgumentException e) {
+            throw new JVMCIError("unknown debug values export format: %s", Options.DebugValuesExportFormat.getValue());
+        }
+        Writer writer;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new JVMCIError(e);
+        }
+        DebugValuesExporter exporter = new DebugValuesExporter(writer, format, Options.DebugValuesExportDelta.getValue(), Options.DebugValuesExportPerMethod.getValue());
+        int interval = Options.DebugValuesExportInterval.getValue();
+        if (interval > 0) {
+            exporter.startExportThread(interval);
+        }
+        instance = exporter;
+        return exporter;
+    }
+
+    private void startExportThread(int interval) {
+        exportThread = new Thread("DebugValuesExporter") {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(interval);
+                        exportSafely();
+                    }
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            }
+        };
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    /**
+     * Gets the current thread's totals for use with {@link #endCompilation}, or null if no exporter
+     * records per-method values.
+     */
+    public static long[] beginCompilation() {
+        DebugValuesExporter exporter = instance;
+        if (exporter == null || !exporter.perMethod) {
+            return null;
+        }
+        return getTotals(DebugScope.getThreadValueMap(), KeyRegistry.getDebugValues().size());
+    }
+
+    /**
+     * Attributes the values recorded by the current thread since {@link #beginCompilation} to
+     * {@code method}.
+     *
+     * @param before the value returned by {@link #beginCompilation}
+     */
+    public static void endCompilation(ResolvedJavaMethod method, long[] before) {
+        DebugValuesExporter exporter = instance;
+        if (exporter == null || before == null) {
+            return;
+        }
+        long[] totals = getTotals(DebugScope.getThreadValueMap(), KeyRegistry.getDebugValues().size());
+        for (int i = 0; i < before.length; i++) {
+            totals[i] -= before[i];
+        }
+        String name = method.format("%H.%n(%p)");
+        synchronized (exporter) {
+            long[] methodTotal = exporter.methodTotals.get(name);
+            if (methodTotal == null) {
+                exporter.methodTotals.put(name, totals);
+            } else {
+                exporter.methodTotals.put(name, add(methodTotal, totals));
+            }
+        }
+    }
+
+    private static long[] getTotals(DebugValueMap map, int size) {
+        long[] totals = new long[size];
+        map.addTotals(totals);
+        return totals;
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        long[] sum = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            sum[i] += b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Calls {@link #export()}, printing instead of propagating any exception. The values of other
+     * threads are read without synchronization, so an export can fail while such a thread adds
+     * scopes, but that must not stop the exports that follow.
+     */
+    private void exportSafely() {
+        try {
+            export();
+        } catch (Throwable e) {
+            PrintStream err = System.err;
+            err.println("Error while exporting debug values:");
+            e.printStackTrace(err);
+        }
+    }
+
+    /**
+     * Writes the current values.
+     */
+    public synchronized void export() {
+        List<DebugValue> debugValues = KeyRegistry.getDebugValues();
+        int size = debugValues.size();
+        List<DebugValueMap> topLevelMaps;
+        synchronized (DebugValueMap.class) {
+            topLevelMaps = new ArrayList<>(DebugValueMap.getTopLevelMaps());
+        }
+        long time = System.currentTimeMillis();
+        for (DebugValueMap map : topLevelMaps) {
+            long[] totals = getTotals(map, size);
+            long[] written = totals;
+            if (delta) {
+                long[] last = lastThreadTotals.put(map, totals);
+                if (last != null) {
+                    written = totals.clone();
+                    for (int i = 0; i < last.length; i++) {
+                        written[i] -= last[i];
+                    }
+                }
+            }
+            write(time, map.getName(), null, debugValues, written);
+        }
+        for (Map.Entry<String, long[]> e : methodTotals.entrySet()) {
+            write(time, null, e.getKey(), debugValues, e.getValue());
+        }
+        if (delta) {
+            methodTotals.clear();
+        }
+        out.flush();
+    }
+
+    private void write(long time, String thread, String method, List<DebugValue> debugValues, long[] values) {
+        int length = Math.min(values.length, debugValues.size());
+        for (int i = 0; i < length; i++) {
+            if (values[i] != 0 || !SuppressZeroDebugValues.getValue()) {
+                DebugValue value = debugValues.get(i);
+                out.println(format.format(COLUMNS, new Object[]{time, thread, method, value.getName(), getKind(value), values[i]}));
+            }
+        }
+    }
+
+    private static String getKind(DebugValue value) {
+        if (value instanceof DebugTimer) {
+            return "timer";
+        } else if (value instanceof DebugMemUseTracker) {
+            return "memory";
+        } else if (value instanceof DebugMetric) {
+            return "metric";
+        }
+        return null;
+    }
+
+    /**
+     * Stops periodic exporting, writes the current values a last time and closes the output.
+     */
+    public void close() {
+        if (exportThread != null) {
+            exportThread.interrupt();
+        }
+        if (instance == this) {
+            instance = null;
+        }
+        // Don't want this to change the exit status of the VM
+        exportSafely();
+        synchronized (this) {
+            out.close();
+        }
+    }
+}
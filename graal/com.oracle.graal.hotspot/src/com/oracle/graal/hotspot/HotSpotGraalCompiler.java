@@ -104,8 +104,16 @@ public class HotSpotGraalCompiler implements Compiler {
     }
 
     public CompilationResult compile(ResolvedJavaMethod method, int entryBCI, boolean mustRecordMethodInlining) {
-        HotSpotBackend backend = graalRuntime.getHostBackend();
-        HotSpotProviders providers = backend.getProviders();
+        return compile(method, createGraph(method, entryBCI, mustRecordMethodInlining), entryBCI);
+    }
+
+    /**
+     * Creates the initial graph for compiling {@code method}, i.e., either an intrinsic graph or an
+     * empty graph that is filled in by the graph builder suite during
+     * {@linkplain #compile(ResolvedJavaMethod, StructuredGraph, int) compilation}.
+     */
+    public StructuredGraph createGraph(ResolvedJavaMethod method, int entryBCI, boolean mustRecordMethodInlining) {
+        HotSpotProviders providers = graalRuntime.getHostBackend().getProviders();
         final boolean isOSR = entryBCI != Compiler.INVOCATION_ENTRY_BCI;
 
         StructuredGraph graph = method.isNative() || isOSR ? null : getIntrinsicGraph(method, providers);
@@ -119,6 +127,16 @@ public class HotSpotGraalCompiler implements Compiler {
                 graph.disableInlinedMethodRecording();
             }
         }
+        return graph;
+    }
+
+    /**
+     * Compiles a graph for {@code method} created by {@link #createGraph}.
+     */
+    public CompilationResult compile(ResolvedJavaMethod method, StructuredGraph graph, int entryBCI) {
+        HotSpotBackend backend = graalRuntime.getHostBackend();
+        HotSpotProviders providers = backend.getProviders();
+        final boolean isOSR = entryBCI != Compiler.INVOCATION_ENTRY_BCI;
 
         CallingConvention cc = getCallingConvention(providers.getCodeCache(), Type.JavaCallee, graph.method(), false);
         if (isOSR) {
@@ -60,10 +60,15 @@ import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.TTY;
 import com.oracle.graal.graph.DefaultNodeCollectionsProvider;
+import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.NodeCollectionsProvider;
+import com.oracle.graal.graph.SparseNodeCollectionsProvider;
 import com.oracle.graal.hotspot.debug.BenchmarkCounters;
 import com.oracle.graal.hotspot.meta.HotSpotProviders;
+import com.oracle.graal.nodes.spi.Replacements;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 import com.oracle.graal.phases.tiers.CompilerConfiguration;
+import com.oracle.graal.replacements.ReplacementsImpl;
 import com.oracle.graal.replacements.SnippetCounter;
 import com.oracle.graal.runtime.RuntimeProvider;
 
@@ -88,6 +93,7 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider, H
 
     private final HotSpotBackend hostBackend;
     private DebugValuesPrinter debugValuesPrinter;
+    private DebugValuesExporter debugValuesExporter;
 
     private final Map<Class<? extends Architecture>, HotSpotBackend> backends = new HashMap<>();
 
@@ -157,6 +163,8 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider, H
             // during shutdown() which in turn can cause a deadlock
             debugValuesPrinter = new DebugValuesPrinter();
         }
+        debugValuesExporter = DebugValuesExporter.create();
+        InliningGraphCache.install(hostBackend.getTarget().arch, hostBackend.getProviders().getSuites().getDefaultGraphBuilderSuite());
 
         // Complete initialization of backends
         try (InitTimer st = timer(hostBackend.getTarget().arch.getName(), ".completeInitialization")) {
@@ -193,7 +201,7 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider, H
         return getClass().getSimpleName();
     }
 
-    private final NodeCollectionsProvider nodeCollectionsProvider = new DefaultNodeCollectionsProvider();
+    private final NodeCollectionsProvider nodeCollectionsProvider = Graph.Options.SparseNodeCollections.getValue() ? new SparseNodeCollectionsProvider() : new DefaultNodeCollectionsProvider();
 
     @SuppressWarnings("unchecked")
     @Override
@@ -249,11 +257,20 @@ public final class HotSpotGraalRuntime implements HotSpotGraalRuntimeProvider, H
     }
 
     void shutdown() {
+        if (debugValuesExporter != null) {
+            // Must precede printing as the printer resets the values
+            debugValuesExporter.close();
+        }
         if (debugValuesPrinter != null) {
             debugValuesPrinter.printDebugValues();
         }
         phaseTransition("final");
 
+        Replacements replacements = getHostProviders().getReplacements();
+        if (replacements instanceof ReplacementsImpl) {
+            ((ReplacementsImpl) replacements).saveGraphStore();
+        }
+
         SnippetCounter.printGroups(TTY.out().out());
         BenchmarkCounters.shutdown(compilerToVM(), runtimeStartTime);
     }
@@ -30,6 +30,7 @@ import jdk.internal.jvmci.hotspot.HotSpotVMConfig;
 import jdk.internal.jvmci.meta.ResolvedJavaMethod;
 
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
+import com.oracle.graal.hotspot.replacements.HotSpotReplacementsUtil;
 import com.oracle.graal.hotspot.word.HotSpotOperation;
 import com.oracle.graal.phases.util.Providers;
 import com.oracle.graal.replacements.IntegerSubstitutions;
@@ -47,6 +48,9 @@ public class HotSpotReplacementsImpl extends ReplacementsImpl {
     public HotSpotReplacementsImpl(Providers providers, SnippetReflectionProvider snippetReflection, HotSpotVMConfig config, TargetDescription target) {
         super(providers, snippetReflection, target);
         this.config = config;
+        if (getGraphStore() != null) {
+            getGraphStore().registerKnownObjectHolder(HotSpotReplacementsUtil.class);
+        }
     }
 
     @Override
@@ -42,6 +42,7 @@ import sun.misc.Unsafe;
 import com.oracle.graal.asm.Label;
 import com.oracle.graal.asm.amd64.AMD64Address;
 import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
 import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
 import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
 import com.oracle.graal.lir.LIRInstructionClass;
@@ -92,7 +93,7 @@ public final class AMD64ArrayEqualsOp extends AMD64LIRInstruction {
         this.temp4 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
 
         // We only need the vector temporaries if we generate SSE code.
-        if (supportsSSE41(tool.target())) {
+        if (supportsSSE41(tool.target()) || supportsAVX2(tool.target())) {
             this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
             this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
         } else {
@@ -120,6 +121,10 @@ public final class AMD64ArrayEqualsOp extends AMD64LIRInstruction {
         masm.imull(length, asRegister(lengthValue), arrayIndexScale);
         masm.movl(result, length); // copy
 
+        if (supportsAVX2(crb.target)) {
+            emitAVX2Compare(crb, masm, result, array1, array2, length, trueLabel, falseLabel);
+        }
+
         if (supportsSSE41(crb.target)) {
             emitSSE41Compare(crb, masm, result, array1, array2, length, trueLabel, falseLabel);
         }
@@ -151,6 +156,83 @@ public final class AMD64ArrayEqualsOp extends AMD64LIRInstruction {
         return arch.getFeatures().contains(CPUFeature.SSE4_1);
     }
 
+    /**
+     * Returns if the underlying AMD64 architecture supports AVX2 instructions.
+     *
+     * @param target target description of the underlying architecture
+     * @return true if the underlying architecture supports AVX2
+     */
+    private static boolean supportsAVX2(TargetDescription target) {
+        AMD64 arch = (AMD64) target.arch;
+        return arch.getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Vector size used in {@link #emitAVX2Compare}.
+     */
+    private static final int AVX2_VECTOR_SIZE = 32;
+
+    /**
+     * Emits code that uses AVX2 256-bit (32-byte) vector compares. Arrays shorter than 32 bytes are
+     * left to the narrower compares.
+     */
+    private void emitAVX2Compare(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register result, Register array1, Register array2, Register length, Label trueLabel, Label falseLabel) {
+        assert supportsAVX2(crb.target);
+
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label compareTail = new Label();
+        Label vectorTrue = new Label();
+        Label vectorFalse = new Label();
+
+        // Compare 32-byte vectors
+        masm.andl(result, AVX2_VECTOR_SIZE - 1); // tail count (in bytes)
+        masm.andl(length, ~(AVX2_VECTOR_SIZE - 1)); // vector count (in bytes)
+        masm.jcc(ConditionFlag.Zero, compareTail);
+
+        masm.leaq(array1, new AMD64Address(array1, length, Scale.Times1, 0));
+        masm.leaq(array2, new AMD64Address(array2, length, Scale.Times1, 0));
+        masm.negq(length);
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.vmovdqu(vector1, new AMD64Address(array1, length, Scale.Times1, 0), AVXSize.YMM);
+        masm.vmovdqu(vector2, new AMD64Address(array2, length, Scale.Times1, 0), AVXSize.YMM);
+        masm.vpxor(vector1, vector1, vector2, AVXSize.YMM);
+        masm.vptest(vector1, vector1, AVXSize.YMM);
+        masm.jcc(ConditionFlag.NotZero, vectorFalse);
+        masm.addq(length, AVX2_VECTOR_SIZE);
+        masm.jcc(ConditionFlag.NotZero, loop);
+
+        masm.testl(result, result);
+        masm.jcc(ConditionFlag.Zero, vectorTrue);
+
+        /*
+         * Compare the remaining bytes with an unaligned memory load aligned to the end of the
+         * array.
+         */
+        masm.vmovdqu(vector1, new AMD64Address(array1, result, Scale.Times1, -AVX2_VECTOR_SIZE), AVXSize.YMM);
+        masm.vmovdqu(vector2, new AMD64Address(array2, result, Scale.Times1, -AVX2_VECTOR_SIZE), AVXSize.YMM);
+        masm.vpxor(vector1, vector1, vector2, AVXSize.YMM);
+        masm.vptest(vector1, vector1, AVXSize.YMM);
+        masm.jcc(ConditionFlag.NotZero, vectorFalse);
+
+        // Leave the upper halves of the vector registers clean for the SSE code that follows.
+        masm.bind(vectorTrue);
+        masm.vzeroupper();
+        masm.jmp(trueLabel);
+
+        masm.bind(vectorFalse);
+        masm.vzeroupper();
+        masm.jmp(falseLabel);
+
+        masm.bind(compareTail);
+        masm.movl(length, result);
+    }
+
     /**
      * Vector size used in {@link #emitSSE41Compare}.
      */
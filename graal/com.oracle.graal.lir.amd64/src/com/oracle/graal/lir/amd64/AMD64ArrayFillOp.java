@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.amd64.AMD64Kind;
+import jdk.internal.jvmci.code.CodeUtil;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+import sun.misc.Unsafe;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+/**
+ * Emits code which stores a value into all elements of an array region. The value is broadcast
+ * into a vector register and stored 16 bytes at a time with SSE2 instructions, or 32 bytes at a
+ * time if the CPU supports AVX2. The last bytes of a region of at least 16 bytes are covered by an
+ * unaligned store that overlaps the previous one. Smaller regions are filled with scalar stores of
+ * 8, 4, 2 and 1 bytes.
+ *
+ * @see LIRGeneratorTool#emitArrayFill
+ */
+@Opcode("ARRAY_FILL")
+public final class AMD64ArrayFillOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayFillOp> TYPE = LIRInstructionClass.create(AMD64ArrayFillOp.class);
+
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value indexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value value;
+    @Temp({REG}) protected Value pointer;
+    @Temp({REG}) protected Value count;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp;
+
+    public AMD64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value index, Value length, Value value) {
+        super(TYPE);
+        assert kind.isPrimitive() && kind != JavaKind.Void;
+        this.kind = kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+
+        this.arrayValue = array;
+        this.indexValue = index;
+        this.lengthValue = length;
+        this.value = value;
+
+        this.pointer = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.count = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register ptr = asRegister(pointer);
+        Register bytes = asRegister(count);
+        Register tmp = asRegister(temp);
+        Register vector = asRegister(vectorTemp, AMD64Kind.DOUBLE);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+
+        Label vectorLoop = new Label();
+        Label vectorLoopExit = new Label();
+        Label tail = new Label();
+        Label done = new Label();
+
+        // the index and the length are not negative, so zero extending them is correct
+        masm.movl(bytes, asRegister(indexValue));
+        masm.leaq(ptr, new AMD64Address(asRegister(arrayValue), bytes, scale, arrayBaseOffset));
+        masm.movl(bytes, asRegister(lengthValue));
+        if (arrayIndexScale > 1) {
+            masm.shlq(bytes, CodeUtil.log2(arrayIndexScale));
+        }
+        AMD64VectorizedArrayOp.emitBroadcast(masm, kind, vector, asRegister(value));
+
+        masm.cmpq(bytes, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.Less, tail);
+
+        // The byte count goes from -bytes up to 0, so the pointer points to the end of the region.
+        masm.addq(ptr, bytes);
+        masm.negq(bytes);
+
+        if (supportsAVX2(crb.target)) {
+            emitAVX2Loop(crb, masm, ptr, bytes, vector);
+        }
+
+        masm.addq(bytes, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.Greater, vectorLoopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(new AMD64Address(ptr, bytes, Scale.Times1, -VECTOR_SIZE), vector);
+        masm.addq(bytes, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        // Fewer than 16 bytes are left. The region has at least 16 bytes and the pattern repeats
+        // every element, so the last 16 bytes can be stored again.
+        masm.bind(vectorLoopExit);
+        masm.movdqu(new AMD64Address(ptr, -VECTOR_SIZE), vector);
+        masm.jmp(done);
+
+        masm.bind(tail);
+        masm.movdq(tmp, vector);
+        emitTailStore(masm, ptr, bytes, tmp, 8, done);
+        emitTailStore(masm, ptr, bytes, tmp, 4, done);
+        emitTailStore(masm, ptr, bytes, tmp, 2, done);
+        emitTailStore(masm, ptr, bytes, tmp, 1, done);
+
+        masm.bind(done);
+    }
+
+    private static boolean supportsAVX2(TargetDescription target) {
+        return ((AMD64) target.arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Emits a loop that stores 32 bytes per iteration as long as at least 32 bytes are left. The
+     * upper half of the vector register is cleared on exit so that the following SSE code does not
+     * pay a transition penalty.
+     */
+    private static void emitAVX2Loop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register ptr, Register bytes, Register vector) {
+        Label loop = new Label();
+        Label loopExit = new Label();
+        int size = AVXSize.YMM.getBytes();
+
+        masm.vinserti128(vector, vector, vector, 1);
+        masm.addq(bytes, size);
+        masm.jcc(ConditionFlag.Greater, loopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.vmovdqu(new AMD64Address(ptr, bytes, Scale.Times1, -size), vector, AVXSize.YMM);
+        masm.addq(bytes, size);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(loopExit);
+        masm.subq(bytes, size);
+        masm.vzeroupper();
+    }
+
+    /**
+     * Stores {@code size} bytes of the pattern in {@code pattern} if the corresponding bit of the
+     * byte count is set. Sizes smaller than an element cannot occur.
+     */
+    private void emitTailStore(AMD64MacroAssembler masm, Register ptr, Register bytes, Register pattern, int size, Label done) {
+        if (size < arrayIndexScale) {
+            return;
+        }
+        Label skip = new Label();
+        masm.testl(bytes, size);
+        masm.jcc(ConditionFlag.Zero, size == arrayIndexScale ? done : skip);
+        AMD64Address address = new AMD64Address(ptr);
+        switch (size) {
+            case 8:
+                masm.movq(address, pattern);
+                break;
+            case 4:
+                masm.movl(address, pattern);
+                break;
+            case 2:
+                masm.movw(address, pattern);
+                break;
+            default:
+                masm.movb(address, pattern);
+                break;
+        }
+        if (size > arrayIndexScale) {
+            masm.addq(ptr, size);
+            masm.bind(skip);
+        }
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
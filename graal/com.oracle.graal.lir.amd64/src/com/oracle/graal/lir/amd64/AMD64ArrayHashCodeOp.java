@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.amd64.AMD64Kind;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+import sun.misc.Unsafe;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64MROp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+/**
+ * Emits code which computes the hash code of an array the same way as {@link java.util.Arrays}
+ * does, i.e., {@code h = 31 * h + e} for all elements, starting with {@code h = 1}.
+ *
+ * If the CPU supports SSE4.1, four elements are processed per iteration. Each lane of the
+ * accumulator vector computes the hash of every fourth element with the multiplier {@code 31^4},
+ * and the lanes are combined with the multipliers {@code 31^3} to {@code 31^0} after the loop. The
+ * initial value of the hash is multiplied by {@code 31^4} in every iteration. The remaining
+ * elements are processed one by one.
+ *
+ * @see LIRGeneratorTool#emitArrayHashCode
+ */
+@Opcode("ARRAY_HASH_CODE")
+public final class AMD64ArrayHashCodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AMD64ArrayHashCodeOp.class);
+
+    private static final int ELEMENTS_PER_VECTOR = 4;
+    private static final int[] POWERS_OF_31 = {1, 31, 31 * 31, 31 * 31 * 31, 31 * 31 * 31 * 31};
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value pointer;
+    @Temp({REG}) protected Value index;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value multiplierTemp;
+    @Temp({REG}) protected Value accumulatorTemp;
+    @Temp({REG}) protected Value vectorTemp;
+
+    public AMD64ArrayHashCodeOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array, Value length) {
+        super(TYPE);
+        assert kind == JavaKind.Byte || kind == JavaKind.Char || kind == JavaKind.Short || kind == JavaKind.Int;
+        this.kind = kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+
+        this.pointer = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.index = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        if (supportsSSE41(tool.target())) {
+            this.multiplierTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.accumulatorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+            this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        } else {
+            this.multiplierTemp = Value.ILLEGAL;
+            this.accumulatorTemp = Value.ILLEGAL;
+            this.vectorTemp = Value.ILLEGAL;
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register length = asRegister(lengthValue);
+        Register ptr = asRegister(pointer);
+        Register idx = asRegister(index);
+        Register tmp = asRegister(temp);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        masm.movl(result, 1);
+
+        // The index counts from -length up to 0, so the pointer points to the end of the array.
+        masm.movl(idx, length);
+        masm.leaq(ptr, new AMD64Address(array, idx, scale, arrayBaseOffset));
+        masm.negq(idx);
+        masm.jcc(ConditionFlag.Zero, done);
+
+        if (supportsSSE41(crb.target)) {
+            emitVectorLoop(crb, masm, result, ptr, idx, tmp, scale);
+            masm.testq(idx, idx);
+            masm.jcc(ConditionFlag.Zero, done);
+        }
+
+        masm.bind(scalarLoop);
+        masm.imull(result, result, 31);
+        emitLoad(masm, tmp, new AMD64Address(ptr, idx, scale, 0));
+        AMD64BinaryArithmetic.ADD.rmOp.emit(masm, OperandSize.DWORD, result, tmp);
+        masm.incq(idx);
+        masm.jcc(ConditionFlag.NotZero, scalarLoop);
+
+        masm.bind(done);
+    }
+
+    private void emitVectorLoop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register result, Register ptr, Register idx, Register tmp, Scale scale) {
+        Register multiplier = asRegister(multiplierTemp, AMD64Kind.DOUBLE);
+        Register accumulator = asRegister(accumulatorTemp, AMD64Kind.DOUBLE);
+        Register vector = asRegister(vectorTemp, AMD64Kind.DOUBLE);
+
+        Label loop = new Label();
+        Label loopExit = new Label();
+
+        masm.movl(tmp, POWERS_OF_31[ELEMENTS_PER_VECTOR]);
+        AMD64VectorizedArrayOp.emitBroadcast(masm, JavaKind.Int, multiplier, tmp);
+        masm.pxor(accumulator, accumulator);
+
+        masm.addq(idx, ELEMENTS_PER_VECTOR);
+        masm.jcc(ConditionFlag.Greater, loopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        emitVectorLoad(masm, vector, new AMD64Address(ptr, idx, scale, -ELEMENTS_PER_VECTOR * arrayIndexScale));
+        masm.pmulld(accumulator, multiplier);
+        masm.paddd(accumulator, vector);
+        masm.imull(result, result, POWERS_OF_31[ELEMENTS_PER_VECTOR]);
+        masm.addq(idx, ELEMENTS_PER_VECTOR);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(loopExit);
+        masm.subq(idx, ELEMENTS_PER_VECTOR);
+
+        // lane j holds the elements that are followed by 3 - j elements of the same block
+        for (int lane = 0; lane < ELEMENTS_PER_VECTOR; lane++) {
+            masm.pshufd(vector, accumulator, lane);
+            AMD64MROp.MOVD.emit(masm, OperandSize.DWORD, tmp, vector);
+            int factor = POWERS_OF_31[ELEMENTS_PER_VECTOR - 1 - lane];
+            if (factor != 1) {
+                masm.imull(tmp, tmp, factor);
+            }
+            AMD64BinaryArithmetic.ADD.rmOp.emit(masm, OperandSize.DWORD, result, tmp);
+        }
+    }
+
+    private static boolean supportsSSE41(TargetDescription target) {
+        return ((AMD64) target.arch).getFeatures().contains(CPUFeature.SSE4_1);
+    }
+
+    /**
+     * Loads four elements into the int lanes of {@code dst}, extending them like a scalar load.
+     */
+    private void emitVectorLoad(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        switch (kind) {
+            case Byte:
+                masm.pmovsxbd(dst, src);
+                break;
+            case Char:
+                masm.pmovzxwd(dst, src);
+                break;
+            case Short:
+                masm.pmovsxwd(dst, src);
+                break;
+            case Int:
+                masm.movdqu(dst, src);
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    private void emitLoad(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        switch (kind) {
+            case Byte:
+                masm.movsbl(dst, src);
+                break;
+            case Char:
+                masm.movzwl(dst, src);
+                break;
+            case Short:
+                masm.movswl(dst, src);
+                break;
+            case Int:
+                masm.movl(dst, src);
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.amd64.AMD64Kind;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+import sun.misc.Unsafe;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64Shift;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+/**
+ * Emits code which searches a region of a byte or char array for the first element that is equal
+ * to a value. The region is compared 16 bytes at a time with SSE2 instructions, or 32 bytes at a
+ * time if the CPU supports AVX2. Elements that do not fill a vector are compared one by one, so no
+ * memory outside the region is read.
+ *
+ * @see LIRGeneratorTool#emitArrayIndexOf
+ */
+@Opcode("ARRAY_INDEX_OF")
+public final class AMD64ArrayIndexOfOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayIndexOfOp> TYPE = LIRInstructionClass.create(AMD64ArrayIndexOfOp.class);
+
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value fromIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value searchValue;
+    @Temp({REG}) protected Value pointer;
+    @Temp({REG}) protected Value index;
+    @Temp({REG}) protected Value temp;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayIndexOfOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array, Value fromIndex, Value length, Value value) {
+        super(TYPE);
+        assert kind == JavaKind.Byte || kind == JavaKind.Char;
+        this.kind = kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.fromIndexValue = fromIndex;
+        this.lengthValue = length;
+        this.searchValue = value;
+
+        this.pointer = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.index = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register length = asRegister(lengthValue);
+        Register value = asRegister(searchValue);
+        Register ptr = asRegister(pointer);
+        Register idx = asRegister(index);
+        Register tmp = asRegister(temp);
+        Register vector = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register compare = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale;
+
+        Label vectorLoop = new Label();
+        Label vectorLoopExit = new Label();
+        Label vectorFound = new Label();
+        Label vectorMatch = new Label();
+        Label wideMatch = new Label();
+        Label scalarLoop = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        // The index counts from fromIndex - length up to 0, so the pointer points to the end of
+        // the region.
+        masm.movl(idx, length);
+        masm.leaq(ptr, new AMD64Address(asRegister(arrayValue), idx, scale, arrayBaseOffset));
+        masm.movl(tmp, asRegister(fromIndexValue));
+        masm.subq(idx, tmp);
+        masm.jcc(ConditionFlag.Zero, notFound);
+        masm.negq(idx);
+
+        AMD64VectorizedArrayOp.emitBroadcast(masm, kind, vector, value);
+
+        boolean useAVX2 = supportsAVX2(crb.target);
+        if (useAVX2) {
+            emitAVX2Loop(crb, masm, idx, ptr, tmp, vector, compare, scale, elementsPerVector * 2, wideMatch);
+        }
+
+        // Compare 16-byte vectors as long as at least 16 bytes are left.
+        masm.addq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.Greater, vectorLoopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(compare, new AMD64Address(ptr, idx, scale, -VECTOR_SIZE));
+        emitCompare(masm, compare, vector);
+        masm.pmovmskb(tmp, compare);
+        masm.testl(tmp, tmp);
+        masm.jcc(ConditionFlag.NotZero, vectorMatch);
+        masm.addq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        masm.bind(vectorLoopExit);
+        masm.subq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.Zero, notFound);
+
+        // Compare the remaining elements one by one.
+        masm.bind(scalarLoop);
+        if (kind == JavaKind.Byte) {
+            masm.movsbl(tmp, new AMD64Address(ptr, idx, scale, 0));
+        } else {
+            masm.movzwl(tmp, new AMD64Address(ptr, idx, scale, 0));
+        }
+        masm.cmpl(tmp, value);
+        masm.jcc(ConditionFlag.Equal, found);
+        masm.incq(idx);
+        masm.jcc(ConditionFlag.NotZero, scalarLoop);
+        masm.jmp(notFound);
+
+        if (useAVX2) {
+            masm.bind(wideMatch);
+            masm.vzeroupper();
+            masm.subq(idx, elementsPerVector * 2);
+            masm.jmp(vectorFound);
+        }
+
+        masm.bind(vectorMatch);
+        masm.subq(idx, elementsPerVector);
+
+        // The mask in tmp has a bit for each matching byte, relative to the vector at idx.
+        masm.bind(vectorFound);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, tmp, tmp);
+        if (arrayIndexScale > 1) {
+            AMD64Shift.SHR.miOp.emit(masm, OperandSize.DWORD, tmp, 1);
+        }
+        masm.addq(idx, tmp);
+
+        // The position of the element is length + idx.
+        masm.bind(found);
+        masm.movl(result, length);
+        masm.addq(result, idx);
+        masm.jmp(done);
+
+        masm.bind(notFound);
+        masm.movl(result, -1);
+
+        masm.bind(done);
+    }
+
+    private static boolean supportsAVX2(TargetDescription target) {
+        return ((AMD64) target.arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Emits a loop that compares 32-byte vectors as long as at least 32 bytes are left. The upper
+     * halves of the vector registers are cleared on all exits so that the following SSE code does
+     * not pay a transition penalty.
+     */
+    private void emitAVX2Loop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register idx, Register ptr, Register tmp, Register vector, Register compare, Scale scale,
+                    int elementsPerIteration, Label match) {
+        Label loop = new Label();
+        Label loopExit = new Label();
+
+        masm.vinserti128(vector, vector, vector, 1);
+        masm.addq(idx, elementsPerIteration);
+        masm.jcc(ConditionFlag.Greater, loopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.vmovdqu(compare, new AMD64Address(ptr, idx, scale, -AVXSize.YMM.getBytes()), AVXSize.YMM);
+        if (kind == JavaKind.Byte) {
+            masm.vpcmpeqb(compare, compare, vector, AVXSize.YMM);
+        } else {
+            masm.vpcmpeqw(compare, compare, vector, AVXSize.YMM);
+        }
+        masm.vpmovmskb(tmp, compare, AVXSize.YMM);
+        masm.testl(tmp, tmp);
+        masm.jcc(ConditionFlag.NotZero, match);
+        masm.addq(idx, elementsPerIteration);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(loopExit);
+        masm.subq(idx, elementsPerIteration);
+        masm.vzeroupper();
+    }
+
+    private void emitCompare(AMD64MacroAssembler masm, Register dst, Register src) {
+        if (kind == JavaKind.Byte) {
+            masm.pcmpeqb(dst, src);
+        } else {
+            masm.pcmpeqw(dst, src);
+        }
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
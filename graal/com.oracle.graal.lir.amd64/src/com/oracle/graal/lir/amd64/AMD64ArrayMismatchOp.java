@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.amd64.AMD64Kind;
+import jdk.internal.jvmci.code.CodeUtil;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+import sun.misc.Unsafe;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64MOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64Shift;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+/**
+ * Emits code which finds the first position at which two array regions of the same length differ.
+ * The elements are compared bitwise, 16 bytes at a time with SSE2 instructions, or 32 bytes at a
+ * time if the CPU supports AVX2. Elements that do not fill a vector are compared one by one, so no
+ * memory outside the regions is read.
+ *
+ * @see LIRGeneratorTool#emitArrayMismatch
+ */
+@Opcode("ARRAY_MISMATCH")
+public final class AMD64ArrayMismatchOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayMismatchOp> TYPE = LIRInstructionClass.create(AMD64ArrayMismatchOp.class);
+
+    private static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value offset1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value offset2Value;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value pointer1;
+    @Temp({REG}) protected Value pointer2;
+    @Temp({REG}) protected Value index;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+
+    public AMD64ArrayMismatchOp(LIRGeneratorTool tool, JavaKind kind, Value result, Value array1, Value offset1, Value array2, Value offset2, Value length) {
+        super(TYPE);
+        assert kind.isPrimitive() && kind != JavaKind.Void;
+        this.kind = kind;
+
+        Class<?> arrayClass = Array.newInstance(kind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.offset1Value = offset1;
+        this.array2Value = array2;
+        this.offset2Value = offset2;
+        this.lengthValue = length;
+
+        this.pointer1 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.pointer2 = tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.index = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp1 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.temp2 = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register length = asRegister(lengthValue);
+        Register ptr1 = asRegister(pointer1);
+        Register ptr2 = asRegister(pointer2);
+        Register idx = asRegister(index);
+        Register tmp1 = asRegister(temp1);
+        Register tmp2 = asRegister(temp2);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale;
+
+        Label vectorLoop = new Label();
+        Label vectorLoopExit = new Label();
+        Label vectorFound = new Label();
+        Label vectorMismatch = new Label();
+        Label wideMismatch = new Label();
+        Label scalarLoop = new Label();
+        Label found = new Label();
+        Label notFound = new Label();
+        Label done = new Label();
+
+        // The index counts from -length up to 0, so the pointers point to the end of the regions.
+        masm.movl(idx, length);
+        emitEndPointer(masm, ptr1, asRegister(array1Value), asRegister(offset1Value), idx, scale);
+        emitEndPointer(masm, ptr2, asRegister(array2Value), asRegister(offset2Value), idx, scale);
+        masm.negq(idx);
+        masm.jcc(ConditionFlag.Zero, notFound);
+
+        boolean useAVX2 = supportsAVX2(crb.target);
+        if (useAVX2) {
+            emitAVX2Loop(crb, masm, idx, ptr1, ptr2, tmp1, vector1, vector2, scale, elementsPerVector * 2, wideMismatch);
+        }
+
+        // Compare 16-byte vectors as long as at least 16 bytes are left.
+        masm.addq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.Greater, vectorLoopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        masm.movdqu(vector1, new AMD64Address(ptr1, idx, scale, -VECTOR_SIZE));
+        masm.movdqu(vector2, new AMD64Address(ptr2, idx, scale, -VECTOR_SIZE));
+        masm.pcmpeqb(vector1, vector2);
+        masm.pmovmskb(tmp1, vector1);
+        masm.cmpl(tmp1, 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, vectorMismatch);
+        masm.addq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.LessEqual, vectorLoop);
+
+        masm.bind(vectorLoopExit);
+        masm.subq(idx, elementsPerVector);
+        masm.jcc(ConditionFlag.Zero, notFound);
+
+        // Compare the remaining elements one by one.
+        masm.bind(scalarLoop);
+        emitLoad(masm, tmp1, new AMD64Address(ptr1, idx, scale, 0));
+        emitLoad(masm, tmp2, new AMD64Address(ptr2, idx, scale, 0));
+        masm.cmpq(tmp1, tmp2);
+        masm.jcc(ConditionFlag.NotEqual, found);
+        masm.incq(idx);
+        masm.jcc(ConditionFlag.NotZero, scalarLoop);
+        masm.jmp(notFound);
+
+        if (useAVX2) {
+            masm.bind(wideMismatch);
+            masm.vzeroupper();
+            masm.subq(idx, elementsPerVector * 2);
+            masm.jmp(vectorFound);
+        }
+
+        masm.bind(vectorMismatch);
+        masm.subq(idx, elementsPerVector);
+
+        // The mask in tmp1 has a bit for each equal byte, relative to the vectors at idx.
+        masm.bind(vectorFound);
+        AMD64MOp.NOT.emit(masm, OperandSize.DWORD, tmp1);
+        AMD64RMOp.BSF.emit(masm, OperandSize.DWORD, tmp1, tmp1);
+        if (arrayIndexScale > 1) {
+            AMD64Shift.SHR.miOp.emit(masm, OperandSize.DWORD, tmp1, CodeUtil.log2(arrayIndexScale));
+        }
+        masm.addq(idx, tmp1);
+
+        // The position of the element is length + idx.
+        masm.bind(found);
+        masm.movl(result, length);
+        masm.addq(result, idx);
+        masm.jmp(done);
+
+        masm.bind(notFound);
+        masm.movl(result, -1);
+
+        masm.bind(done);
+    }
+
+    private static boolean supportsAVX2(TargetDescription target) {
+        return ((AMD64) target.arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Computes the address of the element at {@code offset + count}.
+     */
+    private void emitEndPointer(AMD64MacroAssembler masm, Register pointer, Register array, Register offset, Register count, Scale scale) {
+        // the offset is not negative, so zero extending it is correct
+        masm.movl(pointer, offset);
+        masm.addq(pointer, count);
+        masm.leaq(pointer, new AMD64Address(array, pointer, scale, arrayBaseOffset));
+    }
+
+    /**
+     * Emits a loop that compares 32-byte vectors as long as at least 32 bytes are left. The upper
+     * halves of the vector registers are cleared on all exits so that the following SSE code does
+     * not pay a transition penalty.
+     */
+    private static void emitAVX2Loop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register idx, Register ptr1, Register ptr2, Register tmp, Register vector1, Register vector2,
+                    Scale scale, int elementsPerIteration, Label mismatch) {
+        Label loop = new Label();
+        Label loopExit = new Label();
+        int displacement = -AVXSize.YMM.getBytes();
+
+        masm.addq(idx, elementsPerIteration);
+        masm.jcc(ConditionFlag.Greater, loopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        masm.vmovdqu(vector1, new AMD64Address(ptr1, idx, scale, displacement), AVXSize.YMM);
+        masm.vmovdqu(vector2, new AMD64Address(ptr2, idx, scale, displacement), AVXSize.YMM);
+        masm.vpcmpeqb(vector1, vector1, vector2, AVXSize.YMM);
+        masm.vpmovmskb(tmp, vector1, AVXSize.YMM);
+        masm.cmpl(tmp, -1);
+        masm.jcc(ConditionFlag.NotEqual, mismatch);
+        masm.addq(idx, elementsPerIteration);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(loopExit);
+        masm.subq(idx, elementsPerIteration);
+        masm.vzeroupper();
+    }
+
+    private void emitLoad(AMD64MacroAssembler masm, Register dst, AMD64Address src) {
+        switch (arrayIndexScale) {
+            case 1:
+                masm.movzbl(dst, src);
+                break;
+            case 2:
+                masm.movzwl(dst, src);
+                break;
+            case 4:
+                masm.movl(dst, src);
+                break;
+            case 8:
+                masm.movq(dst, src);
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
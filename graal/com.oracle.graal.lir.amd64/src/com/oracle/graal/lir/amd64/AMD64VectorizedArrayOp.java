@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static jdk.internal.jvmci.code.ValueUtil.asRegister;
+import static jdk.internal.jvmci.code.ValueUtil.isIllegal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+
+import jdk.internal.jvmci.amd64.AMD64;
+import jdk.internal.jvmci.amd64.AMD64.CPUFeature;
+import jdk.internal.jvmci.amd64.AMD64Kind;
+import jdk.internal.jvmci.code.Register;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+import sun.misc.Unsafe;
+
+import com.oracle.graal.asm.Label;
+import com.oracle.graal.asm.amd64.AMD64Address;
+import com.oracle.graal.asm.amd64.AMD64Address.Scale;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64MROp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AMD64RMOp;
+import com.oracle.graal.asm.amd64.AMD64Assembler.AVXSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.asm.amd64.AMD64Assembler.OperandSize;
+import com.oracle.graal.asm.amd64.AMD64Assembler.SSEOp;
+import com.oracle.graal.asm.amd64.AMD64MacroAssembler;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Opcode;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+import com.oracle.graal.lir.gen.LIRGeneratorTool;
+
+/**
+ * Emits a loop over arrays that processes 16 bytes per iteration with SSE2 instructions. The loop
+ * either stores {@code x op y} element-wise into a destination array, where each operand is an
+ * array or a scalar that is broadcast to all vector lanes, or it combines the elements of one array
+ * into a scalar result. The elements of a reduction may be smaller than the result, in which case
+ * they are sign or zero extended to the size of the result.
+ *
+ * The number of elements must be a multiple of the vector width, the remaining elements are left
+ * to the caller. All memory accesses are unaligned, so no alignment of the arrays is required. If
+ * the CPU supports AVX2, a loop that processes 32 bytes per iteration is emitted in front of the
+ * SSE2 loop, which then handles at most one remaining 16 byte vector. Reductions that extend their
+ * elements only use the SSE2 loop.
+ *
+ * @see LIRGeneratorTool#emitVectorizedArrayStore
+ * @see LIRGeneratorTool#emitVectorizedArrayReduction
+ */
+@Opcode("VECTORIZED_ARRAY")
+public final class AMD64VectorizedArrayOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64VectorizedArrayOp> TYPE = LIRInstructionClass.create(AMD64VectorizedArrayOp.class);
+
+    /**
+     * Size of the vector registers in bytes.
+     */
+    public static final int VECTOR_SIZE = 16;
+
+    private final JavaKind kind;
+    /** {@link JavaKind} of the array elements, which differs from {@link #kind} if they are extended. */
+    private final JavaKind elementKind;
+    private final boolean zeroExtend;
+    private final VectorOperation operation;
+    private final int arrayBaseOffset;
+    private final int arrayIndexScale;
+
+    @Def({REG, ILLEGAL}) protected Value resultValue;
+    @Alive({REG, ILLEGAL}) protected Value dstValue;
+    @Alive({REG, ILLEGAL}) protected Value dstIndexValue;
+    @Alive({REG}) protected Value xValue;
+    @Alive({REG, ILLEGAL}) protected Value xIndexValue;
+    @Alive({REG, ILLEGAL}) protected Value yValue;
+    @Alive({REG, ILLEGAL}) protected Value yIndexValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG, ILLEGAL}) protected Value dstPointer;
+    @Temp({REG, ILLEGAL}) protected Value xPointer;
+    @Temp({REG, ILLEGAL}) protected Value yPointer;
+    @Temp({REG}) protected Value index;
+    @Temp({REG}) protected Value vectorTemp1;
+    @Temp({REG}) protected Value vectorTemp2;
+    @Temp({REG, ILLEGAL}) protected Value broadcastTemp;
+    @Temp({REG, ILLEGAL}) protected Value extendTemp;
+    /** One register for each doubling of the element size when the elements are extended. */
+    @Temp({REG}) protected Value[] widenTemps;
+
+    private AMD64VectorizedArrayOp(LIRGeneratorTool tool, JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, Value result, Value dst, Value dstIndex, Value x,
+                    Value xIndex, Value y, Value yIndex, Value length) {
+        super(TYPE);
+        assert ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.SSE2);
+        this.kind = kind;
+        this.elementKind = elementKind;
+        this.zeroExtend = zeroExtend;
+        this.operation = operation;
+
+        Class<?> arrayClass = Array.newInstance(elementKind.toJavaClass(), 0).getClass();
+        this.arrayBaseOffset = UNSAFE.arrayBaseOffset(arrayClass);
+        this.arrayIndexScale = UNSAFE.arrayIndexScale(arrayClass);
+
+        this.resultValue = result;
+        this.dstValue = dst;
+        this.dstIndexValue = dstIndex;
+        this.xValue = x;
+        this.xIndexValue = xIndex;
+        this.yValue = y;
+        this.yIndexValue = yIndex;
+        this.lengthValue = length;
+
+        this.dstPointer = isIllegal(dst) ? Value.ILLEGAL : tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.xPointer = isIllegal(xIndex) ? Value.ILLEGAL : tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.yPointer = isIllegal(yIndex) ? Value.ILLEGAL : tool.newVariable(LIRKind.unknownReference(tool.target().arch.getWordKind()));
+        this.index = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.vectorTemp1 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.vectorTemp2 = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        boolean hasScalar = isIllegal(xIndex) || (!isIllegal(y) && isIllegal(yIndex));
+        this.broadcastTemp = hasScalar ? tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE)) : Value.ILLEGAL;
+        int widenings = Integer.numberOfTrailingZeros(kind.getByteCount() / elementKind.getByteCount());
+        this.extendTemp = widenings == 0 ? Value.ILLEGAL : tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        this.widenTemps = new Value[widenings];
+        for (int i = 0; i < widenings; i++) {
+            this.widenTemps[i] = tool.newVariable(LIRKind.value(AMD64Kind.DOUBLE));
+        }
+    }
+
+    /**
+     * Creates an operation that stores {@code x op y} into {@code dst}, see
+     * {@link LIRGeneratorTool#emitVectorizedArrayStore}.
+     */
+    public static AMD64VectorizedArrayOp createStore(LIRGeneratorTool tool, JavaKind kind, VectorOperation operation, Value dst, Value dstIndex, Value x, Value xIndex, Value y, Value yIndex,
+                    Value length) {
+        assert operation != null || isIllegal(y);
+        assert operation == null || !isIllegal(xIndex) || !isIllegal(yIndex) : "at least one operand must be an array";
+        return new AMD64VectorizedArrayOp(tool, kind, kind, false, operation, Value.ILLEGAL, dst, dstIndex, x, xIndex, y, yIndex, length);
+    }
+
+    /**
+     * Creates an operation that combines the elements of {@code array}, see
+     * {@link LIRGeneratorTool#emitVectorizedArrayReduction}.
+     */
+    public static AMD64VectorizedArrayOp createReduction(LIRGeneratorTool tool, JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, Value result, Value array,
+                    Value index, Value length) {
+        assert kind == JavaKind.Int || kind == JavaKind.Long;
+        assert elementKind.getStackKind() == kind || (elementKind.getStackKind() == JavaKind.Int && kind == JavaKind.Long);
+        assert operation != VectorOperation.SUB && operation != VectorOperation.MUL;
+        return new AMD64VectorizedArrayOp(tool, kind, elementKind, zeroExtend, operation, result, Value.ILLEGAL, Value.ILLEGAL, array, index, Value.ILLEGAL, Value.ILLEGAL, length);
+    }
+
+    private boolean isReduction() {
+        return !isIllegal(resultValue);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register count = asRegister(index);
+        Register vector1 = asRegister(vectorTemp1, AMD64Kind.DOUBLE);
+        Register vector2 = asRegister(vectorTemp2, AMD64Kind.DOUBLE);
+        Scale scale = Scale.fromInt(arrayIndexScale);
+        int elementsPerVector = VECTOR_SIZE / arrayIndexScale;
+
+        boolean useAVX2 = supportsAVX2(crb.target) && elementKind == kind;
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        if (!isIllegal(broadcastTemp)) {
+            emitBroadcast(masm, kind, asRegister(broadcastTemp, AMD64Kind.DOUBLE), asRegister(isIllegal(xIndexValue) ? xValue : yValue));
+        }
+        if (isReduction()) {
+            // vector2 accumulates the partial results of the lanes
+            if (operation == VectorOperation.AND) {
+                masm.pcmpeqd(vector2, vector2);
+            } else {
+                masm.pxor(vector2, vector2);
+            }
+        }
+
+        // The index counts from -length up to 0, so the pointers point to the end of the arrays.
+        masm.movl(count, asRegister(lengthValue));
+        masm.testl(count, count);
+        masm.jcc(ConditionFlag.Zero, done);
+        if (!isIllegal(dstPointer)) {
+            emitEndPointer(masm, asRegister(dstPointer), asRegister(dstValue), asRegister(dstIndexValue), count, scale);
+        }
+        if (!isIllegal(xPointer)) {
+            emitEndPointer(masm, asRegister(xPointer), asRegister(xValue), asRegister(xIndexValue), count, scale);
+        }
+        if (!isIllegal(yPointer)) {
+            emitEndPointer(masm, asRegister(yPointer), asRegister(yValue), asRegister(yIndexValue), count, scale);
+        }
+        masm.negq(count);
+
+        if (useAVX2) {
+            emitAVX2Loop(crb, masm, count, vector1, vector2, scale, elementsPerVector * 2);
+            masm.testq(count, count);
+            masm.jcc(ConditionFlag.Zero, done);
+        }
+
+        // Align the main loop
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        if (isReduction()) {
+            masm.movdqu(vector1, new AMD64Address(asRegister(xPointer), count, scale, 0));
+            emitExtendAndCombine(masm, vector2, vector1, elementKind.getByteCount(), 0);
+        } else {
+            Register stored;
+            if (isIllegal(xPointer)) {
+                stored = asRegister(broadcastTemp, AMD64Kind.DOUBLE);
+                if (operation != null) {
+                    masm.movapd(vector1, stored);
+                    stored = vector1;
+                }
+            } else {
+                masm.movdqu(vector1, new AMD64Address(asRegister(xPointer), count, scale, 0));
+                stored = vector1;
+            }
+            if (operation != null) {
+                Register operand;
+                if (isIllegal(yPointer)) {
+                    operand = asRegister(broadcastTemp, AMD64Kind.DOUBLE);
+                } else {
+                    masm.movdqu(vector2, new AMD64Address(asRegister(yPointer), count, scale, 0));
+                    operand = vector2;
+                }
+                emitOperation(masm, stored, operand);
+            }
+            masm.movdqu(new AMD64Address(asRegister(dstPointer), count, scale, 0), stored);
+        }
+        masm.addq(count, elementsPerVector);
+        masm.jcc(ConditionFlag.NotZero, loop);
+
+        masm.bind(done);
+        if (isReduction()) {
+            emitHorizontalReduction(masm, asRegister(resultValue), vector2, vector1);
+        }
+    }
+
+    private static boolean supportsAVX2(TargetDescription target) {
+        return ((AMD64) target.arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    /**
+     * Emits a loop that processes 32 bytes per iteration as long as at least 32 bytes are left.
+     * Afterwards, {@code count} is either 0 or the negated number of elements in one 16 byte vector,
+     * and the upper halves of the vector registers are cleared so that the following SSE code does
+     * not pay a transition penalty.
+     */
+    private void emitAVX2Loop(CompilationResultBuilder crb, AMD64MacroAssembler masm, Register count, Register vector1, Register vector2, Scale scale, int elementsPerIteration) {
+        Label loop = new Label();
+        Label loopExit = new Label();
+        int displacement = -AVXSize.YMM.getBytes();
+
+        // duplicate the broadcast value and the initial accumulator into the upper 16 bytes
+        if (!isIllegal(broadcastTemp)) {
+            Register broadcast = asRegister(broadcastTemp, AMD64Kind.DOUBLE);
+            masm.vinserti128(broadcast, broadcast, broadcast, 1);
+        }
+        if (isReduction()) {
+            masm.vinserti128(vector2, vector2, vector2, 1);
+        }
+
+        // count is advanced before the body, so the accesses are at a negative displacement
+        masm.addq(count, elementsPerIteration);
+        masm.jcc(ConditionFlag.Greater, loopExit);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        if (isReduction()) {
+            masm.vmovdqu(vector1, new AMD64Address(asRegister(xPointer), count, scale, displacement), AVXSize.YMM);
+            emitAVXOperation(masm, vector2, vector2, vector1);
+        } else {
+            Register stored;
+            if (isIllegal(xPointer)) {
+                stored = asRegister(broadcastTemp, AMD64Kind.DOUBLE);
+            } else {
+                masm.vmovdqu(vector1, new AMD64Address(asRegister(xPointer), count, scale, displacement), AVXSize.YMM);
+                stored = vector1;
+            }
+            if (operation != null) {
+                Register operand;
+                if (isIllegal(yPointer)) {
+                    operand = asRegister(broadcastTemp, AMD64Kind.DOUBLE);
+                } else {
+                    masm.vmovdqu(vector2, new AMD64Address(asRegister(yPointer), count, scale, displacement), AVXSize.YMM);
+                    operand = vector2;
+                }
+                emitAVXOperation(masm, vector1, stored, operand);
+                stored = vector1;
+            }
+            masm.vmovdqu(new AMD64Address(asRegister(dstPointer), count, scale, displacement), stored, AVXSize.YMM);
+        }
+        masm.addq(count, elementsPerIteration);
+        masm.jcc(ConditionFlag.LessEqual, loop);
+
+        masm.bind(loopExit);
+        masm.subq(count, elementsPerIteration);
+        if (isReduction()) {
+            // fold the upper 16 bytes of the accumulator into the lower 16 bytes
+            masm.vextracti128(vector1, vector2, 1);
+            masm.vzeroupper();
+            emitOperation(masm, vector2, vector1);
+        } else {
+            masm.vzeroupper();
+        }
+    }
+
+    /**
+     * Computes the address of the element at {@code arrayIndex + count}.
+     */
+    private void emitEndPointer(AMD64MacroAssembler masm, Register pointer, Register array, Register arrayIndex, Register count, Scale scale) {
+        // the index is not negative, so zero extending it is correct
+        masm.movl(pointer, arrayIndex);
+        masm.addq(pointer, count);
+        masm.leaq(pointer, new AMD64Address(array, pointer, scale, arrayBaseOffset));
+    }
+
+    /**
+     * Copies {@code value} into all lanes of the lower 16 bytes of {@code vector}. The lanes have
+     * the size of {@code kind}.
+     */
+    static void emitBroadcast(AMD64MacroAssembler masm, JavaKind kind, Register vector, Register value) {
+        if (value.getRegisterCategory().equals(AMD64.XMM)) {
+            masm.movapd(vector, value);
+        } else if (kind == JavaKind.Long) {
+            masm.movdq(vector, value);
+        } else {
+            AMD64RMOp.MOVD.emit(masm, OperandSize.DWORD, vector, value);
+        }
+        switch (kind.getByteCount()) {
+            case 1:
+                masm.punpcklbw(vector, vector);
+                masm.punpcklwd(vector, vector);
+                masm.pshufd(vector, vector, 0x00);
+                break;
+            case 2:
+                masm.punpcklwd(vector, vector);
+                masm.pshufd(vector, vector, 0x00);
+                break;
+            case 4:
+                masm.pshufd(vector, vector, 0x00);
+                break;
+            case 8:
+                masm.pshufd(vector, vector, 0x44);
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    /**
+     * Extends the elements of {@code vector}, which have {@code width} bytes, to the size of
+     * {@link #kind} and combines them with the lanes of {@code accumulator}. Each step interleaves
+     * the lower and the upper half of the elements with their sign bits or with zeros, which doubles
+     * the size of the elements. The lanes end up in a different order, which does not matter for
+     * the result of a reduction.
+     */
+    private void emitExtendAndCombine(AMD64MacroAssembler masm, Register accumulator, Register vector, int width, int level) {
+        if (width == kind.getByteCount()) {
+            emitOperation(masm, accumulator, vector);
+            return;
+        }
+        Register extension = asRegister(extendTemp, AMD64Kind.DOUBLE);
+        Register low = asRegister(widenTemps[level], AMD64Kind.DOUBLE);
+        masm.pxor(extension, extension);
+        masm.movapd(low, vector);
+        switch (width) {
+            case 1:
+                if (!zeroExtend) {
+                    // 0 > element gives all ones for the negative elements
+                    masm.pcmpgtb(extension, vector);
+                }
+                masm.punpcklbw(low, extension);
+                masm.punpckhbw(vector, extension);
+                break;
+            case 2:
+                if (!zeroExtend) {
+                    masm.pcmpgtw(extension, vector);
+                }
+                masm.punpcklwd(low, extension);
+                masm.punpckhwd(vector, extension);
+                break;
+            case 4:
+                if (!zeroExtend) {
+                    masm.pcmpgtd(extension, vector);
+                }
+                masm.punpckldq(low, extension);
+                masm.punpckhdq(vector, extension);
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+        emitExtendAndCombine(masm, accumulator, low, width * 2, level + 1);
+        emitExtendAndCombine(masm, accumulator, vector, width * 2, level + 1);
+    }
+
+    /**
+     * Combines the lanes of {@code vector} into {@code result}.
+     */
+    private void emitHorizontalReduction(AMD64MacroAssembler masm, Register result, Register vector, Register temp) {
+        // fold the upper 8 bytes into the lower 8 bytes
+        masm.pshufd(temp, vector, 0x0E);
+        emitOperation(masm, vector, temp);
+        if (kind == JavaKind.Long) {
+            masm.movdq(result, vector);
+        } else {
+            // fold the second int into the first one
+            masm.pshufd(temp, vector, 0x01);
+            emitOperation(masm, vector, temp);
+            AMD64MROp.MOVD.emit(masm, OperandSize.DWORD, result, vector);
+        }
+    }
+
+    private void emitOperation(AMD64MacroAssembler masm, Register dst, Register src) {
+        switch (operation) {
+            case AND:
+                masm.pand(dst, src);
+                return;
+            case OR:
+                masm.por(dst, src);
+                return;
+            case XOR:
+                masm.pxor(dst, src);
+                return;
+            default:
+                break;
+        }
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                if (operation == VectorOperation.ADD) {
+                    masm.paddb(dst, src);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.psubb(dst, src);
+                } else {
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Short:
+            case Char:
+                if (operation == VectorOperation.ADD) {
+                    masm.paddw(dst, src);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.psubw(dst, src);
+                } else {
+                    masm.pmullw(dst, src);
+                }
+                break;
+            case Int:
+                if (operation == VectorOperation.ADD) {
+                    masm.paddd(dst, src);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.psubd(dst, src);
+                } else {
+                    // SSE2 has no packed 32 bit multiplication
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Long:
+                if (operation == VectorOperation.ADD) {
+                    masm.paddq(dst, src);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.psubq(dst, src);
+                } else {
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Float:
+            case Double:
+                OperandSize size = kind == JavaKind.Float ? OperandSize.PS : OperandSize.PD;
+                if (operation == VectorOperation.ADD) {
+                    SSEOp.ADD.emit(masm, size, dst, src);
+                } else if (operation == VectorOperation.SUB) {
+                    SSEOp.SUB.emit(masm, size, dst, src);
+                } else {
+                    SSEOp.MUL.emit(masm, size, dst, src);
+                }
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    /**
+     * Emits the 256-bit form of the operation, {@code dst = x op y}.
+     */
+    private void emitAVXOperation(AMD64MacroAssembler masm, Register dst, Register x, Register y) {
+        AVXSize size = AVXSize.YMM;
+        switch (operation) {
+            case AND:
+                masm.vpand(dst, x, y, size);
+                return;
+            case OR:
+                masm.vpor(dst, x, y, size);
+                return;
+            case XOR:
+                masm.vpxor(dst, x, y, size);
+                return;
+            default:
+                break;
+        }
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                if (operation == VectorOperation.ADD) {
+                    masm.vpaddb(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vpsubb(dst, x, y, size);
+                } else {
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Short:
+            case Char:
+                if (operation == VectorOperation.ADD) {
+                    masm.vpaddw(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vpsubw(dst, x, y, size);
+                } else {
+                    masm.vpmullw(dst, x, y, size);
+                }
+                break;
+            case Int:
+                if (operation == VectorOperation.ADD) {
+                    masm.vpaddd(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vpsubd(dst, x, y, size);
+                } else {
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Long:
+                if (operation == VectorOperation.ADD) {
+                    masm.vpaddq(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vpsubq(dst, x, y, size);
+                } else {
+                    throw JVMCIError.shouldNotReachHere();
+                }
+                break;
+            case Float:
+                if (operation == VectorOperation.ADD) {
+                    masm.vaddps(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vsubps(dst, x, y, size);
+                } else {
+                    masm.vmulps(dst, x, y, size);
+                }
+                break;
+            case Double:
+                if (operation == VectorOperation.ADD) {
+                    masm.vaddpd(dst, x, y, size);
+                } else if (operation == VectorOperation.SUB) {
+                    masm.vsubpd(dst, x, y, size);
+                } else {
+                    masm.vmulpd(dst, x, y, size);
+                }
+                break;
+            default:
+                throw JVMCIError.shouldNotReachHere();
+        }
+    }
+
+    private static final Unsafe UNSAFE = initUnsafe();
+
+    private static Unsafe initUnsafe() {
+        try {
+            return Unsafe.getUnsafe();
+        } catch (SecurityException se) {
+            try {
+                Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return (Unsafe) theUnsafe.get(Unsafe.class);
+            } catch (Exception e) {
+                throw new RuntimeException("exception while trying to get Unsafe", e);
+            }
+        }
+    }
+}
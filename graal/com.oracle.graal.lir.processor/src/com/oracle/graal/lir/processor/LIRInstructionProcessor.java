@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.processor;
+
+import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a {@code LIRValueVisitor} for each concrete {@code LIRInstruction} class. For an
+ * instruction class {@code p.FooOp} the generated class {@code p.FooOp_Values} contains:
+ * <ul>
+ * <li>static getters and setters for each value field declared by {@code FooOp}. Subclasses in
+ * other packages use these to reach the (usually protected) value fields of {@code FooOp}.</li>
+ * <li>if {@code FooOp} is concrete and has value fields, a nested {@code Visitor} subclass of
+ * {@code LIRValueVisitor} visiting all value fields of {@code FooOp} including inherited ones.</li>
+ * </ul>
+ * No visitor is generated for an instruction class whose hierarchy contains a value field that
+ * cannot be accessed from generated code (e.g. a private field). {@code LIRInstructionClass} falls
+ * back to {@code Unsafe} based access for such classes.
+ */
+@SupportedAnnotationTypes("*")
+public class LIRInstructionProcessor extends AbstractProcessor {
+
+    static final String GENERATED_CLASS_SUFFIX = "_Values";
+
+    private static final String LIR_INSTRUCTION = "com.oracle.graal.lir.LIRInstruction";
+    private static final String VALUE = "jdk.internal.jvmci.meta.Value";
+    private static final String OPERAND_MODE = LIR_INSTRUCTION + ".OperandMode";
+
+    /**
+     * The operand mode annotations in the order of the {@code LIRValueVisitor} constructor
+     * parameters.
+     */
+    private static final String[] MODES = {"Use", "Alive", "Temp", "Def"};
+
+    /**
+     * The instruction classes being compiled in the current or a previous round.
+     */
+    private final Set<TypeElement> sourceClasses = new HashSet<>();
+
+    private Types types;
+    private Elements elements;
+    private TypeElement lirInstruction;
+    private TypeElement[] modeAnnotations;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latest();
+    }
+
+    /**
+     * A value field together with the class declaring it.
+     */
+    static final class ValueField {
+        final TypeElement declaringClass;
+        final VariableElement field;
+        final boolean isArray;
+
+        ValueField(TypeElement declaringClass, VariableElement field, boolean isArray) {
+            this.declaringClass = declaringClass;
+            this.field = field;
+            this.isArray = isArray;
+        }
+
+        String name() {
+            return field.getSimpleName().toString();
+        }
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            return false;
+        }
+        types = processingEnv.getTypeUtils();
+        elements = processingEnv.getElementUtils();
+        lirInstruction = elements.getTypeElement(LIR_INSTRUCTION);
+        if (lirInstruction == null) {
+            // not compiling against the LIR
+            return false;
+        }
+        modeAnnotations = new TypeElement[MODES.length];
+        for (int i = 0; i < MODES.length; i++) {
+            modeAnnotations[i] = elements.getTypeElement(LIR_INSTRUCTION + "." + MODES[i]);
+        }
+
+        List<TypeElement> instructionClasses = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectInstructionClasses(type, instructionClasses);
+        }
+        sourceClasses.addAll(instructionClasses);
+        for (TypeElement type : instructionClasses) {
+            try {
+                generate(type);
+            } catch (Throwable t) {
+                reportException(isBug367599(t) ? Kind.NOTE : Kind.ERROR, type, t);
+            }
+        }
+        return false;
+    }
+
+    private void collectInstructionClasses(TypeElement type, List<TypeElement> result) {
+        if (type.getKind() == ElementKind.CLASS && !type.equals(lirInstruction) && types.isSubtype(types.erasure(type.asType()), types.erasure(lirInstruction.asType()))) {
+            result.add(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectInstructionClasses(nested, result);
+        }
+    }
+
+    private void generate(TypeElement op) throws IOException {
+        List<List<ValueField>> declared = collectDeclaredValues(op);
+        boolean hasDeclared = !isEmpty(declared);
+        boolean emitHelpers = hasDeclared && hasValueHelpers(op, declared);
+
+        List<List<ValueField>> all = null;
+        if (!op.getModifiers().contains(ABSTRACT) && isAccessible(op)) {
+            all = collectAllValues(op);
+            if (all != null && isEmpty(all)) {
+                all = null;
+            }
+        }
+        if (!emitHelpers && all == null) {
+            return;
+        }
+
+        PackageElement pkg = elements.getPackageOf(op);
+        String simpleName = getGeneratedSimpleName(op);
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(getGeneratedQualifiedName(op), op);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!pkg.isUnnamed()) {
+                out.printf("package %s;%n%n", pkg.getQualifiedName());
+            }
+            out.printf("/**%n");
+            out.printf(" * Generated value accessors for {@link %s}.%n", op.getQualifiedName());
+            out.printf(" */%n");
+            out.printf("@SuppressWarnings({\"unchecked\", \"rawtypes\"})%n");
+            out.printf("public final class %s {%n", simpleName);
+            if (emitHelpers) {
+                for (List<ValueField> values : declared) {
+                    for (ValueField value : values) {
+                        emitHelpers(out, op, value);
+                    }
+                }
+            }
+            if (all != null) {
+                emitVisitor(out, all);
+            }
+            out.printf("}%n");
+        }
+    }
+
+    private static boolean isEmpty(List<List<ValueField>> values) {
+        for (List<ValueField> list : values) {
+            if (!list.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emitHelpers(PrintWriter out, TypeElement op, ValueField value) {
+        String opType = types.erasure(op.asType()).toString();
+        String fieldType = types.erasure(value.field.asType()).toString();
+        out.printf("%n");
+        if (value.isArray) {
+            out.printf("    public static %s[] get_%s(%s inst) {%n", VALUE, value.name(), LIR_INSTRUCTION);
+            out.printf("        return ((%s) inst).%s;%n", opType, value.name());
+            out.printf("    }%n");
+        } else {
+            out.printf("    public static %s get_%s(%s inst) {%n", VALUE, value.name(), LIR_INSTRUCTION);
+            out.printf("        return ((%s) inst).%s;%n", opType, value.name());
+            out.printf("    }%n%n");
+            out.printf("    public static void set_%s(%s inst, %s value) {%n", value.name(), LIR_INSTRUCTION, VALUE);
+            out.printf("        ((%s) inst).%s = (%s) value;%n", opType, value.name(), fieldType);
+            out.printf("    }%n");
+        }
+    }
+
+    private void emitVisitor(PrintWriter out, List<List<ValueField>> all) {
+        out.printf("%n");
+        out.printf("    public static final class Visitor extends com.oracle.graal.lir.LIRValueVisitor {%n%n");
+        out.printf("        public Visitor() {%n");
+        out.printf("            super(");
+        for (int m = 0; m < MODES.length; m++) {
+            out.printf("%snew String[]{", m == 0 ? "" : ", ");
+            List<ValueField> values = all.get(m);
+            for (int i = 0; i < values.size(); i++) {
+                ValueField value = values.get(i);
+                out.printf("%s\"%s.%s\"", i == 0 ? "" : ", ", elements.getBinaryName(value.declaringClass), value.name());
+            }
+            out.printf("}");
+        }
+        out.printf(");%n");
+        out.printf("        }%n");
+
+        for (int m = 0; m < MODES.length; m++) {
+            String mode = OPERAND_MODE + "." + MODES[m].toUpperCase();
+            String flags = MODES[m].toLowerCase() + "Flags";
+            List<ValueField> values = all.get(m);
+
+            out.printf("%n        @Override%n");
+            out.printf("        public void forEach%s(%s inst, com.oracle.graal.lir.InstructionValueProcedure proc) {%n", MODES[m], LIR_INSTRUCTION);
+            for (int i = 0; i < values.size(); i++) {
+                ValueField value = values.get(i);
+                if (value.isArray) {
+                    out.printf("            doValues(inst, %s(inst), %s, %s[%d], proc);%n", getter(value), mode, flags, i);
+                } else {
+                    out.printf("            {%n");
+                    out.printf("                %s value = %s(inst);%n", VALUE, getter(value));
+                    out.printf("                %s newValue = doValue(inst, value, %s, %s[%d], proc);%n", VALUE, mode, flags, i);
+                    out.printf("                if (newValue != value) {%n");
+                    out.printf("                    %s(inst, newValue);%n", setter(value));
+                    out.printf("                }%n");
+                    out.printf("            }%n");
+                }
+            }
+            out.printf("        }%n");
+
+            out.printf("%n        @Override%n");
+            out.printf("        public void visitEach%s(%s inst, com.oracle.graal.lir.InstructionValueConsumer proc) {%n", MODES[m], LIR_INSTRUCTION);
+            for (int i = 0; i < values.size(); i++) {
+                ValueField value = values.get(i);
+                out.printf("            %s(inst, %s(inst), %s, %s[%d], proc);%n", value.isArray ? "visitValues" : "visitValue", getter(value), mode, flags, i);
+            }
+            out.printf("        }%n");
+        }
+        out.printf("    }%n");
+    }
+
+    private String getGeneratedQualifiedName(TypeElement op) {
+        PackageElement pkg = elements.getPackageOf(op);
+        String simpleName = getGeneratedSimpleName(op);
+        return pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+    }
+
+    private String getter(ValueField value) {
+        return getGeneratedQualifiedName(value.declaringClass) + ".get_" + value.name();
+    }
+
+    private String setter(ValueField value) {
+        return getGeneratedQualifiedName(value.declaringClass) + ".set_" + value.name();
+    }
+
+    /**
+     * Gets the simple name of the class generated for {@code op}. This must be kept in sync with
+     * {@code LIRValueVisitor.getGeneratedClassName(Class)}.
+     */
+    private String getGeneratedSimpleName(TypeElement op) {
+        String binaryName = elements.getBinaryName(op).toString();
+        String simpleBinaryName = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+        return simpleBinaryName.replace('$', '_') + GENERATED_CLASS_SUFFIX;
+    }
+
+    /**
+     * Collects the values of {@code op} including inherited values for each operand mode in the
+     * order used by {@code LIRInstructionClass}: superclass values before subclass values and
+     * direct values before array values.
+     *
+     * @return {@code null} if a value in the hierarchy of {@code op} cannot be accessed from
+     *         generated code
+     */
+    private List<List<ValueField>> collectAllValues(TypeElement op) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = op;
+        while (current != null && !current.equals(lirInstruction)) {
+            hierarchy.add(0, current);
+            current = getSuperType(current);
+        }
+        List<List<ValueField>> all = newValueLists();
+        for (TypeElement clazz : hierarchy) {
+            List<List<ValueField>> declared = collectDeclaredValues(clazz);
+            if (isEmpty(declared)) {
+                continue;
+            }
+            if (!hasValueHelpers(clazz, declared)) {
+                return null;
+            }
+            if (!sourceClasses.contains(clazz) && elements.getTypeElement(getGeneratedQualifiedName(clazz)) == null) {
+                // superclass compiled without this processor
+                return null;
+            }
+            for (int m = 0; m < MODES.length; m++) {
+                all.get(m).addAll(declared.get(m));
+            }
+        }
+        for (List<ValueField> values : all) {
+            List<ValueField> arrays = new ArrayList<>();
+            values.removeIf(v -> v.isArray && arrays.add(v));
+            values.addAll(arrays);
+        }
+        return all;
+    }
+
+    private static List<List<ValueField>> newValueLists() {
+        List<List<ValueField>> result = new ArrayList<>(MODES.length);
+        for (int m = 0; m < MODES.length; m++) {
+            result.add(new ArrayList<>());
+        }
+        return result;
+    }
+
+    private List<List<ValueField>> collectDeclaredValues(TypeElement clazz) {
+        List<List<ValueField>> result = newValueLists();
+        for (VariableElement field : ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+            if (field.getModifiers().contains(STATIC)) {
+                continue;
+            }
+            List<? extends AnnotationMirror> mirrors = field.getAnnotationMirrors();
+            for (int m = 0; m < MODES.length; m++) {
+                if (modeAnnotations[m] != null && hasAnnotation(mirrors, modeAnnotations[m])) {
+                    boolean isArray = field.asType().getKind() == TypeKind.ARRAY;
+                    result.get(m).add(new ValueField(clazz, field, isArray));
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if the static value helpers can be generated for {@code clazz}.
+     */
+    private boolean hasValueHelpers(TypeElement clazz, List<List<ValueField>> declared) {
+        if (!isAccessible(clazz)) {
+            return false;
+        }
+        for (List<ValueField> values : declared) {
+            for (ValueField value : values) {
+                if (!isAccessible(value.field)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if {@code field} can be accessed from a class in the same package and its type can
+     * be named there.
+     */
+    private boolean isAccessible(VariableElement field) {
+        if (field.getModifiers().contains(PRIVATE)) {
+            return false;
+        }
+        TypeMirror type = types.erasure(field.asType());
+        if (type.getKind() == TypeKind.ARRAY) {
+            type = ((ArrayType) type).getComponentType();
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return isAccessible((TypeElement) ((DeclaredType) type).asElement());
+    }
+
+    /**
+     * Determines if {@code type} can be named from a class in the same package.
+     */
+    private static boolean isAccessible(TypeElement type) {
+        Element e = type;
+        while (e != null && e.getKind() != ElementKind.PACKAGE) {
+            if (e.getModifiers().contains(PRIVATE)) {
+                return false;
+            }
+            e = e.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean hasAnnotation(List<? extends AnnotationMirror> mirrors, TypeElement expectedAnnotationType) {
+        for (AnnotationMirror mirror : mirrors) {
+            if (types.isSameType(mirror.getAnnotationType(), expectedAnnotationType.asType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement getSuperType(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass == null || superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) types.asElement(superclass);
+    }
+
+    /**
+     * Bugs in an annotation processor can cause silent failure so try to report any exception
+     * throws as errors.
+     */
+    private void reportException(Kind kind, Element element, Throwable t) {
+        StringWriter buf = new StringWriter();
+        t.printStackTrace(new PrintWriter(buf));
+        processingEnv.getMessager().printMessage(kind, String.format("Exception thrown during processing: %s", buf.toString()), element);
+    }
+
+    /**
+     * Determines if a given exception is (most likely) caused by <a
+     * href="https://bugs.eclipse.org/bugs/show_bug.cgi?id=367599">Bug 367599</a>.
+     */
+    private static boolean isBug367599(Throwable t) {
+        if (t instanceof FilerException) {
+            for (StackTraceElement ste : t.getStackTrace()) {
+                if (ste.toString().contains("org.eclipse.jdt.internal.apt.pluggable.core.filer.IdeFilerImpl.create")) {
+                    // See: https://bugs.eclipse.org/bugs/show_bug.cgi?id=367599
+                    return true;
+                }
+            }
+        }
+        if (t.getCause() != null) {
+            return isBug367599(t.getCause());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.test;
+
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.REG;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.STACK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.internal.jvmci.meta.LIRKind;
+import jdk.internal.jvmci.meta.Value;
+
+import org.junit.Test;
+
+import com.oracle.graal.lir.LIRInstruction;
+import com.oracle.graal.lir.LIRInstruction.OperandMode;
+import com.oracle.graal.lir.LIRInstructionClass;
+import com.oracle.graal.lir.Variable;
+import com.oracle.graal.lir.asm.CompilationResultBuilder;
+
+/**
+ * Checks that the operands of an instruction are visited in the same order and with the same
+ * effect whether or not the instruction class has a generated value visitor.
+ */
+public class LIRValueVisitorTest {
+
+    abstract static class BaseOp extends LIRInstruction {
+        public static final LIRInstructionClass<BaseOp> TYPE = LIRInstructionClass.create(BaseOp.class);
+
+        @Use({REG}) protected Value x;
+
+        protected BaseOp(LIRInstructionClass<? extends BaseOp> c, Value x) {
+            super(c);
+            this.x = x;
+        }
+
+        @Override
+        public void emitCode(CompilationResultBuilder crb) {
+            fail("should not reach!");
+        }
+    }
+
+    static final class TestOp extends BaseOp {
+        public static final LIRInstructionClass<TestOp> TYPE = LIRInstructionClass.create(TestOp.class);
+
+        @Def({REG}) protected Value result;
+        @Use({REG, STACK}) protected Value[] args;
+        @Alive({REG}) protected Value alive;
+        @Temp({REG}) protected Value temp;
+
+        TestOp(Value result, Value x, Value[] args, Value alive, Value temp) {
+            super(TYPE, x);
+            this.result = result;
+            this.args = args;
+            this.alive = alive;
+            this.temp = temp;
+        }
+    }
+
+    private static Variable[] variables(int count) {
+        Variable[] result = new Variable[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new Variable(LIRKind.Illegal, i);
+        }
+        return result;
+    }
+
+    @Test
+    public void testVisit() {
+        Variable[] v = variables(6);
+        TestOp op = new TestOp(v[0], v[1], new Value[]{v[2], v[3]}, v[4], v[5]);
+        List<Value> visited = new ArrayList<>();
+        op.visitEachInput((inst, value, mode, flags) -> {
+            assertSame(op, inst);
+            assertEquals(OperandMode.USE, mode);
+            visited.add(value);
+        });
+        assertEquals(Arrays.asList(v[1], v[2], v[3]), visited);
+        visited.clear();
+        op.visitEachAlive((inst, value, mode, flags) -> visited.add(value));
+        op.visitEachTemp((inst, value, mode, flags) -> visited.add(value));
+        op.visitEachOutput((inst, value, mode, flags) -> visited.add(value));
+        assertEquals(Arrays.asList(v[4], v[5], v[0]), visited);
+    }
+
+    @Test
+    public void testReplace() {
+        Variable[] v = variables(6);
+        Variable[] w = variables(6);
+        TestOp op = new TestOp(v[0], v[1], new Value[]{v[2], v[3]}, v[4], v[5]);
+        op.forEachInput((inst, value, mode, flags) -> w[((Variable) value).index]);
+        op.forEachAlive((inst, value, mode, flags) -> value);
+        op.forEachTemp((inst, value, mode, flags) -> w[((Variable) value).index]);
+        op.forEachOutput((inst, value, mode, flags) -> {
+            assertEquals(true, flags.contains(REG));
+            return w[((Variable) value).index];
+        });
+        assertSame(w[0], op.result);
+        assertSame(w[1], op.x);
+        assertSame(w[2], op.args[0]);
+        assertSame(w[3], op.args[1]);
+        assertSame(v[4], op.alive);
+        assertSame(w[5], op.temp);
+    }
+}
@@ -29,6 +29,9 @@ import java.util.EnumSet;
 import jdk.internal.jvmci.code.BytecodeFrame;
 import jdk.internal.jvmci.common.JVMCIError;
 import jdk.internal.jvmci.meta.Value;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
 
 import com.oracle.graal.compiler.common.Fields;
 import com.oracle.graal.compiler.common.FieldsScanner;
@@ -37,6 +40,13 @@ import com.oracle.graal.lir.LIRInstruction.OperandMode;
 
 public class LIRInstructionClass<T> extends LIRIntrospection<T> {
 
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Visit the values of LIR instructions with the visitors generated by the LIR annotation processor instead of Unsafe", type = OptionType.Expert)
+        public static final OptionValue<Boolean> GeneratedLIRValueVisitors = new OptionValue<>(true);
+        // @formatter:on
+    }
+
     public static final <T extends LIRInstruction> LIRInstructionClass<T> create(Class<T> c) {
         return new LIRInstructionClass<>(c);
     }
@@ -50,6 +60,12 @@ public class LIRInstructionClass<T> extends LIRIntrospection<T> {
     private final Values defs;
     private final Fields states;
 
+    /**
+     * The generated visitor for the values of this instruction class or {@code null} if the values
+     * are accessed via the {@link Values} offsets.
+     */
+    private final LIRValueVisitor visitor;
+
     private String opcodeConstant;
     private int opcodeIndex;
 
@@ -68,6 +84,7 @@ public class LIRInstructionClass<T> extends LIRIntrospection<T> {
         alives = new Values(ifs.valueAnnotations.get(LIRInstruction.Alive.class));
         temps = new Values(ifs.valueAnnotations.get(LIRInstruction.Temp.class));
         defs = new Values(ifs.valueAnnotations.get(LIRInstruction.Def.class));
+        visitor = Options.GeneratedLIRValueVisitors.getValue() ? LIRValueVisitor.lookup(clazz, uses, alives, temps, defs) : null;
 
         states = new Fields(ifs.states);
         data = new Fields(ifs.data);
@@ -213,6 +230,14 @@ public class LIRInstructionClass<T> extends LIRIntrospection<T> {
         return String.valueOf(data.getObject(obj, opcodeIndex));
     }
 
+    /**
+     * Determines if the values of this instruction class are visited by a generated
+     * {@link LIRValueVisitor}.
+     */
+    public final boolean hasGeneratedValueVisitor() {
+        return visitor != null;
+    }
+
     final boolean hasOperands() {
         return uses.getCount() > 0 || alives.getCount() > 0 || temps.getCount() > 0 || defs.getCount() > 0;
     }
@@ -227,35 +252,67 @@ public class LIRInstructionClass<T> extends LIRIntrospection<T> {
     }
 
     final void forEachUse(LIRInstruction obj, InstructionValueProcedure proc) {
-        forEach(obj, uses, OperandMode.USE, proc);
+        if (visitor != null) {
+            visitor.forEachUse(obj, proc);
+        } else {
+            forEach(obj, uses, OperandMode.USE, proc);
+        }
     }
 
     final void forEachAlive(LIRInstruction obj, InstructionValueProcedure proc) {
-        forEach(obj, alives, OperandMode.ALIVE, proc);
+        if (visitor != null) {
+            visitor.forEachAlive(obj, proc);
+        } else {
+            forEach(obj, alives, OperandMode.ALIVE, proc);
+        }
     }
 
     final void forEachTemp(LIRInstruction obj, InstructionValueProcedure proc) {
-        forEach(obj, temps, OperandMode.TEMP, proc);
+        if (visitor != null) {
+            visitor.forEachTemp(obj, proc);
+        } else {
+            forEach(obj, temps, OperandMode.TEMP, proc);
+        }
     }
 
     final void forEachDef(LIRInstruction obj, InstructionValueProcedure proc) {
-        forEach(obj, defs, OperandMode.DEF, proc);
+        if (visitor != null) {
+            visitor.forEachDef(obj, proc);
+        } else {
+            forEach(obj, defs, OperandMode.DEF, proc);
+        }
     }
 
     final void visitEachUse(LIRInstruction obj, InstructionValueConsumer proc) {
-        visitEach(obj, uses, OperandMode.USE, proc);
+        if (visitor != null) {
+            visitor.visitEachUse(obj, proc);
+        } else {
+            visitEach(obj, uses, OperandMode.USE, proc);
+        }
     }
 
     final void visitEachAlive(LIRInstruction obj, InstructionValueConsumer proc) {
-        visitEach(obj, alives, OperandMode.ALIVE, proc);
+        if (visitor != null) {
+            visitor.visitEachAlive(obj, proc);
+        } else {
+            visitEach(obj, alives, OperandMode.ALIVE, proc);
+        }
     }
 
     final void visitEachTemp(LIRInstruction obj, InstructionValueConsumer proc) {
-        visitEach(obj, temps, OperandMode.TEMP, proc);
+        if (visitor != null) {
+            visitor.visitEachTemp(obj, proc);
+        } else {
+            visitEach(obj, temps, OperandMode.TEMP, proc);
+        }
     }
 
     final void visitEachDef(LIRInstruction obj, InstructionValueConsumer proc) {
-        visitEach(obj, defs, OperandMode.DEF, proc);
+        if (visitor != null) {
+            visitor.visitEachDef(obj, proc);
+        } else {
+            visitEach(obj, defs, OperandMode.DEF, proc);
+        }
     }
 
     final void forEachState(LIRInstruction obj, InstructionValueProcedure proc) {
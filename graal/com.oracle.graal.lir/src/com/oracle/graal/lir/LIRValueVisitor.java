@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir;
+
+import java.util.EnumSet;
+
+import jdk.internal.jvmci.meta.Value;
+
+import com.oracle.graal.lir.LIRInstruction.OperandFlag;
+import com.oracle.graal.lir.LIRInstruction.OperandMode;
+import com.oracle.graal.lir.LIRIntrospection.Values;
+
+/**
+ * Visits the {@link Value} fields of a single {@link LIRInstruction} class without going through
+ * {@link LIRIntrospection.Values} offsets and {@code Unsafe}. Subclasses are generated by the
+ * {@code LIRInstructionProcessor} annotation processor for each concrete instruction class whose
+ * value fields can be accessed from a class in the same package.
+ *
+ * The generated class for an instruction class {@code p.Outer$FooOp} is named
+ * {@code p.Outer_FooOp_Values} and contains a nested {@code Visitor} subclass of this class.
+ */
+public abstract class LIRValueVisitor {
+
+    /**
+     * Suffix appended to the flattened instruction class name to form the name of the generated
+     * class.
+     */
+    public static final String GENERATED_CLASS_SUFFIX = "_Values";
+
+    /**
+     * The value fields visited by this object for each {@link OperandMode} in the order in which
+     * they are generated, each name being the binary name of the declaring class followed by
+     * {@code '.'} and the field name.
+     */
+    private final String[] useNames;
+    private final String[] aliveNames;
+    private final String[] tempNames;
+    private final String[] defNames;
+
+    // Checkstyle: stop
+    protected EnumSet<OperandFlag>[] useFlags;
+    protected EnumSet<OperandFlag>[] aliveFlags;
+    protected EnumSet<OperandFlag>[] tempFlags;
+    protected EnumSet<OperandFlag>[] defFlags;
+
+    // Checkstyle: resume
+
+    protected LIRValueVisitor(String[] useNames, String[] aliveNames, String[] tempNames, String[] defNames) {
+        this.useNames = useNames;
+        this.aliveNames = aliveNames;
+        this.tempNames = tempNames;
+        this.defNames = defNames;
+    }
+
+    public abstract void forEachUse(LIRInstruction inst, InstructionValueProcedure proc);
+
+    public abstract void forEachAlive(LIRInstruction inst, InstructionValueProcedure proc);
+
+    public abstract void forEachTemp(LIRInstruction inst, InstructionValueProcedure proc);
+
+    public abstract void forEachDef(LIRInstruction inst, InstructionValueProcedure proc);
+
+    public abstract void visitEachUse(LIRInstruction inst, InstructionValueConsumer proc);
+
+    public abstract void visitEachAlive(LIRInstruction inst, InstructionValueConsumer proc);
+
+    public abstract void visitEachTemp(LIRInstruction inst, InstructionValueConsumer proc);
+
+    public abstract void visitEachDef(LIRInstruction inst, InstructionValueConsumer proc);
+
+    /**
+     * Applies {@code proc} to a value stored in a direct field.
+     *
+     * @return the value to be stored back in the field
+     */
+    protected static Value doValue(LIRInstruction inst, Value value, OperandMode mode, EnumSet<OperandFlag> flags, InstructionValueProcedure proc) {
+        assert LIRInstruction.ALLOWED_FLAGS.get(mode).containsAll(flags);
+        Value newValue;
+        if (value instanceof CompositeValue) {
+            CompositeValue composite = (CompositeValue) value;
+            newValue = composite.forEachComponent(inst, mode, proc);
+        } else {
+            newValue = proc.doValue(inst, value, mode, flags);
+        }
+        if (!value.identityEquals(newValue)) {
+            return newValue;
+        }
+        return value;
+    }
+
+    /**
+     * Applies {@code proc} to the values in an array field, updating the array in place.
+     */
+    protected static void doValues(LIRInstruction inst, Value[] valueArray, OperandMode mode, EnumSet<OperandFlag> flags, InstructionValueProcedure proc) {
+        assert LIRInstruction.ALLOWED_FLAGS.get(mode).containsAll(flags);
+        for (int j = 0; j < valueArray.length; j++) {
+            Value value = valueArray[j];
+            Value newValue;
+            if (value instanceof CompositeValue) {
+                CompositeValue composite = (CompositeValue) value;
+                newValue = composite.forEachComponent(inst, mode, proc);
+            } else {
+                newValue = proc.doValue(inst, value, mode, flags);
+            }
+            if (!value.identityEquals(newValue)) {
+                valueArray[j] = newValue;
+            }
+        }
+    }
+
+    protected static void visitValue(LIRInstruction inst, Value value, OperandMode mode, EnumSet<OperandFlag> flags, InstructionValueConsumer proc) {
+        assert LIRInstruction.ALLOWED_FLAGS.get(mode).containsAll(flags);
+        if (value instanceof CompositeValue) {
+            CompositeValue composite = (CompositeValue) value;
+            composite.visitEachComponent(inst, mode, proc);
+        } else {
+            proc.visitValue(inst, value, mode, flags);
+        }
+    }
+
+    protected static void visitValues(LIRInstruction inst, Value[] valueArray, OperandMode mode, EnumSet<OperandFlag> flags, InstructionValueConsumer proc) {
+        for (int j = 0; j < valueArray.length; j++) {
+            visitValue(inst, valueArray[j], mode, flags, proc);
+        }
+    }
+
+    /**
+     * Gets the name of the class generated for {@code instructionClass}.
+     */
+    public static String getGeneratedClassName(Class<?> instructionClass) {
+        String name = instructionClass.getName();
+        int lastDot = name.lastIndexOf('.');
+        String packagePrefix = name.substring(0, lastDot + 1);
+        return packagePrefix + name.substring(lastDot + 1).replace('$', '_') + GENERATED_CLASS_SUFFIX;
+    }
+
+    /**
+     * Gets the generated visitor for {@code instructionClass}.
+     *
+     * @return {@code null} if no visitor was generated for {@code instructionClass} or the
+     *         generated visitor does not describe the same values in the same order as the given
+     *         {@link Values}
+     */
+    static LIRValueVisitor lookup(Class<?> instructionClass, Values uses, Values alives, Values temps, Values defs) {
+        Class<?> visitorClass;
+        try {
+            visitorClass = Class.forName(getGeneratedClassName(instructionClass) + "$Visitor", true, instructionClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        LIRValueVisitor visitor;
+        try {
+            visitor = (LIRValueVisitor) visitorClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            return null;
+        }
+        if (!matches(visitor.useNames, uses) || !matches(visitor.aliveNames, alives) || !matches(visitor.tempNames, temps) || !matches(visitor.defNames, defs)) {
+            return null;
+        }
+        visitor.useFlags = getFlags(uses);
+        visitor.aliveFlags = getFlags(alives);
+        visitor.tempFlags = getFlags(temps);
+        visitor.defFlags = getFlags(defs);
+        return visitor;
+    }
+
+    /**
+     * Determines if the generated value order is the same as the order of {@code values}. The
+     * latter sorts values by field offset which usually but not necessarily follows declaration
+     * order.
+     */
+    private static boolean matches(String[] names, Values values) {
+        if (names.length != values.getCount()) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equals(values.getDeclaringClass(i).getName() + "." + values.getName(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EnumSet<OperandFlag>[] getFlags(Values values) {
+        EnumSet<OperandFlag>[] flags = (EnumSet<OperandFlag>[]) new EnumSet<?>[values.getCount()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = values.getFlags(i);
+        }
+        return flags;
+    }
+}
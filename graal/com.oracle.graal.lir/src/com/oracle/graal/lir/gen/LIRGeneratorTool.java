@@ -39,6 +39,7 @@ import jdk.internal.jvmci.meta.PlatformKind;
 import jdk.internal.jvmci.meta.Value;
 
 import com.oracle.graal.compiler.common.calc.Condition;
+import com.oracle.graal.compiler.common.calc.VectorOperation;
 import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
 import com.oracle.graal.compiler.common.spi.CodeGenProviders;
 import com.oracle.graal.compiler.common.spi.ForeignCallLinkage;
@@ -250,4 +251,68 @@ public interface LIRGeneratorTool extends ArithmeticLIRGenerator, BenchmarkCount
         throw JVMCIError.unimplemented();
     }
 
+    /**
+     * Emits the loop {@code dst[dstIndex + k] = x[xIndex + k] op y[yIndex + k]} for {@code k} in
+     * {@code [0, length)}. If {@code xIndex} or {@code yIndex} is null, the corresponding operand is
+     * a scalar instead of an array. If {@code operation} is null, {@code y} and {@code yIndex} are
+     * null and the loop is a fill or a copy of {@code x}. The arrays must not overlap in a way that
+     * would make the result differ from the sequential loop, and {@code length} must be a multiple
+     * of the number of elements that fit into 16 bytes.
+     */
+    @SuppressWarnings("unused")
+    default void emitVectorizedArrayStore(JavaKind kind, VectorOperation operation, Value dst, Value dstIndex, Value x, Value xIndex, Value y, Value yIndex, Value length) {
+        throw JVMCIError.unimplemented();
+    }
+
+    /**
+     * Emits code that combines {@code array[index + k]} for {@code k} in {@code [0, length)} with
+     * {@code operation}. The array elements have {@code elementKind} and are sign extended, or zero
+     * extended if {@code zeroExtend} is true, to the result of {@code kind}. The result is the
+     * identity of the operation if {@code length} is zero, and {@code length} must be a multiple of
+     * the number of elements that fit into 16 bytes.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitVectorizedArrayReduction(JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, Value array, Value index, Value length) {
+        throw JVMCIError.unimplemented();
+    }
+
+    /**
+     * Emits code that returns the smallest {@code k} in {@code [fromIndex, length)} with
+     * {@code array[k] == value}, or -1 if there is none. {@code kind} must be {@link JavaKind#Byte}
+     * or {@link JavaKind#Char}.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitArrayIndexOf(JavaKind kind, Value array, Value fromIndex, Value length, Value value) {
+        throw JVMCIError.unimplemented();
+    }
+
+    /**
+     * Emits code that returns the smallest {@code k} in {@code [0, length)} for which
+     * {@code array1[offset1 + k]} and {@code array2[offset2 + k]} differ bitwise, or -1 if there is
+     * none.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitArrayMismatch(JavaKind kind, Value array1, Value offset1, Value array2, Value offset2, Value length) {
+        throw JVMCIError.unimplemented();
+    }
+
+    /**
+     * Emits code that computes the hash code of the first {@code length} elements of
+     * {@code array} like {@link java.util.Arrays#hashCode(int[])}. {@code kind} must be
+     * {@link JavaKind#Byte}, {@link JavaKind#Char}, {@link JavaKind#Short} or {@link JavaKind#Int}.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitArrayHashCode(JavaKind kind, Value array, Value length) {
+        throw JVMCIError.unimplemented();
+    }
+
+    /**
+     * Emits code that stores {@code value} into {@code array[index + k]} for {@code k} in
+     * {@code [0, length)}.
+     */
+    @SuppressWarnings("unused")
+    default void emitArrayFill(JavaKind kind, Value array, Value index, Value length, Value value) {
+        throw JVMCIError.unimplemented();
+    }
+
 }
@@ -36,6 +36,7 @@ import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugMemUseTracker;
 import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.EventRingBuffer;
 import com.oracle.graal.lir.LIR;
 import com.oracle.graal.lir.gen.LIRGenerationResult;
 
@@ -56,6 +57,11 @@ public abstract class LIRPhase<C> {
 
     private CharSequence name;
 
+    /**
+     * The id of {@link #getName()} in {@link EventRingBuffer} events or -1 if not yet registered.
+     */
+    private int eventNameId = -1;
+
     /**
      * Records time spent within {@link #apply}.
      */
@@ -120,6 +126,7 @@ public abstract class LIRPhase<C> {
 
     @SuppressWarnings("try")
     public final <B extends AbstractBlockBase<B>> void apply(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder, C context, boolean dumpLIR) {
+        EventRingBuffer.recordInCompilation(EventRingBuffer.Kind.PhaseStart, getEventNameId());
         try (Scope s = Debug.scope(getName(), this)) {
             try (DebugCloseable a = timer.start(); DebugCloseable c = memUseTracker.start()) {
                 run(target, lirGenRes, codeEmittingOrder, linearScanOrder, context);
@@ -129,7 +136,16 @@ public abstract class LIRPhase<C> {
             }
         } catch (Throwable e) {
             throw Debug.handle(e);
+        } finally {
+            EventRingBuffer.recordInCompilation(EventRingBuffer.Kind.PhaseEnd, eventNameId);
+        }
+    }
+
+    private int getEventNameId() {
+        if (eventNameId == -1) {
+            eventNameId = EventRingBuffer.registerName(getName().toString());
         }
+        return eventNameId;
     }
 
     protected abstract <B extends AbstractBlockBase<B>> void run(TargetDescription target, LIRGenerationResult lirGenRes, List<B> codeEmittingOrder, List<B> linearScanOrder, C context);
@@ -23,6 +23,7 @@
 package com.oracle.graal.lir.phases;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -52,6 +53,13 @@ public class LIRPhaseSuite<C> extends LIRPhase<C> {
         phases.add(phase);
     }
 
+    /**
+     * Gets an unmodifiable view of the phases in this suite, in the order they are applied.
+     */
+    public final List<LIRPhase<C>> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
     public final ListIterator<LIRPhase<C>> findPhase(Class<? extends LIRPhase<C>> phaseClass) {
         ListIterator<LIRPhase<C>> it = phases.listIterator();
         if (findNextPhase(it, phaseClass)) {
@@ -36,10 +36,12 @@ import com.oracle.graal.loop.InductionVariable.Direction;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.ConstantNode;
 import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.IfNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.calc.CompareNode;
 import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
 import com.oracle.graal.nodes.calc.IntegerLessThanNode;
 import com.oracle.graal.nodes.extended.GuardingNode;
 
@@ -64,9 +66,24 @@ public class CountedLoopInfo {
     }
 
     public ValueNode maxTripCountNode(boolean assumePositive) {
+        return maxTripCountNode(assumePositive, iv.valueNode().stamp());
+    }
+
+    /**
+     * Returns the maximum trip count computed in {@code stamp}. If {@code stamp} is wider than the
+     * stamp of the counter, the computation cannot overflow.
+     */
+    public ValueNode maxTripCountNode(boolean assumePositive, Stamp stamp) {
         StructuredGraph graph = iv.valueNode().graph();
-        Stamp stamp = iv.valueNode().stamp();
-        ValueNode range = sub(graph, end, iv.initNode());
+        ValueNode initNode = iv.initNode();
+        ValueNode endNode = end;
+        ValueNode strideNode = iv.strideNode();
+        if (!iv.valueNode().stamp().isCompatible(stamp)) {
+            initNode = IntegerConvertNode.convert(initNode, stamp, graph);
+            endNode = IntegerConvertNode.convert(endNode, stamp, graph);
+            strideNode = IntegerConvertNode.convert(strideNode, stamp, graph);
+        }
+        ValueNode range = sub(graph, endNode, initNode);
 
         ValueNode oneDirection;
         if (iv.direction() == Direction.Up) {
@@ -79,8 +96,8 @@ public class CountedLoopInfo {
             range = add(graph, range, oneDirection);
         }
         // round-away-from-zero divison: (range + stride -/+ 1) / stride
-        ValueNode denominator = add(graph, sub(graph, range, oneDirection), iv.strideNode());
-        ValueNode div = divBefore(graph, loop.entryPoint(), denominator, iv.strideNode());
+        ValueNode denominator = add(graph, sub(graph, range, oneDirection), strideNode);
+        ValueNode div = divBefore(graph, loop.entryPoint(), denominator, strideNode);
 
         if (assumePositive) {
             return div;
@@ -140,6 +157,13 @@ public class CountedLoopInfo {
         return body;
     }
 
+    /**
+     * Gets the {@link IfNode} that decides whether the loop executes another iteration.
+     */
+    public IfNode getLimitTest() {
+        return (IfNode) body.predecessor();
+    }
+
     public Direction getDirection() {
         return iv.direction();
     }
@@ -105,6 +105,14 @@ public class DerivedOffsetInductionVariable extends DerivedInductionVariable {
         return op(base.exitValueNode(), offset);
     }
 
+    /**
+     * Returns the value of this induction variable for the value {@code baseValue} of its base
+     * induction variable, computed in the stamp of {@code baseValue}.
+     */
+    public ValueNode valueForBase(ValueNode baseValue) {
+        return op(baseValue, IntegerConvertNode.convert(offset, baseValue.stamp(), graph()));
+    }
+
     @Override
     public boolean isConstantExtremum() {
         return offset.isConstant() && base.isConstantExtremum();
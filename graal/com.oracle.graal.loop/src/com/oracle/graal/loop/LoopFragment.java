@@ -33,6 +33,7 @@ import com.oracle.graal.graph.Graph.DuplicationReplacement;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.graph.iterators.NodeIterable;
+import com.oracle.graal.graph.util.CollectionsAccess;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.EndNode;
 import com.oracle.graal.nodes.FixedNode;
@@ -176,7 +177,7 @@ public abstract class LoopFragment {
     }
 
     protected static NodeBitMap computeNodes(Graph graph, Iterable<AbstractBeginNode> blocks, Iterable<LoopExitNode> earlyExits) {
-        final NodeBitMap nodes = graph.createNodeBitMap();
+        final NodeBitMap nodes = CollectionsAccess.newNodeBitMap(graph);
         for (AbstractBeginNode b : blocks) {
             if (b.isDeleted()) {
                 continue;
@@ -208,7 +209,7 @@ public abstract class LoopFragment {
             }
         }
 
-        final NodeBitMap notloopNodes = graph.createNodeBitMap();
+        final NodeBitMap notloopNodes = CollectionsAccess.newNodeBitMap(graph);
         for (AbstractBeginNode b : blocks) {
             if (b.isDeleted()) {
                 continue;
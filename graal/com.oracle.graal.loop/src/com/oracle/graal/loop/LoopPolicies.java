@@ -38,6 +38,7 @@ import com.oracle.graal.graph.Node;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.ControlSplitNode;
 import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopBeginNode.LoopType;
 import com.oracle.graal.nodes.MergeNode;
 import com.oracle.graal.nodes.VirtualState;
 import com.oracle.graal.nodes.VirtualState.VirtualClosure;
@@ -54,6 +55,10 @@ public abstract class LoopPolicies {
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> FullUnrollMaxIterations = new OptionValue<>(600);
     @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> ExactFullUnrollMaxNodes = new OptionValue<>(1200);
 
+    @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> PartialUnrollFactor = new OptionValue<>(4);
+    @Option(help = "", type = OptionType.Expert) public static final OptionValue<Integer> PartialUnrollMaxNodes = new OptionValue<>(400);
+    @Option(help = "", type = OptionType.Expert) public static final OptionValue<Double> PartialUnrollMinFrequency = new OptionValue<>(10.0);
+
     private LoopPolicies() {
         // does not need to be instantiated
     }
@@ -100,6 +105,33 @@ public abstract class LoopPolicies {
         }
     }
 
+    public static boolean shouldPartialUnroll(LoopEx loop) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        int unrollFactor = PartialUnrollFactor.getValue();
+        if (unrollFactor < 2 || loopBegin.getLoopType() != LoopType.SIMPLE_LOOP || loopBegin.loopFrequency() < PartialUnrollMinFrequency.getValue()) {
+            return false;
+        }
+        if (!LoopTransformations.isUnrollableLoop(loop, unrollFactor)) {
+            return false;
+        }
+        CountedLoopInfo counted = loop.counted();
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount() < 2L * unrollFactor) {
+            return false;
+        }
+        // the body is copied once for each additional unrolled iteration and once for the post loop
+        int size = Math.max(1, loop.size() - 1 - loopBegin.phis().count());
+        int growth = size * unrollFactor;
+        if (growth > PartialUnrollMaxNodes.getValue() || loopBegin.graph().getNodeCount() + growth > MaximumDesiredSize.getValue()) {
+            return false;
+        }
+        for (Node node : loop.inside().nodes()) {
+            if (node instanceof ControlFlowAnchorNode) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static boolean shouldTryUnswitch(LoopEx loop) {
         LoopBeginNode loopBegin = loop.loopBegin();
         double loopFrequency = loopBegin.loopFrequency();
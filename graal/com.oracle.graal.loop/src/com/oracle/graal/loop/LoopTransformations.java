@@ -23,24 +23,45 @@
 package com.oracle.graal.loop;
 
 import static com.oracle.graal.compiler.common.GraalOptions.MaximumDesiredSize;
+import static com.oracle.graal.loop.MathUtil.sub;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import jdk.internal.jvmci.code.BailoutException;
+import jdk.internal.jvmci.code.CodeUtil;
 
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.graph.Graph.DuplicationReplacement;
 import com.oracle.graal.graph.Graph.Mark;
+import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeBitMap;
 import com.oracle.graal.graph.NodePosIterator;
 import com.oracle.graal.graph.Position;
+import com.oracle.graal.loop.InductionVariable.Direction;
 import com.oracle.graal.nodeinfo.InputType;
 import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.AbstractMergeNode;
 import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
 import com.oracle.graal.nodes.ControlSplitNode;
+import com.oracle.graal.nodes.EndNode;
 import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
 import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopBeginNode.LoopType;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.LoopExitNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ProxyNode;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
 import com.oracle.graal.nodes.extended.SwitchNode;
+import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.tiers.PhaseContext;
 
@@ -72,6 +93,197 @@ public abstract class LoopTransformations {
         }
     }
 
+    /**
+     * Determines whether {@code loop} has the shape required by {@link #insertPostLoop} and
+     * {@link #partialUnroll}: an innermost counted loop with a single back edge whose only exit is
+     * a strict {@code <} limit test directly at the loop header.
+     */
+    public static boolean isUnrollableLoop(LoopEx loop, int unrollFactor) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty()) {
+            return false;
+        }
+        CountedLoopInfo counted = loop.counted();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (!counted.isExactTripCount() || counted.isLimitIncluded() || loopBegin.loopEnds().count() != 1) {
+            return false;
+        }
+        IfNode limitTest = counted.getLimitTest();
+        if (loopBegin.next() != limitTest || limitTest.trueSuccessor() != counted.getBody() || !(limitTest.condition() instanceof IntegerLessThanNode)) {
+            return false;
+        }
+        for (PhiNode phi : loopBegin.phis()) {
+            if (!(phi instanceof ValuePhiNode)) {
+                return false;
+            }
+        }
+        InductionVariable counter = counted.getCounter();
+        if (!counter.isConstantStride()) {
+            return false;
+        }
+        long distance;
+        try {
+            distance = Math.multiplyExact(counter.constantStride(), unrollFactor - 1);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        int bits = counted.getStamp().getBits();
+        return distance > CodeUtil.minValue(bits) && distance < CodeUtil.maxValue(bits);
+    }
+
+    /**
+     * Splits {@code loop} into a main loop and a post loop that executes the iterations that the
+     * main loop leaves over. The main loop is {@code loop} itself, so that it can subsequently be
+     * {@linkplain #partialUnroll unrolled}.
+     */
+    public static void insertPostLoop(LoopEx loop) {
+        assert isUnrollableLoop(loop, 1);
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        LoopExitNode exit = loopBegin.loopExits().first();
+
+        // the post loop is a copy of the loop that runs after it
+        LoopFragmentWhole postLoop = loop.whole().duplicate();
+        LoopBeginNode postLoopBegin = postLoop.getDuplicatedNode(loopBegin);
+        EndNode postEntry = (EndNode) postLoop.entryPoint();
+        for (PhiNode phi : loopBegin.phis()) {
+            PhiNode postPhi = postLoop.getDuplicatedNode(phi);
+            postPhi.setValueAt(postEntry, ProxyNode.forValue(phi, exit, graph));
+        }
+        connectLoops(exit, postEntry);
+        loop.invalidateFragments();
+
+        loopBegin.setLoopType(LoopType.MAIN_LOOP);
+        postLoopBegin.setLoopType(LoopType.POST_LOOP);
+    }
+
+    /**
+     * Makes the exit of one loop flow into the entry of another loop. The exit was merged with the
+     * corresponding exit of a loop copy by {@link LoopFragment#mergeEarlyExits()}, and that merge is
+     * removed again.
+     */
+    private static void connectLoops(LoopExitNode exit, EndNode entry) {
+        StructuredGraph graph = exit.graph();
+        EndNode exitEnd = (EndNode) exit.next();
+        AbstractMergeNode merge = exitEnd.merge();
+        exit.setNext(entry);
+        merge.removeEnd(exitEnd);
+        exitEnd.safeDelete();
+        graph.reduceTrivialMerge(merge);
+    }
+
+    /**
+     * Computes the limit of a main loop that executes {@code distance / stride + 1} iterations of
+     * the loop described by {@code counted} at once. The main loop must not be entered at all if
+     * subtracting {@code distance} from the limit overflows.
+     */
+    private static ValueNode mainLoopLimit(CountedLoopInfo counted, long distance) {
+        StructuredGraph graph = counted.getLimit().graph();
+        IntegerStamp stamp = counted.getStamp();
+        ValueNode limit = counted.getLimit();
+        ValueNode shortened = sub(graph, limit, ConstantNode.forIntegerStamp(stamp, distance, graph));
+        if (counted.getDirection() == Direction.Up) {
+            long min = CodeUtil.minValue(stamp.getBits());
+            LogicNode overflow = graph.unique(new IntegerLessThanNode(limit, ConstantNode.forIntegerStamp(stamp, min + distance, graph)));
+            return graph.unique(new ConditionalNode(overflow, ConstantNode.forIntegerStamp(stamp, min, graph), shortened));
+        } else {
+            long max = CodeUtil.maxValue(stamp.getBits());
+            LogicNode overflow = graph.unique(new IntegerLessThanNode(ConstantNode.forIntegerStamp(stamp, max + distance, graph), limit));
+            return graph.unique(new ConditionalNode(overflow, ConstantNode.forIntegerStamp(stamp, max, graph), shortened));
+        }
+    }
+
+    private static void setLimit(IfNode limitTest, ValueNode limit, ValueNode newLimit) {
+        IntegerLessThanNode compare = (IntegerLessThanNode) limitTest.condition();
+        ValueNode x = compare.getX() == limit ? newLimit : compare.getX();
+        ValueNode y = compare.getY() == limit ? newLimit : compare.getY();
+        limitTest.setCondition(compare.graph().unique(new IntegerLessThanNode(x, y)));
+        if (compare.hasNoUsages()) {
+            GraphUtil.killWithUnusedFloatingInputs(compare);
+        }
+    }
+
+    /**
+     * Unrolls the body of the main loop created by {@link #insertPostLoop} so that each
+     * iteration executes {@code unrollFactor} iterations of the original loop. The limit test is
+     * changed to only enter another iteration if all of the unrolled iterations would be executed
+     * by the original loop, so the copies of the body do not need to test the limit.
+     */
+    public static void partialUnroll(LoopEx loop, int unrollFactor) {
+        assert unrollFactor > 1 && isUnrollableLoop(loop, unrollFactor);
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        IfNode limitTest = counted.getLimitTest();
+        long distance = counted.getCounter().constantStride() * (unrollFactor - 1);
+        setLimit(limitTest, counted.getLimit(), mainLoopLimit(counted, distance));
+
+        loop.invalidateFragments();
+        NodeBitMap body = loop.inside().nodes().copy();
+        body.clear(loopBegin);
+        body.clear(limitTest);
+        if (limitTest.condition().getUsageCount() == 1) {
+            body.clear(limitTest.condition());
+        }
+        for (LoopExitNode exit : loopBegin.loopExits()) {
+            body.clear(exit);
+        }
+        LoopEndNode loopEnd = loopBegin.loopEnds().first();
+        Map<PhiNode, ValueNode> backValues = Node.newIdentityMap();
+        for (PhiNode phi : loopBegin.phis()) {
+            backValues.put(phi, phi.valueAt(loopEnd));
+        }
+        for (int i = 1; i < unrollFactor; i++) {
+            appendBodyCopy(loopBegin, loopEnd, counted.getBody(), body, backValues);
+        }
+        loopBegin.setUnrollFactor(unrollFactor);
+        loopBegin.setLoopFrequency(Math.max(1.0, loopBegin.loopFrequency() / unrollFactor));
+        loop.invalidateFragments();
+    }
+
+    /**
+     * Appends a copy of the loop body to the end of the loop body.
+     *
+     * @param body the nodes of the original loop body, starting at {@code bodyBegin}
+     * @param backValues the back edge values of the loop phis in the original loop body
+     */
+    private static void appendBodyCopy(LoopBeginNode loopBegin, LoopEndNode loopEnd, AbstractBeginNode bodyBegin, NodeBitMap body, Map<PhiNode, ValueNode> backValues) {
+        StructuredGraph graph = loopBegin.graph();
+        EndNode copyEnd = graph.add(new EndNode());
+        // the copy starts with the values the loop phis would have in the next iteration
+        DuplicationReplacement replacement = original -> {
+            if (original == loopEnd) {
+                return copyEnd;
+            } else if (loopBegin.isPhiAtMerge(original)) {
+                return ((PhiNode) original).valueAt(loopEnd);
+            }
+            return original;
+        };
+        Map<Node, Node> duplicates = graph.addDuplicates(body, graph, body.count(), replacement);
+
+        List<PhiNode> phis = loopBegin.phis().snapshot();
+        List<ValueNode> newBackValues = new ArrayList<>(phis.size());
+        for (PhiNode phi : phis) {
+            ValueNode backValue = backValues.get(phi);
+            if (body.isMarked(backValue)) {
+                newBackValues.add((ValueNode) duplicates.get(backValue));
+            } else if (loopBegin.isPhiAtMerge(backValue)) {
+                newBackValues.add(((PhiNode) backValue).valueAt(loopEnd));
+            } else {
+                newBackValues.add(backValue);
+            }
+        }
+        for (int i = 0; i < phis.size(); i++) {
+            phis.get(i).setValueAt(loopEnd, newBackValues.get(i));
+        }
+
+        AbstractBeginNode copyBegin = (AbstractBeginNode) duplicates.get(bodyBegin);
+        loopEnd.replaceAtPredecessor(copyBegin);
+        copyEnd.replaceAtPredecessor(loopEnd);
+        copyEnd.safeDelete();
+        if (copyBegin instanceof BeginNode) {
+            ((BeginNode) copyBegin).trySimplify();
+        }
+    }
+
     public static void unswitch(LoopEx loop, List<ControlSplitNode> controlSplitNodeSet) {
         ControlSplitNode firstNode = controlSplitNodeSet.iterator().next();
         LoopFragmentWhole originalLoop = loop.whole();
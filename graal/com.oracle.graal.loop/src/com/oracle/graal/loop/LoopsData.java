@@ -50,7 +50,7 @@ public class LoopsData {
     @SuppressWarnings("try")
     public LoopsData(final StructuredGraph graph) {
         try (Scope s = Debug.scope("ControlFlowGraph")) {
-            cfg = ControlFlowGraph.compute(graph, true, true, true, true);
+            cfg = ControlFlowGraph.computeCached(graph, true, true, true);
         } catch (Throwable e) {
             throw Debug.handle(e);
         }
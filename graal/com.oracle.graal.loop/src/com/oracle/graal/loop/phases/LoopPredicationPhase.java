@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import jdk.internal.jvmci.meta.DeoptimizationAction;
+import jdk.internal.jvmci.meta.DeoptimizationReason;
+import jdk.internal.jvmci.meta.JavaConstant;
+
+import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.DerivedOffsetInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractBeginNode;
+import com.oracle.graal.nodes.GuardNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopEndNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.calc.IntegerBelowNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.ZeroExtendNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.nodes.util.GraphUtil;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.tiers.MidTierContext;
+
+/**
+ * Replaces guards that are executed in every iteration of a counted loop by a single guard in front
+ * of the loop.
+ *
+ * Guards with a loop invariant condition, such as null checks of invariant values, are simply moved
+ * in front of the loop. Range checks of the form {@code iv |<| length}, where {@code iv} is an
+ * induction variable and {@code length} is loop invariant, are replaced by a check of the first and
+ * the last value of {@code iv}. The values are computed in 64 bit so that the computation itself
+ * cannot overflow, and the loop's {@linkplain CountedLoopInfo#createOverFlowGuard() overflow guard}
+ * ensures that the counter does not wrap around. Like the overflow guard, the new guards deoptimize
+ * with {@link DeoptimizationReason#LoopLimitCheck}, so the transformation is disabled once they
+ * fail too often.
+ */
+public class LoopPredicationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric HOISTED_INVARIANT_GUARDS = Debug.metric("LoopPredicationInvariantGuards");
+    private static final DebugMetric HOISTED_RANGE_CHECKS = Debug.metric("LoopPredicationRangeChecks");
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (!graph.hasLoops() || !graph.getGuardsStage().allowsFloatingGuards() || !context.getOptimisticOptimizations().useLoopLimitChecks()) {
+            return;
+        }
+        LoopsData loops = new LoopsData(graph);
+        loops.detectedCountedLoops();
+        for (LoopEx loop : loops.countedLoops()) {
+            CountedLoopInfo counted = loop.counted();
+            if (counted.getStamp().getBits() != 32 || !counted.isExactTripCount() || !(counted.getLimitTest().condition() instanceof IntegerLessThanNode) || !hasConsistentStride(counted)) {
+                continue;
+            }
+            /*
+             * Moving a guard out of the loop can make other nodes loop invariant, e.g., the array
+             * length read guarded by a null check, so iterate until nothing changes.
+             */
+            boolean changed;
+            do {
+                changed = false;
+                for (GuardNode guard : loop.whole().nodes().filter(GuardNode.class).snapshot()) {
+                    if (guard.isAlive() && isExecutedInEveryIteration(guard, loop, loops)) {
+                        changed |= predicate(guard, loop);
+                    }
+                }
+                loop.invalidateFragments();
+            } while (changed);
+        }
+        loops.deleteUnusedNodes();
+    }
+
+    /**
+     * Checks that the sign of the stride matches the direction of the counter, which is what the
+     * trip count computation relies on.
+     */
+    private static boolean hasConsistentStride(CountedLoopInfo counted) {
+        IntegerStamp strideStamp = (IntegerStamp) counted.getCounter().strideNode().stamp();
+        return counted.getDirection() == Direction.Up ? strideStamp.isStrictlyPositive() : strideStamp.isStrictlyNegative();
+    }
+
+    private static boolean isExecutedInEveryIteration(GuardNode guard, LoopEx loop, LoopsData loops) {
+        if (guard.getAnchor() == null) {
+            return false;
+        }
+        Block anchorBlock = loops.getCFG().blockFor(guard.getAnchor().asNode());
+        if (anchorBlock == null || !AbstractControlFlowGraph.dominates(loops.getCFG().blockFor(loop.counted().getBody()), anchorBlock)) {
+            return false;
+        }
+        for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+            if (!AbstractControlFlowGraph.dominates(anchorBlock, loops.getCFG().blockFor(loopEnd))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean predicate(GuardNode guard, LoopEx loop) {
+        StructuredGraph graph = guard.graph();
+        LogicNode condition;
+        boolean negated;
+        if (loop.isOutsideLoop(guard.condition())) {
+            condition = guard.condition();
+            negated = guard.isNegated();
+            HOISTED_INVARIANT_GUARDS.increment();
+        } else if (guard.condition() instanceof IntegerBelowNode && !guard.isNegated()) {
+            IntegerBelowNode below = (IntegerBelowNode) guard.condition();
+            InductionVariable iv = loop.getInductionVariables().get(below.getX());
+            if (iv == null || !isSupported(iv) || ((IntegerStamp) iv.valueNode().stamp()).getBits() != 32 || !loop.isOutsideLoop(below.getY())) {
+                return false;
+            }
+            condition = createOutOfRange(iv, below.getY());
+            negated = true;
+            loop.counted().createOverFlowGuard();
+            HOISTED_RANGE_CHECKS.increment();
+        } else {
+            return false;
+        }
+        LogicNode predicateCondition = createNotEnteredOr(loop.counted(), condition, negated);
+        GuardNode predicate = graph.unique(new GuardNode(predicateCondition, AbstractBeginNode.prevBegin(loop.entryPoint()), DeoptimizationReason.LoopLimitCheck,
+                        DeoptimizationAction.InvalidateRecompile, false, JavaConstant.NULL_POINTER));
+        Debug.log("Replacing %s in %s by %s", guard, loop, predicate);
+        guard.replaceAtUsages(predicate);
+        GraphUtil.killWithUnusedFloatingInputs(guard);
+        return true;
+    }
+
+    /**
+     * Only induction variables that are an invariant offset of a basic induction variable are
+     * supported, since their value in 64 bit can be computed exactly.
+     */
+    static boolean isSupported(InductionVariable iv) {
+        InductionVariable current = iv;
+        while (current instanceof DerivedOffsetInductionVariable) {
+            current = ((DerivedOffsetInductionVariable) current).getBase();
+        }
+        return current instanceof BasicInductionVariable;
+    }
+
+    static ValueNode initNode(InductionVariable iv, Stamp stamp) {
+        if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable offsetIv = (DerivedOffsetInductionVariable) iv;
+            return offsetIv.valueForBase(initNode(offsetIv.getBase(), stamp));
+        }
+        return IntegerConvertNode.convert(iv.initNode(), stamp, iv.graph());
+    }
+
+    /**
+     * Creates a condition that is true if the first or the last value of {@code iv} is outside of
+     * the range {@code [0, length)}. Since the values of {@code iv} are monotonic, all values in
+     * between are in that range if the condition is false.
+     */
+    private static LogicNode createOutOfRange(InductionVariable iv, ValueNode length) {
+        StructuredGraph graph = iv.graph();
+        Stamp stamp = StampFactory.forInteger(64);
+        ValueNode wideLength = graph.unique(new ZeroExtendNode(length, 64));
+        LogicNode firstInRange = graph.unique(new IntegerBelowNode(initNode(iv, stamp), wideLength));
+        LogicNode lastInRange = graph.unique(new IntegerBelowNode(iv.extremumNode(true, stamp), wideLength));
+        return graph.unique(new ShortCircuitOrNode(firstInRange, true, lastInRange, true, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+    }
+
+    /**
+     * Creates a condition that is true if the loop is not entered or if {@code condition} holds
+     * ({@code negated} inverts it). A guard in the loop body is never executed if the loop is not
+     * entered, so neither may the guard that replaces it in front of the loop fail in that case.
+     */
+    private static LogicNode createNotEnteredOr(CountedLoopInfo counted, LogicNode condition, boolean negated) {
+        StructuredGraph graph = condition.graph();
+        // the loop is entered if the limit test succeeds for the initial value of the counter
+        ValueNode init = counted.getStart();
+        ValueNode limit = counted.getLimit();
+        LogicNode entered;
+        if (counted.getDirection() == Direction.Up) {
+            entered = counted.isLimitIncluded() ? graph.unique(new IntegerLessThanNode(limit, init)) : graph.unique(new IntegerLessThanNode(init, limit));
+        } else {
+            entered = counted.isLimitIncluded() ? graph.unique(new IntegerLessThanNode(init, limit)) : graph.unique(new IntegerLessThanNode(limit, init));
+        }
+        // with an included limit, the loop is entered if the initial value is not beyond the limit
+        boolean enteredNegated = counted.isLimitIncluded();
+        return graph.unique(new ShortCircuitOrNode(entered, !enteredNegated, condition, negated, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+    }
+}
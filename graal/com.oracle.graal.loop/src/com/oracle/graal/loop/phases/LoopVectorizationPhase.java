@@ -0,0 +1,587 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.internal.jvmci.code.CodeUtil;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.JavaKind;
+
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.NodeInputList;
+import com.oracle.graal.loop.BasicInductionVariable;
+import com.oracle.graal.loop.CountedLoopInfo;
+import com.oracle.graal.loop.DerivedOffsetInductionVariable;
+import com.oracle.graal.loop.InductionVariable;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.loop.LoopEx;
+import com.oracle.graal.loop.LoopsData;
+import com.oracle.graal.nodes.AbstractEndNode;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.FrameState;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.LoopBeginNode;
+import com.oracle.graal.nodes.LoopBeginNode.LoopType;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.PhiNode;
+import com.oracle.graal.nodes.ShortCircuitOrNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValuePhiNode;
+import com.oracle.graal.nodes.calc.AddNode;
+import com.oracle.graal.nodes.calc.AndNode;
+import com.oracle.graal.nodes.calc.BinaryArithmeticNode;
+import com.oracle.graal.nodes.calc.ConditionalNode;
+import com.oracle.graal.nodes.calc.IntegerConvertNode;
+import com.oracle.graal.nodes.calc.IntegerLessThanNode;
+import com.oracle.graal.nodes.calc.IsNullNode;
+import com.oracle.graal.nodes.calc.MulNode;
+import com.oracle.graal.nodes.calc.NarrowNode;
+import com.oracle.graal.nodes.calc.ObjectEqualsNode;
+import com.oracle.graal.nodes.calc.OrNode;
+import com.oracle.graal.nodes.calc.SignExtendNode;
+import com.oracle.graal.nodes.calc.SubNode;
+import com.oracle.graal.nodes.calc.XorNode;
+import com.oracle.graal.nodes.calc.ZeroExtendNode;
+import com.oracle.graal.nodes.extended.BranchProbabilityNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayReductionNode;
+import com.oracle.graal.nodes.extended.VectorizedArrayStoreNode;
+import com.oracle.graal.nodes.java.AccessIndexedNode;
+import com.oracle.graal.nodes.java.ArrayLengthNode;
+import com.oracle.graal.nodes.java.LoadIndexedNode;
+import com.oracle.graal.nodes.java.StoreIndexedNode;
+import com.oracle.graal.nodes.type.StampTool;
+import com.oracle.graal.phases.Phase;
+
+/**
+ * Vectorizes innermost counted loops over primitive arrays whose body is one of the following
+ * idioms, where {@code i} is the loop counter, {@code c} is loop invariant and the offsets are loop
+ * invariant too:
+ *
+ * <pre>
+ * a[i + d] = c;                      // fill
+ * a[i + d] = b[i + e];               // copy
+ * a[i + d] = b[i + e] op c[i + f];   // element-wise arithmetic, either operand may be invariant
+ * r = r op a[i + d];                 // reduction into an int or long
+ * </pre>
+ *
+ * The elements of a reduced array may be smaller than the accumulator if they are sign or zero
+ * extended to it, for example when a {@code byte[]} is summed into an {@code int} with
+ * {@code r += a[i]} or {@code r += a[i] & 0xff}, or an {@code int[]} into a {@code long}.
+ *
+ * The largest multiple of the vector width of the iterations is executed by a
+ * {@link VectorizedArrayStoreNode} or {@link VectorizedArrayReductionNode} in front of the loop,
+ * and the original loop then executes the remaining iterations starting at the next counter value.
+ * That node only runs if checks at run time show that the arrays are not null, that all accessed
+ * elements are in bounds, and that the destination does not overlap a source at a higher index.
+ * Otherwise the original loop executes all iterations, so exceptions are still thrown at the right
+ * iteration. The vector instructions do not require aligned arrays, so alignment is not checked.
+ *
+ * This phase must only be used on targets that implement the vectorized array operations of the
+ * {@link com.oracle.graal.lir.gen.LIRGeneratorTool}.
+ */
+public class LoopVectorizationPhase extends Phase {
+
+    private static final DebugMetric VECTORIZED_LOOPS = Debug.metric("VectorizedLoops");
+
+    private final int vectorSize;
+
+    /**
+     * @param vectorSize the size of a vector register in bytes
+     */
+    public LoopVectorizationPhase(int vectorSize) {
+        this.vectorSize = vectorSize;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        if (graph.hasLoops()) {
+            boolean vectorized;
+            do {
+                vectorized = false;
+                LoopsData loops = new LoopsData(graph);
+                loops.detectedCountedLoops();
+                for (LoopEx loop : loops.countedLoops()) {
+                    VectorizableLoop candidate = VectorizableLoop.match(loop);
+                    if (candidate != null) {
+                        Debug.log("Vectorizing %s", loop);
+                        candidate.vectorize(vectorSize);
+                        VECTORIZED_LOOPS.increment();
+                        Debug.dump(graph, "Vectorized %s", loop);
+                        vectorized = true;
+                        break;
+                    }
+                }
+                loops.deleteUnusedNodes();
+            } while (vectorized);
+        }
+    }
+
+    /**
+     * An array access whose index is the loop counter plus an invariant offset.
+     */
+    private static final class ArrayAccess {
+
+        final ValueNode array;
+        final InductionVariable index;
+
+        ArrayAccess(ValueNode array, InductionVariable index) {
+            this.array = array;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Either an array access or a loop invariant scalar.
+     */
+    private static final class Operand {
+
+        final ValueNode scalar;
+        final ArrayAccess access;
+
+        Operand(ValueNode scalar, ArrayAccess access) {
+            this.scalar = scalar;
+            this.access = access;
+        }
+
+        ValueNode value() {
+            return access == null ? scalar : access.array;
+        }
+
+        ValueNode startIndex() {
+            return access == null ? null : access.index.initNode();
+        }
+    }
+
+    private static final class VectorizableLoop {
+
+        final LoopEx loop;
+        final JavaKind kind;
+        /** The kind of the array elements, which is smaller than {@link #kind} if they are extended. */
+        final JavaKind elementKind;
+        /** Whether the elements of a reduction are zero extended instead of sign extended. */
+        final boolean zeroExtend;
+        /** The operation, or null for fills and copies. */
+        final VectorOperation operation;
+        /** The destination, or null for reductions. */
+        final ArrayAccess dst;
+        final Operand x;
+        final Operand y;
+        final ValuePhiNode reductionPhi;
+        /** All accesses of the loop, which are checked to be in bounds before the vector loop. */
+        final List<ArrayAccess> accesses;
+
+        VectorizableLoop(LoopEx loop, JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, ArrayAccess dst, Operand x, Operand y, ValuePhiNode reductionPhi,
+                        List<ArrayAccess> accesses) {
+            this.loop = loop;
+            this.kind = kind;
+            this.elementKind = elementKind;
+            this.zeroExtend = zeroExtend;
+            this.operation = operation;
+            this.dst = dst;
+            this.x = x;
+            this.y = y;
+            this.reductionPhi = reductionPhi;
+            this.accesses = accesses;
+        }
+
+        static VectorizableLoop match(LoopEx loop) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            CountedLoopInfo counted = loop.counted();
+            if (!loop.loop().getChildren().isEmpty() || loopBegin.getLoopType() != LoopType.SIMPLE_LOOP || loopBegin.stateAfter() == null || loopBegin.loopEnds().count() != 1 ||
+                            loopBegin.loopExits().count() != 1) {
+                return null;
+            }
+            InductionVariable counter = counted.getCounter();
+            if (loopBegin.next() != counted.getLimitTest() || !(counted.getLimitTest().condition() instanceof IntegerLessThanNode) || counted.isLimitIncluded() ||
+                            counted.getDirection() != Direction.Up || counted.getStamp().getBits() != 32 || !(counter instanceof BasicInductionVariable) || !counter.isConstantStride() ||
+                            counter.constantStride() != 1) {
+                return null;
+            }
+
+            // the body must consist of array loads and at most one array store
+            List<ArrayAccess> accesses = new ArrayList<>();
+            List<LoadIndexedNode> loads = new ArrayList<>();
+            StoreIndexedNode store = null;
+            FixedNode current = counted.getBody().next();
+            while (current instanceof LoadIndexedNode || current instanceof StoreIndexedNode) {
+                if (current instanceof StoreIndexedNode) {
+                    if (store != null) {
+                        return null;
+                    }
+                    store = (StoreIndexedNode) current;
+                } else {
+                    loads.add((LoadIndexedNode) current);
+                    ArrayAccess access = access(loop, (LoadIndexedNode) current);
+                    if (access == null) {
+                        return null;
+                    }
+                    accesses.add(access);
+                }
+                current = ((FixedWithNextNode) current).next();
+            }
+            if (current != loopBegin.loopEnds().first()) {
+                return null;
+            }
+
+            ValuePhiNode reductionPhi = null;
+            for (PhiNode phi : loopBegin.phis()) {
+                if (phi != counter.valueNode()) {
+                    if (reductionPhi != null || store != null || !(phi instanceof ValuePhiNode)) {
+                        return null;
+                    }
+                    reductionPhi = (ValuePhiNode) phi;
+                }
+            }
+
+            if (store != null) {
+                return matchStore(loop, store, loads, accesses);
+            } else if (reductionPhi != null) {
+                return matchReduction(loop, reductionPhi, loads, accesses);
+            }
+            return null;
+        }
+
+        private static VectorizableLoop matchStore(LoopEx loop, StoreIndexedNode store, List<LoadIndexedNode> loads, List<ArrayAccess> accesses) {
+            JavaKind kind = store.elementKind();
+            ArrayAccess dst = access(loop, store);
+            if (!kind.isPrimitive() || dst == null) {
+                return null;
+            }
+            accesses.add(dst);
+            ValueNode value = skipNarrowing(store.value(), kind);
+            if (loop.isOutsideLoop(value)) {
+                return new VectorizableLoop(loop, kind, kind, false, null, dst, new Operand(value, null), null, null, accesses);
+            } else if (value instanceof LoadIndexedNode) {
+                Operand x = operand(loop, kind, value, loads);
+                if (x == null) {
+                    return null;
+                }
+                return new VectorizableLoop(loop, kind, kind, false, null, dst, x, null, null, accesses);
+            } else if (value instanceof BinaryArithmeticNode<?>) {
+                BinaryArithmeticNode<?> arithmetic = (BinaryArithmeticNode<?>) value;
+                VectorOperation operation = operation(arithmetic);
+                if (operation == null || !isSupported(kind, operation) || value.stamp().getStackKind() != kind.getStackKind()) {
+                    return null;
+                }
+                Operand x = operand(loop, kind, arithmetic.getX(), loads);
+                Operand y = operand(loop, kind, arithmetic.getY(), loads);
+                if (x == null || y == null || (x.access == null && y.access == null)) {
+                    return null;
+                }
+                return new VectorizableLoop(loop, kind, kind, false, operation, dst, x, y, null, accesses);
+            }
+            return null;
+        }
+
+        private static VectorizableLoop matchReduction(LoopEx loop, ValuePhiNode phi, List<LoadIndexedNode> loads, List<ArrayAccess> accesses) {
+            if (!(phi.stamp() instanceof IntegerStamp)) {
+                return null;
+            }
+            JavaKind kind = phi.stamp().getStackKind();
+            ValueNode backValue = phi.singleBackValue();
+            if ((kind != JavaKind.Int && kind != JavaKind.Long) || !(backValue instanceof BinaryArithmeticNode<?>)) {
+                return null;
+            }
+            BinaryArithmeticNode<?> arithmetic = (BinaryArithmeticNode<?>) backValue;
+            VectorOperation operation = operation(arithmetic);
+            if (operation != VectorOperation.ADD && operation != VectorOperation.AND && operation != VectorOperation.OR && operation != VectorOperation.XOR) {
+                return null;
+            }
+            ValueNode element;
+            if (arithmetic.getX() == phi) {
+                element = arithmetic.getY();
+            } else if (arithmetic.getY() == phi) {
+                element = arithmetic.getX();
+            } else {
+                return null;
+            }
+            // an int element may be extended to a long accumulator
+            boolean zeroExtend = false;
+            boolean extendedToLong = false;
+            if (kind == JavaKind.Long && (element instanceof SignExtendNode || element instanceof ZeroExtendNode)) {
+                IntegerConvertNode<?, ?> convert = (IntegerConvertNode<?, ?>) element;
+                if (convert.getInputBits() != 32) {
+                    return null;
+                }
+                zeroExtend = element instanceof ZeroExtendNode;
+                extendedToLong = true;
+                element = convert.getValue();
+            }
+            ValueNode mask = null;
+            if (element instanceof AndNode && ((AndNode) element).getY().isConstant()) {
+                mask = ((AndNode) element).getY();
+                element = ((AndNode) element).getX();
+            }
+            if (!(element instanceof LoadIndexedNode) || !loads.contains(element)) {
+                return null;
+            }
+            LoadIndexedNode load = (LoadIndexedNode) element;
+            JavaKind elementKind = load.elementKind();
+            if (elementKind.getStackKind() != (extendedToLong ? JavaKind.Int : kind)) {
+                return null;
+            }
+            // the load sign extends bytes and shorts to an int and zero extends booleans and chars
+            boolean loadZeroExtends = elementKind == JavaKind.Boolean || elementKind == JavaKind.Char;
+            if (mask != null) {
+                // only a mask that zero extends the element is supported, as in a[i] & 0xff
+                if (elementKind.getBitCount() >= 32 || mask.asJavaConstant().asLong() != CodeUtil.mask(elementKind.getBitCount())) {
+                    return null;
+                }
+                loadZeroExtends = true;
+            }
+            if (zeroExtend && !loadZeroExtends && elementKind.getBitCount() < 32) {
+                // zero extending a sign extended element is neither of the two
+                return null;
+            }
+            ArrayAccess access = access(loop, load);
+            if (access == null) {
+                return null;
+            }
+            return new VectorizableLoop(loop, kind, elementKind, zeroExtend || loadZeroExtends, operation, null, new Operand(null, access), null, phi, accesses);
+        }
+
+        private static ArrayAccess access(LoopEx loop, AccessIndexedNode node) {
+            if (!loop.isOutsideLoop(node.array())) {
+                return null;
+            }
+            InductionVariable iv = loop.getInductionVariables().get(node.index());
+            if (iv == null || !LoopPredicationPhase.isSupported(iv) || !iv.isConstantStride() || iv.constantStride() != 1) {
+                return null;
+            }
+            InductionVariable base = iv;
+            while (base instanceof DerivedOffsetInductionVariable) {
+                base = ((DerivedOffsetInductionVariable) base).getBase();
+            }
+            if (base != loop.counted().getCounter()) {
+                return null;
+            }
+            return new ArrayAccess(node.array(), iv);
+        }
+
+        private static Operand operand(LoopEx loop, JavaKind kind, ValueNode value, List<LoadIndexedNode> loads) {
+            if (loop.isOutsideLoop(value)) {
+                return new Operand(value, null);
+            }
+            if (value instanceof LoadIndexedNode && loads.contains(value) && ((LoadIndexedNode) value).elementKind() == kind) {
+                return new Operand(null, access(loop, (LoadIndexedNode) value));
+            }
+            return null;
+        }
+
+        /**
+         * Removes a cast such as {@code (byte)} from a value stored into an array of the same or a
+         * smaller element size, since the store truncates the value anyway.
+         */
+        private static ValueNode skipNarrowing(ValueNode value, JavaKind kind) {
+            int bits = kind.getByteCount() * 8;
+            if (bits < 32 && (value instanceof SignExtendNode || value instanceof ZeroExtendNode)) {
+                ValueNode input = ((IntegerConvertNode<?, ?>) value).getValue();
+                if (input instanceof NarrowNode && ((NarrowNode) input).getResultBits() >= bits && ((NarrowNode) input).getInputBits() == 32) {
+                    return ((NarrowNode) input).getValue();
+                }
+            }
+            return value;
+        }
+
+        private static VectorOperation operation(BinaryArithmeticNode<?> node) {
+            if (node instanceof AddNode) {
+                return VectorOperation.ADD;
+            } else if (node instanceof SubNode) {
+                return VectorOperation.SUB;
+            } else if (node instanceof MulNode) {
+                return VectorOperation.MUL;
+            } else if (node instanceof AndNode) {
+                return VectorOperation.AND;
+            } else if (node instanceof OrNode) {
+                return VectorOperation.OR;
+            } else if (node instanceof XorNode) {
+                return VectorOperation.XOR;
+            }
+            return null;
+        }
+
+        /**
+         * Determines whether there is a packed SSE2 instruction for the operation. Multiplication
+         * is only available for 16 bit elements and floating point values.
+         */
+        private static boolean isSupported(JavaKind kind, VectorOperation operation) {
+            switch (kind) {
+                case Short:
+                case Char:
+                    return true;
+                case Float:
+                case Double:
+                    return operation == VectorOperation.ADD || operation == VectorOperation.SUB || operation == VectorOperation.MUL;
+                default:
+                    return operation != VectorOperation.MUL;
+            }
+        }
+
+        void vectorize(int vectorSize) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            StructuredGraph graph = loopBegin.graph();
+            CountedLoopInfo counted = loop.counted();
+            PhiNode counter = (PhiNode) counted.getCounter().valueNode();
+            int vectorLength = vectorSize / elementKind.getByteCount();
+            Stamp longStamp = StampFactory.forInteger(64);
+
+            ValueNode init = counted.getStart();
+            ValueNode limit = counted.getLimit();
+            ValueNode tripCount = graph.unique(new SubNode(graph.unique(new SignExtendNode(limit, 64)), graph.unique(new SignExtendNode(init, 64))));
+
+            // go to the original loop right away if it has too few iterations or an array is null
+            LogicNode slowPath = graph.unique(new IntegerLessThanNode(tripCount, ConstantNode.forLong(vectorLength, graph)));
+            List<ValueNode> arrays = new ArrayList<>();
+            for (ArrayAccess access : accesses) {
+                if (!arrays.contains(access.array)) {
+                    arrays.add(access.array);
+                    if (!StampTool.isPointerNonNull(access.array)) {
+                        slowPath = or(slowPath, graph.unique(new IsNullNode(access.array)), false);
+                    }
+                }
+            }
+
+            AbstractEndNode forwardEnd = loopBegin.forwardEnd();
+            FixedWithNextNode before = (FixedWithNextNode) forwardEnd.predecessor();
+            before.setNext(null);
+            BeginNode slowBegin = graph.add(new BeginNode());
+            BeginNode fastBegin = graph.add(new BeginNode());
+            before.setNext(graph.add(new IfNode(slowPath, slowBegin, fastBegin, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY)));
+
+            // check the bounds of all accesses with 64 bit arithmetic so that nothing overflows
+            FixedWithNextNode last = fastBegin;
+            LogicNode invalid = null;
+            for (ValueNode array : arrays) {
+                ArrayLengthNode length = graph.add(new ArrayLengthNode(array));
+                last.setNext(length);
+                last = length;
+                ValueNode wideLength = graph.unique(new ZeroExtendNode(length, 64));
+                for (ArrayAccess access : accesses) {
+                    if (access.array == array) {
+                        ValueNode start = LoopPredicationPhase.initNode(access.index, longStamp);
+                        ValueNode end = graph.unique(new AddNode(start, tripCount));
+                        LogicNode negativeStart = graph.unique(new IntegerLessThanNode(start, ConstantNode.forLong(0, graph)));
+                        invalid = invalid == null ? negativeStart : or(invalid, negativeStart, false);
+                        invalid = or(invalid, graph.unique(new IntegerLessThanNode(wideLength, end)), false);
+                    }
+                }
+            }
+            // a store must not overwrite elements that later iterations read
+            if (dst != null) {
+                for (Operand operand : new Operand[]{x, y}) {
+                    if (operand != null && operand.access != null) {
+                        LogicNode sameArray = graph.unique(new ObjectEqualsNode(dst.array, operand.access.array));
+                        LogicNode readsBelow = graph.unique(new IntegerLessThanNode(operand.startIndex(), dst.index.initNode()));
+                        LogicNode noOverlap = graph.unique(new ShortCircuitOrNode(sameArray, true, readsBelow, true, BranchProbabilityNode.LIKELY_PROBABILITY));
+                        invalid = or(invalid, noOverlap, true);
+                    }
+                }
+            }
+            ValueNode roundedTripCount = graph.unique(new AndNode(graph.unique(new SubNode(limit, init)), ConstantNode.forInt(-vectorLength, graph)));
+            ValueNode vectorTripCount = graph.unique(new ConditionalNode(invalid, ConstantNode.forInt(0, graph), roundedTripCount));
+
+            FixedWithNextNode vectorLoop;
+            if (dst != null) {
+                VectorizedArrayStoreNode store = graph.add(new VectorizedArrayStoreNode(kind, operation, dst.array, dst.index.initNode(), x.value(), x.startIndex(), y == null ? null : y.value(),
+                                y == null ? null : y.startIndex(), vectorTripCount));
+                store.setStateAfter(loopEntryState(loopBegin, new PhiNode[]{counter}, new ValueNode[]{graph.unique(new AddNode(init, vectorTripCount))}));
+                vectorLoop = store;
+            } else {
+                vectorLoop = graph.add(new VectorizedArrayReductionNode(kind, elementKind, zeroExtend, operation, x.access.array, x.startIndex(), vectorTripCount));
+            }
+            last.setNext(vectorLoop);
+            EndNode fastEnd = graph.add(new EndNode());
+            vectorLoop.setNext(fastEnd);
+            EndNode slowEnd = graph.add(new EndNode());
+            slowBegin.setNext(slowEnd);
+
+            // the original loop continues with the iterations that are left
+            MergeNode merge = graph.add(new MergeNode());
+            merge.addForwardEnd(fastEnd);
+            merge.addForwardEnd(slowEnd);
+            merge.setNext(forwardEnd);
+            ValueNode processed = graph.addWithoutUnique(new ValuePhiNode(counter.stamp().unrestricted(), merge, new ValueNode[]{vectorTripCount, ConstantNode.forInt(0, graph)}));
+            ValueNode newInit = graph.unique(new AddNode(init, processed));
+            counter.setValueAt(forwardEnd, newInit);
+            if (reductionPhi != null) {
+                ValueNode identity = ConstantNode.forIntegerKind(kind, operation == VectorOperation.AND ? -1 : 0, graph);
+                ValueNode partial = graph.addWithoutUnique(new ValuePhiNode(reductionPhi.stamp().unrestricted(), merge, new ValueNode[]{vectorLoop, identity}));
+                ValueNode newReductionInit = graph.unique(combine(operation, reductionPhi.valueAt(forwardEnd), partial));
+                reductionPhi.setValueAt(forwardEnd, newReductionInit);
+                merge.setStateAfter(loopEntryState(loopBegin, new PhiNode[]{counter, reductionPhi}, new ValueNode[]{newInit, newReductionInit}));
+            } else {
+                merge.setStateAfter(loopEntryState(loopBegin, new PhiNode[]{counter}, new ValueNode[]{newInit}));
+            }
+            loopBegin.setLoopType(LoopType.POST_LOOP);
+        }
+
+        private static LogicNode or(LogicNode x, LogicNode y, boolean yNegated) {
+            return x.graph().unique(new ShortCircuitOrNode(x, false, y, yNegated, BranchProbabilityNode.NOT_FREQUENT_PROBABILITY));
+        }
+
+        private static BinaryArithmeticNode<?> combine(VectorOperation operation, ValueNode x, ValueNode y) {
+            switch (operation) {
+                case ADD:
+                    return new AddNode(x, y);
+                case AND:
+                    return new AndNode(x, y);
+                case OR:
+                    return new OrNode(x, y);
+                case XOR:
+                    return new XorNode(x, y);
+                default:
+                    throw JVMCIError.shouldNotReachHere();
+            }
+        }
+
+        /**
+         * Creates the frame state at the loop header for entering the loop with the given values of
+         * its phis. Deoptimizing with this state resumes the original loop with these values.
+         */
+        private static FrameState loopEntryState(LoopBeginNode loopBegin, PhiNode[] phis, ValueNode[] values) {
+            FrameState state = loopBegin.stateAfter().duplicate();
+            NodeInputList<ValueNode> stateValues = state.values();
+            for (int i = 0; i < stateValues.size(); i++) {
+                for (int j = 0; j < phis.length; j++) {
+                    if (stateValues.get(i) == phis[j]) {
+                        stateValues.set(i, values[j]);
+                    }
+                }
+            }
+            return state;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the throughput of the {@link Arrays} methods that are intrinsified with vector
+ * instructions.
+ */
+@State(Scope.Thread)
+public class ArraysBenchmark {
+
+    @Param({"16", "128", "1024"}) public int length;
+
+    private byte[] bytes;
+    private char[] chars;
+    private int[] ints;
+    private long[] longs;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[length];
+        chars = new char[length];
+        ints = new int[length];
+        longs = new long[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+            chars[i] = (char) ('a' + i % 26);
+            ints[i] = i * 31;
+            longs[i] = i;
+        }
+    }
+
+    @Benchmark
+    public byte[] fillByte() {
+        Arrays.fill(bytes, (byte) 42);
+        return bytes;
+    }
+
+    @Benchmark
+    public char[] fillCharRange() {
+        Arrays.fill(chars, 1, length - 1, ' ');
+        return chars;
+    }
+
+    @Benchmark
+    public int[] fillInt() {
+        Arrays.fill(ints, -1);
+        return ints;
+    }
+
+    @Benchmark
+    public long[] fillLong() {
+        Arrays.fill(longs, 0L);
+        return longs;
+    }
+
+    @Benchmark
+    public int hashCodeByte() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Benchmark
+    public int hashCodeChar() {
+        return Arrays.hashCode(chars);
+    }
+
+    @Benchmark
+    public int hashCodeInt() {
+        return Arrays.hashCode(ints);
+    }
+}
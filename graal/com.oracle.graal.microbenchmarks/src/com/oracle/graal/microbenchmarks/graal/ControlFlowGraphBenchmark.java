@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.nodes.BeginNode;
+import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EndNode;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.IfNode;
+import com.oracle.graal.nodes.LogicNode;
+import com.oracle.graal.nodes.MergeNode;
+import com.oracle.graal.nodes.ParameterNode;
+import com.oracle.graal.nodes.ReturnNode;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.calc.IntegerEqualsNode;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
+
+/**
+ * Measures how the computation of the control flow graph scales with the number of blocks.
+ *
+ * The {@code diamonds} shape is a sequence of if-then-else diamonds, which results in a deep
+ * dominator tree. The {@code cascade} shape is an if-else-if cascade whose branches all end in a
+ * single merge, like a dispatch in a partially evaluated interpreter. Finding the dominator of that
+ * merge by intersecting the dominator chains of its predecessors is quadratic in the number of
+ * branches.
+ */
+public class ControlFlowGraphBenchmark extends GraalBenchmark {
+
+    @State(Scope.Thread)
+    public static class GraphSpec {
+
+        @Param({"diamonds", "cascade"}) public String shape;
+
+        @Param({"1000", "10000", "100000"}) public int branches;
+
+        StructuredGraph graph;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            graph = new StructuredGraph(AllowAssumptions.NO);
+            ParameterNode parameter = graph.addWithoutUnique(new ParameterNode(0, StampFactory.intValue()));
+            FixedWithNextNode last = graph.start();
+            MergeNode cascadeMerge = shape.equals("cascade") ? graph.add(new MergeNode()) : null;
+            for (int i = 0; i < branches; i++) {
+                LogicNode condition = graph.unique(new IntegerEqualsNode(parameter, ConstantNode.forInt(i, graph)));
+                BeginNode trueBegin = graph.add(new BeginNode());
+                BeginNode falseBegin = graph.add(new BeginNode());
+                last.setNext(graph.add(new IfNode(condition, trueBegin, falseBegin, 0.5)));
+                EndNode trueEnd = graph.add(new EndNode());
+                trueBegin.setNext(trueEnd);
+                if (cascadeMerge != null) {
+                    cascadeMerge.addForwardEnd(trueEnd);
+                    last = falseBegin;
+                } else {
+                    EndNode falseEnd = graph.add(new EndNode());
+                    falseBegin.setNext(falseEnd);
+                    MergeNode merge = graph.add(new MergeNode());
+                    merge.addForwardEnd(trueEnd);
+                    merge.addForwardEnd(falseEnd);
+                    last = merge;
+                }
+            }
+            if (cascadeMerge != null) {
+                EndNode end = graph.add(new EndNode());
+                last.setNext(end);
+                cascadeMerge.addForwardEnd(end);
+                last = cascadeMerge;
+            }
+            last.setNext(graph.add(new ReturnNode(parameter)));
+            graph.setCachedControlFlowGraph(ControlFlowGraph.compute(graph, true, true, true, true));
+        }
+    }
+
+    @Benchmark
+    public ControlFlowGraph blocks(GraphSpec s) {
+        return ControlFlowGraph.compute(s.graph, true, false, false, false);
+    }
+
+    @Benchmark
+    public ControlFlowGraph dominators(GraphSpec s) {
+        return ControlFlowGraph.compute(s.graph, true, false, true, false);
+    }
+
+    @Benchmark
+    public ControlFlowGraph full(GraphSpec s) {
+        return ControlFlowGraph.compute(s.graph, true, true, true, true);
+    }
+
+    /**
+     * Reuses the control flow graph cached on the unchanged graph, which only recomputes block
+     * probabilities.
+     */
+    @Benchmark
+    public ControlFlowGraph cached(GraphSpec s) {
+        return ControlFlowGraph.computeCached(s.graph, true, true, true);
+    }
+}
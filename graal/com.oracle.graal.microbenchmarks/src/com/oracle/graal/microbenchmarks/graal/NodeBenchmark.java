@@ -22,23 +22,39 @@
  */
 package com.oracle.graal.microbenchmarks.graal;
 
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
 import java.util.HashMap;
 
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
+import com.oracle.graal.graph.EdgeAccessor;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.microbenchmarks.graal.util.GraphState;
 import com.oracle.graal.microbenchmarks.graal.util.MethodSpec;
 import com.oracle.graal.microbenchmarks.graal.util.NodesState;
 import com.oracle.graal.microbenchmarks.graal.util.NodesState.NodePair;
+import com.oracle.graal.nodes.StructuredGraph;
 
 public class NodeBenchmark extends GraalBenchmark {
 
+    /**
+     * VM argument disabling the generated {@link EdgeAccessor}s. The {@code *Unsafe} benchmarks use
+     * it to measure the {@code Unsafe} based edge access as a baseline.
+     */
+    private static final String UNSAFE_EDGES = "-G:-GeneratedEdgeAccessors";
+
     @MethodSpec(declaringClass = String.class, name = "equals")
     public static class StringEquals extends NodesState {
     }
 
+    @MethodSpec(declaringClass = String.class, name = "equals")
+    public static class StringEqualsGraph extends GraphState {
+    }
+
     @Benchmark
     @Warmup(iterations = 20)
     public int getNodeClass(StringEquals s) {
@@ -58,6 +74,40 @@ public class NodeBenchmark extends GraalBenchmark {
         }
     }
 
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = UNSAFE_EDGES)
+    public void inputsUnsafe(StringEquals s, Blackhole bh) {
+        inputs(s, bh);
+    }
+
+    @Benchmark
+    public void successors(StringEquals s, Blackhole bh) {
+        for (Node n : s.nodes) {
+            for (Node successor : n.successors()) {
+                bh.consume(successor);
+            }
+        }
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = UNSAFE_EDGES)
+    public void successorsUnsafe(StringEquals s, Blackhole bh) {
+        successors(s, bh);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 20)
+    public StructuredGraph graphCopy(StringEqualsGraph s) {
+        return (StructuredGraph) s.graph.copy();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 20)
+    @Fork(value = FORKS, jvmArgsAppend = UNSAFE_EDGES)
+    public StructuredGraph graphCopyUnsafe(StringEqualsGraph s) {
+        return graphCopy(s);
+    }
+
     @Benchmark
     public void usages(StringEquals s, Blackhole bh) {
         for (Node n : s.nodes) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.MEASUREMENT_ITERATIONS;
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.WARMUP_ITERATIONS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.oracle.graal.microbenchmarks.graal.util.GraalState;
+import com.oracle.graal.microbenchmarks.graal.util.PhaseState;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.LowTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+/**
+ * Benchmarks each phase of the default {@link Suites} in isolation, applied to the graph of a
+ * corpus method as it is just before that phase. The phases are JMH parameters without default
+ * values: {@link #main} runs the benchmarks for all phases of the suites of the host backend as
+ * configured by the current options, and single phases can be selected with
+ * {@code -p highTierPhase=...}, {@code -p midTierPhase=...} or {@code -p lowTierPhase=...}.
+ *
+ * Each iteration is a single shot applying the phase to a batch of
+ * {@link PhaseState#GRAPHS_PER_ITERATION} graphs that were copied before the iteration. The bytes
+ * allocated by a phase are reported by {@code -prof gc}, keeping in mind that its normalized
+ * allocation rate also includes copying the graphs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = WARMUP_ITERATIONS, batchSize = PhaseState.GRAPHS_PER_ITERATION)
+@Measurement(iterations = MEASUREMENT_ITERATIONS, batchSize = PhaseState.GRAPHS_PER_ITERATION)
+public class PhaseBenchmark extends GraalBenchmark {
+
+    public static class HighTierPhase extends PhaseState<HighTierContext> {
+        @Param public String highTierPhase;
+
+        @Override
+        protected String getPhaseName() {
+            return highTierPhase;
+        }
+
+        @Override
+        protected PhaseSuite<HighTierContext> getTier(Suites suites) {
+            return suites.getHighTier();
+        }
+
+        @Override
+        protected HighTierContext createContext(GraalState graal, StructuredGraph structuredGraph) {
+            return createHighTierContext(graal);
+        }
+
+        @Override
+        protected void applyPrecedingTiers(GraalState graal, Suites suites, StructuredGraph structuredGraph) {
+        }
+    }
+
+    public static class MidTierPhase extends PhaseState<MidTierContext> {
+        @Param public String midTierPhase;
+
+        @Override
+        protected String getPhaseName() {
+            return midTierPhase;
+        }
+
+        @Override
+        protected PhaseSuite<MidTierContext> getTier(Suites suites) {
+            return suites.getMidTier();
+        }
+
+        @Override
+        protected MidTierContext createContext(GraalState graal, StructuredGraph structuredGraph) {
+            return createMidTierContext(graal, structuredGraph);
+        }
+
+        @Override
+        protected void applyPrecedingTiers(GraalState graal, Suites suites, StructuredGraph structuredGraph) {
+            suites.getHighTier().apply(structuredGraph, createHighTierContext(graal));
+        }
+    }
+
+    public static class LowTierPhase extends PhaseState<LowTierContext> {
+        @Param public String lowTierPhase;
+
+        @Override
+        protected String getPhaseName() {
+            return lowTierPhase;
+        }
+
+        @Override
+        protected PhaseSuite<LowTierContext> getTier(Suites suites) {
+            return suites.getLowTier();
+        }
+
+        @Override
+        protected LowTierContext createContext(GraalState graal, StructuredGraph structuredGraph) {
+            return createLowTierContext(graal);
+        }
+
+        @Override
+        protected void applyPrecedingTiers(GraalState graal, Suites suites, StructuredGraph structuredGraph) {
+            suites.getHighTier().apply(structuredGraph, createHighTierContext(graal));
+            suites.getMidTier().apply(structuredGraph, createMidTierContext(graal, structuredGraph));
+        }
+    }
+
+    /**
+     * Runs the benchmarks of this class for every phase of the default suites, unless phases are
+     * selected on the command line.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Suites suites = new GraalState().backend.getSuites().getDefaultSuites();
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine).include(PhaseBenchmark.class.getName());
+        addPhases(options, commandLine, "highTierPhase", suites.getHighTier());
+        addPhases(options, commandLine, "midTierPhase", suites.getMidTier());
+        addPhases(options, commandLine, "lowTierPhase", suites.getLowTier());
+        new Runner(options.build()).run();
+    }
+
+    private static void addPhases(ChainedOptionsBuilder options, CommandLineOptions commandLine, String parameter, PhaseSuite<?> tier) {
+        if (!commandLine.getParameter(parameter).hasValue()) {
+            options.param(parameter, PhaseState.getPhaseNames(tier).toArray(new String[0]));
+        }
+    }
+
+    @Benchmark
+    public void highTier(HighTierPhase s) {
+        s.applyPhase();
+    }
+
+    @Benchmark
+    public void midTier(MidTierPhase s) {
+        s.applyPhase();
+    }
+
+    @Benchmark
+    public void lowTier(LowTierPhase s) {
+        s.applyPhase();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the throughput of the {@link String} methods that are intrinsified with vector
+ * instructions. The strings look like log lines, and the searched char or substring only occurs
+ * near the end.
+ */
+@State(Scope.Thread)
+public class StringBenchmark {
+
+    @Param({"16", "128", "1024"}) public int length;
+
+    private String line;
+    private String equalLine;
+    private String otherLine;
+    private String key;
+
+    @Setup
+    public void setup() {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + i % 20);
+        }
+        chars[length - 4] = '=';
+        line = new String(chars);
+        equalLine = new String(chars);
+        chars[length - 1] = 'Z';
+        otherLine = new String(chars);
+        key = line.substring(length - 8, length - 3);
+    }
+
+    @Benchmark
+    public int indexOfChar() {
+        return line.indexOf('=');
+    }
+
+    @Benchmark
+    public int indexOfString() {
+        return line.indexOf(key);
+    }
+
+    @Benchmark
+    public int compareToEqual() {
+        return line.compareTo(equalLine);
+    }
+
+    @Benchmark
+    public int compareToDifferent() {
+        return line.compareTo(otherLine);
+    }
+}
@@ -22,7 +22,9 @@
  */
 package com.oracle.graal.microbenchmarks.graal.util;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import jdk.internal.jvmci.meta.MetaAccessProvider;
@@ -64,6 +66,50 @@ public class GraalUtil {
         }
     }
 
+    /**
+     * Gets the method denoted by a string of the form {@code <class name>.<method name>} or
+     * {@code <class name>.<method name>(<parameter type>,...)}. The first form requires the method
+     * name to be unique within the declaring class. Parameter types are fully qualified class names
+     * or primitive type names.
+     */
+    public static Method getMethod(String methodString) {
+        int paren = methodString.indexOf('(');
+        String qualifiedName = paren == -1 ? methodString : methodString.substring(0, paren);
+        int dot = qualifiedName.lastIndexOf('.');
+        if (dot == -1 || (paren != -1 && !methodString.endsWith(")"))) {
+            throw new IllegalArgumentException("malformed method string: " + methodString);
+        }
+        try {
+            Class<?> declaringClass = Class.forName(qualifiedName.substring(0, dot));
+            String name = qualifiedName.substring(dot + 1);
+            if (paren == -1) {
+                return getMethod(declaringClass, name, (Class<?>[]) null);
+            }
+            String parameters = methodString.substring(paren + 1, methodString.length() - 1).trim();
+            List<Class<?>> parameterTypes = new ArrayList<>();
+            if (!parameters.isEmpty()) {
+                for (String parameter : parameters.split(",")) {
+                    parameterTypes.add(getType(parameter.trim()));
+                }
+            }
+            return getMethod(declaringClass, name, parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Class<?> getType(String name) throws ClassNotFoundException {
+        if (name.endsWith("[]")) {
+            return Array.newInstance(getType(name.substring(0, name.length() - 2)), 0).getClass();
+        }
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class}) {
+            if (primitive.getName().equals(name)) {
+                return primitive;
+            }
+        }
+        return Class.forName(name);
+    }
+
     /**
      * Gets the first {@link MethodSpec} annotation encountered in the class hierarchy terminated by
      * {@code startClass}.
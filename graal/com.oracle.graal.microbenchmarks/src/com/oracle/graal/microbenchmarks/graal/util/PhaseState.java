@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.graal.util;
+
+import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Optional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oracle.graal.compiler.GraalCompiler;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugEnvironment;
+import com.oracle.graal.debug.internal.DebugScope;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.BasePhase;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
+import com.oracle.graal.phases.tiers.HighTierContext;
+import com.oracle.graal.phases.tiers.LowTierContext;
+import com.oracle.graal.phases.tiers.MidTierContext;
+import com.oracle.graal.phases.tiers.Suites;
+
+/**
+ * State providing a single phase of the default {@link Suites} together with a new copy of the
+ * graph as it was just before that phase for each invocation of a benchmark. The graph is obtained
+ * by parsing one of a fixed corpus of JDK methods with the default graph builder suite and applying
+ * all phases preceding the benchmarked phase.
+ *
+ * Phases often take only microseconds, so the copies are not made per invocation but before each
+ * iteration, which consists of {@link #GRAPHS_PER_ITERATION} invocations.
+ *
+ * Subclasses select a tier and declare the {@link #getPhaseName() phase name} as a JMH
+ * {@link Param}. A phase is named by {@link BasePhase#getName()}, suffixed with {@code #<n>} for the
+ * n-th occurrence of a phase with that name in the tier (e.g. {@code Canonicalizer#2}). The names of
+ * all phases of a tier are given by {@link #getPhaseNames}.
+ */
+@State(Scope.Thread)
+public abstract class PhaseState<C> {
+
+    /**
+     * The method whose graph is processed, in the format accepted by
+     * {@link GraalUtil#getMethod(String)}.
+     */
+    @Param({"java.lang.String.equals", "java.lang.Integer.parseInt(java.lang.String,int)", "java.util.StringTokenizer.scanToken", "java.util.HashMap.putVal", "java.util.TreeMap.getEntry",
+                    "java.util.concurrent.ConcurrentHashMap.putVal"}) public String method;
+
+    /**
+     * The phase being benchmarked.
+     */
+    public BasePhase<? super C> phase;
+
+    /**
+     * The context with which {@link #phase} is applied.
+     */
+    public C context;
+
+    /**
+     * The number of invocations of a benchmark in each iteration.
+     */
+    public static final int GRAPHS_PER_ITERATION = 100;
+
+    /**
+     * The graphs processed by the invocations of the current iteration.
+     */
+    private final StructuredGraph[] graphs = new StructuredGraph[GRAPHS_PER_ITERATION];
+    private int nextGraph;
+
+    /**
+     * The graph just before {@link #phase} from which the {@link #graphs} of each iteration are
+     * copied.
+     */
+    private StructuredGraph originalGraph;
+
+    /**
+     * Gets the name of the benchmarked phase within the tier returned by {@link #getTier}.
+     */
+    protected abstract String getPhaseName();
+
+    protected abstract PhaseSuite<C> getTier(Suites suites);
+
+    protected abstract C createContext(GraalState graal, StructuredGraph structuredGraph);
+
+    /**
+     * Applies the tiers that precede the tier returned by {@link #getTier}.
+     */
+    protected abstract void applyPrecedingTiers(GraalState graal, Suites suites, StructuredGraph structuredGraph);
+
+    @SuppressWarnings("try")
+    @Setup(Level.Trial)
+    public void captureGraph() {
+        // Ensure a debug configuration for this thread is initialized
+        if (Debug.isEnabled() && DebugScope.getConfig() == null) {
+            DebugEnvironment.initialize(System.out);
+        }
+
+        GraalState graal = new GraalState();
+        ResolvedJavaMethod javaMethod = graal.metaAccess.lookupJavaMethod(GraalUtil.getMethod(method));
+        Suites suites = graal.backend.getSuites().getDefaultSuites();
+        try (Debug.Scope s = Debug.scope("PhaseState", javaMethod)) {
+            StructuredGraph structuredGraph = parse(graal, javaMethod);
+            applyPrecedingTiers(graal, suites, structuredGraph);
+            context = createContext(graal, structuredGraph);
+            phase = applyPhasesBefore(getTier(suites), getPhaseName(), structuredGraph, context);
+            originalGraph = structuredGraph;
+        } catch (Throwable t) {
+            throw Debug.handle(t);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void copyGraphs() {
+        for (int i = 0; i < graphs.length; i++) {
+            graphs[i] = (StructuredGraph) originalGraph.copy();
+        }
+        nextGraph = 0;
+    }
+
+    /**
+     * Applies {@link #phase} to the next of the {@link #graphs} copied for this iteration.
+     */
+    public void applyPhase() {
+        StructuredGraph graph = graphs[nextGraph];
+        graphs[nextGraph++] = null;
+        phase.apply(graph, context);
+    }
+
+    /**
+     * Parses {@code javaMethod} the same way {@link GraalCompiler#emitFrontEnd} does.
+     */
+    private static StructuredGraph parse(GraalState graal, ResolvedJavaMethod javaMethod) {
+        StructuredGraph structuredGraph = new StructuredGraph(javaMethod, AllowAssumptions.YES);
+        graal.backend.getSuites().getDefaultGraphBuilderSuite().apply(structuredGraph, createHighTierContext(graal));
+        new DeadCodeEliminationPhase(Optional).apply(structuredGraph);
+        return structuredGraph;
+    }
+
+    protected static HighTierContext createHighTierContext(GraalState graal) {
+        return new HighTierContext(graal.providers, graal.backend.getSuites().getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL);
+    }
+
+    protected static MidTierContext createMidTierContext(GraalState graal, StructuredGraph structuredGraph) {
+        return new MidTierContext(graal.providers, graal.backend, OptimisticOptimizations.ALL, GraalCompiler.getProfilingInfo(structuredGraph));
+    }
+
+    protected static LowTierContext createLowTierContext(GraalState graal) {
+        return new LowTierContext(graal.providers, graal.backend);
+    }
+
+    /**
+     * Gets the names by which the phases of {@code tier} are selected, in the order in which they
+     * are applied.
+     */
+    public static List<String> getPhaseNames(PhaseSuite<?> tier) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (BasePhase<?> p : tier.getPhases()) {
+            String name = p.getName().toString();
+            int occurrence = occurrences.merge(name, 1, Integer::sum);
+            names.add(occurrence > 1 ? name + "#" + occurrence : name);
+        }
+        return names;
+    }
+
+    /**
+     * Applies the phases of {@code tier} preceding the phase named {@code phaseName} and returns
+     * that phase.
+     *
+     * @throws IllegalArgumentException if {@code tier} has no phase named {@code phaseName}
+     */
+    private static <T> BasePhase<? super T> applyPhasesBefore(PhaseSuite<T> tier, String phaseName, StructuredGraph structuredGraph, T tierContext) {
+        List<String> names = getPhaseNames(tier);
+        int index = names.indexOf(phaseName);
+        if (index < 0) {
+            throw new IllegalArgumentException("no phase named " + phaseName + " in " + names);
+        }
+        List<BasePhase<? super T>> phases = tier.getPhases();
+        for (int i = 0; i < index; i++) {
+            phases.get(i).apply(structuredGraph, tierContext);
+        }
+        return phases.get(index);
+    }
+}
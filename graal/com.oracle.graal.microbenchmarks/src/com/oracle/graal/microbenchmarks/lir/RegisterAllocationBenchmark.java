@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.lir;
+
+import static com.oracle.graal.microbenchmarks.graal.GraalBenchmark.Defaults.FORKS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+
+import com.oracle.graal.lir.LIRValueVisitor;
+import com.oracle.graal.microbenchmarks.graal.GraalBenchmark;
+
+/**
+ * Compares the register allocators on the same LIR. Each invocation applies the register
+ * allocation phase selected by {@link RegisterAllocationState#allocator} to freshly emitted LIR of
+ * a corpus method. The allocation time is the JMH score; bytes allocated, spill and reload moves and
+ * the resulting frame size are reported as {@linkplain RegisterAllocationState.Counters auxiliary
+ * counters}.
+ *
+ * {@link #allocateRegistersUnsafe} runs the same allocation with the generated
+ * {@link LIRValueVisitor}s disabled so that the speedup of visiting instruction operands without
+ * {@code Unsafe} can be read off by comparing the two scores.
+ */
+public class RegisterAllocationBenchmark extends GraalBenchmark {
+
+    @Benchmark
+    public void allocateRegisters(RegisterAllocationState s, RegisterAllocationState.Counters c) {
+        s.allocateRegisters(c);
+    }
+
+    @Benchmark
+    @Fork(value = FORKS, jvmArgsAppend = "-G:-GeneratedLIRValueVisitors")
+    public void allocateRegistersUnsafe(RegisterAllocationState s, RegisterAllocationState.Counters c) {
+        s.allocateRegisters(c);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.microbenchmarks.lir;
+
+import static jdk.internal.jvmci.code.CodeUtil.getCallingConvention;
+import static jdk.internal.jvmci.code.ValueUtil.isRegister;
+import static jdk.internal.jvmci.code.ValueUtil.isStackSlot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.internal.jvmci.code.CallingConvention;
+import jdk.internal.jvmci.code.CallingConvention.Type;
+import jdk.internal.jvmci.code.TargetDescription;
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.meta.Value;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oracle.graal.compiler.GraalCompiler;
+import com.oracle.graal.compiler.common.BackendOptions;
+import com.oracle.graal.compiler.common.GraalOptions;
+import com.oracle.graal.compiler.common.cfg.AbstractBlockBase;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugEnvironment;
+import com.oracle.graal.debug.Management;
+import com.oracle.graal.debug.internal.DebugScope;
+import com.oracle.graal.lir.LIRInstruction;
+import com.oracle.graal.lir.StandardOp.ValueMoveOp;
+import com.oracle.graal.lir.alloc.lsra.LinearScanPhase;
+import com.oracle.graal.lir.alloc.trace.TraceRegisterAllocationPhase;
+import com.oracle.graal.lir.gen.LIRGenerationResult;
+import com.oracle.graal.lir.phases.AllocationPhase.AllocationContext;
+import com.oracle.graal.lir.phases.LIRPhase;
+import com.oracle.graal.lir.phases.LIRPhaseSuite;
+import com.oracle.graal.lir.phases.LIRSuites;
+import com.oracle.graal.microbenchmarks.graal.util.GraalState;
+import com.oracle.graal.microbenchmarks.graal.util.GraalUtil;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.schedule.SchedulePhase;
+
+/**
+ * State providing the LIR of a method just before register allocation together with the register
+ * allocator to apply to it.
+ *
+ * The graph of the method is compiled up to and including scheduling once per trial. LIR cannot be
+ * copied and register allocation rewrites it in place, so the LIR is regenerated from the recorded
+ * schedule before each invocation. After each invocation, the rest of the allocation stage is
+ * applied and the bytes allocated by the register allocator, the resulting spill and reload moves
+ * and the frame size are added to the {@link Counters} of the invocation.
+ */
+@State(Scope.Thread)
+public class RegisterAllocationState {
+
+    /**
+     * The register allocators that can be benchmarked and the options selecting them.
+     */
+    public enum Allocator {
+        /**
+         * Linear scan on LIR that is not in SSA form.
+         */
+        LSRA(false, false, false),
+        /**
+         * Linear scan on SSA form LIR.
+         */
+        SSA_LSRA(true, false, false),
+        /**
+         * Linear scan on SSI form LIR.
+         */
+        SSI_LSRA(true, true, false),
+        /**
+         * Trace register allocation.
+         */
+        TraceRA(true, false, true);
+
+        private final Map<OptionValue<?>, Object> overrides = new HashMap<>();
+
+        Allocator(boolean ssa, boolean ssi, boolean trace) {
+            overrides.put(GraalOptions.SSA_LIR, ssa);
+            overrides.put(BackendOptions.UserOptions.LIREagerSSADestruction, false);
+            overrides.put(BackendOptions.UserOptions.LIROptSSILinearScan, ssi);
+            overrides.put(BackendOptions.UserOptions.TraceRA, trace);
+        }
+
+        public OverrideScope select() {
+            return OptionValue.override(overrides);
+        }
+    }
+
+    /**
+     * The method whose LIR is allocated, in the format accepted by
+     * {@link GraalUtil#getMethod(String)}.
+     */
+    @Param({"java.lang.String.equals", "java.lang.Integer.parseInt(java.lang.String,int)", "java.util.StringTokenizer.scanToken", "java.util.HashMap.putVal", "java.util.TreeMap.getEntry",
+                    "java.util.concurrent.ConcurrentHashMap.putVal"}) public String method;
+
+    @Param({"LSRA", "SSA_LSRA", "SSI_LSRA", "TraceRA"}) public Allocator allocator;
+
+    private GraalState graal;
+    private StructuredGraph graph;
+    private SchedulePhase schedule;
+    private CallingConvention cc;
+
+    /**
+     * LIR suites whose allocation stage stops just before register allocation.
+     */
+    private LIRSuites lirSuites;
+
+    /**
+     * The register allocation phase being benchmarked.
+     */
+    private LIRPhase<AllocationContext> registerAllocation;
+
+    /**
+     * The phases of the allocation stage following {@link #registerAllocation}.
+     */
+    private final LIRPhaseSuite<AllocationContext> afterRegisterAllocation = new LIRPhaseSuite<>();
+
+    private TargetDescription target;
+    private LIRGenerationResult lirGenRes;
+    private List<Block> codeEmittingOrder;
+    private List<Block> linearScanOrder;
+    private AllocationContext allocationContext;
+
+    /**
+     * Results of the register allocations in an iteration, reported by JMH next to the score.
+     * Like the score, they are normalized by the duration of the iteration, so dividing a counter
+     * by the score gives the average per allocation.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long allocatedBytes;
+        public long spills;
+        public long reloads;
+        public long frameSize;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocatedBytes = 0;
+            spills = 0;
+            reloads = 0;
+            frameSize = 0;
+        }
+    }
+
+    private Counters counters;
+    private long allocatedBytesBefore;
+
+    /**
+     * Records the input of the register allocation phase instead of applying it.
+     */
+    private final class RecordAllocationInputPhase extends LIRPhase<AllocationContext> {
+        @SuppressWarnings("unchecked")
+        @Override
+        protected <B extends AbstractBlockBase<B>> void run(TargetDescription targetDescription, LIRGenerationResult result, List<B> emittingOrder, List<B> scanOrder, AllocationContext context) {
+            target = targetDescription;
+            lirGenRes = result;
+            codeEmittingOrder = (List<Block>) emittingOrder;
+            linearScanOrder = (List<Block>) scanOrder;
+            allocationContext = context;
+        }
+    }
+
+    @SuppressWarnings("try")
+    @Setup(Level.Trial)
+    public void compileFrontEnd() {
+        // Ensure a debug configuration for this thread is initialized
+        if (Debug.isEnabled() && DebugScope.getConfig() == null) {
+            DebugEnvironment.initialize(System.out);
+        }
+
+        graal = new GraalState();
+        ResolvedJavaMethod javaMethod = graal.metaAccess.lookupJavaMethod(GraalUtil.getMethod(method));
+        try (Debug.Scope s = Debug.scope("RegisterAllocationState", javaMethod); OverrideScope o = allocator.select()) {
+            graph = new StructuredGraph(javaMethod, AllowAssumptions.YES);
+            cc = getCallingConvention(graal.providers.getCodeCache(), Type.JavaCallee, javaMethod, false);
+            schedule = GraalCompiler.emitFrontEnd(graal.providers, graal.backend, graph, graal.backend.getSuites().getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL,
+                            GraalCompiler.getProfilingInfo(graph), graal.backend.getSuites().getDefaultSuites());
+
+            LIRSuites suites = graal.backend.getSuites().createLIRSuites();
+            LIRPhaseSuite<AllocationContext> beforeRegisterAllocation = new LIRPhaseSuite<>();
+            for (LIRPhase<AllocationContext> phase : suites.getAllocationStage().getPhases()) {
+                if (registerAllocation != null) {
+                    afterRegisterAllocation.appendPhase(phase);
+                } else if (phase instanceof LinearScanPhase || phase instanceof TraceRegisterAllocationPhase) {
+                    registerAllocation = phase;
+                } else {
+                    beforeRegisterAllocation.appendPhase(phase);
+                }
+            }
+            if (registerAllocation == null) {
+                throw new IllegalStateException("no register allocation phase in " + suites.getAllocationStage().getPhases());
+            }
+            beforeRegisterAllocation.appendPhase(new RecordAllocationInputPhase());
+            lirSuites = new LIRSuites(suites.getPreAllocationOptimizationStage(), beforeRegisterAllocation, new LIRPhaseSuite<>());
+        } catch (Throwable t) {
+            throw Debug.handle(t);
+        }
+    }
+
+    @SuppressWarnings("try")
+    @Setup(Level.Invocation)
+    public void emitLIR() {
+        try (OverrideScope o = allocator.select()) {
+            GraalCompiler.emitLIR(graal.backend, schedule, graph, null, cc, null, lirSuites);
+        }
+        allocatedBytesBefore = Management.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Applies the {@link #allocator register allocator} to the LIR emitted for this invocation. Its
+     * results are added to {@code invocationCounters} after the invocation.
+     */
+    @SuppressWarnings("try")
+    public void allocateRegisters(Counters invocationCounters) {
+        counters = invocationCounters;
+        try (OverrideScope o = allocator.select()) {
+            registerAllocation.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, allocationContext);
+        }
+    }
+
+    @SuppressWarnings("try")
+    @TearDown(Level.Invocation)
+    public void recordAllocationResult() {
+        counters.allocatedBytes += Management.getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+        try (OverrideScope o = allocator.select()) {
+            afterRegisterAllocation.apply(target, lirGenRes, codeEmittingOrder, linearScanOrder, allocationContext);
+        }
+        for (Block block : codeEmittingOrder) {
+            if (block == null) {
+                continue;
+            }
+            for (LIRInstruction op : lirGenRes.getLIR().getLIRforBlock(block)) {
+                if (op instanceof ValueMoveOp) {
+                    Value input = ((ValueMoveOp) op).getInput();
+                    Value result = ((ValueMoveOp) op).getResult();
+                    if (isStackSlot(result) && !isStackSlot(input)) {
+                        counters.spills++;
+                    } else if (isStackSlot(input) && isRegister(result)) {
+                        counters.reloads++;
+                    } else if (isStackSlot(input) && isStackSlot(result)) {
+                        counters.spills++;
+                        counters.reloads++;
+                    }
+                }
+            }
+        }
+        counters.frameSize += lirGenRes.getFrameMap().totalFrameSize();
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodeinfo.processor;
+
+import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.element.Modifier.TRANSIENT;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+
+import com.oracle.graal.nodeinfo.NodeInfo;
+
+/**
+ * Generates the {@code EdgeAccessor} subclasses used by {@code NodeClass} to access the inputs and
+ * successors of a node without {@code Unsafe}. For a node class {@code p.FooNode} the generated
+ * class {@code p.FooNode_EdgeAccessors} contains:
+ * <ul>
+ * <li>static getters and setters for each edge field declared by {@code FooNode}. Subclasses in
+ * other packages use these to reach the (non-public) edge fields of {@code FooNode}.</li>
+ * <li>if {@code FooNode} is concrete, a nested {@code Inputs} and/or {@code Successors} subclass of
+ * {@code EdgeAccessor} covering all edges of {@code FooNode} including inherited ones.</li>
+ * </ul>
+ * No accessor is generated for a node class whose hierarchy contains an edge field that cannot be
+ * accessed from generated code (e.g. a private field). {@code NodeClass} falls back to
+ * {@code Unsafe} based access for such classes.
+ */
+public class EdgeAccessorGenerator {
+
+    static final String GENERATED_CLASS_SUFFIX = "_EdgeAccessors";
+
+    private static final String NODE = "com.oracle.graal.graph.Node";
+    private static final String NODE_LIST = "com.oracle.graal.graph.NodeList";
+    private static final String EDGE_ACCESSOR = "com.oracle.graal.graph.EdgeAccessor";
+
+    private final GraphNodeProcessor env;
+    private final Types types;
+    private final Elements elements;
+
+    // Checkstyle: stop
+    private final TypeElement Input;
+    private final TypeElement OptionalInput;
+    private final TypeElement Successor;
+    private final TypeElement Node;
+    private final TypeElement NodeList;
+
+    // Checkstyle: resume
+
+    /**
+     * An edge field together with the class declaring it.
+     */
+    static final class EdgeField {
+        final TypeElement declaringClass;
+        final VariableElement field;
+        final boolean isList;
+
+        EdgeField(TypeElement declaringClass, VariableElement field, boolean isList) {
+            this.declaringClass = declaringClass;
+            this.field = field;
+            this.isList = isList;
+        }
+
+        String name() {
+            return field.getSimpleName().toString();
+        }
+    }
+
+    public EdgeAccessorGenerator(GraphNodeProcessor processor, GraphNodeVerifier verifier) {
+        this.env = processor;
+        this.types = processor.getProcessingEnv().getTypeUtils();
+        this.elements = processor.getProcessingEnv().getElementUtils();
+        this.Input = verifier.getTypeElement("com.oracle.graal.graph.Node.Input");
+        this.OptionalInput = verifier.getTypeElement("com.oracle.graal.graph.Node.OptionalInput");
+        this.Successor = verifier.getTypeElement("com.oracle.graal.graph.Node.Successor");
+        this.Node = verifier.Node;
+        this.NodeList = verifier.getTypeElement(NODE_LIST);
+    }
+
+    /**
+     * Generates the accessor class for {@code node} if it declares edges or is a concrete node
+     * class whose edges can all be accessed from generated code.
+     */
+    void generate(TypeElement node) throws IOException {
+        List<EdgeField> declaredInputs = new ArrayList<>();
+        List<EdgeField> declaredSuccessors = new ArrayList<>();
+        collectDeclaredEdges(node, declaredInputs, declaredSuccessors);
+        boolean hasHelpers = hasEdgeHelpers(node, declaredInputs, declaredSuccessors);
+
+        List<EdgeField> inputs = null;
+        List<EdgeField> successors = null;
+        if (!node.getModifiers().contains(ABSTRACT) && isAccessible(node)) {
+            inputs = new ArrayList<>();
+            successors = new ArrayList<>();
+            if (!collectAllEdges(node, inputs, successors)) {
+                inputs = null;
+                successors = null;
+            } else if (inputs.isEmpty() && successors.isEmpty()) {
+                inputs = null;
+                successors = null;
+            }
+        }
+
+        boolean emitHelpers = hasHelpers && !(declaredInputs.isEmpty() && declaredSuccessors.isEmpty());
+        if (!emitHelpers && inputs == null) {
+            return;
+        }
+
+        PackageElement pkg = elements.getPackageOf(node);
+        String simpleName = getGeneratedSimpleName(node);
+        String qualifiedName = pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+        JavaFileObject file = env.getProcessingEnv().getFiler().createSourceFile(qualifiedName, node);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!pkg.isUnnamed()) {
+                out.printf("package %s;%n%n", pkg.getQualifiedName());
+            }
+            out.printf("/**%n");
+            out.printf(" * Generated edge accessors for {@link %s}.%n", node.getQualifiedName());
+            out.printf(" */%n");
+            out.printf("@SuppressWarnings({\"unchecked\", \"rawtypes\"})%n");
+            out.printf("public final class %s {%n", simpleName);
+            if (emitHelpers) {
+                for (EdgeField edge : declaredInputs) {
+                    emitHelpers(out, node, edge);
+                }
+                for (EdgeField edge : declaredSuccessors) {
+                    emitHelpers(out, node, edge);
+                }
+            }
+            if (inputs != null) {
+                if (!inputs.isEmpty()) {
+                    emitAccessor(out, "Inputs", inputs, "copyInputList");
+                }
+                if (!successors.isEmpty()) {
+                    emitAccessor(out, "Successors", successors, "copySuccessorList");
+                }
+            }
+            out.printf("}%n");
+        }
+    }
+
+    private void emitHelpers(PrintWriter out, TypeElement node, EdgeField edge) {
+        String nodeType = types.erasure(node.asType()).toString();
+        String fieldType = types.erasure(edge.field.asType()).toString();
+        String returnType = edge.isList ? NODE_LIST + "<" + NODE + ">" : NODE;
+        String valueType = edge.isList ? NODE_LIST + "<" + NODE + ">" : NODE;
+        out.printf("%n");
+        out.printf("    public static %s get_%s(%s node) {%n", returnType, edge.name(), NODE);
+        if (edge.isList) {
+            out.printf("        return (%s) ((%s) node).%s;%n", NODE_LIST, nodeType, edge.name());
+        } else {
+            out.printf("        return ((%s) node).%s;%n", nodeType, edge.name());
+        }
+        out.printf("    }%n%n");
+        out.printf("    public static void set_%s(%s node, %s value) {%n", edge.name(), NODE, valueType);
+        out.printf("        ((%s) node).%s = (%s) value;%n", nodeType, edge.name(), fieldType);
+        out.printf("    }%n");
+    }
+
+    private void emitAccessor(PrintWriter out, String name, List<EdgeField> edges, String copyListHelper) {
+        int directCount = 0;
+        while (directCount < edges.size() && !edges.get(directCount).isList) {
+            directCount++;
+        }
+        String nodeList = NODE_LIST + "<" + NODE + ">";
+
+        out.printf("%n");
+        out.printf("    public static final class %s extends %s {%n%n", name, EDGE_ACCESSOR);
+        out.printf("        public %s() {%n", name);
+        out.printf("            super(");
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeField edge = edges.get(i);
+            out.printf("%s\"%s.%s\"", i == 0 ? "" : ", ", elements.getBinaryName(edge.declaringClass), edge.name());
+        }
+        out.printf(");%n");
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public %s getNode(%s node, int index) {%n", NODE, NODE);
+        out.printf("            switch (index) {%n");
+        for (int i = 0; i < directCount; i++) {
+            out.printf("                case %d:%n", i);
+            out.printf("                    return %s(node);%n", getter(edges.get(i)));
+        }
+        out.printf("                default:%n");
+        out.printf("                    throw outOfBounds(index);%n");
+        out.printf("            }%n");
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public %s getNodeList(%s node, int index) {%n", nodeList, NODE);
+        out.printf("            switch (index) {%n");
+        for (int i = directCount; i < edges.size(); i++) {
+            out.printf("                case %d:%n", i);
+            out.printf("                    return %s(node);%n", getter(edges.get(i)));
+        }
+        out.printf("                default:%n");
+        out.printf("                    throw outOfBounds(index);%n");
+        out.printf("            }%n");
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public void initializeNode(%s node, int index, %s value) {%n", NODE, NODE);
+        out.printf("            switch (index) {%n");
+        for (int i = 0; i < directCount; i++) {
+            out.printf("                case %d:%n", i);
+            out.printf("                    %s(node, value);%n", setter(edges.get(i)));
+            out.printf("                    break;%n");
+        }
+        out.printf("                default:%n");
+        out.printf("                    throw outOfBounds(index);%n");
+        out.printf("            }%n");
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public void initializeList(%s node, int index, %s value) {%n", NODE, nodeList);
+        out.printf("            switch (index) {%n");
+        for (int i = directCount; i < edges.size(); i++) {
+            out.printf("                case %d:%n", i);
+            out.printf("                    %s(node, value);%n", setter(edges.get(i)));
+            out.printf("                    break;%n");
+        }
+        out.printf("                default:%n");
+        out.printf("                    throw outOfBounds(index);%n");
+        out.printf("            }%n");
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public void copy(%s fromNode, %s toNode) {%n", NODE, NODE);
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeField edge = edges.get(i);
+            if (edge.isList) {
+                out.printf("            %s(toNode, %s(toNode, %s(toNode), %s(fromNode)));%n", setter(edge), copyListHelper, getter(edge), getter(edge));
+            } else {
+                out.printf("            %s(toNode, %s(fromNode));%n", setter(edge), getter(edge));
+            }
+        }
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public void accept(%s node, java.util.function.BiConsumer<%s, %s> consumer) {%n", NODE, NODE, NODE);
+        if (directCount != 0) {
+            out.printf("            %s edge;%n", NODE);
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeField edge = edges.get(i);
+            if (edge.isList) {
+                out.printf("            acceptList(node, consumer, %s(node));%n", getter(edge));
+            } else {
+                out.printf("            edge = %s(node);%n", getter(edge));
+                out.printf("            if (edge != null) {%n");
+                out.printf("                consumer.accept(node, edge);%n");
+                out.printf("            }%n");
+            }
+        }
+        out.printf("        }%n");
+
+        out.printf("%n        @Override%n");
+        out.printf("        public void pushAll(%s node, com.oracle.graal.graph.NodeStack stack) {%n", NODE);
+        if (directCount != 0) {
+            out.printf("            %s edge;%n", NODE);
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            EdgeField edge = edges.get(i);
+            if (edge.isList) {
+                out.printf("            pushAllList(stack, %s(node));%n", getter(edge));
+            } else {
+                out.printf("            edge = %s(node);%n", getter(edge));
+                out.printf("            if (edge != null) {%n");
+                out.printf("                stack.push(edge);%n");
+                out.printf("            }%n");
+            }
+        }
+        out.printf("        }%n");
+        out.printf("    }%n");
+    }
+
+    private String helperClass(EdgeField edge) {
+        PackageElement pkg = elements.getPackageOf(edge.declaringClass);
+        String simpleName = getGeneratedSimpleName(edge.declaringClass);
+        return pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+    }
+
+    private String getter(EdgeField edge) {
+        return helperClass(edge) + ".get_" + edge.name();
+    }
+
+    private String setter(EdgeField edge) {
+        return helperClass(edge) + ".set_" + edge.name();
+    }
+
+    /**
+     * Gets the simple name of the class generated for {@code node}. This must be kept in sync with
+     * {@code EdgeAccessor.getGeneratedClassName(Class)}.
+     */
+    private String getGeneratedSimpleName(TypeElement node) {
+        String binaryName = elements.getBinaryName(node).toString();
+        String simpleBinaryName = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+        return simpleBinaryName.replace('$', '_') + GENERATED_CLASS_SUFFIX;
+    }
+
+    /**
+     * Collects the edges of {@code node} including inherited edges in the order used by
+     * {@code NodeClass}: superclass edges before subclass edges and direct edges before list edges.
+     *
+     * @return false if an edge in the hierarchy of {@code node} cannot be accessed from generated
+     *         code
+     */
+    private boolean collectAllEdges(TypeElement node, List<EdgeField> inputs, List<EdgeField> successors) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = node;
+        while (current != null && !current.equals(Node)) {
+            hierarchy.add(0, current);
+            current = getSuperType(current);
+        }
+        for (TypeElement clazz : hierarchy) {
+            List<EdgeField> declaredInputs = new ArrayList<>();
+            List<EdgeField> declaredSuccessors = new ArrayList<>();
+            collectDeclaredEdges(clazz, declaredInputs, declaredSuccessors);
+            if (declaredInputs.isEmpty() && declaredSuccessors.isEmpty()) {
+                continue;
+            }
+            if (!hasEdgeHelpers(clazz, declaredInputs, declaredSuccessors)) {
+                return false;
+            }
+            inputs.addAll(declaredInputs);
+            successors.addAll(declaredSuccessors);
+        }
+        sortDirectFirst(inputs);
+        sortDirectFirst(successors);
+        return true;
+    }
+
+    private static void sortDirectFirst(List<EdgeField> edges) {
+        List<EdgeField> lists = new ArrayList<>();
+        edges.removeIf(e -> e.isList && lists.add(e));
+        edges.addAll(lists);
+    }
+
+    private void collectDeclaredEdges(TypeElement clazz, List<EdgeField> inputs, List<EdgeField> successors) {
+        for (VariableElement field : ElementFilter.fieldsIn(clazz.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(STATIC) || modifiers.contains(TRANSIENT)) {
+                continue;
+            }
+            List<? extends AnnotationMirror> annotations = field.getAnnotationMirrors();
+            boolean isList = types.isAssignable(types.erasure(field.asType()), types.erasure(NodeList.asType()));
+            if (hasAnnotation(annotations, Input) || hasAnnotation(annotations, OptionalInput)) {
+                inputs.add(new EdgeField(clazz, field, isList));
+            } else if (hasAnnotation(annotations, Successor)) {
+                successors.add(new EdgeField(clazz, field, isList));
+            }
+        }
+    }
+
+    /**
+     * Determines if the static edge helpers are (or will be) generated for {@code clazz}. This must
+     * give the same answer whether {@code clazz} is being compiled or is loaded from a class file
+     * as the helpers of a superclass are used by the accessors generated for its subclasses.
+     */
+    private boolean hasEdgeHelpers(TypeElement clazz, List<EdgeField> declaredInputs, List<EdgeField> declaredSuccessors) {
+        if (clazz.getAnnotation(NodeInfo.class) == null || !isAccessible(clazz)) {
+            return false;
+        }
+        for (EdgeField edge : declaredInputs) {
+            if (!isAccessible(edge.field)) {
+                return false;
+            }
+        }
+        for (EdgeField edge : declaredSuccessors) {
+            if (!isAccessible(edge.field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if {@code field} can be accessed from a class in the same package and its type can
+     * be named there.
+     */
+    private boolean isAccessible(VariableElement field) {
+        if (field.getModifiers().contains(PRIVATE)) {
+            return false;
+        }
+        TypeMirror type = types.erasure(field.asType());
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return isAccessible((TypeElement) ((DeclaredType) type).asElement());
+    }
+
+    /**
+     * Determines if {@code type} can be named from a class in the same package.
+     */
+    private static boolean isAccessible(TypeElement type) {
+        Element e = type;
+        while (e != null && e.getKind() != ElementKind.PACKAGE) {
+            if (e.getModifiers().contains(PRIVATE)) {
+                return false;
+            }
+            e = e.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean hasAnnotation(List<? extends AnnotationMirror> mirrors, TypeElement expectedAnnotationType) {
+        for (AnnotationMirror mirror : mirrors) {
+            if (types.isSameType(mirror.getAnnotationType(), expectedAnnotationType.asType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement getSuperType(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass == null || superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) types.asElement(superclass);
+    }
+}
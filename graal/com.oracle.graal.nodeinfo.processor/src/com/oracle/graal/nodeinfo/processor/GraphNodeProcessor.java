@@ -134,6 +134,7 @@ public class GraphNodeProcessor extends AbstractProcessor {
         }
 
         GraphNodeVerifier verifier = new GraphNodeVerifier(this);
+        EdgeAccessorGenerator generator = new EdgeAccessorGenerator(this, verifier);
 
         for (Element element : roundEnv.getElementsAnnotatedWith(NodeInfo.class)) {
             scope = element;
@@ -174,6 +175,9 @@ public class GraphNodeProcessor extends AbstractProcessor {
                 if (!typeElement.equals(verifier.Node) && !modifiers.contains(Modifier.ABSTRACT)) {
                     verifier.verify(typeElement);
                 }
+                if (!typeElement.equals(verifier.Node)) {
+                    generator.generate(typeElement);
+                }
             } catch (ElementException ee) {
                 errorMessage(ee.element, ee.getMessage());
             } catch (Throwable t) {
@@ -78,6 +78,15 @@ public abstract class AbstractMergeNode extends BeginStateSplitNode implements I
         return ends;
     }
 
+    @Override
+    protected void updateUsages(Node oldInput, Node newInput) {
+        super.updateUsages(oldInput, newInput);
+        if (oldInput != newInput && (oldInput instanceof AbstractEndNode || newInput instanceof AbstractEndNode)) {
+            // the ends are control flow edges that are not successors
+            graph().controlFlowChanged();
+        }
+    }
+
     /**
      * Determines if a given node is a phi whose {@linkplain PhiNode#merge() merge} is this node.
      *
@@ -45,9 +45,10 @@ public class EncodedGraph {
 
     /**
      * The "table of contents" of the encoded graph, i.e., the mapping from orderId numbers to the
-     * offset in the encoded byte[] array. Used as a cache during decoding.
+     * offset in the encoded byte[] array. Used as a cache during decoding. Volatile because an
+     * encoded graph can be shared between compiler threads (see {@link EncodedGraphCache}).
      */
-    protected long[] nodeStartOffsets;
+    protected volatile long[] nodeStartOffsets;
 
     public EncodedGraph(byte[] encoding, long startOffset, Object[] objects, NodeClass<?>[] types, Assumptions assumptions, Set<ResolvedJavaMethod> inlinedMethods) {
         this.encoding = encoding;
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import jdk.internal.jvmci.meta.Assumptions;
+import jdk.internal.jvmci.meta.Assumptions.Assumption;
+import jdk.internal.jvmci.meta.Assumptions.AssumptionResult;
+import jdk.internal.jvmci.meta.Assumptions.ConcreteMethod;
+import jdk.internal.jvmci.meta.Assumptions.ConcreteSubtype;
+import jdk.internal.jvmci.meta.Assumptions.LeafType;
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.meta.ResolvedJavaType;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+
+/**
+ * A bounded cache of {@link EncodedGraph}s that can be shared by all compiler threads.
+ *
+ * The cache is bounded by the approximate memory footprint of the cached graphs. When the bound is
+ * exceeded, the least recently used entries are evicted until the footprint drops below three
+ * quarters of the bound. Entries whose {@linkplain EncodedGraph#getAssumptions() assumptions} are
+ * no longer valid according to the validator passed to the constructor are removed on lookup, and
+ * all graphs that depend on assumptions can be invalidated explicitly (e.g., after code
+ * installation failed because dependencies were invalidated).
+ *
+ * A user of a cached graph must {@linkplain Assumptions#record(Assumptions) record} its
+ * assumptions in the graph it is decoded into. The check on lookup only avoids compiling with
+ * stale graphs; it is the installation of the compiled code that guarantees the assumptions still
+ * hold.
+ *
+ * An {@link EncodedGraph} is immutable apart from the lazily computed decoding table of contents,
+ * so a cached instance can be decoded by multiple threads at the same time.
+ */
+public class EncodedGraphCache {
+
+    private static final class Entry {
+        final EncodedGraph graph;
+        final long size;
+        volatile long lastAccess;
+
+        Entry(EncodedGraph graph, long lastAccess) {
+            this.graph = graph;
+            this.size = sizeOf(graph);
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final Map<ResolvedJavaMethod, Entry> entries = new ConcurrentHashMap<>();
+    private final long capacity;
+    private final Predicate<Assumption> assumptionValidator;
+
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final DebugMetric hitMetric;
+    private final DebugMetric missMetric;
+    private final DebugMetric evictionMetric;
+    private final DebugMetric invalidationMetric;
+
+    /**
+     * @param name the name used as prefix for the {@linkplain Debug#metric(CharSequence) metrics}
+     *            of this cache
+     * @param capacity the maximum approximate footprint of the cached graphs in bytes
+     * @param assumptionValidator used to check the assumptions of a cached graph on lookup, or
+     *            {@code null} if the assumptions need not be checked
+     */
+    public EncodedGraphCache(String name, long capacity, Predicate<Assumption> assumptionValidator) {
+        this.capacity = capacity;
+        this.assumptionValidator = assumptionValidator;
+        this.hitMetric = Debug.metric("%sHits", name);
+        this.missMetric = Debug.metric("%sMisses", name);
+        this.evictionMetric = Debug.metric("%sEvictions", name);
+        this.invalidationMetric = Debug.metric("%sInvalidations", name);
+    }
+
+    /**
+     * Gets the cached graph for {@code method} or {@code null} if there is none.
+     */
+    public EncodedGraph get(ResolvedJavaMethod method) {
+        Entry entry = entries.get(method);
+        if (entry != null) {
+            if (!isValid(entry.graph)) {
+                remove(method, entry);
+                invalidations.incrementAndGet();
+                invalidationMetric.increment();
+            } else {
+                entry.lastAccess = clock.incrementAndGet();
+                hits.incrementAndGet();
+                hitMetric.increment();
+                return entry.graph;
+            }
+        }
+        misses.incrementAndGet();
+        missMetric.increment();
+        return null;
+    }
+
+    /**
+     * Adds {@code graph} as the encoded graph for {@code method}, replacing any existing entry.
+     * Graphs larger than the capacity of this cache are not added.
+     */
+    public void put(ResolvedJavaMethod method, EncodedGraph graph) {
+        Entry entry = new Entry(graph, clock.incrementAndGet());
+        if (entry.size > capacity) {
+            return;
+        }
+        Entry old = entries.put(method, entry);
+        size.addAndGet(old == null ? entry.size : entry.size - old.size);
+        if (size.get() > capacity) {
+            evict();
+        }
+    }
+
+    /**
+     * Checks whether the class hierarchy fact recorded by {@code assumption} still holds by
+     * computing it again. Assumptions that cannot be recomputed here are considered valid, as they
+     * are checked when the code depending on them is installed.
+     */
+    public static boolean isStillValid(Assumption assumption) {
+        if (assumption instanceof ConcreteMethod) {
+            ConcreteMethod concreteMethod = (ConcreteMethod) assumption;
+            AssumptionResult<ResolvedJavaMethod> result = concreteMethod.context.findUniqueConcreteMethod(concreteMethod.method);
+            return result != null && result.getResult().equals(concreteMethod.impl);
+        } else if (assumption instanceof ConcreteSubtype) {
+            ConcreteSubtype concreteSubtype = (ConcreteSubtype) assumption;
+            AssumptionResult<ResolvedJavaType> result = concreteSubtype.context.findLeafConcreteSubtype();
+            return result != null && result.getResult().equals(concreteSubtype.subtype);
+        } else if (assumption instanceof LeafType) {
+            LeafType leafType = (LeafType) assumption;
+            AssumptionResult<ResolvedJavaType> result = leafType.context.findLeafConcreteSubtype();
+            return result != null && result.getResult().equals(leafType.context);
+        }
+        return true;
+    }
+
+    private boolean isValid(EncodedGraph graph) {
+        Assumptions assumptions = graph.getAssumptions();
+        if (assumptionValidator == null || assumptions == null) {
+            return true;
+        }
+        for (Assumption assumption : assumptions) {
+            if (!assumptionValidator.test(assumption)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(ResolvedJavaMethod method, Entry entry) {
+        if (entries.remove(method, entry)) {
+            size.addAndGet(-entry.size);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the footprint is below three quarters of the
+     * capacity. Concurrent evictions are serialized so that only one thread pays for sorting.
+     */
+    private synchronized void evict() {
+        long target = capacity - capacity / 4;
+        if (size.get() <= capacity) {
+            return;
+        }
+        List<Map.Entry<ResolvedJavaMethod, Entry>> sorted = new ArrayList<>(entries.entrySet());
+        Collections.sort(sorted, Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (Map.Entry<ResolvedJavaMethod, Entry> e : sorted) {
+            if (size.get() <= target) {
+                break;
+            }
+            remove(e.getKey(), e.getValue());
+            evictions.incrementAndGet();
+            evictionMetric.increment();
+        }
+    }
+
+    /**
+     * Removes the graph for {@code method}, e.g., because the profile it was built from changed.
+     */
+    public void invalidate(ResolvedJavaMethod method) {
+        Entry entry = entries.get(method);
+        if (entry != null) {
+            remove(method, entry);
+            invalidations.incrementAndGet();
+            invalidationMetric.increment();
+        }
+    }
+
+    /**
+     * Removes all graphs that were built under at least one assumption.
+     */
+    public void invalidateAssumptionDependents() {
+        for (Map.Entry<ResolvedJavaMethod, Entry> e : entries.entrySet()) {
+            Assumptions assumptions = e.getValue().graph.getAssumptions();
+            if (assumptions != null && !assumptions.isEmpty()) {
+                remove(e.getKey(), e.getValue());
+                invalidations.incrementAndGet();
+                invalidationMetric.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        for (Map.Entry<ResolvedJavaMethod, Entry> e : entries.entrySet()) {
+            remove(e.getKey(), e.getValue());
+        }
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the approximate footprint of the cached graphs in bytes.
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Approximates the number of bytes retained by {@code graph}, not counting the objects
+     * referenced from its object table that are shared with the rest of the VM.
+     */
+    private static long sizeOf(EncodedGraph graph) {
+        final int headerSize = 16;
+        final int referenceSize = 8;
+        long result = 4 * headerSize + graph.getEncoding().length;
+        result += (long) referenceSize * graph.getObjects().length;
+        result += (long) referenceSize * graph.getNodeClasses().length;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EncodedGraphCache(entries=%d, size=%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d)", getEntryCount(), getSize(), capacity, getHits(), getMisses(),
+                        getEvictions(), getInvalidations());
+    }
+}
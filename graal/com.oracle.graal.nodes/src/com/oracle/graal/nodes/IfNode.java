@@ -145,6 +145,13 @@ public final class IfNode extends ControlSplitNode implements Simplifiable, LIRL
     public void setTrueSuccessorProbability(double prob) {
         assert prob >= -0.000000001 && prob <= 1.000000001 : "Probability out of bounds: " + prob;
         trueSuccessorProbability = Math.min(1.0, Math.max(0.0, prob));
+        probabilityChanged();
+    }
+
+    private void probabilityChanged() {
+        if (isAlive()) {
+            graph().probabilitiesChanged();
+        }
     }
 
     @Override
@@ -171,6 +178,7 @@ public final class IfNode extends ControlSplitNode implements Simplifiable, LIRL
         trueSuccessor = oldFalseSuccessor;
         falseSuccessor = oldTrueSuccessor;
         trueSuccessorProbability = 1 - trueSuccessorProbability;
+        probabilityChanged();
         setCondition(((LogicNegationNode) condition).getValue());
     }
 
@@ -180,11 +188,13 @@ public final class IfNode extends ControlSplitNode implements Simplifiable, LIRL
             if (trueSuccessorProbability != 0) {
                 CORRECTED_PROBABILITIES.increment();
                 trueSuccessorProbability = 0;
+                probabilityChanged();
             }
         } else if (falseSuccessor().next() instanceof DeoptimizeNode) {
             if (trueSuccessorProbability != 1) {
                 CORRECTED_PROBABILITIES.increment();
                 trueSuccessorProbability = 1;
+                probabilityChanged();
             }
         }
 
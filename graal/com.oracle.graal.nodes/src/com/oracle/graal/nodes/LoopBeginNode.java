@@ -49,12 +49,25 @@ public final class LoopBeginNode extends AbstractMergeNode implements IterableNo
     protected int nextEndIndex;
     protected int unswitches;
     protected int inversionCount;
+    protected LoopType loopType;
+    protected int unrollFactor;
+
+    /**
+     * The role of a loop in the main/post loop structure created by partial unrolling.
+     */
+    public enum LoopType {
+        SIMPLE_LOOP,
+        MAIN_LOOP,
+        POST_LOOP
+    }
 
     @OptionalInput(InputType.Guard) GuardingNode overflowGuard;
 
     public LoopBeginNode() {
         super(TYPE);
         loopFrequency = 1;
+        loopType = LoopType.SIMPLE_LOOP;
+        unrollFactor = 1;
     }
 
     public double loopFrequency() {
@@ -64,6 +77,9 @@ public final class LoopBeginNode extends AbstractMergeNode implements IterableNo
     public void setLoopFrequency(double loopFrequency) {
         assert loopFrequency >= 0;
         this.loopFrequency = loopFrequency;
+        if (isAlive()) {
+            graph().probabilitiesChanged();
+        }
     }
 
     /**
@@ -204,6 +220,26 @@ public final class LoopBeginNode extends AbstractMergeNode implements IterableNo
         inversionCount = count;
     }
 
+    public LoopType getLoopType() {
+        return loopType;
+    }
+
+    public void setLoopType(LoopType loopType) {
+        this.loopType = loopType;
+    }
+
+    /**
+     * Gets the number of iterations of the original loop that one iteration of this loop executes.
+     */
+    public int getUnrollFactor() {
+        return unrollFactor;
+    }
+
+    public void setUnrollFactor(int unrollFactor) {
+        assert unrollFactor >= 1;
+        this.unrollFactor = unrollFactor;
+    }
+
     @Override
     public void simplify(SimplifierTool tool) {
         removeDeadPhis();
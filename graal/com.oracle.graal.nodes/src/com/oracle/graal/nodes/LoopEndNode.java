@@ -65,6 +65,15 @@ public final class LoopEndNode extends AbstractEndNode {
         this.loopBegin = x;
     }
 
+    @Override
+    protected void updateUsages(Node oldInput, Node newInput) {
+        super.updateUsages(oldInput, newInput);
+        if (oldInput != newInput && (oldInput instanceof LoopBeginNode || newInput instanceof LoopBeginNode)) {
+            // the loop begin is the target of the back edge
+            graph().controlFlowChanged();
+        }
+    }
+
     public void disableSafepoint() {
         this.canSafepoint = false;
     }
@@ -45,6 +45,15 @@ public final class LoopExitNode extends BeginStateSplitNode implements IterableN
         return loopBegin;
     }
 
+    @Override
+    protected void updateUsages(Node oldInput, Node newInput) {
+        super.updateUsages(oldInput, newInput);
+        if (oldInput != newInput && (oldInput instanceof LoopBeginNode || newInput instanceof LoopBeginNode)) {
+            // the loop begin determines which loop this exit leaves
+            graph().controlFlowChanged();
+        }
+    }
+
     @Override
     public void simplify(SimplifierTool tool) {
         Node prev = this.predecessor();
@@ -37,12 +37,16 @@ import jdk.internal.jvmci.meta.JavaMethod;
 import jdk.internal.jvmci.meta.ResolvedJavaMethod;
 import jdk.internal.jvmci.meta.SpeculationLog;
 
+import com.oracle.graal.compiler.common.cfg.BlockMap;
 import com.oracle.graal.compiler.common.type.Stamp;
 import com.oracle.graal.debug.JavaMethodContext;
 import com.oracle.graal.graph.Graph;
 import com.oracle.graal.graph.Node;
+import com.oracle.graal.graph.NodeMap;
 import com.oracle.graal.graph.spi.SimplifierTool;
 import com.oracle.graal.nodes.calc.FloatingNode;
+import com.oracle.graal.nodes.cfg.Block;
+import com.oracle.graal.nodes.cfg.ControlFlowGraph;
 import com.oracle.graal.nodes.java.MethodCallTargetNode;
 import com.oracle.graal.nodes.util.GraphUtil;
 
@@ -108,6 +112,33 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         }
     }
 
+    /**
+     * A schedule of the nodes of a graph, see {@link StructuredGraph#getLastSchedule()}.
+     */
+    public static class ScheduleResult {
+        private final ControlFlowGraph cfg;
+        private final NodeMap<Block> nodeToBlockMap;
+        private final BlockMap<List<Node>> blockToNodesMap;
+
+        public ScheduleResult(ControlFlowGraph cfg, NodeMap<Block> nodeToBlockMap, BlockMap<List<Node>> blockToNodesMap) {
+            this.cfg = cfg;
+            this.nodeToBlockMap = nodeToBlockMap;
+            this.blockToNodesMap = blockToNodesMap;
+        }
+
+        public ControlFlowGraph getCFG() {
+            return cfg;
+        }
+
+        public NodeMap<Block> getNodeToBlockMap() {
+            return nodeToBlockMap;
+        }
+
+        public BlockMap<List<Node>> getBlockToNodesMap() {
+            return blockToNodesMap;
+        }
+    }
+
     public static final long INVALID_GRAPH_ID = -1;
 
     private static final AtomicLong uniqueGraphIds = new AtomicLong();
@@ -141,6 +172,25 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     private UnsafeAccessState hasUnsafeAccess = UnsafeAccessState.NO_ACCESS;
 
+    /**
+     * The control flow graph last computed through
+     * {@link ControlFlowGraph#computeCached(StructuredGraph, boolean, boolean, boolean)} and the
+     * {@linkplain #getControlFlowModCount() control flow modification count} it is valid for.
+     */
+    private ControlFlowGraph cachedCFG;
+    private int cachedCFGModCount;
+
+    /**
+     * Counts the changes to branch probabilities and loop frequencies, which invalidate the block
+     * probabilities of a control flow graph without changing its structure.
+     */
+    private int probabilityModCount;
+
+    /**
+     * The schedule last computed for this graph, which may be out of date.
+     */
+    private ScheduleResult lastSchedule;
+
     /**
      * Creates a new Graph containing a single {@link AbstractBeginNode} as the {@link #start()
      * start} node.
@@ -335,6 +385,59 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         return hasNode(LoopBeginNode.TYPE);
     }
 
+    /**
+     * Gets the cached control flow graph if the control flow of this graph did not change since it
+     * was computed.
+     */
+    public ControlFlowGraph getCachedControlFlowGraph() {
+        if (cachedCFG != null && cachedCFGModCount != getControlFlowModCount()) {
+            cachedCFG = null;
+        }
+        return cachedCFG;
+    }
+
+    public void setCachedControlFlowGraph(ControlFlowGraph cfg) {
+        assert cfg == null || cfg.graph == this;
+        cachedCFG = cfg;
+        cachedCFGModCount = getControlFlowModCount();
+    }
+
+    /**
+     * Gets the {@linkplain #probabilityModCount probability modification count} of this graph.
+     */
+    public int getProbabilityModCount() {
+        return probabilityModCount;
+    }
+
+    /**
+     * Notifies this graph that a branch probability or loop frequency changed.
+     */
+    public void probabilitiesChanged() {
+        probabilityModCount++;
+    }
+
+    /**
+     * Keeps the cached control flow graph after a modification that it was
+     * {@linkplain ControlFlowGraph#insertIntoBlock updated} for.
+     */
+    private void keepCachedControlFlowGraph(ControlFlowGraph cfg, boolean updated) {
+        if (updated) {
+            setCachedControlFlowGraph(cfg);
+        }
+    }
+
+    /**
+     * Gets the schedule last computed for this graph. The graph may have been modified since then,
+     * so whoever computed the schedule must check whether it is still valid before using it.
+     */
+    public ScheduleResult getLastSchedule() {
+        return lastSchedule;
+    }
+
+    public void setLastSchedule(ScheduleResult result) {
+        lastSchedule = result;
+    }
+
     public void removeFloating(FloatingNode node) {
         assert node != null && node.isAlive() : "cannot remove " + node;
         node.safeDelete();
@@ -358,8 +461,11 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
             ((AbstractBeginNode) node).prepareDelete();
         }
         assert node.hasNoUsages() : node + " " + node.usages().count() + ", " + node.usages().first();
+        ControlFlowGraph cfg = getCachedControlFlowGraph();
+        boolean updated = cfg != null && cfg.replaceInBlock(node, null);
         GraphUtil.unlinkFixedNode(node);
         node.safeDelete();
+        keepCachedControlFlowGraph(cfg, updated);
     }
 
     public void replaceFixed(FixedWithNextNode node, Node replacement) {
@@ -374,6 +480,8 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void replaceFixedWithFixed(FixedWithNextNode node, FixedWithNextNode replacement) {
         assert node != null && replacement != null && node.isAlive() && replacement.isAlive() : "cannot replace " + node + " with " + replacement;
+        ControlFlowGraph cfg = getCachedControlFlowGraph();
+        boolean updated = cfg != null && cfg.replaceInBlock(node, replacement);
         FixedNode next = node.next();
         node.setNext(null);
         replacement.setNext(next);
@@ -381,13 +489,17 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         if (node == start) {
             setStart((StartNode) replacement);
         }
+        keepCachedControlFlowGraph(cfg, updated);
     }
 
     public void replaceFixedWithFloating(FixedWithNextNode node, FloatingNode replacement) {
         assert node != null && replacement != null && node.isAlive() && replacement.isAlive() : "cannot replace " + node + " with " + replacement;
+        ControlFlowGraph cfg = getCachedControlFlowGraph();
+        boolean updated = cfg != null && cfg.replaceInBlock(node, null);
         GraphUtil.unlinkFixedNode(node);
         node.replaceAtUsages(replacement);
         node.safeDelete();
+        keepCachedControlFlowGraph(cfg, updated);
     }
 
     public void removeSplit(ControlSplitNode node, AbstractBeginNode survivingSuccessor) {
@@ -449,6 +561,8 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
 
     public void addAfterFixed(FixedWithNextNode node, FixedNode newNode) {
         assert node != null && newNode != null && node.isAlive() && newNode.isAlive() : "cannot add " + newNode + " after " + node;
+        ControlFlowGraph cfg = getCachedControlFlowGraph();
+        boolean updated = cfg != null && cfg.insertIntoBlock(node, newNode);
         FixedNode next = node.next();
         node.setNext(newNode);
         if (next != null) {
@@ -457,6 +571,7 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
             assert newFixedWithNext.next() == null;
             newFixedWithNext.setNext(next);
         }
+        keepCachedControlFlowGraph(cfg, updated);
     }
 
     public void addBeforeFixed(FixedNode node, FixedWithNextNode newNode) {
@@ -465,8 +580,11 @@ public class StructuredGraph extends Graph implements JavaMethodContext {
         assert newNode.next() == null : newNode;
         assert !(node instanceof AbstractMergeNode);
         FixedWithNextNode pred = (FixedWithNextNode) node.predecessor();
+        ControlFlowGraph cfg = getCachedControlFlowGraph();
+        boolean updated = cfg != null && cfg.insertIntoBlock(pred, newNode);
         pred.setNext(newNode);
         newNode.setNext(node);
+        keepCachedControlFlowGraph(cfg, updated);
     }
 
     public void reduceDegenerateLoopBegin(LoopBeginNode begin) {
@@ -234,6 +234,14 @@ public final class Block extends AbstractBlockBase<Block> {
         return result;
     }
 
+    /**
+     * Drops the cached kill locations after the fixed nodes of a block changed.
+     */
+    void clearKillLocations() {
+        killLocations = null;
+        killLocationsBetweenThisAndDominator = null;
+    }
+
     public boolean canKillBetweenThisAndDominator(LocationIdentity location) {
         if (location.isImmutable()) {
             return false;
@@ -34,6 +34,7 @@ import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
 import com.oracle.graal.compiler.common.cfg.CFGVerifier;
 import com.oracle.graal.compiler.common.cfg.Loop;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeMap;
 import com.oracle.graal.nodes.AbstractBeginNode;
@@ -48,6 +49,7 @@ import com.oracle.graal.nodes.PhiNode;
 import com.oracle.graal.nodes.ProxyNode;
 import com.oracle.graal.nodes.StartNode;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
 
 public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
     /**
@@ -57,11 +59,22 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
      */
     public static final double MIN_PROBABILITY = 0.000001;
 
+    private static final DebugMetric CachedCFGHits = Debug.metric("CachedCFGHits");
+    private static final DebugMetric CachedCFGMisses = Debug.metric("CachedCFGMisses");
+
     public final StructuredGraph graph;
 
     private NodeMap<Block> nodeToBlock;
     private List<Block> reversePostOrder;
     private List<Loop<Block>> loops;
+    private boolean dominatorsComputed;
+    private boolean postdominatorsComputed;
+
+    /**
+     * The {@linkplain StructuredGraph#getProbabilityModCount() probability modification count} the
+     * block probabilities were computed for.
+     */
+    private int probabilityModCount;
 
     public static ControlFlowGraph compute(StructuredGraph graph, boolean connectBlocks, boolean computeLoops, boolean computeDominators, boolean computePostdominators) {
         ControlFlowGraph cfg = new ControlFlowGraph(graph);
@@ -69,21 +82,55 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
 
         if (connectBlocks || computeLoops || computeDominators || computePostdominators) {
             cfg.connectBlocks();
+            cfg.computeProbabilities();
         }
-        if (computeLoops) {
-            cfg.computeLoopInformation();
-        }
-        if (computeDominators) {
-            AbstractControlFlowGraph.computeDominators(cfg);
-        }
-        if (computePostdominators) {
-            cfg.computePostdominators();
-        }
+        cfg.computeMissing(computeLoops, computeDominators, computePostdominators);
         // there's not much to verify when connectBlocks == false
         assert !(connectBlocks || computeLoops || computeDominators || computePostdominators) || CFGVerifier.verify(cfg);
         return cfg;
     }
 
+    /**
+     * Like {@link #compute} with {@code connectBlocks == true}, but returns the
+     * {@linkplain StructuredGraph#getCachedControlFlowGraph() control flow graph cached} on
+     * {@code graph} if the control flow of the graph did not change since it was computed. Missing
+     * information is added to the cached graph, and block probabilities are recomputed if a branch
+     * probability or loop frequency changed since they were computed.
+     *
+     * The returned graph is shared: callers must not modify it, e.g., through
+     * {@link #setNodeToBlock}.
+     */
+    public static ControlFlowGraph computeCached(StructuredGraph graph, boolean computeLoops, boolean computeDominators, boolean computePostdominators) {
+        ControlFlowGraph cfg = graph.getCachedControlFlowGraph();
+        if (cfg == null) {
+            cfg = compute(graph, true, computeLoops, computeDominators, computePostdominators);
+            graph.setCachedControlFlowGraph(cfg);
+            CachedCFGMisses.increment();
+        } else {
+            assert cfg.graph == graph;
+            CachedCFGHits.increment();
+            if (cfg.probabilityModCount != graph.getProbabilityModCount()) {
+                cfg.computeProbabilities();
+            }
+            cfg.computeMissing(computeLoops, computeDominators, computePostdominators);
+            assert CFGVerifier.verify(cfg);
+        }
+        return cfg;
+    }
+
+    private void computeMissing(boolean computeLoops, boolean computeDominators, boolean computePostdominators) {
+        if (computeLoops && loops == null) {
+            computeLoopInformation();
+        }
+        if (computeDominators && !dominatorsComputed) {
+            AbstractControlFlowGraph.computeDominators(this);
+            dominatorsComputed = true;
+        }
+        if (computePostdominators && !postdominatorsComputed) {
+            computePostdominators();
+        }
+    }
+
     protected ControlFlowGraph(StructuredGraph graph) {
         this.graph = graph;
         this.nodeToBlock = graph.createNodeMap();
@@ -134,6 +181,10 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
     }
 
     public Block blockFor(Node node) {
+        if ((node instanceof PhiNode || node instanceof ProxyNode) && nodeToBlock.isNew(node)) {
+            // phis and proxies may be added to a cached graph without changing its control flow
+            return blockFor(node instanceof PhiNode ? ((PhiNode) node).merge() : ((ProxyNode) node).proxyPoint());
+        }
         return nodeToBlock.get(node);
     }
 
@@ -232,7 +283,6 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
     private void connectBlocks() {
         for (Block block : reversePostOrder) {
             List<Block> predecessors = new ArrayList<>(1);
-            double probability = block.getBeginNode() instanceof StartNode ? 1D : 0D;
             for (Node predNode : block.getBeginNode().cfgPredecessors()) {
                 Block predBlock = nodeToBlock.get(predNode);
                 if (predBlock.getId() >= 0) {
@@ -241,16 +291,10 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
                         predBlock.setSuccessors(new ArrayList<>(1));
                     }
                     predBlock.getSuccessors().add(block);
-                    probability += predBlock.probability;
                 }
             }
-            if (predecessors.size() == 1 && predecessors.get(0).getEndNode() instanceof ControlSplitNode) {
-                probability *= ((ControlSplitNode) predecessors.get(0).getEndNode()).probability(block.getBeginNode());
-            }
             if (block.getBeginNode() instanceof LoopBeginNode) {
-                LoopBeginNode loopBegin = (LoopBeginNode) block.getBeginNode();
-                probability *= loopBegin.loopFrequency();
-                for (LoopEndNode predNode : loopBegin.orderedLoopEnds()) {
+                for (LoopEndNode predNode : ((LoopBeginNode) block.getBeginNode()).orderedLoopEnds()) {
                     Block predBlock = nodeToBlock.get(predNode);
                     assert predBlock != null : predNode;
                     if (predBlock.getId() >= 0) {
@@ -262,17 +306,37 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
                     }
                 }
             }
-            if (probability > 1. / MIN_PROBABILITY) {
-                probability = 1. / MIN_PROBABILITY;
-            }
             block.setPredecessors(predecessors);
-            block.setProbability(probability);
             if (block.getSuccessors() == null) {
                 block.setSuccessors(new ArrayList<>(1));
             }
         }
     }
 
+    private void computeProbabilities() {
+        probabilityModCount = graph.getProbabilityModCount();
+        for (Block block : reversePostOrder) {
+            double probability = block.getBeginNode() instanceof StartNode ? 1D : 0D;
+            int forwardPredecessors = 0;
+            for (Block predBlock : block.getPredecessors()) {
+                if (!(block.isLoopHeader() && predBlock.isLoopEnd())) {
+                    probability += predBlock.probability;
+                    forwardPredecessors++;
+                }
+            }
+            if (forwardPredecessors == 1 && block.getFirstPredecessor().getEndNode() instanceof ControlSplitNode) {
+                probability *= ((ControlSplitNode) block.getFirstPredecessor().getEndNode()).probability(block.getBeginNode());
+            }
+            if (block.getBeginNode() instanceof LoopBeginNode) {
+                probability *= ((LoopBeginNode) block.getBeginNode()).loopFrequency();
+            }
+            if (probability > 1. / MIN_PROBABILITY) {
+                probability = 1. / MIN_PROBABILITY;
+            }
+            block.setProbability(probability);
+        }
+    }
+
     private void computeLoopInformation() {
         loops = new ArrayList<>();
         for (Block block : reversePostOrder) {
@@ -374,6 +438,7 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
     }
 
     public void computePostdominators() {
+        postdominatorsComputed = true;
         outer: for (Block block : postOrder()) {
             if (block.isLoopEnd()) {
                 // We do not want the loop header registered as the postdominator of the loop end.
@@ -424,4 +489,73 @@ public class ControlFlowGraph implements AbstractControlFlowGraph<Block> {
     public void setNodeToBlock(NodeMap<Block> nodeMap) {
         this.nodeToBlock = nodeMap;
     }
+
+    /**
+     * Updates this graph for {@code newNode} being inserted after {@code node} in the same block.
+     * Must be called before the graph is modified.
+     *
+     * @return false if the insertion changes the block structure, in which case this graph was
+     *         left unchanged and must be discarded after the modification
+     */
+    public boolean insertIntoBlock(FixedWithNextNode node, FixedNode newNode) {
+        if (!(newNode instanceof FixedWithNextNode) || newNode instanceof AbstractBeginNode || node.next() == null || nodeToBlock.isNew(node)) {
+            return false;
+        }
+        Block block = nodeToBlock.get(node);
+        if (block == null) {
+            return false;
+        }
+        nodeToBlock.setAndGrow(newNode, block);
+        if (block.endNode == node) {
+            block.endNode = newNode;
+        }
+        if (newNode instanceof MemoryCheckpoint) {
+            clearKillLocations();
+        }
+        return true;
+    }
+
+    /**
+     * Updates this graph for {@code node} being replaced with {@code replacement}, or being removed
+     * if {@code replacement == null}. Must be called before the graph is modified.
+     *
+     * @return false if the modification changes the block structure, in which case this graph was
+     *         left unchanged and must be discarded after the modification
+     */
+    public boolean replaceInBlock(FixedWithNextNode node, FixedWithNextNode replacement) {
+        if (node instanceof AbstractBeginNode || replacement instanceof AbstractBeginNode || nodeToBlock.isNew(node)) {
+            return false;
+        }
+        Block block = nodeToBlock.get(node);
+        if (block == null) {
+            return false;
+        }
+        nodeToBlock.set(node, null);
+        if (replacement != null) {
+            nodeToBlock.setAndGrow(replacement, block);
+        }
+        if (block.endNode == node) {
+            block.endNode = replacement != null ? replacement : (FixedNode) node.predecessor();
+        }
+        if (node instanceof MemoryCheckpoint || replacement instanceof MemoryCheckpoint) {
+            clearKillLocations();
+        }
+        return true;
+    }
+
+    /**
+     * Drops the kill locations of all blocks and loops after a memory checkpoint was added to or
+     * removed from a block. The kill locations between a block and its dominator also depend on
+     * other blocks, so the update cannot be restricted to the modified block.
+     */
+    private void clearKillLocations() {
+        for (Block block : reversePostOrder) {
+            block.clearKillLocations();
+        }
+        if (loops != null) {
+            for (Loop<Block> loop : loops) {
+                ((HIRLoop) loop).clearKillLocations();
+            }
+        }
+    }
 }
@@ -61,6 +61,10 @@ public final class HIRLoop extends Loop<Block> {
         return killLocations;
     }
 
+    void clearKillLocations() {
+        killLocations = null;
+    }
+
     public boolean canKill(LocationIdentity location) {
         return getKillLocations().contains(location);
     }
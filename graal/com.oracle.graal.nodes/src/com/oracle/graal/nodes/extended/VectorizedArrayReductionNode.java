@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.meta.Value;
+
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+/**
+ * Combines {@code array[index + k]} for all {@code k} in {@code [0, length)} with an associative
+ * operation using vector instructions. The elements may be smaller than the result, in which case
+ * they are sign or zero extended first. The result is the identity of the operation if the length
+ * is zero.
+ *
+ * No null or bounds checks are performed. The length must be a multiple of the number of elements
+ * that fit into a vector register.
+ *
+ * @see com.oracle.graal.lir.gen.LIRGeneratorTool#emitVectorizedArrayReduction
+ */
+@NodeInfo
+public final class VectorizedArrayReductionNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<VectorizedArrayReductionNode> TYPE = NodeClass.create(VectorizedArrayReductionNode.class);
+
+    /** {@link JavaKind} of the result. */
+    protected final JavaKind kind;
+    /** {@link JavaKind} of the array elements. */
+    protected final JavaKind elementKind;
+    /** Whether elements smaller than the result are zero extended instead of sign extended. */
+    protected final boolean zeroExtend;
+    protected final VectorOperation operation;
+
+    @Input ValueNode array;
+    @Input ValueNode index;
+    @Input ValueNode length;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public VectorizedArrayReductionNode(JavaKind kind, JavaKind elementKind, boolean zeroExtend, VectorOperation operation, ValueNode array, ValueNode index, ValueNode length) {
+        super(TYPE, StampFactory.forKind(kind));
+        assert kind == JavaKind.Int || kind == JavaKind.Long;
+        assert elementKind.getByteCount() <= kind.getByteCount();
+        this.kind = kind;
+        this.elementKind = elementKind;
+        this.zeroExtend = zeroExtend;
+        this.operation = operation;
+        this.array = array;
+        this.index = index;
+        this.length = length;
+    }
+
+    public VectorOperation getOperation() {
+        return operation;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    public boolean isZeroExtend() {
+        return zeroExtend;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitVectorizedArrayReduction(kind, elementKind, zeroExtend, operation, gen.operand(array), gen.operand(index), gen.operand(length));
+        gen.setResult(this, result);
+    }
+
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
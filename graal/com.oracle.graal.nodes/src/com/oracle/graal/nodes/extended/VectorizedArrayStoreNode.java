@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.meta.Value;
+
+import com.oracle.graal.compiler.common.calc.VectorOperation;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.AbstractStateSplit;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.memory.MemoryCheckpoint;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+/**
+ * Executes {@code dst[dstIndex + k] = x[xIndex + k] op y[yIndex + k]} for all {@code k} in
+ * {@code [0, length)} with vector instructions. An operand without an index is a scalar that is
+ * used for all elements, and without an operation, the loop stores {@code x} only, i.e., it is a
+ * fill or a copy.
+ *
+ * No null or bounds checks are performed, and the caller must ensure that the result is the same as
+ * that of the sequential loop. The length must be a multiple of the number of elements that fit into
+ * a vector register.
+ *
+ * @see com.oracle.graal.lir.gen.LIRGeneratorTool#emitVectorizedArrayStore
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory})
+public final class VectorizedArrayStoreNode extends AbstractStateSplit implements LIRLowerable, MemoryCheckpoint.Single {
+
+    public static final NodeClass<VectorizedArrayStoreNode> TYPE = NodeClass.create(VectorizedArrayStoreNode.class);
+
+    /** {@link JavaKind} of the elements of all arrays. */
+    protected final JavaKind kind;
+    protected final VectorOperation operation;
+
+    @Input ValueNode dst;
+    @Input ValueNode dstIndex;
+    @Input ValueNode x;
+    @OptionalInput ValueNode xIndex;
+    @OptionalInput ValueNode y;
+    @OptionalInput ValueNode yIndex;
+    @Input ValueNode length;
+
+    public VectorizedArrayStoreNode(JavaKind kind, VectorOperation operation, ValueNode dst, ValueNode dstIndex, ValueNode x, ValueNode xIndex, ValueNode y, ValueNode yIndex, ValueNode length) {
+        super(TYPE, StampFactory.forVoid());
+        assert operation != null || (y == null && yIndex == null);
+        assert operation == null || y != null;
+        this.kind = kind;
+        this.operation = operation;
+        this.dst = dst;
+        this.dstIndex = dstIndex;
+        this.x = x;
+        this.xIndex = xIndex;
+        this.y = y;
+        this.yIndex = yIndex;
+        this.length = length;
+    }
+
+    public JavaKind getKind() {
+        return kind;
+    }
+
+    public VectorOperation getOperation() {
+        return operation;
+    }
+
+    public ValueNode length() {
+        return length;
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitVectorizedArrayStore(kind, operation, gen.operand(dst), gen.operand(dstIndex), gen.operand(x), operandOrNull(gen, xIndex), operandOrNull(gen, y),
+                        operandOrNull(gen, yIndex), gen.operand(length));
+    }
+
+    private static Value operandOrNull(NodeLIRBuilderTool gen, ValueNode node) {
+        return node == null ? null : gen.operand(node);
+    }
+}
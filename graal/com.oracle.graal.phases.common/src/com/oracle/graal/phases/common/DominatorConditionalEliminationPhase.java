@@ -44,6 +44,7 @@ import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.NodeMap;
+import com.oracle.graal.graph.util.CollectionsAccess;
 import com.oracle.graal.nodeinfo.InputType;
 import com.oracle.graal.nodes.AbstractBeginNode;
 import com.oracle.graal.nodes.BeginNode;
@@ -144,8 +145,7 @@ public class DominatorConditionalEliminationPhase extends Phase {
             nodeToBlock = n -> schedule.getNodeToBlockMap().get(n);
             startBlock = cfg.getStartBlock();
         } else {
-            ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, true);
-            cfg.computePostdominators();
+            ControlFlowGraph cfg = ControlFlowGraph.computeCached(graph, true, true, true);
             BlockMap<List<FixedNode>> nodes = new BlockMap<>(cfg);
             for (Block b : cfg.getBlocks()) {
                 ArrayList<FixedNode> curNodes = new ArrayList<>();
@@ -173,7 +173,7 @@ public class DominatorConditionalEliminationPhase extends Phase {
         private final Function<Node, Block> nodeToBlock;
 
         public Instance(StructuredGraph graph, Function<Block, Iterable<? extends Node>> blockToNodes, Function<Node, Block> nodeToBlock) {
-            map = graph.createNodeMap();
+            map = CollectionsAccess.newNodeMap(graph);
             loopExits = new ArrayDeque<>();
             this.blockToNodes = blockToNodes;
             this.nodeToBlock = nodeToBlock;
@@ -224,7 +224,7 @@ public class DominatorConditionalEliminationPhase extends Phase {
                 // dominator tree (e.g., we are a merge of two loop exits).
                 final NodeMap<Info> oldMap = map;
                 final Deque<LoopExitNode> oldLoopExits = loopExits;
-                map = map.graph().createNodeMap();
+                map = CollectionsAccess.newNodeMap(map.graph());
                 loopExits = new ArrayDeque<>();
                 undoOperations.add(() -> {
                     map = oldMap;
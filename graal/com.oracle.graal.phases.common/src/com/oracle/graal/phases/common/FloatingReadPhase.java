@@ -204,7 +204,7 @@ public class FloatingReadPhase extends Phase {
         Map<LoopBeginNode, Set<LocationIdentity>> modifiedInLoops = null;
         if (graph.hasLoops()) {
             modifiedInLoops = new HashMap<>();
-            ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+            ControlFlowGraph cfg = ControlFlowGraph.computeCached(graph, true, false, false);
             for (Loop<?> l : cfg.getLoops()) {
                 HIRLoop loop = (HIRLoop) l;
                 processLoop(loop, modifiedInLoops);
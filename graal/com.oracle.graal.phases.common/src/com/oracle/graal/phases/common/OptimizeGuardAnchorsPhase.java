@@ -55,7 +55,7 @@ public class OptimizeGuardAnchorsPhase extends Phase {
 
         public ControlFlowGraph get() {
             if (cfg == null) {
-                cfg = ControlFlowGraph.compute(graph, true, false, true, true);
+                cfg = ControlFlowGraph.computeCached(graph, false, true, true);
             }
             return cfg;
         }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common.inlining;
+
+import java.util.Set;
+
+import jdk.internal.jvmci.code.Architecture;
+import jdk.internal.jvmci.meta.DeoptimizationReason;
+import jdk.internal.jvmci.meta.ProfilingInfo;
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.StableOptionValue;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.EncodedGraphCache;
+import com.oracle.graal.nodes.GraphDecoder;
+import com.oracle.graal.nodes.GraphEncoder;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.phases.OptimisticOptimizations;
+import com.oracle.graal.phases.PhaseSuite;
+import com.oracle.graal.phases.tiers.HighTierContext;
+
+/**
+ * Shares the parsed and canonicalized graphs of inlining candidates between compilations.
+ *
+ * A graph only depends on the configuration used to build it (the graph builder suite and the
+ * optimistic optimizations) and the profile of the parsed method. Graphs are therefore only shared
+ * between compilations that use the graph builder suite this cache was
+ * {@linkplain #install(Architecture, PhaseSuite) installed} for with all optimistic optimizations
+ * enabled, and only for methods whose profile is {@linkplain ProfilingInfo#isMature() mature}.
+ * Graphs with unsafe accesses are not shared since the encoding does not preserve that information.
+ *
+ * A shared graph speculates on the profiles of the parsed and inlined methods. When code built from
+ * those speculations deoptimizes, the deoptimization is recorded in these profiles. A graph is
+ * therefore dropped when the total deoptimization count of its methods differs from the count when
+ * it was added, which also covers profiles that were reset. Otherwise, compilations would keep
+ * inlining the stale speculations and deoptimize again.
+ *
+ * The graphs are kept in an {@link EncodedGraphCache} bounded by {@link Options#InlineGraphCacheSize}.
+ * Class hierarchy assumptions are checked on lookup. The runtime is responsible for
+ * {@linkplain #invalidateAssumptionDependents() invalidating} graphs when the assumptions made
+ * while building them turn out to be wrong (e.g., when installing code fails because of
+ * invalidated dependencies).
+ */
+public final class InliningGraphCache {
+
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Share parsed graphs of inlining candidates between compilations", type = OptionType.Expert)
+        public static final OptionValue<Boolean> InlineGraphCache = new StableOptionValue<>(false);
+
+        @Option(help = "Maximum size in megabytes of the graphs shared between compilations for inlining", type = OptionType.Expert)
+        public static final OptionValue<Integer> InlineGraphCacheSize = new StableOptionValue<>(32);
+        // @formatter:on
+    }
+
+    /**
+     * A shared graph together with the deoptimization count of the profiles it was built from.
+     */
+    private static final class ProfiledGraph extends EncodedGraph {
+
+        final int deoptimizationCount;
+
+        ProfiledGraph(EncodedGraph graph, int deoptimizationCount) {
+            super(graph.getEncoding(), graph.getStartOffset(), graph.getObjects(), graph.getNodeClasses(), graph.getAssumptions(), graph.getInlinedMethods());
+            this.deoptimizationCount = deoptimizationCount;
+        }
+    }
+
+    private static volatile InliningGraphCache instance;
+
+    private final EncodedGraphCache graphCache;
+    private final Architecture architecture;
+    private final PhaseSuite<HighTierContext> graphBuilderSuite;
+
+    private InliningGraphCache(Architecture architecture, PhaseSuite<HighTierContext> graphBuilderSuite) {
+        long capacity = Options.InlineGraphCacheSize.getValue() * 1024L * 1024L;
+        this.graphCache = new EncodedGraphCache("InlineGraphCache", capacity, EncodedGraphCache::isStillValid);
+        this.architecture = architecture;
+        this.graphBuilderSuite = graphBuilderSuite;
+    }
+
+    /**
+     * Creates the process-wide cache for graphs built with {@code graphBuilderSuite} if
+     * {@link Options#InlineGraphCache} is enabled.
+     *
+     * @return the installed cache or {@code null} if the cache is disabled
+     */
+    public static InliningGraphCache install(Architecture architecture, PhaseSuite<HighTierContext> graphBuilderSuite) {
+        if (Options.InlineGraphCache.getValue()) {
+            instance = new InliningGraphCache(architecture, graphBuilderSuite);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the process-wide cache or {@code null} if none has been {@linkplain #install installed}.
+     */
+    public static InliningGraphCache getInstance() {
+        return instance;
+    }
+
+    private boolean isShareable(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller) {
+        if (context.getGraphBuilderSuite() != graphBuilderSuite || context.getOptimisticOptimizations().lessOptimisticThan(OptimisticOptimizations.ALL)) {
+            return false;
+        }
+        if (caller.getAssumptions() == null) {
+            /* A graph built under assumptions can only be inlined into such a graph. */
+            return false;
+        }
+        return method.getProfilingInfo().isMature();
+    }
+
+    /**
+     * Gets the number of deoptimizations recorded in the profiles of {@code method} and the
+     * methods inlined into its graph for all reasons.
+     */
+    private static int getDeoptimizationCount(ResolvedJavaMethod method, Set<ResolvedJavaMethod> inlinedMethods) {
+        int count = getDeoptimizationCount(method);
+        if (inlinedMethods != null) {
+            for (ResolvedJavaMethod inlined : inlinedMethods) {
+                if (!inlined.equals(method)) {
+                    count += getDeoptimizationCount(inlined);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int getDeoptimizationCount(ResolvedJavaMethod method) {
+        ProfilingInfo profile = method.getProfilingInfo();
+        int count = 0;
+        for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+            count += profile.getDeoptimizationCount(reason);
+        }
+        return count;
+    }
+
+    /**
+     * Gets a fresh copy of the shared graph for {@code method} to be inlined into {@code caller}.
+     *
+     * @return {@code null} if there is no shared graph or it must not be used for {@code caller}
+     */
+    @SuppressWarnings("try")
+    public StructuredGraph lookup(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller) {
+        if (!isShareable(method, context, caller)) {
+            return null;
+        }
+        ProfiledGraph encodedGraph = (ProfiledGraph) graphCache.get(method);
+        if (encodedGraph == null) {
+            return null;
+        }
+        if (encodedGraph.deoptimizationCount != getDeoptimizationCount(method, encodedGraph.getInlinedMethods())) {
+            graphCache.invalidate(method);
+            return null;
+        }
+        StructuredGraph graph = new StructuredGraph(method, AllowAssumptions.YES);
+        try (Debug.Scope s = Debug.scope("InlineGraphCache", graph)) {
+            if (!caller.isInlinedMethodRecordingEnabled()) {
+                graph.disableInlinedMethodRecording();
+            }
+            if (!caller.isUnsafeAccessTrackingEnabled()) {
+                graph.disableUnsafeAccessTracking();
+            }
+            new GraphDecoder(architecture).decode(graph, encodedGraph);
+            graph.getAssumptions().record(encodedGraph.getAssumptions());
+            if (encodedGraph.getInlinedMethods() != null) {
+                for (ResolvedJavaMethod inlined : encodedGraph.getInlinedMethods()) {
+                    graph.recordInlinedMethod(inlined);
+                }
+            }
+            return graph;
+        } catch (Throwable e) {
+            throw Debug.handle(e);
+        }
+    }
+
+    /**
+     * Shares {@code graph}, which was freshly parsed for inlining into {@code caller}, with other
+     * compilations if it was built with the configuration of this cache.
+     */
+    public void add(StructuredGraph graph, HighTierContext context, StructuredGraph caller) {
+        ResolvedJavaMethod method = graph.method();
+        if (!isShareable(method, context, caller) || !caller.isInlinedMethodRecordingEnabled() || !caller.isUnsafeAccessTrackingEnabled() || graph.hasUnsafeAccess()) {
+            return;
+        }
+        EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+        graphCache.put(method, new ProfiledGraph(encodedGraph, getDeoptimizationCount(method, encodedGraph.getInlinedMethods())));
+    }
+
+    /**
+     * Removes all graphs that were built under at least one assumption.
+     */
+    public void invalidateAssumptionDependents() {
+        graphCache.invalidateAssumptionDependents();
+    }
+
+    public EncodedGraphCache getGraphCache() {
+        return graphCache;
+    }
+
+    @Override
+    public String toString() {
+        return "InliningGraphCache(" + graphCache + ")";
+    }
+}
@@ -43,14 +43,15 @@ import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.DeadCodeEliminationPhase;
+import com.oracle.graal.phases.common.inlining.InliningGraphCache;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
 import com.oracle.graal.phases.graph.FixedNodeProbabilityCache;
 import com.oracle.graal.phases.tiers.HighTierContext;
 
 /**
  * <p>
- * Represents a feasible concrete target for inlining, whose graph has been copied already and thus
- * can be modified without affecting the original (usually cached) version.
+ * Represents a feasible concrete target for inlining, whose graph is private to the call site and
+ * thus can be modified without affecting the original (usually cached) version.
  * </p>
  *
  * <p>
@@ -68,23 +69,33 @@ public class InlineableGraph implements Inlineable {
     private FixedNodeProbabilityCache probabilites = new FixedNodeProbabilityCache();
 
     public InlineableGraph(final ResolvedJavaMethod method, final Invoke invoke, final HighTierContext context, CanonicalizerPhase canonicalizer) {
-        StructuredGraph original = getOriginalGraph(method, context, canonicalizer, invoke.asNode().graph(), invoke.bci());
-        // TODO copying the graph is only necessary if it is modified or if it contains any invokes
-        this.graph = (StructuredGraph) original.copy();
+        this.graph = getOriginalGraph(method, context, canonicalizer, invoke.asNode().graph(), invoke.bci());
         specializeGraphToArguments(invoke, context, canonicalizer);
     }
 
     /**
      * This method looks up in a cache the graph for the argument, if not found bytecode is parsed.
-     * The graph thus obtained is returned, ie the caller is responsible for cloning before
-     * modification.
+     * Graphs that are freshly parsed or decoded for this call site are returned as they are.
+     * Intrinsic graphs are shared between compilations and are copied, since even reading them with
+     * typed node iteration updates their type cache.
      */
     private static StructuredGraph getOriginalGraph(final ResolvedJavaMethod method, final HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller, int callerBci) {
         StructuredGraph result = InliningUtil.getIntrinsicGraph(context.getReplacements(), method, callerBci);
         if (result != null) {
-            return result;
+            return (StructuredGraph) result.copy();
         }
-        return parseBytecodes(method, context, canonicalizer, caller);
+        InliningGraphCache graphCache = InliningGraphCache.getInstance();
+        if (graphCache != null) {
+            result = graphCache.lookup(method, context, caller);
+            if (result != null) {
+                return result;
+            }
+        }
+        result = parseBytecodes(method, context, canonicalizer, caller);
+        if (graphCache != null) {
+            graphCache.add(result, context, caller);
+        }
+        return result;
     }
 
     /**
@@ -187,8 +198,8 @@ public class InlineableGraph implements Inlineable {
 
     /**
      * This method builds the IR nodes for the given <code>method</code> and canonicalizes them.
-     * Provided profiling info is mature, the resulting graph is cached. The caller is responsible
-     * for cloning before modification. </p>
+     * Provided profiling info is mature, an encoded copy of the resulting graph is shared with other
+     * compilations through the {@link InliningGraphCache}, so the graph itself may be modified.
      */
     @SuppressWarnings("try")
     private static StructuredGraph parseBytecodes(ResolvedJavaMethod method, HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller) {
@@ -196,9 +207,9 @@ public class InlineableGraph implements Inlineable {
         try (Debug.Scope s = Debug.scope("InlineGraph", newGraph)) {
             if (!caller.isInlinedMethodRecordingEnabled()) {
                 // Don't record inlined methods in the callee if
-                // the caller doesn't want them. This decision is
-                // preserved in the graph cache (if used) which is
-                // ok since the graph cache is compilation local.
+                // the caller doesn't want them. Such graphs are
+                // not shared with other compilations through the
+                // InliningGraphCache.
                 newGraph.disableInlinedMethodRecording();
             }
             if (!caller.isUnsafeAccessTrackingEnabled()) {
@@ -55,6 +55,7 @@ import com.oracle.graal.nodes.java.AbstractNewObjectNode;
 import com.oracle.graal.nodes.java.MethodCallTargetNode;
 import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
 import com.oracle.graal.nodes.virtual.VirtualObjectNode;
+import com.oracle.graal.phases.CompilationBudget;
 import com.oracle.graal.phases.OptimisticOptimizations;
 import com.oracle.graal.phases.common.CanonicalizerPhase;
 import com.oracle.graal.phases.common.inlining.InliningUtil;
@@ -113,6 +114,7 @@ public class InliningData {
     private final int maxMethodPerInlining;
     private final CanonicalizerPhase canonicalizer;
     private final InliningPolicy inliningPolicy;
+    private final StructuredGraph rootGraph;
 
     private int maxGraphs;
 
@@ -122,6 +124,7 @@ public class InliningData {
         this.maxMethodPerInlining = maxMethodPerInlining;
         this.canonicalizer = canonicalizer;
         this.inliningPolicy = inliningPolicy;
+        this.rootGraph = rootGraph;
         this.maxGraphs = 1;
 
         invocationQueue.push(new MethodInvocation(null, 1.0, 1.0, null));
@@ -687,6 +690,7 @@ public class InliningData {
      */
     @SuppressWarnings("try")
     public boolean moveForward() {
+        CompilationBudget.check(rootGraph, "Inlining");
 
         final MethodInvocation currentInvocation = currentInvocation();
 
@@ -30,6 +30,7 @@ import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugMemUseTracker;
 import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.EventRingBuffer;
 import com.oracle.graal.debug.Fingerprint;
 import com.oracle.graal.graph.Graph;
 import com.oracle.graal.nodes.StructuredGraph;
@@ -46,6 +47,11 @@ public abstract class BasePhase<C> {
 
     private CharSequence name;
 
+    /**
+     * The id of {@link #getName()} in {@link EventRingBuffer} events or -1 if not yet registered.
+     */
+    private int eventNameId = -1;
+
     /**
      * Records time spent in {@link #apply(StructuredGraph, Object, boolean)}.
      */
@@ -138,6 +144,7 @@ public abstract class BasePhase<C> {
 
     @SuppressWarnings("try")
     protected final void apply(final StructuredGraph graph, final C context, final boolean dumpGraph) {
+        EventRingBuffer.recordInCompilation(EventRingBuffer.Kind.PhaseStart, getEventNameId());
         try (DebugCloseable a = timer.start(); Scope s = Debug.scope(getClass(), this); DebugCloseable c = memUseTracker.start()) {
             if (dumpGraph && Debug.isDumpEnabled(BEFORE_PHASE_DUMP_LEVEL)) {
                 Debug.dump(BEFORE_PHASE_DUMP_LEVEL, graph, "Before phase %s", getName());
@@ -158,7 +165,16 @@ public abstract class BasePhase<C> {
             assert graph.verify();
         } catch (Throwable t) {
             throw Debug.handle(t);
+        } finally {
+            EventRingBuffer.recordInCompilation(EventRingBuffer.Kind.PhaseEnd, eventNameId);
+        }
+    }
+
+    private int getEventNameId() {
+        if (eventNameId == -1) {
+            eventNameId = EventRingBuffer.registerName(getName().toString());
         }
+        return eventNameId;
     }
 
     protected CharSequence createName() {
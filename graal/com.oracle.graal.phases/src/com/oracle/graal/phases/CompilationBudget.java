@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases;
+
+import jdk.internal.jvmci.code.BailoutException;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.debug.Management;
+import com.oracle.graal.nodes.StructuredGraph;
+
+/**
+ * Limits the resources a single compilation may consume on its compiler thread. A budget is
+ * {@linkplain #open() opened} for the duration of a compilation and {@linkplain #check checked} at
+ * points where a compilation can grow without bound, i.e., between the phases of a
+ * {@link PhaseSuite} and between the steps of the inlining walker. A compilation exceeding its
+ * budget bails out with a {@link BudgetExceededException} describing which limit was hit.
+ */
+public final class CompilationBudget implements AutoCloseable {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Bail out of a compilation whose graph exceeds this many nodes (0 for no limit)", type = OptionType.Expert)
+        public static final OptionValue<Integer> CompilationBudgetNodes = new OptionValue<>(0);
+        @Option(help = "Bail out of a compilation that allocates more than this many megabytes on its thread (0 for no limit)", type = OptionType.Expert)
+        public static final OptionValue<Integer> CompilationBudgetMemory = new OptionValue<>(0);
+        @Option(help = "Bail out of a compilation that takes longer than this many milliseconds (0 for no limit)", type = OptionType.Expert)
+        public static final OptionValue<Integer> CompilationBudgetTime = new OptionValue<>(0);
+        @Option(help = "Retry a compilation that exceeded its budget once with inlining and other expensive optimizations disabled", type = OptionType.Expert)
+        public static final OptionValue<Boolean> CompilationBudgetRetry = new OptionValue<>(true);
+        // @formatter:on
+    }
+
+    /**
+     * The resource whose limit was exceeded.
+     */
+    public enum Resource {
+        Nodes,
+        Memory,
+        Time
+    }
+
+    /**
+     * Bailout of a compilation that exceeded its {@link CompilationBudget}.
+     */
+    public static class BudgetExceededException extends BailoutException {
+
+        private static final long serialVersionUID = 4853626385471325541L;
+
+        private final Resource resource;
+
+        public BudgetExceededException(Resource resource, String reason, Object... args) {
+            super(reason, args);
+            this.resource = resource;
+        }
+
+        public Resource getResource() {
+            return resource;
+        }
+    }
+
+    private static final DebugMetric NodesExceeded = Debug.metric("CompilationBudgetExceeded_Nodes");
+    private static final DebugMetric MemoryExceeded = Debug.metric("CompilationBudgetExceeded_Memory");
+    private static final DebugMetric TimeExceeded = Debug.metric("CompilationBudgetExceeded_Time");
+
+    private static final ThreadLocal<CompilationBudget> current = new ThreadLocal<>();
+
+    private final int maxNodes;
+    private final long maxAllocatedBytes;
+    private final long maxNanos;
+    private final long deadline;
+    private final long allocatedAtStart;
+
+    private CompilationBudget(int maxNodes, long maxAllocatedBytes, long maxNanos) {
+        this.maxNodes = maxNodes;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.allocatedAtStart = maxAllocatedBytes > 0 ? Management.getCurrentThreadAllocatedBytes() : 0L;
+        this.maxNanos = maxNanos;
+        this.deadline = maxNanos > 0 ? System.nanoTime() + maxNanos : 0L;
+    }
+
+    /**
+     * Opens a budget for a compilation on the current thread as configured by the
+     * {@linkplain Options options}. The budget must be closed when the compilation is done,
+     * preferably with a try-with-resources statement. If a budget is already open on the current
+     * thread, e.g., because a compilation compiles a nested graph, the returned object is a no-op
+     * and the outer budget stays in effect.
+     *
+     * @return the budget or null if no limits are configured or a budget is already open
+     */
+    public static CompilationBudget open() {
+        int nodes = Options.CompilationBudgetNodes.getValue();
+        int memory = Options.CompilationBudgetMemory.getValue();
+        int time = Options.CompilationBudgetTime.getValue();
+        if ((nodes <= 0 && memory <= 0 && time <= 0) || current.get() != null) {
+            return null;
+        }
+        CompilationBudget budget = new CompilationBudget(nodes, memory * 1024L * 1024L, time * 1_000_000L);
+        current.set(budget);
+        return budget;
+    }
+
+    /**
+     * Checks the budget of the compilation running on the current thread, if any.
+     *
+     * @param graph the graph of the compilation
+     * @param location describes where the check is performed, used in the bailout reason
+     * @throws BudgetExceededException if a limit of the budget is exceeded
+     */
+    public static void check(StructuredGraph graph, Object location) {
+        CompilationBudget budget = current.get();
+        if (budget != null) {
+            budget.checkLimits(graph, location);
+        }
+    }
+
+    private void checkLimits(StructuredGraph graph, Object location) {
+        if (maxNodes > 0 && graph.getNodeCount() > maxNodes) {
+            NodesExceeded.increment();
+            throw new BudgetExceededException(Resource.Nodes, "Compilation budget exceeded at %s: %d nodes > %d", location, graph.getNodeCount(), maxNodes);
+        }
+        if (maxAllocatedBytes > 0) {
+            long allocated = Management.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+            if (allocated > maxAllocatedBytes) {
+                MemoryExceeded.increment();
+                throw new BudgetExceededException(Resource.Memory, "Compilation budget exceeded at %s: %d bytes allocated > %d", location, allocated, maxAllocatedBytes);
+            }
+        }
+        if (deadline != 0L) {
+            long now = System.nanoTime();
+            if (now - deadline > 0) {
+                TimeExceeded.increment();
+                long elapsed = now - deadline + maxNanos;
+                throw new BudgetExceededException(Resource.Time, "Compilation budget exceeded at %s: %d ms > %d ms", location, elapsed / 1_000_000L, maxNanos / 1_000_000L);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        assert current.get() == this;
+        current.remove();
+    }
+}
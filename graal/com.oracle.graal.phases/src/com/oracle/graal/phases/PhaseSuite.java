@@ -23,6 +23,7 @@
 package com.oracle.graal.phases;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -53,6 +54,13 @@ public class PhaseSuite<C> extends BasePhase<C> {
         phases.add(phase);
     }
 
+    /**
+     * Gets an unmodifiable view of the phases in this suite, in the order they are applied.
+     */
+    public final List<BasePhase<? super C>> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
     public final ListIterator<BasePhase<? super C>> findPhase(Class<? extends BasePhase<? super C>> phaseClass) {
         ListIterator<BasePhase<? super C>> it = phases.listIterator();
         if (findNextPhase(it, phaseClass)) {
@@ -101,6 +109,7 @@ public class PhaseSuite<C> extends BasePhase<C> {
     protected void run(StructuredGraph graph, C context) {
         for (BasePhase<? super C> phase : phases) {
             phase.apply(graph, context);
+            CompilationBudget.check(graph, phase.getName());
         }
     }
 
@@ -30,13 +30,18 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Set;
 
 import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
 
 import com.oracle.graal.compiler.common.SuppressFBWarnings;
 import com.oracle.graal.compiler.common.cfg.AbstractControlFlowGraph;
 import com.oracle.graal.compiler.common.cfg.BlockMap;
 import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.graph.Graph.NodeEvent;
 import com.oracle.graal.graph.Graph.NodeEventListener;
 import com.oracle.graal.graph.Graph.NodeEventScope;
@@ -59,6 +64,7 @@ import com.oracle.graal.nodes.ProxyNode;
 import com.oracle.graal.nodes.StartNode;
 import com.oracle.graal.nodes.StateSplit;
 import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.ScheduleResult;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.VirtualState;
 import com.oracle.graal.nodes.cfg.Block;
@@ -103,6 +109,127 @@ public final class SchedulePhase extends Phase {
         LATEST_OUT_OF_LOOPS
     }
 
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Reuse the last schedule of a graph if the graph was not modified since, or update an earliest schedule for the nodes changed since", type = OptionType.Debug)
+        public static final OptionValue<Boolean> ReuseSchedules = new OptionValue<>(true);
+        // @formatter:on
+    }
+
+    private static final DebugMetric SchedulesReused = Debug.metric("SchedulesReused");
+    private static final DebugMetric SchedulesUpdated = Debug.metric("SchedulesUpdated");
+    private static final DebugMetric SchedulesUpdatedNodes = Debug.metric("SchedulesUpdatedNodes");
+
+    /**
+     * A schedule {@linkplain StructuredGraph#setLastSchedule(ScheduleResult) attached} to its
+     * graph. It listens to the events of the graph to find out which nodes have to be re-placed
+     * when the graph is scheduled again. The listener is unregistered as soon as the schedule is
+     * dropped from the graph.
+     */
+    private static final class CachedSchedule extends ScheduleResult implements NodeEventListener {
+
+        /**
+         * The schedule is dropped after this many events since it is cheaper to recompute it than
+         * to re-place that many nodes.
+         */
+        private static final int MAX_RECORDED_EVENTS = 1024;
+
+        private final StructuredGraph graph;
+        final SchedulingStrategy strategy;
+        final boolean immutableGraph;
+        private final int controlFlowModCount;
+        private final int compressions;
+        private final int nodesDeleted;
+
+        /**
+         * Nodes added since the schedule was computed.
+         */
+        private final Set<Node> addedNodes = Node.newSet();
+
+        /**
+         * Scheduled nodes whose inputs changed or that lost their last usage.
+         */
+        private final List<Node> changedNodes = new ArrayList<>();
+        private NodeEventScope scope;
+
+        CachedSchedule(StructuredGraph graph, SchedulingStrategy strategy, boolean immutableGraph, ControlFlowGraph cfg, NodeMap<Block> nodeToBlockMap, BlockMap<List<Node>> blockToNodesMap) {
+            super(cfg, nodeToBlockMap, blockToNodesMap);
+            this.graph = graph;
+            this.strategy = strategy;
+            this.immutableGraph = immutableGraph;
+            this.controlFlowModCount = graph.getControlFlowModCount();
+            this.compressions = graph.getCompressions();
+            this.nodesDeleted = graph.getNodesDeletedSinceLastCompression();
+        }
+
+        @Override
+        public void event(NodeEvent e, Node node) {
+            if (addedNodes.size() + changedNodes.size() >= MAX_RECORDED_EVENTS) {
+                drop();
+            } else if (e == NodeEvent.NODE_ADDED) {
+                addedNodes.add(node);
+            } else if (!addedNodes.contains(node)) {
+                changedNodes.add(node);
+            }
+        }
+
+        /**
+         * Determines whether the blocks of this schedule are still valid, i.e., whether the control
+         * flow did not change and no node ids were changed by a compression.
+         */
+        boolean hasValidBlocks() {
+            return graph.getControlFlowModCount() == controlFlowModCount && graph.getCompressions() == compressions;
+        }
+
+        /**
+         * Determines whether the graph was changed only by deleting nodes since this schedule was
+         * computed. Nodes that were added and deleted again in the meantime are ignored.
+         *
+         * @return the number of deleted nodes that were present when the schedule was computed, or
+         *         -1 if the graph was changed in any other way
+         */
+        int deletedNodesOnly() {
+            if (!hasValidBlocks()) {
+                return -1;
+            }
+            for (Node node : addedNodes) {
+                if (node.isAlive()) {
+                    return -1;
+                }
+            }
+            for (Node node : changedNodes) {
+                if (node.isAlive()) {
+                    return -1;
+                }
+            }
+            int deleted = graph.getNodesDeletedSinceLastCompression() - nodesDeleted - addedNodes.size();
+            assert deleted >= 0 : deleted;
+            return deleted;
+        }
+
+        void attach() {
+            ScheduleResult last = graph.getLastSchedule();
+            if (last instanceof CachedSchedule) {
+                ((CachedSchedule) last).drop();
+            }
+            scope = graph.trackNodeEvents(this);
+            graph.setLastSchedule(this);
+        }
+
+        /**
+         * Removes this schedule from its graph and stops listening to the graph's events.
+         */
+        void drop() {
+            if (scope != null) {
+                scope.close();
+                scope = null;
+            }
+            if (graph.getLastSchedule() == this) {
+                graph.setLastSchedule(null);
+            }
+        }
+    }
+
     private ControlFlowGraph cfg;
 
     /**
@@ -147,8 +274,256 @@ public final class SchedulePhase extends Phase {
     }
 
     @Override
-    @SuppressWarnings("try")
     protected void run(StructuredGraph graph) {
+        boolean reuse = Options.ReuseSchedules.getValue() && !graph.isFrozen();
+        if (reuse && reuseLastSchedule(graph)) {
+            return;
+        }
+        computeSchedule(graph);
+        if (reuse) {
+            new CachedSchedule(graph, selectedStrategy, immutableGraph, cfg, nodeToBlockMap, blockToNodesMap).attach();
+        }
+    }
+
+    /**
+     * Takes over the last schedule of {@code graph} if it was computed with the same strategy and
+     * can be brought up to date. The last schedule is dropped otherwise.
+     *
+     * Deleting a node can allow its inputs to be scheduled later and adding a usage can force them
+     * earlier, so a latest schedule is only reused if no scheduled node was changed or deleted. The
+     * earliest position of a node only depends on its inputs, so an earliest schedule is
+     * {@linkplain #updateEarliestSchedule updated} for the nodes changed since.
+     */
+    private boolean reuseLastSchedule(StructuredGraph graph) {
+        if (!(graph.getLastSchedule() instanceof CachedSchedule)) {
+            return false;
+        }
+        CachedSchedule last = (CachedSchedule) graph.getLastSchedule();
+        if (last.strategy == selectedStrategy && (!last.immutableGraph || immutableGraph) && last.hasValidBlocks()) {
+            if (last.deletedNodesOnly() == 0) {
+                SchedulesReused.increment();
+                takeOver(last);
+                return true;
+            }
+            if (selectedStrategy == SchedulingStrategy.EARLIEST && updateEarliestSchedule(last)) {
+                return true;
+            }
+        }
+        last.drop();
+        return false;
+    }
+
+    /**
+     * Updates an earliest schedule for the nodes added or changed since it was computed. The
+     * changed floating nodes and, transitively, their floating usages are removed from their
+     * blocks and placed in the block dominated by the blocks of all their inputs. Only the blocks
+     * that receive nodes are sorted again. Deleted nodes are dropped from the blocks.
+     *
+     * @return false if the schedule has to be recomputed because too many nodes changed or a
+     *         changed node became dead, which a fresh schedule would not contain
+     */
+    private boolean updateEarliestSchedule(CachedSchedule last) {
+        ControlFlowGraph lastCFG = last.getCFG();
+        NodeMap<Block> nodeToBlock = new NodeMap<>(last.getNodeToBlockMap());
+        BitSet sortedBlocks = new BitSet(lastCFG.getBlocks().size());
+
+        List<Node> placed = new ArrayList<>();
+        Set<Node> placedSet = Node.newSet();
+        List<Node> touched = new ArrayList<>(last.addedNodes);
+        touched.addAll(last.changedNodes);
+        for (Node node : touched) {
+            if (!node.isAlive()) {
+                continue;
+            }
+            if (node instanceof PhiNode || node instanceof ProxyNode) {
+                nodeToBlock.setAndGrow(node, lastCFG.blockFor(node));
+            } else if (node instanceof FixedNode) {
+                // a fixed node keeps its block but may have to move behind a new input
+                Block block = nodeToBlock.isNew(node) ? null : nodeToBlock.get(node);
+                if (block == null) {
+                    return false;
+                }
+                sortedBlocks.set(block.getId());
+            } else if (placedSet.add(node)) {
+                placed.add(node);
+            }
+        }
+        for (int i = 0; i < placed.size(); i++) {
+            Node node = placed.get(i);
+            if (node.hasNoUsages()) {
+                return false;
+            }
+            for (Node usage : node.usages()) {
+                if (!(usage instanceof FixedNode || usage instanceof PhiNode || usage instanceof ProxyNode) && placedSet.add(usage)) {
+                    if (placed.size() >= CachedSchedule.MAX_RECORDED_EVENTS) {
+                        return false;
+                    }
+                    placed.add(usage);
+                }
+            }
+        }
+
+        for (Node node : placed) {
+            nodeToBlock.setAndGrow(node, null);
+        }
+        Block startBlock = lastCFG.getStartBlock();
+        NodeStack stack = new NodeStack();
+        for (Node root : placed) {
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node current = stack.peek();
+                if (nodeToBlock.get(current) != null) {
+                    stack.pop();
+                } else if (placedSet.remove(current)) {
+                    // first visit: place the changed inputs first
+                    for (Node input : current.inputs()) {
+                        if (placedSet.contains(input)) {
+                            stack.push(input);
+                        }
+                    }
+                } else {
+                    stack.pop();
+                    Block block = calcEarliestBlock(current, startBlock, nodeToBlock);
+                    if (block == null) {
+                        return false;
+                    }
+                    nodeToBlock.set(current, block);
+                    sortedBlocks.set(block.getId());
+                }
+            }
+        }
+
+        BlockMap<List<Node>> blockToNodes = new BlockMap<>(lastCFG);
+        for (Block b : lastCFG.getBlocks()) {
+            List<Node> nodes = last.getBlockToNodesMap().get(b);
+            List<Node> liveNodes = new ArrayList<>(nodes.size());
+            for (Node n : nodes) {
+                if (n.isAlive() && nodeToBlock.get(n) == b) {
+                    liveNodes.add(n);
+                }
+            }
+            blockToNodes.put(b, liveNodes.size() == nodes.size() ? nodes : liveNodes);
+        }
+        if (!sortedBlocks.isEmpty()) {
+            BlockMap<List<Node>> placedInBlock = new BlockMap<>(lastCFG);
+            for (Node node : placed) {
+                Block b = nodeToBlock.get(node);
+                if (placedInBlock.get(b) == null) {
+                    placedInBlock.put(b, new ArrayList<>());
+                }
+                placedInBlock.get(b).add(node);
+            }
+            NodeBitMap unprocessed = null;
+            for (Block b : lastCFG.getBlocks()) {
+                if (sortedBlocks.get(b.getId())) {
+                    List<Node> sorted = sortEarliestWithinBlock(b, blockToNodes.get(b), placedInBlock.get(b), nodeToBlock);
+                    blockToNodes.put(b, sorted);
+                    if (hasKilledFloatingRead(b, sorted)) {
+                        if (unprocessed == null) {
+                            unprocessed = last.graph.createNodeBitMap();
+                        }
+                        for (Node n : sorted) {
+                            unprocessed.markAndGrow(n);
+                        }
+                        resortEarliestWithinBlock(b, blockToNodes, nodeToBlock, unprocessed);
+                    }
+                }
+            }
+        }
+        assert MemoryScheduleVerification.check(lastCFG.getStartBlock(), blockToNodes);
+
+        SchedulesUpdated.increment();
+        SchedulesUpdatedNodes.add(placed.size());
+        CachedSchedule updated = new CachedSchedule(last.graph, selectedStrategy, last.immutableGraph, lastCFG, nodeToBlock, blockToNodes);
+        updated.attach();
+        takeOver(updated);
+        return true;
+    }
+
+    /**
+     * Orders the nodes of a block such that the begin node comes first, a control split, sink or
+     * end comes last, and every other node comes after its inputs in the block. The order of
+     * {@code nodes} is kept as far as possible and the {@code placed} nodes are inserted before
+     * their first usage in the block, or before the block end if there is none.
+     */
+    private static List<Node> sortEarliestWithinBlock(Block b, List<Node> nodes, List<Node> placed, NodeMap<Block> nodeToBlock) {
+        List<Node> result = new ArrayList<>(nodes.size() + (placed == null ? 0 : placed.size()));
+        Set<Node> visited = Node.newSet();
+        Set<Node> sorted = Node.newSet();
+        NodeStack stack = new NodeStack();
+        AbstractBeginNode beginNode = b.getBeginNode();
+        assert nodes.get(0) == beginNode;
+        visited.add(beginNode);
+        sorted.add(beginNode);
+        result.add(beginNode);
+        FixedNode endNode = b.getEndNode();
+        boolean endLast = isFixedEnd(endNode) && endNode != beginNode;
+        for (Node n : nodes) {
+            if (!endLast || n != endNode) {
+                sortIntoBlock(n, b, nodeToBlock, visited, sorted, stack, result);
+            }
+        }
+        if (placed != null) {
+            for (Node n : placed) {
+                sortIntoBlock(n, b, nodeToBlock, visited, sorted, stack, result);
+            }
+        }
+        if (endLast) {
+            sortIntoBlock(endNode, b, nodeToBlock, visited, sorted, stack, result);
+        }
+        return result;
+    }
+
+    private static void sortIntoBlock(Node node, Block b, NodeMap<Block> nodeToBlock, Set<Node> visited, Set<Node> sorted, NodeStack stack, List<Node> result) {
+        if (visited.contains(node)) {
+            return;
+        }
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.peek();
+            if (visited.add(current)) {
+                if (current instanceof FixedNode) {
+                    pushIfInBlock(current.predecessor(), b, nodeToBlock, visited, stack);
+                }
+                for (Node input : current.inputs()) {
+                    if (input instanceof StateSplit && ((StateSplit) input).stateAfter() == current) {
+                        // Ignore the cycle.
+                    } else if (!(input instanceof PhiNode || input instanceof ProxyNode)) {
+                        pushIfInBlock(input, b, nodeToBlock, visited, stack);
+                    }
+                }
+            } else {
+                stack.pop();
+                if (sorted.add(current)) {
+                    result.add(current);
+                }
+            }
+        }
+    }
+
+    private static void pushIfInBlock(Node node, Block b, NodeMap<Block> nodeToBlock, Set<Node> visited, NodeStack stack) {
+        if (node != null && !visited.contains(node) && !nodeToBlock.isNew(node) && nodeToBlock.get(node) == b) {
+            stack.push(node);
+        }
+    }
+
+    private static boolean hasKilledFloatingRead(Block b, List<Node> nodes) {
+        for (Node n : nodes) {
+            if (n instanceof FloatingReadNode && b.canKill(((FloatingReadNode) n).getLocationIdentity())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void takeOver(ScheduleResult result) {
+        this.cfg = result.getCFG();
+        this.nodeToBlockMap = result.getNodeToBlockMap();
+        this.blockToNodesMap = result.getBlockToNodesMap();
+    }
+
+    @SuppressWarnings("try")
+    private void computeSchedule(StructuredGraph graph) {
         try (NodeEventScope scope = verifyImmutableGraph(graph)) {
             // assert GraphOrder.assertNonCyclicGraph(graph);
             cfg = ControlFlowGraph.compute(graph, true, true, true, false);
@@ -742,31 +1117,7 @@ public final class SchedulePhase extends Phase {
                     Block curBlock = cfg.blockFor(current);
                     if (curBlock == null) {
                         assert current.predecessor() == null && !(current instanceof FixedNode) : "The assignment of blocks to fixed nodes is already done when constructing the cfg.";
-                        Block earliest = startBlock;
-                        for (Node input : current.inputs()) {
-                            Block inputEarliest = nodeToBlock.get(input);
-                            if (inputEarliest == null) {
-                                assert current instanceof FrameState && input instanceof StateSplit && ((StateSplit) input).stateAfter() == current : current;
-                            } else {
-                                assert inputEarliest != null;
-                                if (inputEarliest.getEndNode() == input) {
-                                    // This is the last node of the block.
-                                    if (current instanceof FrameState && input instanceof StateSplit && ((StateSplit) input).stateAfter() == current) {
-                                        // Keep regular inputEarliest.
-                                    } else if (input instanceof ControlSplitNode) {
-                                        inputEarliest = nodeToBlock.get(((ControlSplitNode) input).getPrimarySuccessor());
-                                    } else {
-                                        assert inputEarliest.getSuccessorCount() == 1;
-                                        assert !(input instanceof AbstractEndNode);
-                                        // Keep regular inputEarliest
-                                    }
-                                }
-                                if (earliest.getDominatorDepth() < inputEarliest.getDominatorDepth()) {
-                                    earliest = inputEarliest;
-                                }
-                            }
-                        }
-                        curBlock = earliest;
+                        curBlock = calcEarliestBlock(current, startBlock, nodeToBlock);
                     }
                     assert curBlock != null;
                     addNode(blockToNodes, curBlock, current);
@@ -782,6 +1133,42 @@ public final class SchedulePhase extends Phase {
         }
     }
 
+    /**
+     * Computes the earliest block of a floating node, which is the deepest of the blocks of its
+     * inputs in the dominator tree.
+     *
+     * @return the earliest block or {@code null} if an input other than the state split of a frame
+     *         state has not been scheduled
+     */
+    private static Block calcEarliestBlock(Node current, Block startBlock, NodeMap<Block> nodeToBlock) {
+        Block earliest = startBlock;
+        for (Node input : current.inputs()) {
+            Block inputEarliest = nodeToBlock.isNew(input) ? null : nodeToBlock.get(input);
+            if (inputEarliest == null) {
+                if (!(current instanceof FrameState && input instanceof StateSplit && ((StateSplit) input).stateAfter() == current)) {
+                    return null;
+                }
+            } else {
+                if (inputEarliest.getEndNode() == input) {
+                    // This is the last node of the block.
+                    if (current instanceof FrameState && input instanceof StateSplit && ((StateSplit) input).stateAfter() == current) {
+                        // Keep regular inputEarliest.
+                    } else if (input instanceof ControlSplitNode) {
+                        inputEarliest = nodeToBlock.get(((ControlSplitNode) input).getPrimarySuccessor());
+                    } else {
+                        assert inputEarliest.getSuccessorCount() == 1;
+                        assert !(input instanceof AbstractEndNode);
+                        // Keep regular inputEarliest
+                    }
+                }
+                if (earliest.getDominatorDepth() < inputEarliest.getDominatorDepth()) {
+                    earliest = inputEarliest;
+                }
+            }
+        }
+        return earliest;
+    }
+
     public String printScheduleHelper(String desc) {
         Formatter buf = new Formatter();
         buf.format("=== %s / %s / %s ===%n", getCFG().getStartBlock().getBeginNode().graph(), selectedStrategy, desc);
@@ -46,6 +46,7 @@ import com.oracle.graal.nodes.memory.address.AddressNode;
 import com.oracle.graal.nodes.memory.address.OffsetAddressNode;
 import com.oracle.graal.replacements.IntegerSubstitutions;
 import com.oracle.graal.replacements.LongSubstitutions;
+import com.oracle.graal.replacements.StandardGraphBuilderPlugins;
 import com.oracle.graal.replacements.StandardGraphBuilderPlugins.UnsafeGetPlugin;
 import com.oracle.graal.replacements.StandardGraphBuilderPlugins.UnsafePutPlugin;
 import com.oracle.graal.replacements.nodes.BitCountNode;
@@ -58,6 +59,7 @@ public class AMD64GraphBuilderPlugins {
         registerIntegerLongPlugins(invocationPlugins, LongSubstitutions.class, JavaKind.Long, arch);
         registerUnsafePlugins(invocationPlugins);
         registerMathPlugins(invocationPlugins, foreignCalls);
+        StandardGraphBuilderPlugins.registerVectorizedArrayPlugins(invocationPlugins);
     }
 
     private static void registerIntegerLongPlugins(InvocationPlugins plugins, Class<?> substituteDeclaringClass, JavaKind kind, AMD64 arch) {
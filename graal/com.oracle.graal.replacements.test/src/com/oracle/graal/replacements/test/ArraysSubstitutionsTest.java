@@ -22,8 +22,11 @@
  */
 package com.oracle.graal.replacements.test;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
 
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -37,6 +40,8 @@ import com.oracle.graal.phases.tiers.HighTierContext;
 import com.oracle.graal.phases.tiers.PhaseContext;
 import com.oracle.graal.replacements.ArraysSubstitutions;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayFillNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
 import com.oracle.graal.virtual.phases.ea.PartialEscapePhase;
 
 /**
@@ -396,4 +401,213 @@ public class ArraysSubstitutionsTest extends MethodSubstitutionTest {
         int[] array2 = new int[]{1, 2, 3, 4};
         return Arrays.equals(array1, array2);
     }
+
+    /**
+     * Checks that the snippet uses {@code nodeClass} if the {@link Arrays} method is substituted,
+     * which is not the case on all architectures.
+     */
+    private void assertIntrinsified(String snippet, Class<?> nodeClass, String methodName, Class<?>... parameterTypes) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(Arrays.class, methodName, parameterTypes);
+        if (getReplacements().hasSubstitution(method, -1)) {
+            assertInGraph(testGraph(snippet), nodeClass);
+        }
+    }
+
+    private static final int MAX_LENGTH = 70;
+
+    /**
+     * Tests a fill snippet with a fresh array of each length up to {@link #MAX_LENGTH}, filling
+     * the whole array, regions with unaligned ends and invalid ranges.
+     */
+    private void testFill(String snippet, Class<?> arrayClass, Object value) {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            Object array = Array.newInstance(arrayClass.getComponentType(), length);
+            test(snippet, supply(() -> cloneArray(array)), 0, length, value);
+            test(snippet, supply(() -> cloneArray(array)), Math.min(1, length), Math.max(length - 3, Math.min(1, length)), value);
+            test(snippet, supply(() -> cloneArray(array)), length / 2, length, value);
+        }
+        Object array = Array.newInstance(arrayClass.getComponentType(), 10);
+        test(snippet, supply(() -> cloneArray(array)), -1, 5, value);
+        test(snippet, supply(() -> cloneArray(array)), 6, 5, value);
+        test(snippet, supply(() -> cloneArray(array)), 0, 11, value);
+        test(snippet, null, 0, 0, value);
+    }
+
+    private static Object cloneArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    @Test
+    public void testFillBoolean() {
+        assertIntrinsified("arraysFillBoolean", ArrayFillNode.class, "fill", boolean[].class, int.class, int.class, boolean.class);
+        testFill("arraysFillBoolean", boolean[].class, true);
+    }
+
+    public static boolean[] arraysFillBoolean(boolean[] a, int fromIndex, int toIndex, boolean value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillByte() {
+        assertIntrinsified("arraysFillByte", ArrayFillNode.class, "fill", byte[].class, int.class, int.class, byte.class);
+        testFill("arraysFillByte", byte[].class, (byte) -3);
+    }
+
+    public static byte[] arraysFillByte(byte[] a, int fromIndex, int toIndex, byte value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillChar() {
+        assertIntrinsified("arraysFillChar", ArrayFillNode.class, "fill", char[].class, int.class, int.class, char.class);
+        testFill("arraysFillChar", char[].class, (char) 0xFEDC);
+    }
+
+    public static char[] arraysFillChar(char[] a, int fromIndex, int toIndex, char value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillShort() {
+        assertIntrinsified("arraysFillShort", ArrayFillNode.class, "fill", short[].class, int.class, int.class, short.class);
+        testFill("arraysFillShort", short[].class, (short) -1234);
+    }
+
+    public static short[] arraysFillShort(short[] a, int fromIndex, int toIndex, short value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillInt() {
+        assertIntrinsified("arraysFillInt", ArrayFillNode.class, "fill", int[].class, int.class, int.class, int.class);
+        testFill("arraysFillInt", int[].class, 0x12345678);
+    }
+
+    public static int[] arraysFillInt(int[] a, int fromIndex, int toIndex, int value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillLong() {
+        assertIntrinsified("arraysFillLong", ArrayFillNode.class, "fill", long[].class, int.class, int.class, long.class);
+        testFill("arraysFillLong", long[].class, 0x123456789ABCDEFL);
+    }
+
+    public static long[] arraysFillLong(long[] a, int fromIndex, int toIndex, long value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillFloat() {
+        assertIntrinsified("arraysFillFloat", ArrayFillNode.class, "fill", float[].class, int.class, int.class, float.class);
+        testFill("arraysFillFloat", float[].class, -1.5f);
+    }
+
+    public static float[] arraysFillFloat(float[] a, int fromIndex, int toIndex, float value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillDouble() {
+        assertIntrinsified("arraysFillDouble", ArrayFillNode.class, "fill", double[].class, int.class, int.class, double.class);
+        testFill("arraysFillDouble", double[].class, Math.PI);
+    }
+
+    public static double[] arraysFillDouble(double[] a, int fromIndex, int toIndex, double value) {
+        Arrays.fill(a, fromIndex, toIndex, value);
+        return a;
+    }
+
+    @Test
+    public void testFillWholeArray() {
+        assertIntrinsified("arraysFillWholeArray", ArrayFillNode.class, "fill", int[].class, int.class);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            int n = length;
+            test("arraysFillWholeArray", supply(() -> new int[n]), -7);
+        }
+        test("arraysFillWholeArray", null, -7);
+    }
+
+    public static int[] arraysFillWholeArray(int[] a, int value) {
+        Arrays.fill(a, value);
+        return a;
+    }
+
+    @Test
+    public void testHashCodeByte() {
+        assertIntrinsified("arraysHashCodeByte", ArrayHashCodeNode.class, "hashCode", byte[].class);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            byte[] a = new byte[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (byte) (i * 37 - 100);
+            }
+            test("arraysHashCodeByte", a);
+        }
+        test("arraysHashCodeByte", (Object) null);
+    }
+
+    public static int arraysHashCodeByte(byte[] a) {
+        return Arrays.hashCode(a);
+    }
+
+    @Test
+    public void testHashCodeChar() {
+        assertIntrinsified("arraysHashCodeChar", ArrayHashCodeNode.class, "hashCode", char[].class);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            char[] a = new char[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (char) (i * 4099 + 0x8000);
+            }
+            test("arraysHashCodeChar", a);
+        }
+        test("arraysHashCodeChar", (Object) null);
+    }
+
+    public static int arraysHashCodeChar(char[] a) {
+        return Arrays.hashCode(a);
+    }
+
+    @Test
+    public void testHashCodeShort() {
+        assertIntrinsified("arraysHashCodeShort", ArrayHashCodeNode.class, "hashCode", short[].class);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            short[] a = new short[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (short) (i * 4099 - 30000);
+            }
+            test("arraysHashCodeShort", a);
+        }
+        test("arraysHashCodeShort", (Object) null);
+    }
+
+    public static int arraysHashCodeShort(short[] a) {
+        return Arrays.hashCode(a);
+    }
+
+    @Test
+    public void testHashCodeInt() {
+        assertIntrinsified("arraysHashCodeInt", ArrayHashCodeNode.class, "hashCode", int[].class);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            int[] a = new int[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = i * 0x9E3779B9;
+            }
+            test("arraysHashCodeInt", a);
+        }
+        test("arraysHashCodeInt", (Object) null);
+    }
+
+    public static int arraysHashCodeInt(int[] a) {
+        return Arrays.hashCode(a);
+    }
 }
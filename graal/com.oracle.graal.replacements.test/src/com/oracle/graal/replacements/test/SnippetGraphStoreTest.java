@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.graal.compiler.test.GraalCompilerTest;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+import com.oracle.graal.replacements.SnippetGraphStore;
+
+public class SnippetGraphStoreTest extends GraalCompilerTest {
+
+    static int field;
+
+    public static int snippet(int[] array, int index) {
+        if (index < array.length) {
+            field = array[index];
+        }
+        return field + 1;
+    }
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("SnippetGraphStoreTest", ".graphs");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private SnippetGraphStore open(String version) {
+        return SnippetGraphStore.open(file, version, getMetaAccess(), getTarget().arch);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        StructuredGraph graph = parseEager(method, AllowAssumptions.NO);
+
+        SnippetGraphStore store = open("version");
+        Assert.assertNull(store.lookup(method, null));
+        Assert.assertTrue(store.record(method, null, graph));
+        Assert.assertTrue(store.isDirty());
+        store.write();
+
+        SnippetGraphStore reopened = open("version");
+        Assert.assertFalse(reopened.isDirty());
+        StructuredGraph loaded = reopened.lookup(method, null);
+        Assert.assertNotNull(loaded);
+        assertEquals(graph, loaded);
+    }
+
+    @Test
+    public void testVersionMismatch() throws IOException {
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        SnippetGraphStore store = open("version1");
+        Assert.assertTrue(store.record(method, null, parseEager(method, AllowAssumptions.NO)));
+        store.write();
+
+        Assert.assertNull(open("version2").lookup(method, null));
+        Assert.assertNotNull(open("version1").lookup(method, null));
+    }
+}
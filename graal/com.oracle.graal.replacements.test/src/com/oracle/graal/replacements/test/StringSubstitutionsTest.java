@@ -22,6 +22,8 @@
  */
 package com.oracle.graal.replacements.test;
 
+import java.util.Arrays;
+
 import jdk.internal.jvmci.code.InstalledCode;
 import jdk.internal.jvmci.meta.ResolvedJavaMethod;
 
@@ -30,6 +32,8 @@ import org.junit.Test;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.replacements.StringSubstitutions;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+import com.oracle.graal.replacements.nodes.ArrayMismatchNode;
 
 /**
  * Tests {@link StringSubstitutions}.
@@ -96,4 +100,104 @@ public class StringSubstitutionsTest extends MethodSubstitutionTest {
         return a.equals(b);
     }
 
+    /**
+     * Checks that the snippet uses {@code nodeClass} if the {@link String} method is substituted,
+     * which is not the case on all architectures.
+     */
+    private void assertIntrinsified(String snippet, Class<?> nodeClass, String methodName, Class<?>... parameterTypes) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(String.class, methodName, parameterTypes);
+        if (getReplacements().hasSubstitution(method, -1)) {
+            assertInGraph(testGraph(snippet), nodeClass);
+        }
+    }
+
+    /**
+     * Returns a string of {@code length} chars that are all {@code 'a'}, except for a {@code 'b'}
+     * at {@code position} if it is in range.
+     */
+    private static String string(int length, int position) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        if (position >= 0 && position < length) {
+            chars[position] = 'b';
+        }
+        return new String(chars);
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertIntrinsified("stringCompareTo", ArrayMismatchNode.class, "compareTo", String.class);
+        for (int length = 0; length < 70; length++) {
+            test("stringCompareTo", string(length, -1), string(length, -1));
+            test("stringCompareTo", string(length, -1), string(length + 1, -1));
+            test("stringCompareTo", string(length + 1, -1), string(length, -1));
+            for (int position = 0; position < length; position++) {
+                test("stringCompareTo", string(length, position), string(length, -1));
+                test("stringCompareTo", string(length, -1), string(length, position));
+            }
+        }
+        test("stringCompareTo", "\uffff", "\u0000");
+        test("stringCompareTo", "abc", null);
+    }
+
+    @SuppressWarnings("all")
+    public static int stringCompareTo(String a, String b) {
+        return a.compareTo(b);
+    }
+
+    @Test
+    public void testIndexOfChar() {
+        assertIntrinsified("stringIndexOfChar", ArrayIndexOfNode.class, "indexOf", int.class, int.class);
+        for (int length = 0; length < 70; length++) {
+            for (int position = -1; position <= length; position++) {
+                String s = string(length, position);
+                test("stringIndexOfChar", s, (int) 'b', 0);
+                test("stringIndexOfChar", s, (int) 'b', position);
+                test("stringIndexOfChar", s, (int) 'b', position + 1);
+            }
+        }
+        String s = string(40, 17);
+        test("stringIndexOfChar", s, (int) 'b', -5);
+        test("stringIndexOfChar", s, (int) 'b', Integer.MAX_VALUE);
+        test("stringIndexOfChar", s, -1, 0);
+        test("stringIndexOfChar", s, 'b' + 0x10000, 0);
+    }
+
+    @Test
+    public void testIndexOfSupplementary() {
+        int codePoint = 0x1F600;
+        String s = "x" + new String(Character.toChars(codePoint)) + "y" + Character.highSurrogate(codePoint) + new String(Character.toChars(codePoint));
+        for (int from = 0; from <= s.length(); from++) {
+            test("stringIndexOfChar", s, codePoint, from);
+            test("stringIndexOfChar", s, codePoint + 1, from);
+        }
+        test("stringIndexOfChar", s, Character.MAX_CODE_POINT + 1, 0);
+        test("stringIndexOfChar", "" + Character.highSurrogate(codePoint), codePoint, 0);
+    }
+
+    @SuppressWarnings("all")
+    public static int stringIndexOfChar(String s, int ch, int fromIndex) {
+        return s.indexOf(ch, fromIndex);
+    }
+
+    @Test
+    public void testIndexOfString() {
+        assertIntrinsified("stringIndexOfString", ArrayIndexOfNode.class, "indexOf", String.class, int.class);
+        String source = "abaabaaabaaaabaaaaabaaaaaabaaaaaaabaaaaaaaabaaaaaaaaab";
+        String[] targets = {"", "a", "b", "ab", "ba", "aab", "aaaaaaaab", "aaaaaaaaab", "aaaaaaaaaab", "c", "abc", source, source + "a"};
+        for (String target : targets) {
+            for (int from = -1; from <= source.length() + 1; from++) {
+                test("stringIndexOfString", source, target, from);
+            }
+        }
+        test("stringIndexOfString", "", "", 0);
+        test("stringIndexOfString", "", "", 1);
+        test("stringIndexOfString", source, null, 0);
+    }
+
+    @SuppressWarnings("all")
+    public static int stringIndexOfString(String s, String str, int fromIndex) {
+        return s.indexOf(str, fromIndex);
+    }
+
 }
@@ -22,7 +22,14 @@
  */
 package com.oracle.graal.replacements;
 
+import jdk.internal.jvmci.meta.DeoptimizationAction;
+import jdk.internal.jvmci.meta.DeoptimizationReason;
+import jdk.internal.jvmci.meta.JavaKind;
+
+import com.oracle.graal.nodes.DeoptimizeNode;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayFillNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
 
 // JaCoCo Exclude
 
@@ -110,4 +117,113 @@ public class ArraysSubstitutions {
         }
         return ArrayEqualsNode.equals(a, a2, a.length);
     }
+
+    public static void fill(boolean[] a, boolean val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Boolean);
+    }
+
+    public static void fill(boolean[] a, int fromIndex, int toIndex, boolean val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Boolean);
+    }
+
+    public static void fill(byte[] a, byte val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Byte);
+    }
+
+    public static void fill(byte[] a, int fromIndex, int toIndex, byte val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Byte);
+    }
+
+    public static void fill(char[] a, char val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Char);
+    }
+
+    public static void fill(char[] a, int fromIndex, int toIndex, char val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Char);
+    }
+
+    public static void fill(short[] a, short val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Short);
+    }
+
+    public static void fill(short[] a, int fromIndex, int toIndex, short val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Short);
+    }
+
+    public static void fill(int[] a, int val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Int);
+    }
+
+    public static void fill(int[] a, int fromIndex, int toIndex, int val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Int);
+    }
+
+    public static void fill(long[] a, long val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Long);
+    }
+
+    public static void fill(long[] a, int fromIndex, int toIndex, long val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Long);
+    }
+
+    public static void fill(float[] a, float val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Float);
+    }
+
+    public static void fill(float[] a, int fromIndex, int toIndex, float val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Float);
+    }
+
+    public static void fill(double[] a, double val) {
+        ArrayFillNode.fill(a, 0, a.length, val, JavaKind.Double);
+    }
+
+    public static void fill(double[] a, int fromIndex, int toIndex, double val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(a, fromIndex, toIndex - fromIndex, val, JavaKind.Double);
+    }
+
+    /**
+     * Deoptimizes if the range is invalid, so that the exception is thrown by the interpreter.
+     */
+    private static void checkRange(int length, int fromIndex, int toIndex) {
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > length) {
+            DeoptimizeNode.deopt(DeoptimizationAction.None, DeoptimizationReason.BoundsCheckException);
+        }
+    }
+
+    public static int hashCode(byte[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length);
+    }
+
+    public static int hashCode(char[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length);
+    }
+
+    public static int hashCode(short[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length);
+    }
+
+    public static int hashCode(int[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(a, a.length);
+    }
 }
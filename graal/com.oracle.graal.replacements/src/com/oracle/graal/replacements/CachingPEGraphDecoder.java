@@ -35,6 +35,7 @@ import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration;
 import com.oracle.graal.graphbuilderconf.IntrinsicContext;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.GraphEncoder;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
@@ -45,7 +46,9 @@ import com.oracle.graal.phases.util.Providers;
 
 /**
  * A graph decoder that provides all necessary encoded graphs on-the-fly (by parsing the methods and
- * encoding the graphs).
+ * encoding the graphs). If a {@link EncodedGraphCache} is provided, graphs are shared with all other
+ * decoders using the same cache. The cache must only be shared between decoders using the same
+ * configuration.
  */
 public class CachingPEGraphDecoder extends PEGraphDecoder {
 
@@ -54,8 +57,14 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     private final OptimisticOptimizations optimisticOpts;
     private final AllowAssumptions allowAssumptions;
     private final Map<ResolvedJavaMethod, EncodedGraph> graphCache;
+    private final EncodedGraphCache sharedGraphCache;
 
     public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions, Architecture architecture) {
+        this(providers, graphBuilderConfig, optimisticOpts, allowAssumptions, architecture, null);
+    }
+
+    public CachingPEGraphDecoder(Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts, AllowAssumptions allowAssumptions, Architecture architecture,
+                    EncodedGraphCache sharedGraphCache) {
         super(providers.getMetaAccess(), providers.getConstantReflection(), providers.getStampProvider(), architecture);
 
         this.providers = providers;
@@ -63,6 +72,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         this.optimisticOpts = optimisticOpts;
         this.allowAssumptions = allowAssumptions;
         this.graphCache = new HashMap<>();
+        this.sharedGraphCache = sharedGraphCache;
     }
 
     @SuppressWarnings("try")
@@ -78,6 +88,9 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
 
             EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
             graphCache.put(method, encodedGraph);
+            if (sharedGraphCache != null) {
+                sharedGraphCache.put(method, encodedGraph);
+            }
             return encodedGraph;
 
         } catch (Throwable ex) {
@@ -88,6 +101,13 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     @Override
     protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, boolean isIntrinsic) {
         EncodedGraph result = graphCache.get(method);
+        if (result == null && sharedGraphCache != null) {
+            /* Keep using the same graph for the rest of this decoding even if it gets evicted. */
+            result = sharedGraphCache.get(method);
+            if (result != null) {
+                graphCache.put(method, result);
+            }
+        }
         if (result == null && method.hasBytecodes()) {
             result = createGraph(method, isIntrinsic);
         }
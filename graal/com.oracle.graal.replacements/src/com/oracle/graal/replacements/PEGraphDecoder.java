@@ -351,8 +351,9 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
 
     public void decode(StructuredGraph targetGraph, ResolvedJavaMethod method, LoopExplosionPlugin loopExplosionPlugin, InvocationPlugins invocationPlugins, InlineInvokePlugin[] inlineInvokePlugins,
                     ParameterPlugin parameterPlugin) {
-        PEMethodScope methodScope = new PEMethodScope(targetGraph, null, null, lookupEncodedGraph(method, false), method, null, 0, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins,
-                        parameterPlugin, null);
+        EncodedGraph encodedGraph = lookupEncodedGraph(method, false);
+        recordAssumptions(targetGraph, encodedGraph);
+        PEMethodScope methodScope = new PEMethodScope(targetGraph, null, null, encodedGraph, method, null, 0, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins, parameterPlugin, null);
         decode(methodScope, null);
         cleanupGraph(methodScope, null);
         methodScope.graph.verify();
@@ -490,6 +491,7 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
         if (graphToInline == null) {
             return false;
         }
+        recordAssumptions(methodScope.graph, graphToInline);
 
         if (methodScope.inliningDepth > Options.InliningDepthError.getValue()) {
             throw tooDeepInlining(methodScope);
@@ -623,6 +625,18 @@ public abstract class PEGraphDecoder extends SimplifyingGraphDecoder {
 
     protected abstract EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, boolean isIntrinsic);
 
+    /**
+     * The code compiled from {@code targetGraph} depends on the assumptions made while building
+     * {@code encodedGraph}, which may have been shared with earlier compilations.
+     */
+    private static void recordAssumptions(StructuredGraph targetGraph, EncodedGraph encodedGraph) {
+        if (encodedGraph == null || encodedGraph.getAssumptions() == null || encodedGraph.getAssumptions().isEmpty()) {
+            return;
+        }
+        assert targetGraph.getAssumptions() != null : "graph built under assumptions decoded into " + targetGraph;
+        targetGraph.getAssumptions().record(encodedGraph.getAssumptions());
+    }
+
     @Override
     protected void handleFixedNode(MethodScope s, LoopScope loopScope, int nodeOrderId, FixedNode node) {
         PEMethodScope methodScope = (PEMethodScope) s;
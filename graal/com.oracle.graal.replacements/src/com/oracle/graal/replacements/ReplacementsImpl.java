@@ -28,20 +28,25 @@ import static com.oracle.graal.graphbuilderconf.IntrinsicContext.CompilationCont
 import static com.oracle.graal.java.BytecodeParserOptions.InlineDuringParsing;
 import static com.oracle.graal.java.BytecodeParserOptions.InlineIntrinsicsDuringParsing;
 import static com.oracle.graal.phases.common.DeadCodeEliminationPhase.Optionality.Required;
+import static com.oracle.graal.replacements.SnippetGraphStore.Options.SnippetGraphStoreFile;
+import static com.oracle.graal.replacements.SnippetGraphStore.Options.SnippetGraphStorePrepare;
 import static java.lang.String.format;
 import static jdk.internal.jvmci.meta.MetaUtil.toInternalName;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
@@ -71,6 +76,7 @@ import com.oracle.graal.debug.Debug;
 import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugTimer;
+import com.oracle.graal.debug.TTY;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.graph.Node.NodeIntrinsic;
 import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration;
@@ -298,6 +304,17 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
     // it is stable across VM executions (in support of replay compilation).
     private final Map<String, SnippetTemplateCache> snippetTemplateCache;
 
+    /**
+     * Snippets registered with {@link #registerSnippet}.
+     */
+    private final Set<ResolvedJavaMethod> registeredSnippets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Graphs preprocessed by a previous VM run or {@code null} if {@link SnippetGraphStore
+     * persistent snippet graphs} are disabled.
+     */
+    private final SnippetGraphStore graphStore;
+
     public ReplacementsImpl(Providers providers, SnippetReflectionProvider snippetReflection, TargetDescription target) {
         this.providers = providers.copyWith(this);
         this.classReplacements = CollectionsFactory.newMap();
@@ -306,6 +323,70 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
         this.target = target;
         this.graphs = new ConcurrentHashMap<>();
         this.snippetTemplateCache = CollectionsFactory.newMap();
+        String graphStoreFile = SnippetGraphStoreFile.getValue();
+        this.graphStore = graphStoreFile == null ? null : SnippetGraphStore.open(Paths.get(graphStoreFile), getGraphStoreVersion(), providers.getMetaAccess(), target.arch);
+    }
+
+    /**
+     * Gets a string identifying the configuration for which snippet graphs are preprocessed. A
+     * {@link SnippetGraphStore} written for a different configuration is discarded. Changes to the
+     * classes a graph was built from are detected by the store itself.
+     */
+    protected String getGraphStoreVersion() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getName()).append(' ').append(target.arch.getName()).append(' ').append(System.getProperty("java.vm.version"));
+        sb.append(" SnippetCounters=").append(GraalOptions.SnippetCounters.getValue());
+        return sb.toString();
+    }
+
+    /**
+     * Gets the store of preprocessed graphs or {@code null} if it is disabled.
+     */
+    protected SnippetGraphStore getGraphStore() {
+        return graphStore;
+    }
+
+    /**
+     * Writes all snippet and substitution graphs created in this VM to the
+     * {@link SnippetGraphStore} so that the next VM run does not need to create them again. If
+     * {@link SnippetGraphStore.Options#SnippetGraphStorePrepare} is enabled, all registered
+     * snippets and method substitutions are created first.
+     */
+    public void saveGraphStore() {
+        if (graphStore == null) {
+            return;
+        }
+        if (SnippetGraphStorePrepare.getValue()) {
+            for (ResolvedJavaMethod snippet : registeredSnippets) {
+                getSnippet(snippet, null);
+            }
+            for (ResolvedJavaMethod original : getAllReplacements()) {
+                getSubstitution(original, true, -1);
+            }
+        }
+        if (graphStore.isDirty()) {
+            try {
+                graphStore.write();
+            } catch (IOException e) {
+                // the graphs are simply created again by the next VM run
+                TTY.println("Warning: could not write snippet graph store %s: %s", SnippetGraphStoreFile.getValue(), e);
+            }
+        }
+    }
+
+    /**
+     * Gets the graph for {@code method} from the {@link SnippetGraphStore} or creates it.
+     */
+    private StructuredGraph makeOrLoadGraph(ResolvedJavaMethod method, Object[] args, ResolvedJavaMethod original, ResolvedJavaMethod recursiveEntry) {
+        if (graphStore == null || args != null) {
+            return makeGraph(method, args, recursiveEntry != null ? recursiveEntry : original);
+        }
+        StructuredGraph graph = graphStore.lookup(method, original);
+        if (graph == null) {
+            graph = makeGraph(method, null, recursiveEntry != null ? recursiveEntry : original);
+            graphStore.record(method, original, graph);
+        }
+        return graph;
     }
 
     private static final boolean UseSnippetGraphCache = Boolean.parseBoolean(System.getProperty("graal.useSnippetGraphCache", "true"));
@@ -341,7 +422,7 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
         StructuredGraph graph = UseSnippetGraphCache ? graphs.get(method) : null;
         if (graph == null) {
             try (DebugCloseable a = SnippetPreparationTime.start()) {
-                StructuredGraph newGraph = makeGraph(method, args, recursiveEntry);
+                StructuredGraph newGraph = makeOrLoadGraph(method, args, null, recursiveEntry);
                 Debug.metric("SnippetNodeCount[%#s]", method).add(newGraph.getNodeCount());
                 if (!UseSnippetGraphCache || args != null) {
                     return newGraph;
@@ -356,6 +437,7 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
     @Override
     public void registerSnippet(ResolvedJavaMethod method) {
         // No initialization needed as snippet graphs are created on demand in getSnippet
+        registeredSnippets.add(method);
     }
 
     @Override
@@ -386,7 +468,7 @@ public class ReplacementsImpl implements Replacements, InlineInvokePlugin {
         }
         StructuredGraph graph = graphs.get(substitute);
         if (graph == null) {
-            graph = makeGraph(substitute, null, original);
+            graph = makeOrLoadGraph(substitute, null, original, null);
             graph.freeze();
             graphs.putIfAbsent(substitute, graph);
             graph = graphs.get(substitute);
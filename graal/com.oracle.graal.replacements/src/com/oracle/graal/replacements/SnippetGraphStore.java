@@ -0,0 +1,801 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.internal.jvmci.code.Architecture;
+import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.JavaConstant;
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.meta.MetaAccessProvider;
+import jdk.internal.jvmci.meta.PrimitiveConstant;
+import jdk.internal.jvmci.meta.ResolvedJavaField;
+import jdk.internal.jvmci.meta.ResolvedJavaMethod;
+import jdk.internal.jvmci.meta.ResolvedJavaType;
+import jdk.internal.jvmci.options.Option;
+import jdk.internal.jvmci.options.OptionType;
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.StableOptionValue;
+
+import com.oracle.graal.compiler.common.type.FloatStamp;
+import com.oracle.graal.compiler.common.type.IntegerStamp;
+import com.oracle.graal.compiler.common.type.ObjectStamp;
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.compiler.common.type.VoidStamp;
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodes.EncodedGraph;
+import com.oracle.graal.nodes.GraphDecoder;
+import com.oracle.graal.nodes.GraphEncoder;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.StructuredGraph;
+import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
+
+/**
+ * A file backed store of preprocessed snippet and method substitution graphs that survives VM
+ * restarts.
+ *
+ * Graphs are stored in the {@link GraphEncoder} format. The object table of an encoded graph is
+ * written symbolically: types, methods and fields by name, {@link NodeClass}es by their Java class,
+ * stamps and primitive constants by value and all other objects as a reference to a static final
+ * field that holds them (see {@link #registerKnownObjectHolder}). A graph whose object table
+ * contains an object that cannot be written this way (e.g., an object constant) is not stored and
+ * is always parsed.
+ *
+ * The file starts with a header containing a version string that identifies the VM and
+ * configuration that produced it. A file with a different version is ignored and overwritten. Each
+ * graph additionally records the classes it was built from (the declaring classes of the parsed
+ * and inlined methods and of the types, members and node classes it references) together with a
+ * digest of their class files. A graph whose classes changed since it was stored is parsed again.
+ * When a store is opened, only the index is read; the file is memory mapped and individual graphs
+ * are decoded on first request.
+ */
+public final class SnippetGraphStore {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File in which preprocessed snippet and method substitution graphs are kept between VM runs", type = OptionType.Expert)
+        public static final OptionValue<String> SnippetGraphStoreFile = new StableOptionValue<>(null);
+
+        @Option(help = "Create all registered snippet and method substitution graphs before the snippet graph store is written at VM exit", type = OptionType.Expert)
+        public static final OptionValue<Boolean> SnippetGraphStorePrepare = new StableOptionValue<>(false);
+        // @formatter:on
+    }
+
+    private static final int MAGIC = 0x534e5053;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final DebugMetric GraphsLoaded = Debug.metric("SnippetGraphStoreLoaded");
+    private static final DebugMetric GraphsRecorded = Debug.metric("SnippetGraphStoreRecorded");
+    private static final DebugMetric GraphsUnsupported = Debug.metric("SnippetGraphStoreUnsupported");
+
+    // @formatter:off
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_BOOLEAN = 2;
+    private static final byte TAG_BYTE = 3;
+    private static final byte TAG_SHORT = 4;
+    private static final byte TAG_CHAR = 5;
+    private static final byte TAG_INT = 6;
+    private static final byte TAG_LONG = 7;
+    private static final byte TAG_FLOAT = 8;
+    private static final byte TAG_DOUBLE = 9;
+    private static final byte TAG_INT_ARRAY = 10;
+    private static final byte TAG_DOUBLE_ARRAY = 11;
+    private static final byte TAG_ENUM = 12;
+    private static final byte TAG_TYPE = 13;
+    private static final byte TAG_METHOD = 14;
+    private static final byte TAG_FIELD = 15;
+    private static final byte TAG_NODE_CLASS = 16;
+    private static final byte TAG_INTEGER_STAMP = 17;
+    private static final byte TAG_FLOAT_STAMP = 18;
+    private static final byte TAG_OBJECT_STAMP = 19;
+    private static final byte TAG_VOID_STAMP = 20;
+    private static final byte TAG_PRIMITIVE_CONSTANT = 21;
+    private static final byte TAG_NULL_CONSTANT = 22;
+    private static final byte TAG_STATIC_FIELD = 23;
+    // @formatter:on
+
+    /**
+     * Thrown while writing an object table that contains an object with no symbolic form.
+     */
+    @SuppressWarnings("serial")
+    private static final class UnsupportedObjectException extends Exception {
+        UnsupportedObjectException(Object object) {
+            super(String.valueOf(object));
+        }
+    }
+
+    private final Path file;
+    private final String version;
+    private final MetaAccessProvider metaAccess;
+    private final Architecture architecture;
+
+    /**
+     * The mapped file contents or {@code null} if there was no valid file when this store was
+     * opened.
+     */
+    private final ByteBuffer mapped;
+
+    /**
+     * Index of the mapped file from key to the offset and length of the encoded graph.
+     */
+    private final Map<String, long[]> index = new ConcurrentHashMap<>();
+
+    /**
+     * Graphs created in this VM that are not in the mapped file.
+     */
+    private final Map<String, byte[]> recorded = new ConcurrentHashMap<>();
+
+    /**
+     * Maps objects held in static final fields of {@linkplain #registerKnownObjectHolder
+     * registered} classes to the name of the field.
+     */
+    private final Map<Object, String> knownObjects = new IdentityHashMap<>();
+
+    /**
+     * Digests of the class files of the classes stored graphs depend on, by class name.
+     */
+    private final Map<String, byte[]> classFileDigests = new ConcurrentHashMap<>();
+
+    private SnippetGraphStore(Path file, String version, MetaAccessProvider metaAccess, Architecture architecture, ByteBuffer mapped) {
+        this.file = file;
+        this.version = version;
+        this.metaAccess = metaAccess;
+        this.architecture = architecture;
+        this.mapped = mapped;
+        registerKnownObjectHolder(NamedLocationIdentity.class);
+        registerKnownObjectHolder(LocationIdentity.class);
+    }
+
+    /**
+     * Opens the store in {@code file}. If the file does not exist or was written with a different
+     * {@code version}, an empty store is returned that will replace the file when
+     * {@linkplain #write() written}.
+     */
+    public static SnippetGraphStore open(Path file, String version, MetaAccessProvider metaAccess, Architecture architecture) {
+        ByteBuffer mapped = null;
+        Map<String, long[]> index = null;
+        if (Files.isRegularFile(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                index = readIndex(buffer, version);
+                if (index != null) {
+                    mapped = buffer;
+                }
+            } catch (IOException e) {
+                // treat an unreadable file like a missing one
+            }
+        }
+        SnippetGraphStore store = new SnippetGraphStore(file, version, metaAccess, architecture, mapped);
+        if (index != null) {
+            store.index.putAll(index);
+        }
+        return store;
+    }
+
+    private static Map<String, long[]> readIndex(ByteBuffer buffer, String expectedVersion) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            return null;
+        }
+        int headerLength = buffer.getInt(8);
+        byte[] header = new byte[headerLength];
+        ByteBuffer view = buffer.duplicate();
+        view.position(12);
+        view.get(header);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        if (!in.readUTF().equals(expectedVersion)) {
+            return null;
+        }
+        long dataStart = 12 + headerLength;
+        int count = in.readInt();
+        Map<String, long[]> result = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            long offset = in.readLong();
+            long length = in.readInt();
+            result.put(key, new long[]{dataStart + offset, length});
+        }
+        return result;
+    }
+
+    /**
+     * Registers the objects held in the static final fields of {@code holder} so that they can be
+     * referenced from stored graphs.
+     */
+    public synchronized void registerKnownObjectHolder(Class<?> holder) {
+        for (Field field : holder.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) && !field.getType().isPrimitive()) {
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(null);
+                    if (value != null && !knownObjects.containsKey(value)) {
+                        knownObjects.put(value, holder.getName() + "#" + field.getName());
+                    }
+                } catch (IllegalAccessException | SecurityException e) {
+                    // not a candidate
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the key under which a graph for {@code method} is stored.
+     *
+     * @param original the method substituted by {@code method} or {@code null} for a snippet
+     */
+    public static String key(ResolvedJavaMethod method, ResolvedJavaMethod original) {
+        String key = method.format("%H.%n") + method.getSignature().toMethodDescriptor();
+        if (original != null) {
+            key += " for " + original.format("%H.%n") + original.getSignature().toMethodDescriptor();
+        }
+        return key;
+    }
+
+    /**
+     * Decodes the stored graph for {@code method} or returns {@code null} if there is none.
+     */
+    public StructuredGraph lookup(ResolvedJavaMethod method, ResolvedJavaMethod original) {
+        String key = key(method, original);
+        long[] location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        byte[] data = new byte[(int) location[1]];
+        ByteBuffer view = mapped.duplicate();
+        view.position((int) location[0]);
+        view.get(data);
+        EncodedGraph encodedGraph;
+        try {
+            encodedGraph = readEncodedGraph(data);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            encodedGraph = null;
+        }
+        if (encodedGraph == null) {
+            // an entry that is stale or can no longer be resolved is simply parsed again
+            index.remove(key);
+            return null;
+        }
+        StructuredGraph graph = new StructuredGraph(method, AllowAssumptions.NO);
+        graph.disableInlinedMethodRecording();
+        graph.disableUnsafeAccessTracking();
+        new GraphDecoder(architecture).decode(graph, encodedGraph);
+        GraphsLoaded.increment();
+        return graph;
+    }
+
+    /**
+     * Records {@code graph} so that it is included the next time this store is
+     * {@linkplain #write() written}.
+     *
+     * @return {@code false} if the graph references objects that cannot be stored
+     */
+    public boolean record(ResolvedJavaMethod method, ResolvedJavaMethod original, StructuredGraph graph) {
+        String key = key(method, original);
+        if (index.containsKey(key) || recorded.containsKey(key)) {
+            return true;
+        }
+        if (graph.getAssumptions() != null && !graph.getAssumptions().isEmpty()) {
+            GraphsUnsupported.increment();
+            return false;
+        }
+        registerKnownObjectHolder(ReplacementsImpl.resolveClass(method.getDeclaringClass().toJavaName(), false));
+        EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+        try {
+            recorded.put(key, writeEncodedGraph(encodedGraph, dependencies(method, original, graph, encodedGraph)));
+            GraphsRecorded.increment();
+            return true;
+        } catch (UnsupportedObjectException e) {
+            GraphsUnsupported.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if graphs were recorded that are not yet in the file.
+     */
+    public boolean isDirty() {
+        return !recorded.isEmpty();
+    }
+
+    /**
+     * Writes all stored and recorded graphs to the file. The file is replaced atomically.
+     */
+    public synchronized void write() throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        for (Map.Entry<String, long[]> e : index.entrySet()) {
+            long[] location = e.getValue();
+            byte[] data = new byte[(int) location[1]];
+            ByteBuffer view = mapped.duplicate();
+            view.position((int) location[0]);
+            view.get(data);
+            entries.put(e.getKey(), data);
+        }
+        entries.putAll(recorded);
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeUTF(version);
+        header.writeInt(entries.size());
+        long offset = 0;
+        for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+            header.writeUTF(e.getKey());
+            header.writeLong(offset);
+            header.writeInt(e.getValue().length);
+            offset += e.getValue().length;
+        }
+        header.flush();
+
+        Path parent = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            for (byte[] data : entries.values()) {
+                out.write(data);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the names of the classes whose class files determine the contents of {@code graph}.
+     */
+    private static Set<String> dependencies(ResolvedJavaMethod method, ResolvedJavaMethod original, StructuredGraph graph, EncodedGraph encodedGraph) {
+        Set<String> result = new TreeSet<>();
+        addDependency(result, method.getDeclaringClass());
+        if (original != null) {
+            addDependency(result, original.getDeclaringClass());
+        }
+        if (graph.getInlinedMethods() != null) {
+            for (ResolvedJavaMethod inlined : graph.getInlinedMethods()) {
+                addDependency(result, inlined.getDeclaringClass());
+            }
+        }
+        for (NodeClass<?> nodeClass : encodedGraph.getNodeClasses()) {
+            result.add(nodeClass.getJavaClass().getName());
+        }
+        for (Object object : encodedGraph.getObjects()) {
+            if (object instanceof ResolvedJavaType) {
+                addDependency(result, (ResolvedJavaType) object);
+            } else if (object instanceof ResolvedJavaMethod) {
+                addDependency(result, ((ResolvedJavaMethod) object).getDeclaringClass());
+            } else if (object instanceof ResolvedJavaField) {
+                addDependency(result, ((ResolvedJavaField) object).getDeclaringClass());
+            } else if (object instanceof NodeClass) {
+                result.add(((NodeClass<?>) object).getJavaClass().getName());
+            } else if (object instanceof Enum) {
+                result.add(((Enum<?>) object).getDeclaringClass().getName());
+            }
+        }
+        return result;
+    }
+
+    private static void addDependency(Set<String> dependencies, ResolvedJavaType type) {
+        ResolvedJavaType elementalType = type.getElementalType();
+        if (!elementalType.isPrimitive()) {
+            dependencies.add(elementalType.toJavaName());
+        }
+    }
+
+    /**
+     * Computes a digest over the class files of {@code classNames}.
+     */
+    private byte[] digest(Iterable<String> classNames) throws IOException {
+        MessageDigest digest = newDigest();
+        for (String className : classNames) {
+            byte[] classFileDigest = classFileDigests.get(className);
+            if (classFileDigest == null) {
+                classFileDigest = digestClassFile(className);
+                classFileDigests.put(className, classFileDigest);
+            }
+            digest.update(className.getBytes(StandardCharsets.UTF_8));
+            digest.update(classFileDigest);
+        }
+        return digest.digest();
+    }
+
+    private static byte[] digestClassFile(String className) throws IOException {
+        MessageDigest digest = newDigest();
+        Class<?> javaClass = ReplacementsImpl.resolveClass(className, true);
+        if (javaClass == null) {
+            // decoding a graph that references the class fails anyway
+            return new byte[0];
+        }
+        try (InputStream in = javaClass.getResourceAsStream("/" + className.replace('.', '/') + ".class")) {
+            if (in == null) {
+                // a class without a class file (e.g., a generated class) is identified by name only
+                return new byte[0];
+            }
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new JVMCIError(e);
+        }
+    }
+
+    private byte[] writeEncodedGraph(EncodedGraph encodedGraph, Set<String> dependencies) throws UnsupportedObjectException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(dependencies.size());
+            for (String className : dependencies) {
+                out.writeUTF(className);
+            }
+            byte[] digest = digest(dependencies);
+            out.writeInt(digest.length);
+            out.write(digest);
+            out.writeInt(encodedGraph.getEncoding().length);
+            out.write(encodedGraph.getEncoding());
+            out.writeLong(encodedGraph.getStartOffset());
+            NodeClass<?>[] nodeClasses = encodedGraph.getNodeClasses();
+            out.writeInt(nodeClasses.length);
+            for (NodeClass<?> nodeClass : nodeClasses) {
+                out.writeUTF(nodeClass.getJavaClass().getName());
+            }
+            Object[] objects = encodedGraph.getObjects();
+            out.writeInt(objects.length);
+            for (Object object : objects) {
+                writeObject(out, object);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new JVMCIError(e);
+        }
+    }
+
+    /**
+     * Reads an encoded graph written by {@link #writeEncodedGraph} or returns {@code null} if the
+     * class files it was built from have changed since.
+     */
+    private EncodedGraph readEncodedGraph(byte[] data) throws IOException, ReflectiveOperationException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        String[] dependencies = new String[in.readInt()];
+        for (int i = 0; i < dependencies.length; i++) {
+            dependencies[i] = in.readUTF();
+        }
+        byte[] expectedDigest = new byte[in.readInt()];
+        in.readFully(expectedDigest);
+        if (!Arrays.equals(expectedDigest, digest(Arrays.asList(dependencies)))) {
+            return null;
+        }
+        byte[] encoding = new byte[in.readInt()];
+        in.readFully(encoding);
+        long startOffset = in.readLong();
+        NodeClass<?>[] nodeClasses = new NodeClass<?>[in.readInt()];
+        for (int i = 0; i < nodeClasses.length; i++) {
+            nodeClasses[i] = NodeClass.get(ReplacementsImpl.resolveClass(in.readUTF(), false));
+        }
+        Object[] objects = new Object[in.readInt()];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = readObject(in);
+        }
+        return new EncodedGraph(encoding, startOffset, objects, nodeClasses, null, null);
+    }
+
+    private void writeObject(DataOutputStream out, Object object) throws IOException, UnsupportedObjectException {
+        if (object == null) {
+            out.writeByte(TAG_NULL);
+        } else if (object instanceof String) {
+            out.writeByte(TAG_STRING);
+            out.writeUTF((String) object);
+        } else if (object instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) object);
+        } else if (object instanceof Byte) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte((Byte) object);
+        } else if (object instanceof Short) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort((Short) object);
+        } else if (object instanceof Character) {
+            out.writeByte(TAG_CHAR);
+            out.writeChar((Character) object);
+        } else if (object instanceof Integer) {
+            out.writeByte(TAG_INT);
+            out.writeInt((Integer) object);
+        } else if (object instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) object);
+        } else if (object instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) object);
+        } else if (object instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) object);
+        } else if (object instanceof int[]) {
+            int[] array = (int[]) object;
+            out.writeByte(TAG_INT_ARRAY);
+            out.writeInt(array.length);
+            for (int value : array) {
+                out.writeInt(value);
+            }
+        } else if (object instanceof double[]) {
+            double[] array = (double[]) object;
+            out.writeByte(TAG_DOUBLE_ARRAY);
+            out.writeInt(array.length);
+            for (double value : array) {
+                out.writeDouble(value);
+            }
+        } else if (object instanceof Enum) {
+            Enum<?> e = (Enum<?>) object;
+            out.writeByte(TAG_ENUM);
+            out.writeUTF(e.getDeclaringClass().getName());
+            out.writeUTF(e.name());
+        } else if (object instanceof ResolvedJavaType) {
+            out.writeByte(TAG_TYPE);
+            out.writeUTF(((ResolvedJavaType) object).getName());
+        } else if (object instanceof ResolvedJavaMethod) {
+            ResolvedJavaMethod method = (ResolvedJavaMethod) object;
+            out.writeByte(TAG_METHOD);
+            out.writeUTF(method.getDeclaringClass().getName());
+            out.writeUTF(method.getName());
+            out.writeUTF(method.getSignature().toMethodDescriptor());
+        } else if (object instanceof ResolvedJavaField) {
+            ResolvedJavaField field = (ResolvedJavaField) object;
+            out.writeByte(TAG_FIELD);
+            out.writeUTF(field.getDeclaringClass().getName());
+            out.writeUTF(field.getName());
+            out.writeBoolean(field.isStatic());
+        } else if (object instanceof NodeClass) {
+            out.writeByte(TAG_NODE_CLASS);
+            out.writeUTF(((NodeClass<?>) object).getJavaClass().getName());
+        } else if (object.getClass() == IntegerStamp.class) {
+            IntegerStamp stamp = (IntegerStamp) object;
+            out.writeByte(TAG_INTEGER_STAMP);
+            out.writeInt(stamp.getBits());
+            out.writeLong(stamp.lowerBound());
+            out.writeLong(stamp.upperBound());
+            out.writeLong(stamp.downMask());
+            out.writeLong(stamp.upMask());
+        } else if (object.getClass() == FloatStamp.class) {
+            FloatStamp stamp = (FloatStamp) object;
+            out.writeByte(TAG_FLOAT_STAMP);
+            out.writeInt(stamp.getBits());
+            out.writeDouble(stamp.lowerBound());
+            out.writeDouble(stamp.upperBound());
+            out.writeBoolean(stamp.isNonNaN());
+        } else if (object.getClass() == ObjectStamp.class) {
+            ObjectStamp stamp = (ObjectStamp) object;
+            out.writeByte(TAG_OBJECT_STAMP);
+            out.writeUTF(stamp.type() == null ? "" : stamp.type().getName());
+            out.writeBoolean(stamp.isExactType());
+            out.writeBoolean(stamp.nonNull());
+            out.writeBoolean(stamp.alwaysNull());
+        } else if (object instanceof VoidStamp) {
+            out.writeByte(TAG_VOID_STAMP);
+        } else if (object instanceof PrimitiveConstant) {
+            PrimitiveConstant constant = (PrimitiveConstant) object;
+            out.writeByte(TAG_PRIMITIVE_CONSTANT);
+            out.writeChar(constant.getJavaKind().getTypeChar());
+            switch (constant.getJavaKind()) {
+                case Boolean:
+                    out.writeLong(constant.asBoolean() ? 1 : 0);
+                    break;
+                case Float:
+                    out.writeLong(Float.floatToRawIntBits(constant.asFloat()));
+                    break;
+                case Double:
+                    out.writeLong(Double.doubleToRawLongBits(constant.asDouble()));
+                    break;
+                case Long:
+                    out.writeLong(constant.asLong());
+                    break;
+                default:
+                    out.writeLong(constant.asInt());
+                    break;
+            }
+        } else if (object instanceof JavaConstant && ((JavaConstant) object).isNull() && ((JavaConstant) object).getJavaKind() == JavaKind.Object) {
+            out.writeByte(TAG_NULL_CONSTANT);
+        } else {
+            String fieldName;
+            synchronized (this) {
+                fieldName = knownObjects.get(object);
+            }
+            if (fieldName == null) {
+                throw new UnsupportedObjectException(object);
+            }
+            out.writeByte(TAG_STATIC_FIELD);
+            out.writeUTF(fieldName);
+        }
+    }
+
+    private Object readObject(DataInputStream in) throws IOException, ReflectiveOperationException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return in.readUTF();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_CHAR:
+                return in.readChar();
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_INT_ARRAY: {
+                int[] array = new int[in.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readInt();
+                }
+                return array;
+            }
+            case TAG_DOUBLE_ARRAY: {
+                double[] array = new double[in.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readDouble();
+                }
+                return array;
+            }
+            case TAG_ENUM: {
+                Class<?> enumClass = ReplacementsImpl.resolveClass(in.readUTF(), false);
+                String name = in.readUTF();
+                for (Object constant : enumClass.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equals(name)) {
+                        return constant;
+                    }
+                }
+                throw new NoSuchFieldException(enumClass.getName() + "." + name);
+            }
+            case TAG_TYPE:
+                return lookupType(in.readUTF());
+            case TAG_METHOD:
+                return lookupMethod(lookupType(in.readUTF()), in.readUTF(), in.readUTF());
+            case TAG_FIELD:
+                return lookupField(lookupType(in.readUTF()), in.readUTF(), in.readBoolean());
+            case TAG_NODE_CLASS:
+                return NodeClass.get(ReplacementsImpl.resolveClass(in.readUTF(), false));
+            case TAG_INTEGER_STAMP:
+                return new IntegerStamp(in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+            case TAG_FLOAT_STAMP:
+                return new FloatStamp(in.readInt(), in.readDouble(), in.readDouble(), in.readBoolean());
+            case TAG_OBJECT_STAMP: {
+                String typeName = in.readUTF();
+                return new ObjectStamp(typeName.isEmpty() ? null : lookupType(typeName), in.readBoolean(), in.readBoolean(), in.readBoolean());
+            }
+            case TAG_VOID_STAMP:
+                return StampFactory.forVoid();
+            case TAG_PRIMITIVE_CONSTANT: {
+                JavaKind kind = JavaKind.fromPrimitiveOrVoidTypeChar(in.readChar());
+                long raw = in.readLong();
+                switch (kind) {
+                    case Boolean:
+                        return JavaConstant.forBoolean(raw != 0);
+                    case Byte:
+                        return JavaConstant.forByte((byte) raw);
+                    case Short:
+                        return JavaConstant.forShort((short) raw);
+                    case Char:
+                        return JavaConstant.forChar((char) raw);
+                    case Int:
+                        return JavaConstant.forInt((int) raw);
+                    case Long:
+                        return JavaConstant.forLong(raw);
+                    case Float:
+                        return JavaConstant.forFloat(Float.intBitsToFloat((int) raw));
+                    case Double:
+                        return JavaConstant.forDouble(Double.longBitsToDouble(raw));
+                    default:
+                        throw new IOException("unexpected constant kind " + kind);
+                }
+            }
+            case TAG_NULL_CONSTANT:
+                return JavaConstant.NULL_POINTER;
+            case TAG_STATIC_FIELD: {
+                String name = in.readUTF();
+                int separator = name.indexOf('#');
+                Field field = ReplacementsImpl.resolveClass(name.substring(0, separator), false).getDeclaredField(name.substring(separator + 1));
+                field.setAccessible(true);
+                return field.get(null);
+            }
+            default:
+                throw new IOException("unknown tag " + tag);
+        }
+    }
+
+    private ResolvedJavaType lookupType(String internalName) {
+        Class<?> javaClass;
+        if (internalName.length() == 1) {
+            javaClass = JavaKind.fromPrimitiveOrVoidTypeChar(internalName.charAt(0)).toJavaClass();
+        } else if (internalName.charAt(0) == 'L') {
+            javaClass = ReplacementsImpl.resolveClass(internalName.substring(1, internalName.length() - 1).replace('/', '.'), false);
+        } else {
+            javaClass = ReplacementsImpl.resolveClass(internalName.replace('/', '.'), false);
+        }
+        return metaAccess.lookupJavaType(javaClass);
+    }
+
+    private static ResolvedJavaMethod lookupMethod(ResolvedJavaType type, String name, String descriptor) throws NoSuchMethodException {
+        for (ResolvedJavaMethod method : type.getDeclaredMethods()) {
+            if (method.getName().equals(name) && method.getSignature().toMethodDescriptor().equals(descriptor)) {
+                return method;
+            }
+        }
+        for (ResolvedJavaMethod method : type.getDeclaredConstructors()) {
+            if (method.getName().equals(name) && method.getSignature().toMethodDescriptor().equals(descriptor)) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(type.toJavaName() + "." + name + descriptor);
+    }
+
+    private static ResolvedJavaField lookupField(ResolvedJavaType type, String name, boolean isStatic) throws NoSuchFieldException {
+        for (ResolvedJavaField field : isStatic ? type.getStaticFields() : type.getInstanceFields(false)) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new NoSuchFieldException(type.toJavaName() + "." + name);
+    }
+}
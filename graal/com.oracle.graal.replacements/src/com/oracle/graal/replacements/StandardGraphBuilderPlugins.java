@@ -96,6 +96,10 @@ import com.oracle.graal.nodes.java.LoadFieldNode;
 import com.oracle.graal.nodes.java.RegisterFinalizerNode;
 import com.oracle.graal.nodes.util.GraphUtil;
 import com.oracle.graal.nodes.virtual.EnsureVirtualizedNode;
+import com.oracle.graal.replacements.nodes.ArrayFillNode;
+import com.oracle.graal.replacements.nodes.ArrayHashCodeNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+import com.oracle.graal.replacements.nodes.ArrayMismatchNode;
 import com.oracle.graal.replacements.nodes.DeferredPiNode;
 import com.oracle.graal.replacements.nodes.DirectReadNode;
 import com.oracle.graal.replacements.nodes.DirectStoreNode;
@@ -114,6 +118,9 @@ public class StandardGraphBuilderPlugins {
     static class Options {
         @Option(help = "Enable use of intrinsics for the JMH Blackhole class")
         public static final OptionValue<Boolean> UseBlackholeSubstitution = new OptionValue<>(true);
+
+        @Option(help = "Enable use of vectorized intrinsics for String.indexOf, String.compareTo, Arrays.fill and Arrays.hashCode")
+        public static final OptionValue<Boolean> UseVectorizedArrayIntrinsics = new OptionValue<>(true);
     }
     // @formatter:on
 
@@ -177,6 +184,45 @@ public class StandardGraphBuilderPlugins {
         r.registerMethodSubstitution(ArraysSubstitutions.class, "equals", double[].class, double[].class);
     }
 
+    /**
+     * Registers substitutions that use {@link ArrayIndexOfNode}, {@link ArrayMismatchNode},
+     * {@link ArrayHashCodeNode} and {@link ArrayFillNode}. Only backends that implement the
+     * corresponding LIR generator methods may call this.
+     */
+    public static void registerVectorizedArrayPlugins(InvocationPlugins plugins) {
+        if (!Options.UseVectorizedArrayIntrinsics.getValue()) {
+            return;
+        }
+        Registration r = new Registration(plugins, String.class);
+        r.registerMethodSubstitution(StringSubstitutions.class, "compareTo", Receiver.class, String.class);
+        r.registerMethodSubstitution(StringSubstitutions.class, "indexOf", Receiver.class, int.class);
+        r.registerMethodSubstitution(StringSubstitutions.class, "indexOf", Receiver.class, int.class, int.class);
+        r.registerMethodSubstitution(StringSubstitutions.class, "indexOf", Receiver.class, String.class);
+        r.registerMethodSubstitution(StringSubstitutions.class, "indexOf", Receiver.class, String.class, int.class);
+
+        r = new Registration(plugins, Arrays.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, double.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, int.class, int.class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, int.class, int.class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, int.class, int.class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, int.class, int.class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class, int.class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, int.class, int.class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, int.class, int.class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, int.class, int.class, double.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", byte[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", short[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", char[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", int[].class);
+    }
+
     private static void registerArrayPlugins(InvocationPlugins plugins) {
         Registration r = new Registration(plugins, Array.class);
         r.register2("newInstance", Class.class, int.class, new InvocationPlugin() {
@@ -26,6 +26,8 @@ import com.oracle.graal.compiler.common.SuppressFBWarnings;
 import com.oracle.graal.graphbuilderconf.InvocationPlugin;
 import com.oracle.graal.nodes.java.LoadFieldNode;
 import com.oracle.graal.replacements.nodes.ArrayEqualsNode;
+import com.oracle.graal.replacements.nodes.ArrayIndexOfNode;
+import com.oracle.graal.replacements.nodes.ArrayMismatchNode;
 
 // JaCoCo Exclude
 
@@ -56,6 +58,97 @@ public class StringSubstitutions {
         return ArrayEqualsNode.equals(array1, array2, array1.length);
     }
 
+    public static int compareTo(final String thisString, String anotherString) {
+        final char[] array1 = getValue(thisString);
+        final char[] array2 = getValue(anotherString);
+        final int length1 = array1.length;
+        final int length2 = array2.length;
+
+        int index = ArrayMismatchNode.mismatch(array1, 0, array2, 0, Math.min(length1, length2));
+        if (index >= 0) {
+            return array1[index] - array2[index];
+        }
+        return length1 - length2;
+    }
+
+    public static int indexOf(final String thisString, int ch) {
+        return indexOf(thisString, ch, 0);
+    }
+
+    public static int indexOf(final String thisString, int ch, int fromIndex) {
+        final char[] value = getValue(thisString);
+        final int max = value.length;
+        int from = fromIndex < 0 ? 0 : fromIndex;
+        if (from >= max) {
+            return -1;
+        }
+        if (ch < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            if (ch < 0) {
+                // no char is equal to a negative value
+                return -1;
+            }
+            return ArrayIndexOfNode.indexOf(value, from, max, (char) ch);
+        }
+        return indexOfSupplementary(value, ch, from, max);
+    }
+
+    /**
+     * Searches for the surrogate pair of a supplementary code point by searching for its high
+     * surrogate and checking the following char.
+     */
+    private static int indexOfSupplementary(char[] value, int ch, int fromIndex, int max) {
+        if (ch > Character.MAX_CODE_POINT) {
+            return -1;
+        }
+        final char hi = Character.highSurrogate(ch);
+        final char lo = Character.lowSurrogate(ch);
+        int i = fromIndex;
+        while (i < max - 1) {
+            i = ArrayIndexOfNode.indexOf(value, i, max - 1, hi);
+            if (i < 0) {
+                return -1;
+            }
+            if (value[i + 1] == lo) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    public static int indexOf(final String thisString, String str) {
+        return indexOf(thisString, str, 0);
+    }
+
+    public static int indexOf(final String thisString, String str, int fromIndex) {
+        final char[] source = getValue(thisString);
+        final char[] target = getValue(str);
+        final int sourceCount = source.length;
+        final int targetCount = target.length;
+        if (fromIndex >= sourceCount) {
+            return targetCount == 0 ? sourceCount : -1;
+        }
+        int i = fromIndex < 0 ? 0 : fromIndex;
+        if (targetCount == 0) {
+            return i;
+        }
+
+        // search for the first char and compare the rest only at its occurrences
+        final char first = target[0];
+        final int max = sourceCount - targetCount;
+        while (i <= max) {
+            i = ArrayIndexOfNode.indexOf(source, i, max + 1, first);
+            if (i < 0) {
+                return -1;
+            }
+            if (ArrayMismatchNode.mismatch(source, i + 1, target, 1, targetCount - 1) < 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
     /**
      * Will be intrinsified with an {@link InvocationPlugin} to a {@link LoadFieldNode}.
      */
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.meta.Value;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+// JaCoCo Exclude
+
+/**
+ * Returns the index of the first occurrence of a value in an array region, or -1 if the value does
+ * not occur. No null or bounds checks are performed.
+ */
+@NodeInfo
+public final class ArrayIndexOfNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<ArrayIndexOfNode> TYPE = NodeClass.create(ArrayIndexOfNode.class);
+    /** {@link JavaKind} of the array elements. */
+    protected final JavaKind kind;
+
+    /** The array to search. */
+    @Input ValueNode array;
+
+    /** Index of the first element to search. */
+    @Input ValueNode fromIndex;
+
+    /** Index after the last element to search. */
+    @Input ValueNode length;
+
+    /** The value to search for. */
+    @Input ValueNode value;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public ArrayIndexOfNode(ValueNode array, ValueNode fromIndex, ValueNode length, ValueNode value, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forInteger(32, -1, Integer.MAX_VALUE));
+        this.kind = kind;
+        this.array = array;
+        this.fromIndex = fromIndex;
+        this.length = length;
+        this.value = value;
+    }
+
+    @NodeIntrinsic
+    public static native int indexOf(Object array, int fromIndex, int length, int value, @ConstantNodeParameter JavaKind kind);
+
+    /**
+     * Returns the smallest {@code k} in {@code [fromIndex, length)} with {@code array[k] == value},
+     * or -1 if there is none.
+     */
+    public static int indexOf(byte[] array, int fromIndex, int length, byte value) {
+        return indexOf(array, fromIndex, length, value, JavaKind.Byte);
+    }
+
+    /**
+     * Returns the smallest {@code k} in {@code [fromIndex, length)} with {@code array[k] == value},
+     * or -1 if there is none.
+     */
+    public static int indexOf(char[] array, int fromIndex, int length, char value) {
+        return indexOf(array, fromIndex, length, value, JavaKind.Char);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayIndexOf(kind, gen.operand(array), gen.operand(fromIndex), gen.operand(length), gen.operand(value));
+        gen.setResult(this, result);
+    }
+
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
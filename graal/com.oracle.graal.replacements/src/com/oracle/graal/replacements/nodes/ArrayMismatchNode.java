@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.replacements.nodes;
+
+import jdk.internal.jvmci.meta.JavaKind;
+import jdk.internal.jvmci.meta.LocationIdentity;
+import jdk.internal.jvmci.meta.Value;
+
+import com.oracle.graal.compiler.common.type.StampFactory;
+import com.oracle.graal.graph.NodeClass;
+import com.oracle.graal.nodeinfo.InputType;
+import com.oracle.graal.nodeinfo.NodeInfo;
+import com.oracle.graal.nodes.FixedWithNextNode;
+import com.oracle.graal.nodes.NamedLocationIdentity;
+import com.oracle.graal.nodes.ValueNode;
+import com.oracle.graal.nodes.ValueNodeUtil;
+import com.oracle.graal.nodes.memory.MemoryAccess;
+import com.oracle.graal.nodes.memory.MemoryNode;
+import com.oracle.graal.nodes.spi.LIRLowerable;
+import com.oracle.graal.nodes.spi.NodeLIRBuilderTool;
+
+// JaCoCo Exclude
+
+/**
+ * Returns the relative index of the first element at which two array regions of the same length
+ * differ, or -1 if the regions are equal. The elements are compared bitwise. No null or bounds
+ * checks are performed.
+ */
+@NodeInfo
+public final class ArrayMismatchNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<ArrayMismatchNode> TYPE = NodeClass.create(ArrayMismatchNode.class);
+    /** {@link JavaKind} of the arrays to compare. */
+    protected final JavaKind kind;
+
+    @Input ValueNode array1;
+    @Input ValueNode offset1;
+    @Input ValueNode array2;
+    @Input ValueNode offset2;
+
+    /** Length of both regions. */
+    @Input ValueNode length;
+
+    @OptionalInput(InputType.Memory) MemoryNode lastLocationAccess;
+
+    public ArrayMismatchNode(ValueNode array1, ValueNode offset1, ValueNode array2, ValueNode offset2, ValueNode length, @ConstantNodeParameter JavaKind kind) {
+        super(TYPE, StampFactory.forInteger(32, -1, Integer.MAX_VALUE));
+        this.kind = kind;
+        this.array1 = array1;
+        this.offset1 = offset1;
+        this.array2 = array2;
+        this.offset2 = offset2;
+        this.length = length;
+    }
+
+    @NodeIntrinsic
+    public static native int mismatch(Object array1, int offset1, Object array2, int offset2, int length, @ConstantNodeParameter JavaKind kind);
+
+    public static int mismatch(byte[] array1, int offset1, byte[] array2, int offset2, int length) {
+        return mismatch(array1, offset1, array2, offset2, length, JavaKind.Byte);
+    }
+
+    public static int mismatch(char[] array1, int offset1, char[] array2, int offset2, int length) {
+        return mismatch(array1, offset1, array2, offset2, length, JavaKind.Char);
+    }
+
+    public static int mismatch(short[] array1, int offset1, short[] array2, int offset2, int length) {
+        return mismatch(array1, offset1, array2, offset2, length, JavaKind.Short);
+    }
+
+    public static int mismatch(int[] array1, int offset1, int[] array2, int offset2, int length) {
+        return mismatch(array1, offset1, array2, offset2, length, JavaKind.Int);
+    }
+
+    public static int mismatch(long[] array1, int offset1, long[] array2, int offset2, int length) {
+        return mismatch(array1, offset1, array2, offset2, length, JavaKind.Long);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayMismatch(kind, gen.operand(array1), gen.operand(offset1), gen.operand(array2), gen.operand(offset2), gen.operand(length));
+        gen.setResult(this, result);
+    }
+
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+
+    public MemoryNode getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    public void setLastLocationAccess(MemoryNode lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
@@ -29,6 +29,7 @@ import static com.oracle.graal.hotspot.meta.HotSpotSuitesProvider.withSimpleDebu
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TraceTruffleStackTraceLimit;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TraceTruffleTransferToInterpreter;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationQueuePriority;
 import static com.oracle.graal.truffle.hotspot.UnsafeAccess.UNSAFE;
 import static jdk.internal.jvmci.code.CodeUtil.getCallingConvention;
 import static jdk.internal.jvmci.hotspot.CompilerToVM.compilerToVM;
@@ -45,6 +46,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -96,6 +98,7 @@ import com.oracle.graal.truffle.DefaultTruffleCompiler;
 import com.oracle.graal.truffle.GraalTruffleRuntime;
 import com.oracle.graal.truffle.InterpreterOnlyCompilationPolicy;
 import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.PriorityCompilationQueue;
 import com.oracle.graal.truffle.TruffleCallBoundary;
 import com.oracle.graal.truffle.TruffleCompiler;
 import com.oracle.graal.truffle.TruffleCompilerOptions;
@@ -119,6 +122,7 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
 
     private Map<OptimizedCallTarget, Future<?>> compilations = newIdentityMap();
     private final ExecutorService compileQueue;
+    private final PriorityCompilationQueue priorityQueue;
 
     private final Map<RootCallTarget, Void> callTargets = Collections.synchronizedMap(new WeakHashMap<RootCallTarget, Void>());
 
@@ -151,7 +155,13 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
             }
         }
         selectedProcessors = Math.max(1, selectedProcessors);
-        compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+        if (TruffleCompilationQueuePriority.getValue()) {
+            priorityQueue = new PriorityCompilationQueue(this);
+            compileQueue = new ThreadPoolExecutor(selectedProcessors, selectedProcessors, 0L, TimeUnit.MILLISECONDS, priorityQueue, factory);
+        } else {
+            priorityQueue = null;
+            compileQueue = Executors.newFixedThreadPool(selectedProcessors, factory);
+        }
     }
 
     @Override
@@ -284,7 +294,14 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
                 doCompile(optimizedCallTarget);
             }
         };
-        Future<?> future = compileQueue.submit(r);
+        Future<?> future;
+        if (priorityQueue != null) {
+            PriorityCompilationQueue.Task task = PriorityCompilationQueue.createTask(optimizedCallTarget, r, !mayBeAsynchronous);
+            compileQueue.execute(task);
+            future = task;
+        } else {
+            future = compileQueue.submit(r);
+        }
         this.compilations.put(optimizedCallTarget, future);
         getCompilationNotify().notifyCompilationQueued(optimizedCallTarget);
 
@@ -335,6 +352,11 @@ public final class HotSpotTruffleRuntime extends GraalTruffleRuntime {
         return compilations.keySet().stream().filter(e -> !compilations.get(e).isDone()).collect(Collectors.toList());
     }
 
+    @Override
+    public PriorityCompilationQueue getCompilationQueue() {
+        return priorityQueue;
+    }
+
     @Override
     public boolean isCompiling(OptimizedCallTarget optimizedCallTarget) {
         Future<?> codeTask = this.compilations.get(optimizedCallTarget);
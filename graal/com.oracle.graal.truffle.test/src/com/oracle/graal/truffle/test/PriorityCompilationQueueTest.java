@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.oracle.graal.truffle.GraalTruffleRuntime;
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.PriorityCompilationQueue;
+import com.oracle.graal.truffle.test.nodes.ConstantTestNode;
+import com.oracle.graal.truffle.test.nodes.RootTestNode;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+
+public class PriorityCompilationQueueTest {
+
+    private static final Runnable NOP = () -> {
+    };
+
+    private static OptimizedCallTarget createTarget(String name) {
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(new RootTestNode(new FrameDescriptor(), name, new ConstantTestNode(42)));
+    }
+
+    private static PriorityCompilationQueue createQueue() {
+        return new PriorityCompilationQueue((GraalTruffleRuntime) Truffle.getRuntime());
+    }
+
+    @Test
+    public void testHottestFirst() {
+        PriorityCompilationQueue queue = createQueue();
+        OptimizedCallTarget cold = createTarget("cold");
+        OptimizedCallTarget hot = createTarget("hot");
+        cold.reportLoopCount(10);
+        hot.reportLoopCount(100);
+
+        PriorityCompilationQueue.Task coldTask = PriorityCompilationQueue.createTask(cold, NOP, false);
+        PriorityCompilationQueue.Task hotTask = PriorityCompilationQueue.createTask(hot, NOP, false);
+        queue.offer(coldTask);
+        queue.offer(hotTask);
+        assertEquals(2, queue.size());
+
+        assertSame(hotTask, queue.poll());
+        assertSame(coldTask, queue.poll());
+        assertNull(queue.poll());
+        assertEquals(2, queue.getDequeuedCount());
+    }
+
+    @Test
+    public void testReprioritize() {
+        PriorityCompilationQueue queue = createQueue();
+        OptimizedCallTarget first = createTarget("first");
+        OptimizedCallTarget second = createTarget("second");
+        first.reportLoopCount(100);
+        second.reportLoopCount(10);
+
+        PriorityCompilationQueue.Task firstTask = PriorityCompilationQueue.createTask(first, NOP, false);
+        PriorityCompilationQueue.Task secondTask = PriorityCompilationQueue.createTask(second, NOP, false);
+        queue.offer(firstTask);
+        queue.offer(secondTask);
+
+        // second becomes hot while waiting in the queue
+        second.reportLoopCount(100000);
+        assertSame(secondTask, queue.poll());
+        assertSame(firstTask, queue.poll());
+    }
+
+    @Test
+    public void testSynchronousFirst() {
+        PriorityCompilationQueue queue = createQueue();
+        OptimizedCallTarget hot = createTarget("hot");
+        OptimizedCallTarget sync = createTarget("sync");
+        hot.reportLoopCount(100000);
+
+        PriorityCompilationQueue.Task hotTask = PriorityCompilationQueue.createTask(hot, NOP, false);
+        PriorityCompilationQueue.Task syncTask = PriorityCompilationQueue.createTask(sync, NOP, true);
+        queue.offer(hotTask);
+        queue.offer(syncTask);
+        assertSame(syncTask, queue.poll());
+        assertSame(hotTask, queue.poll());
+    }
+
+    @Test
+    public void testCancelledDropped() {
+        PriorityCompilationQueue queue = createQueue();
+        OptimizedCallTarget target = createTarget("cancelled");
+        PriorityCompilationQueue.Task task = PriorityCompilationQueue.createTask(target, NOP, false);
+        queue.offer(task);
+        task.cancel(false);
+
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+    }
+
+    @Test
+    public void testPeekSkipsCancelled() {
+        PriorityCompilationQueue queue = createQueue();
+        OptimizedCallTarget hot = createTarget("hot");
+        OptimizedCallTarget cold = createTarget("cold");
+        hot.reportLoopCount(100000);
+
+        PriorityCompilationQueue.Task hotTask = PriorityCompilationQueue.createTask(hot, NOP, false);
+        PriorityCompilationQueue.Task coldTask = PriorityCompilationQueue.createTask(cold, NOP, false);
+        queue.offer(hotTask);
+        queue.offer(coldTask);
+        hotTask.cancel(false);
+
+        assertSame(coldTask, queue.peek());
+        assertSame(coldTask, queue.poll());
+        assertNull(queue.peek());
+    }
+}
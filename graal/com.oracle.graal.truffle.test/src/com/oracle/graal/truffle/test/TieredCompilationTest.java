@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2015, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle.test;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleBackgroundCompilation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMinInvokeThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleSecondTierCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTieredCompilation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTimeThreshold;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.graal.truffle.OptimizedCallTarget;
+import com.oracle.graal.truffle.TruffleCompilerOptions;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+/**
+ * {@link TruffleCompilerOptions#TruffleTieredCompilation} is stable, so the tiered tests only run
+ * with {@code -G:+TruffleTieredCompilation} and the non-tiered test only without it.
+ */
+public class TieredCompilationTest {
+
+    private static final int FIRST_TIER_THRESHOLD = 10;
+    private static final int SECOND_TIER_THRESHOLD = 20;
+    private static final int MAX_CALLS = 10000;
+
+    private static OverrideScope overrideOptions() {
+        Map<OptionValue<?>, Object> overrides = new HashMap<>();
+        overrides.put(TruffleFirstTierCompilationThreshold, FIRST_TIER_THRESHOLD);
+        overrides.put(TruffleSecondTierCompilationThreshold, SECOND_TIER_THRESHOLD);
+        overrides.put(TruffleCompilationThreshold, FIRST_TIER_THRESHOLD);
+        overrides.put(TruffleMinInvokeThreshold, 1);
+        overrides.put(TruffleTimeThreshold, Integer.MAX_VALUE);
+        overrides.put(TruffleBackgroundCompilation, false);
+        overrides.put(TruffleCompilationExceptionsAreThrown, true);
+        return OptionValue.override(overrides);
+    }
+
+    private static OptimizedCallTarget createCallTarget() {
+        RootNode rootNode = new RootNode(MockLanguage.class, null, null) {
+            @Override
+            public Object execute(VirtualFrame frame) {
+                return 42;
+            }
+        };
+        return (OptimizedCallTarget) Truffle.getRuntime().createCallTarget(rootNode);
+    }
+
+    private static void callUntilCompiled(OptimizedCallTarget target) {
+        for (int i = 0; i < MAX_CALLS && !target.isValid(); i++) {
+            assertEquals(42, target.call());
+        }
+        assertTrue("call target was not compiled", target.isValid());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testFirstTierInstalled() {
+        Assume.assumeTrue(TruffleTieredCompilation.getValue());
+        try (OverrideScope s = overrideOptions()) {
+            OptimizedCallTarget target = createCallTarget();
+            callUntilCompiled(target);
+            assertTrue(target.isFirstTierCompilation());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testPromotionToSecondTier() {
+        Assume.assumeTrue(TruffleTieredCompilation.getValue());
+        try (OverrideScope s = overrideOptions()) {
+            OptimizedCallTarget target = createCallTarget();
+            callUntilCompiled(target);
+            assertTrue(target.isFirstTierCompilation());
+
+            for (int i = 0; i < SECOND_TIER_THRESHOLD - 1; i++) {
+                assertEquals(42, target.call());
+            }
+            assertTrue("promoted before the second tier threshold", target.isFirstTierCompilation());
+            for (int i = 0; i < MAX_CALLS && target.isFirstTierCompilation(); i++) {
+                assertEquals(42, target.call());
+            }
+            assertFalse("not promoted to the second tier", target.isFirstTierCompilation());
+            assertTrue(target.isValid());
+
+            // after an invalidation, the second tier is compiled directly
+            target.invalidate();
+            assertFalse(target.isValid());
+            callUntilCompiled(target);
+            assertFalse(target.isFirstTierCompilation());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testTieringDisabled() {
+        Assume.assumeFalse(TruffleTieredCompilation.getValue());
+        try (OverrideScope s = overrideOptions()) {
+            OptimizedCallTarget target = createCallTarget();
+            callUntilCompiled(target);
+            assertFalse(target.isFirstTierCompilation());
+
+            for (int i = 0; i < 2 * SECOND_TIER_THRESHOLD; i++) {
+                assertEquals(42, target.call());
+            }
+            assertTrue(target.isValid());
+            assertFalse(target.isFirstTierCompilation());
+        }
+    }
+}
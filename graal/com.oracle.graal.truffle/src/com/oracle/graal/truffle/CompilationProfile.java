@@ -23,9 +23,11 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleFirstTierCompilationThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleInvalidationReprofileCount;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleMinInvokeThreshold;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReplaceReprofileCount;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTieredCompilation;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -47,7 +49,7 @@ public class CompilationProfile {
 
     public CompilationProfile() {
         compilationCallThreshold = TruffleMinInvokeThreshold.getValue();
-        compilationCallAndLoopThreshold = TruffleCompilationThreshold.getValue();
+        compilationCallAndLoopThreshold = getCompilationThreshold();
     }
 
     @Override
@@ -157,6 +159,14 @@ public class CompilationProfile {
     }
 
     private static int getTimestampThreshold() {
-        return Math.max(TruffleCompilationThreshold.getValue() / 2, 1);
+        return Math.max(getCompilationThreshold() / 2, 1);
+    }
+
+    /**
+     * With tiered compilation the interpreter only needs to warm up a call target for the cheap
+     * first tier, the second tier is triggered from first tier code.
+     */
+    private static int getCompilationThreshold() {
+        return TruffleTieredCompilation.getValue() ? TruffleFirstTierCompilationThreshold.getValue() : TruffleCompilationThreshold.getValue();
     }
 }
@@ -22,10 +22,16 @@
  */
 package com.oracle.graal.truffle;
 
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTieredCompilation;
+
 import java.util.ListIterator;
 
+import jdk.internal.jvmci.options.OptionValue;
+import jdk.internal.jvmci.options.OptionValue.OverrideScope;
+
 import com.oracle.graal.api.replacements.SnippetReflectionProvider;
 import com.oracle.graal.api.runtime.Graal;
+import com.oracle.graal.compiler.GraalCompiler;
 import com.oracle.graal.compiler.target.Backend;
 import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import com.oracle.graal.java.GraphBuilderPhase;
@@ -42,13 +48,27 @@ public final class DefaultTruffleCompiler extends TruffleCompiler {
         Backend backend = Graal.getRequiredCapability(RuntimeProvider.class).getHostBackend();
         Suites suites = backend.getSuites().getDefaultSuites();
         LIRSuites lirSuites = backend.getSuites().getDefaultLIRSuites();
+        Suites firstTierSuites = TruffleTieredCompilation.getValue() ? createFirstTierSuites(backend) : suites;
         GraphBuilderPhase phase = (GraphBuilderPhase) backend.getSuites().getDefaultGraphBuilderSuite().findPhase(GraphBuilderPhase.class).previous();
         Plugins plugins = phase.getGraphBuilderConfig().getPlugins();
-        return new DefaultTruffleCompiler(plugins, suites, lirSuites, backend);
+        return new DefaultTruffleCompiler(plugins, suites, lirSuites, firstTierSuites, lirSuites, backend);
+    }
+
+    /**
+     * Creates the suites of the first compilation tier. They are created by the backend so that
+     * all phases required for correctness (e.g., write barriers) are present, but with the
+     * optional, expensive optimizations disabled. Partial evaluation already performs escape
+     * analysis of the frame, and the first tier does not inline.
+     */
+    @SuppressWarnings("try")
+    private static Suites createFirstTierSuites(Backend backend) {
+        try (OverrideScope s = OptionValue.override(GraalCompiler.getReducedOptimizationOverrides())) {
+            return backend.getSuites().createSuites();
+        }
     }
 
-    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend) {
-        super(plugins, suites, lirSuites, backend);
+    private DefaultTruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend) {
+        super(plugins, suites, lirSuites, firstTierSuites, firstTierLirSuites, backend);
     }
 
     @Override
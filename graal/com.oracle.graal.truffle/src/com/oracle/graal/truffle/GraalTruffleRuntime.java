@@ -305,6 +305,14 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime {
 
     public abstract Collection<OptimizedCallTarget> getQueuedCallTargets();
 
+    /**
+     * Gets the hotness ordered compilation queue of this runtime or {@code null} if compilations
+     * are processed in submission order.
+     */
+    public PriorityCompilationQueue getCompilationQueue() {
+        return null;
+    }
+
     public abstract void compile(OptimizedCallTarget optimizedCallTarget, boolean mayBeAsynchronous);
 
     @SuppressWarnings("try")
@@ -29,6 +29,8 @@ import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilation
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsArePrinted;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
 import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleReturnTypeSpeculation;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleSecondTierCompilationThreshold;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleTieredCompilation;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -54,6 +56,7 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.CompilerOptions;
 import com.oracle.truffle.api.ExecutionContext;
 import com.oracle.truffle.api.LoopCountReceiver;
@@ -101,6 +104,21 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     private int cachedNonTrivialNodeCount = -1;
     private boolean compiling;
 
+    /**
+     * Set while this call target is compiled or installed with the first tier of
+     * {@linkplain TruffleCompilerOptions#TruffleTieredCompilation tiered compilation}. First tier
+     * code counts its calls and requests the second tier once it stays hot. This is not a
+     * compilation constant since it changes while first tier code is still installed.
+     */
+    private boolean firstTierCompilation;
+    private boolean secondTierReached;
+    /**
+     * Like the interpreter call counts of the {@link CompilationProfile}, this counter is not
+     * updated atomically. Increments lost to concurrent calls only delay the promotion to the
+     * second tier.
+     */
+    private int firstTierCallCount;
+
     /**
      * When this call target is inlined, the inlining {@link InstalledCode} registers this
      * assumption. It gets invalidated when a node rewriting is performed. This ensures that all
@@ -298,6 +316,10 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     }
 
     public final Object callRoot(Object[] originalArguments) {
+        if (firstTierCompilation && CompilerDirectives.inCompiledCode()) {
+            firstTierCall();
+        }
+
         Object[] args = originalArguments;
         if (this.profiledArgumentTypesAssumption != null && CompilerDirectives.inCompiledCode() && profiledArgumentTypesAssumption.isValid()) {
             args = FrameWithoutBoxing.unsafeCast(castArrayFixedLength(args, profiledArgumentTypes.length), Object[].class, true, true);
@@ -367,12 +389,45 @@ public class OptimizedCallTarget extends InstalledCode implements RootCallTarget
     }
 
     public final void compile() {
+        compile(TruffleTieredCompilation.getValue() && !secondTierReached);
+    }
+
+    private void compile(boolean firstTier) {
         if (!isCompiling()) {
             compiling = true;
+            firstTierCompilation = firstTier;
+            firstTierCallCount = 0;
             runtime.compile(this, TruffleBackgroundCompilation.getValue() && !TruffleCompilationExceptionsAreThrown.getValue());
         }
     }
 
+    /**
+     * Returns whether the current or last compilation of this call target uses the fast first
+     * tier, i.e., no inlining of other call targets and a reduced set of optimizations.
+     */
+    public final boolean isFirstTierCompilation() {
+        return firstTierCompilation;
+    }
+
+    private void firstTierCall() {
+        if (++firstTierCallCount >= TruffleSecondTierCompilationThreshold.getValue()) {
+            secondTierCall();
+        }
+    }
+
+    /**
+     * Called from first tier code once it got hot. The first tier code stays installed until the
+     * second tier replaces it. Once a call target reached the second tier, recompilations after
+     * an invalidation go to the second tier directly.
+     */
+    @TruffleBoundary
+    private void secondTierCall() {
+        if (!isCompiling()) {
+            secondTierReached = true;
+            compile(false);
+        }
+    }
+
     public void notifyCompilationFailed(Throwable t) {
         if (t instanceof BailoutException && !((BailoutException) t).isPermanent()) {
             /*
@@ -23,6 +23,8 @@
 package com.oracle.graal.truffle;
 
 import static com.oracle.graal.truffle.TruffleCompilerOptions.PrintTruffleExpansionHistogram;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleEncodedGraphCache;
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleEncodedGraphCacheSize;
 
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayDeque;
@@ -35,6 +37,7 @@ import java.util.Map;
 
 import jdk.internal.jvmci.code.Architecture;
 import jdk.internal.jvmci.common.JVMCIError;
+import jdk.internal.jvmci.meta.Assumptions.Assumption;
 import jdk.internal.jvmci.meta.JavaConstant;
 import jdk.internal.jvmci.meta.JavaKind;
 import jdk.internal.jvmci.meta.JavaType;
@@ -60,6 +63,7 @@ import com.oracle.graal.graphbuilderconf.ParameterPlugin;
 import com.oracle.graal.java.ComputeLoopFrequenciesClosure;
 import com.oracle.graal.java.GraphBuilderPhase;
 import com.oracle.graal.nodes.ConstantNode;
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.nodes.StructuredGraph.AllowAssumptions;
 import com.oracle.graal.nodes.ValueNode;
@@ -116,6 +120,12 @@ public class PartialEvaluator {
     private final GraphBuilderConfiguration configForParsing;
     private final InvocationPlugins decodingInvocationPlugins;
 
+    /**
+     * Encoded graphs of parsed interpreter methods shared by all compilations. Only graphs parsed
+     * with {@link #configForParsing} and assumptions allowed are cached.
+     */
+    private final EncodedGraphCache encodedGraphCache;
+
     public PartialEvaluator(Providers providers, GraphBuilderConfiguration configForRoot, SnippetReflectionProvider snippetReflection, Architecture architecture) {
         this.providers = providers;
         this.architecture = architecture;
@@ -134,6 +144,37 @@ public class PartialEvaluator {
         this.configForPartialEvaluation = createGraphBuilderConfig(configForRoot, false);
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins();
+        if (TruffleEncodedGraphCache.getValue()) {
+            long capacity = TruffleEncodedGraphCacheSize.getValue() * 1024L * 1024L;
+            this.encodedGraphCache = new EncodedGraphCache("TruffleEncodedGraphCache", capacity, PartialEvaluator::isAssumptionValid);
+        } else {
+            this.encodedGraphCache = null;
+        }
+    }
+
+    private static boolean isAssumptionValid(Assumption assumption) {
+        if (assumption instanceof AssumptionValidAssumption) {
+            return ((AssumptionValidAssumption) assumption).getAssumption().isValid();
+        }
+        return EncodedGraphCache.isStillValid(assumption);
+    }
+
+    /**
+     * Gets the cache of encoded graphs shared by all compilations or {@code null} if sharing is
+     * disabled.
+     */
+    public EncodedGraphCache getEncodedGraphCache() {
+        return encodedGraphCache;
+    }
+
+    /**
+     * Removes all shared graphs that depend on assumptions. Called when a compilation failed
+     * because its dependencies were invalidated, e.g., by class loading or class redefinition.
+     */
+    public void invalidateAssumptionDependentGraphs() {
+        if (encodedGraphCache != null) {
+            encodedGraphCache.invalidateAssumptionDependents();
+        }
     }
 
     public Providers getProviders() {
@@ -336,7 +377,7 @@ public class PartialEvaluator {
         newConfig.setUseProfiling(false);
         Plugins plugins = newConfig.getPlugins();
         plugins.prependParameterPlugin(new InterceptReceiverPlugin(callTarget));
-        callTarget.setInlining(new TruffleInlining(callTarget, new DefaultInliningPolicy()));
+        callTarget.setInlining(new TruffleInlining(callTarget, createInliningPolicy(callTarget)));
         plugins.setLoopExplosionPlugin(new PELoopExplosionPlugin());
 
         ReplacementsImpl replacements = (ReplacementsImpl) providers.getReplacements();
@@ -356,6 +397,13 @@ public class PartialEvaluator {
         }
     }
 
+    protected TruffleInliningPolicy createInliningPolicy(OptimizedCallTarget callTarget) {
+        if (callTarget.isFirstTierCompilation()) {
+            return new FirstTierInliningPolicy();
+        }
+        return new DefaultInliningPolicy();
+    }
+
     protected PEGraphDecoder createGraphDecoder(StructuredGraph graph) {
         GraphBuilderConfiguration newConfig = configForParsing.copy();
         InvocationPlugins parsingInvocationPlugins = newConfig.getPlugins().getInvocationPlugins();
@@ -368,15 +416,19 @@ public class PartialEvaluator {
         plugins.clearInlineInvokePlugins();
         plugins.appendInlineInvokePlugin(replacements);
         plugins.appendInlineInvokePlugin(new ParsingInlineInvokePlugin(replacements, parsingInvocationPlugins, loopExplosionPlugin));
+        EncodedGraphCache sharedGraphCache = null;
         if (!PrintTruffleExpansionHistogram.getValue()) {
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
+            if (graph.getAssumptions() != null) {
+                sharedGraphCache = encodedGraphCache;
+            }
         }
 
-        return new CachingPEGraphDecoder(providers, newConfig, TruffleCompiler.Optimizations, AllowAssumptions.from(graph.getAssumptions() != null), architecture);
+        return new CachingPEGraphDecoder(providers, newConfig, TruffleCompiler.Optimizations, AllowAssumptions.from(graph.getAssumptions() != null), architecture, sharedGraphCache);
     }
 
     protected void doGraphPE(OptimizedCallTarget callTarget, StructuredGraph graph) {
-        callTarget.setInlining(new TruffleInlining(callTarget, new DefaultInliningPolicy()));
+        callTarget.setInlining(new TruffleInlining(callTarget, createInliningPolicy(callTarget)));
 
         PEGraphDecoder decoder = createGraphDecoder(graph);
 
@@ -447,8 +499,10 @@ public class PartialEvaluator {
             }
         }
 
-        // Perform conditional elimination.
-        new DominatorConditionalEliminationPhase(false).apply(graph);
+        if (!callTarget.isFirstTierCompilation()) {
+            // Perform conditional elimination.
+            new DominatorConditionalEliminationPhase(false).apply(graph);
+        }
 
         canonicalizer.apply(graph, tierContext);
 
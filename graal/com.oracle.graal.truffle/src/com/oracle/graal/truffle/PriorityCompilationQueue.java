@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.truffle;
+
+import static com.oracle.graal.truffle.TruffleCompilerOptions.TruffleCompilationQueueColdDelay;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.oracle.graal.debug.Debug;
+import com.oracle.graal.debug.DebugMetric;
+
+/**
+ * A compilation queue that hands out the hottest queued {@link OptimizedCallTarget} first instead
+ * of the one that was submitted first.
+ *
+ * The priority of a queued target is not fixed at submission time. It is recomputed from the
+ * target's {@link CompilationProfile} every time a compiler thread asks for work, so targets that
+ * keep being called while they wait overtake targets that stopped being called. Tasks that were
+ * cancelled while waiting (e.g. because the target was invalidated by a node rewrite) are removed
+ * eagerly. If {@link TruffleCompilerOptions#TruffleCompilationQueueColdDelay} is set, targets that
+ * received no calls at all for that many milliseconds are dequeued without being compiled.
+ *
+ * The queue is meant to be used as the work queue of a {@link java.util.concurrent.ThreadPoolExecutor}
+ * to which only {@link Task}s are submitted using {@link java.util.concurrent.Executor#execute}.
+ * The number of queued targets is small in practice, so selection is a linear scan.
+ */
+public final class PriorityCompilationQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final DebugMetric QUEUED = Debug.metric("TruffleCompilationQueued");
+    private static final DebugMetric DROPPED_COLD = Debug.metric("TruffleCompilationQueueDroppedCold");
+    private static final DebugMetric DROPPED_CANCELLED = Debug.metric("TruffleCompilationQueueDroppedCancelled");
+    private static final DebugMetric WAIT_TIME = Debug.metric("TruffleCompilationQueueWaitMillis");
+
+    /**
+     * Weight of the call rate observed since a target was queued (calls per millisecond) relative
+     * to its absolute call and loop count.
+     */
+    private static final double RATE_WEIGHT = 1000.0;
+
+    /**
+     * A queued compilation of a single call target.
+     */
+    public static final class Task extends FutureTask<Void> {
+
+        private final OptimizedCallTarget target;
+        private final boolean synchronous;
+        private final long queuedTime;
+        private final int queuedCallAndLoopCount;
+
+        private Task(OptimizedCallTarget target, Runnable runnable, boolean synchronous) {
+            super(runnable, null);
+            this.target = target;
+            this.synchronous = synchronous;
+            this.queuedTime = System.nanoTime();
+            this.queuedCallAndLoopCount = target.getCompilationProfile().getInterpreterCallAndLoopCount();
+        }
+
+        public OptimizedCallTarget getTarget() {
+            return target;
+        }
+
+        /**
+         * Computes the current priority of this task. The profile counters are read without
+         * synchronization as they are only heuristics.
+         */
+        double getPriority(long now) {
+            if (synchronous) {
+                // someone is blocked waiting for this compilation
+                return Double.POSITIVE_INFINITY;
+            }
+            int callAndLoopCount = target.getCompilationProfile().getInterpreterCallAndLoopCount();
+            long waitedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - queuedTime));
+            double rate = Math.max(0, callAndLoopCount - queuedCallAndLoopCount) / (double) waitedMillis;
+            return callAndLoopCount + rate * RATE_WEIGHT;
+        }
+
+        boolean isCold(long now, long coldDelayNanos) {
+            if (synchronous || coldDelayNanos <= 0 || now - queuedTime < coldDelayNanos) {
+                return false;
+            }
+            return target.getCompilationProfile().getInterpreterCallAndLoopCount() == queuedCallAndLoopCount;
+        }
+    }
+
+    private final GraalTruffleRuntime runtime;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<Task> tasks = new ArrayList<>();
+
+    private long dequeuedCount;
+    private long droppedCount;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+    public PriorityCompilationQueue(GraalTruffleRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    /**
+     * Creates a task compiling {@code target} by running {@code runnable}. The returned task must
+     * be passed to the executor that uses this queue.
+     *
+     * @param synchronous specifies whether the caller blocks until the compilation finished, in
+     *            which case the task is always handed out before all asynchronous tasks
+     */
+    public static Task createTask(OptimizedCallTarget target, Runnable runnable, boolean synchronous) {
+        return new Task(target, runnable, synchronous);
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        if (!(runnable instanceof Task)) {
+            throw new IllegalArgumentException("only compilation tasks can be queued: " + runnable);
+        }
+        lock.lock();
+        try {
+            tasks.add((Task) runnable);
+            QUEUED.increment();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable runnable) {
+        offer(runnable);
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) {
+        return offer(runnable);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        List<Task> cold = new ArrayList<>();
+        try {
+            lock.lockInterruptibly();
+            try {
+                Task task;
+                while ((task = selectTask(cold)) == null) {
+                    notEmpty.await();
+                }
+                return task;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            dropCold(cold);
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<Task> cold = new ArrayList<>();
+        long nanos = unit.toNanos(timeout);
+        try {
+            lock.lockInterruptibly();
+            try {
+                Task task;
+                while ((task = selectTask(cold)) == null) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return task;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            dropCold(cold);
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        List<Task> cold = new ArrayList<>();
+        lock.lock();
+        try {
+            return selectTask(cold);
+        } finally {
+            lock.unlock();
+            dropCold(cold);
+        }
+    }
+
+    /**
+     * Removes and returns the task with the highest priority. Cancelled tasks are discarded and
+     * cold tasks are moved to {@code cold} along the way. Must be called with {@link #lock} held.
+     */
+    private Task selectTask(List<Task> cold) {
+        long now = System.nanoTime();
+        long coldDelay = TimeUnit.MILLISECONDS.toNanos(TruffleCompilationQueueColdDelay.getValue());
+        int best = -1;
+        double bestPriority = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.isCancelled()) {
+                DROPPED_CANCELLED.increment();
+                droppedCount++;
+                removeAt(i--);
+            } else if (task.isCold(now, coldDelay)) {
+                DROPPED_COLD.increment();
+                droppedCount++;
+                cold.add(task);
+                removeAt(i--);
+            } else {
+                double priority = task.getPriority(now);
+                if (best == -1 || priority > bestPriority) {
+                    best = i;
+                    bestPriority = priority;
+                }
+            }
+        }
+        if (best == -1) {
+            return null;
+        }
+        Task task = removeAt(best);
+        long waitTime = now - task.queuedTime;
+        dequeuedCount++;
+        totalWaitTime += waitTime;
+        maxWaitTime = Math.max(maxWaitTime, waitTime);
+        WAIT_TIME.add(TimeUnit.NANOSECONDS.toMillis(waitTime));
+        return task;
+    }
+
+    /**
+     * Removes the task at {@code index} in constant time. The order of {@link #tasks} is
+     * irrelevant since the priorities are recomputed on every selection.
+     */
+    private Task removeAt(int index) {
+        int last = tasks.size() - 1;
+        Task task = tasks.get(index);
+        tasks.set(index, tasks.get(last));
+        tasks.remove(last);
+        return task;
+    }
+
+    private void dropCold(List<Task> cold) {
+        for (Task task : cold) {
+            if (!runtime.cancelInstalledTask(task.target, this, "Call target became cold in compilation queue")) {
+                // the task was not registered with the runtime yet
+                if (task.cancel(false)) {
+                    task.target.notifyCompilationFinished(false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            Task best = null;
+            double bestPriority = Double.NEGATIVE_INFINITY;
+            for (Task task : tasks) {
+                if (task.isCancelled()) {
+                    // will be discarded by the next poll
+                    continue;
+                }
+                double priority = task.getPriority(now);
+                if (best == null || priority > bestPriority) {
+                    best = task;
+                    bestPriority = priority;
+                }
+            }
+            return best;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            return tasks.remove(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        lock.lock();
+        try {
+            int n = Math.min(tasks.size(), maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add(tasks.remove(tasks.size() - 1));
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the queued tasks in no particular order.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        lock.lock();
+        try {
+            return new ArrayList<Runnable>(tasks).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current queue depth.
+     */
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks that were handed out to a compiler thread.
+     */
+    public long getDequeuedCount() {
+        lock.lock();
+        try {
+            return dequeuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks that were dropped because they were cancelled or became cold.
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the average time in nanoseconds a task waited before it was handed out.
+     */
+    public long getAverageWaitTime() {
+        lock.lock();
+        try {
+            return dequeuedCount == 0 ? 0 : totalWaitTime / dequeuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the maximum time in nanoseconds a task waited before it was handed out.
+     */
+    public long getMaxWaitTime() {
+        lock.lock();
+        try {
+            return maxWaitTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
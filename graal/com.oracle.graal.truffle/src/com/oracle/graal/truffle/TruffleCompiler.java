@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import jdk.internal.jvmci.code.BailoutException;
 import jdk.internal.jvmci.code.CallingConvention;
 import jdk.internal.jvmci.code.CallingConvention.Type;
 import jdk.internal.jvmci.code.CodeCacheProvider;
@@ -48,6 +49,7 @@ import com.oracle.graal.debug.Debug.Scope;
 import com.oracle.graal.debug.DebugCloseable;
 import com.oracle.graal.debug.DebugEnvironment;
 import com.oracle.graal.debug.DebugMemUseTracker;
+import com.oracle.graal.debug.DebugMetric;
 import com.oracle.graal.debug.DebugTimer;
 import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration;
 import com.oracle.graal.graphbuilderconf.GraphBuilderConfiguration.Plugins;
@@ -74,6 +76,8 @@ public abstract class TruffleCompiler {
     protected final Suites suites;
     protected final GraphBuilderConfiguration config;
     protected final LIRSuites lirSuites;
+    protected final Suites firstTierSuites;
+    protected final LIRSuites firstTierLirSuites;
     protected final PartialEvaluator partialEvaluator;
     protected final Backend backend;
     protected final GraalTruffleCompilationListener compilationNotify;
@@ -94,6 +98,15 @@ public abstract class TruffleCompiler {
                     OptimisticOptimizations.Optimization.RemoveNeverExecutedCode, OptimisticOptimizations.Optimization.UseTypeCheckedInlining, OptimisticOptimizations.Optimization.UseTypeCheckHints);
 
     public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Backend backend) {
+        this(plugins, suites, lirSuites, suites, lirSuites, backend);
+    }
+
+    /**
+     * @param firstTierSuites the suites used for the first tier of
+     *            {@linkplain TruffleCompilerOptions#TruffleTieredCompilation tiered compilation}
+     * @param firstTierLirSuites the LIR suites used for the first tier
+     */
+    public TruffleCompiler(Plugins plugins, Suites suites, LIRSuites lirSuites, Suites firstTierSuites, LIRSuites firstTierLirSuites, Backend backend) {
         GraalTruffleRuntime graalTruffleRuntime = ((GraalTruffleRuntime) Truffle.getRuntime());
         this.compilationNotify = graalTruffleRuntime.getCompilationNotify();
         this.backend = backend;
@@ -102,6 +115,8 @@ public abstract class TruffleCompiler {
         this.providers = backendProviders.copyWith(constantReflection);
         this.suites = suites;
         this.lirSuites = lirSuites;
+        this.firstTierSuites = firstTierSuites;
+        this.firstTierLirSuites = firstTierLirSuites;
 
         ResolvedJavaType[] skippedExceptionTypes = getSkippedExceptionTypes(providers.getMetaAccess());
 
@@ -140,6 +155,9 @@ public abstract class TruffleCompiler {
     public static final DebugMemUseTracker CompilationMemUse = Debug.memUseTracker("TruffleCompilationMemUse");
     public static final DebugMemUseTracker CodeInstallationMemUse = Debug.memUseTracker("TruffleCodeInstallationMemUse");
 
+    private static final DebugMetric FirstTierCompilations = Debug.metric("TruffleFirstTierCompilations");
+    private static final DebugMetric SecondTierCompilations = Debug.metric("TruffleSecondTierCompilations");
+
     @SuppressWarnings("try")
     public void compileMethod(final OptimizedCallTarget compilable) {
         StructuredGraph graph = null;
@@ -158,16 +176,34 @@ public abstract class TruffleCompiler {
             }
 
             compilationNotify.notifyCompilationTruffleTierFinished(compilable, graph);
-            CompilationResult compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable);
+            CompilationResult compilationResult;
+            if (compilable.isFirstTierCompilation()) {
+                FirstTierCompilations.increment();
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, firstTierSuites, firstTierLirSuites, compilable);
+            } else {
+                if (TruffleCompilerOptions.TruffleTieredCompilation.getValue()) {
+                    SecondTierCompilations.increment();
+                }
+                compilationResult = compileMethodHelper(graph, compilable.toString(), graphBuilderSuite, compilable);
+            }
             compilationNotify.notifyCompilationSuccess(compilable, graph, compilationResult);
         } catch (Throwable t) {
+            if (t instanceof BailoutException && !((BailoutException) t).isPermanent()) {
+                /* The dependencies of the compilation were invalidated. */
+                partialEvaluator.invalidateAssumptionDependentGraphs();
+            }
             compilationNotify.notifyCompilationFailed(compilable, graph, t);
             throw t;
         }
     }
 
-    @SuppressWarnings("try")
     public CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, InstalledCode predefinedInstalledCode) {
+        return compileMethodHelper(graph, name, graphBuilderSuite, suites, lirSuites, predefinedInstalledCode);
+    }
+
+    @SuppressWarnings({"try", "hiding"})
+    public CompilationResult compileMethodHelper(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, Suites suites, LIRSuites lirSuites,
+                    InstalledCode predefinedInstalledCode) {
         try (Scope s = Debug.scope("TruffleFinal")) {
             Debug.dump(1, graph, "After TruffleTier");
         } catch (Throwable e) {
@@ -107,6 +107,27 @@ public class TruffleCompilerOptions {
     @Option(help = "Manually set the number of compiler threads", type = OptionType.Expert)
     public static final OptionValue<Integer> TruffleCompilerThreads = new StableOptionValue<>(0);
 
+    @Option(help = "Compile the hottest queued call target first instead of compiling in submission order", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleCompilationQueuePriority = new StableOptionValue<>(true);
+
+    @Option(help = "Drop queued call targets that were not called for this many milliseconds while waiting for compilation (0 to disable)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleCompilationQueueColdDelay = new OptionValue<>(0);
+
+    @Option(help = "Compile call targets first with a fast, non-inlining tier and recompile them with the optimizing tier once they stay hot", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleTieredCompilation = new StableOptionValue<>(false);
+
+    @Option(help = "Compile call target with the first tier when call and loop count exceeds this threshold (tiered compilation only)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleFirstTierCompilationThreshold = new OptionValue<>(100);
+
+    @Option(help = "Recompile call target with the second tier after this many calls to its first tier code (tiered compilation only)", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleSecondTierCompilationThreshold = new OptionValue<>(1000);
+
+    @Option(help = "Share parsed and encoded graphs of interpreter methods between all Truffle compilations", type = OptionType.Expert)
+    public static final OptionValue<Boolean> TruffleEncodedGraphCache = new StableOptionValue<>(true);
+
+    @Option(help = "Maximum size in megabytes of the graphs shared between Truffle compilations", type = OptionType.Expert)
+    public static final OptionValue<Integer> TruffleEncodedGraphCacheSize = new StableOptionValue<>(64);
+
     @Option(help = "Enable inlining across Truffle boundary", type = OptionType.Expert)
     public static final OptionValue<Boolean> TruffleInlineAcrossTruffleBoundary = new OptionValue<>(false);
 
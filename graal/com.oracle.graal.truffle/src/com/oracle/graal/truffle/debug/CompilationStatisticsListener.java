@@ -38,10 +38,12 @@ import java.util.stream.StreamSupport;
 
 import jdk.internal.jvmci.code.CompilationResult;
 
+import com.oracle.graal.nodes.EncodedGraphCache;
 import com.oracle.graal.nodes.StructuredGraph;
 import com.oracle.graal.truffle.GraalTruffleRuntime;
 import com.oracle.graal.truffle.OptimizedCallTarget;
 import com.oracle.graal.truffle.OptimizedDirectCallNode;
+import com.oracle.graal.truffle.PriorityCompilationQueue;
 import com.oracle.graal.truffle.TruffleCompilerOptions;
 import com.oracle.graal.truffle.TruffleInlining;
 import com.oracle.graal.truffle.TruffleInlining.CallTreeNodeVisitor;
@@ -238,7 +240,22 @@ public final class CompilationStatisticsListener extends AbstractDebugCompilatio
         printStatistic(rt, "Queue Accuracy", 1.0 - dequeues / (double) queues);
         printStatistic(rt, "Compilation Utilization", compilationTime.getSum() / (double) (endTime - firstCompilation));
         printStatistic(rt, "Remaining Compilation Queue", rt.getQueuedCallTargets().size());
+        PriorityCompilationQueue queue = rt.getCompilationQueue();
+        if (queue != null) {
+            printStatistic(rt, "  Dropped (cancelled or cold)", (int) queue.getDroppedCount());
+            printStatistic(rt, "  Average wait time (ms)", queue.getAverageWaitTime() / 1e6);
+            printStatistic(rt, "  Maximum wait time (ms)", queue.getMaxWaitTime() / 1e6);
+        }
         printStatistic(rt, "Times defered until compilation", deferCompilations);
+        EncodedGraphCache graphCache = rt.getTruffleCompiler().getPartialEvaluator().getEncodedGraphCache();
+        if (graphCache != null) {
+            printStatistic(rt, "Encoded graph cache entries", graphCache.getEntryCount());
+            printStatistic(rt, "  Hits", (int) graphCache.getHits());
+            printStatistic(rt, "  Misses", (int) graphCache.getMisses());
+            printStatistic(rt, "  Evictions", (int) graphCache.getEvictions());
+            printStatistic(rt, "  Invalidations", (int) graphCache.getInvalidations());
+            printStatistic(rt, "  Size (kB)", (int) (graphCache.getSize() / 1024));
+        }
 
         printStatisticTime(rt, "Time to queue", timeToQueue);
         printStatisticTime(rt, "Time to compilation", timeToCompilation);
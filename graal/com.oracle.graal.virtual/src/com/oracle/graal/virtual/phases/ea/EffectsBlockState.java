@@ -25,6 +25,8 @@ package com.oracle.graal.virtual.phases.ea;
 import java.util.Iterator;
 import java.util.Map;
 
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
+
 public abstract class EffectsBlockState<T extends EffectsBlockState<T>> {
 
     /*
@@ -78,6 +80,14 @@ public abstract class EffectsBlockState<T extends EffectsBlockState<T>> {
         return true;
     }
 
+    /**
+     * Same as {@link #compareMapsNoSize(Map, Map)}, but only visits the entries in which the two
+     * maps differ.
+     */
+    protected static <K, V> boolean compareMapsNoSize(PersistentHashMap<K, V> left, PersistentHashMap<K, V> right) {
+        return left.forEachDifference(right, (key, leftValue, rightValue) -> rightValue == null || rightValue.equals(leftValue));
+    }
+
     protected static <U, V> void meetMaps(Map<U, V> target, Map<U, V> source) {
         Iterator<Map.Entry<U, V>> iter = target.entrySet().iterator();
         while (iter.hasNext()) {
@@ -79,7 +79,7 @@ public abstract class EffectsPhase<PhaseContextT extends PhaseContext> extends B
                 ControlFlowGraph cfg;
                 if (unscheduled) {
                     schedule = null;
-                    cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+                    cfg = ControlFlowGraph.computeCached(graph, true, false, false);
                 } else {
                     schedule = new SchedulePhase(SchedulePhase.SchedulingStrategy.EARLIEST);
                     schedule.apply(graph, false);
@@ -22,14 +22,11 @@
  */
 package com.oracle.graal.virtual.phases.ea;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import jdk.internal.jvmci.meta.LocationIdentity;
 
-import com.oracle.graal.compiler.common.CollectionsFactory;
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
 import com.oracle.graal.nodes.ValueNode;
 import com.oracle.graal.nodes.virtual.AllocatedObjectNode;
 import com.oracle.graal.nodes.virtual.VirtualInstanceNode;
@@ -37,7 +34,10 @@ import com.oracle.graal.nodes.virtual.VirtualObjectNode;
 
 public class PEReadEliminationBlockState extends PartialEscapeBlockState<PEReadEliminationBlockState> {
 
-    final HashMap<ReadCacheEntry, ValueNode> readCache;
+    /**
+     * Shared with the state this state was cloned from until one of them is modified.
+     */
+    PersistentHashMap<ReadCacheEntry, ValueNode> readCache;
 
     static final class ReadCacheEntry {
 
@@ -74,12 +74,12 @@ public class PEReadEliminationBlockState extends PartialEscapeBlockState<PEReadE
     }
 
     public PEReadEliminationBlockState() {
-        readCache = CollectionsFactory.newMap();
+        readCache = PersistentHashMap.empty();
     }
 
     public PEReadEliminationBlockState(PEReadEliminationBlockState other) {
         super(other);
-        readCache = CollectionsFactory.newMap(other.readCache);
+        readCache = other.readCache;
     }
 
     @Override
@@ -92,7 +92,7 @@ public class PEReadEliminationBlockState extends PartialEscapeBlockState<PEReadE
         if (virtual instanceof VirtualInstanceNode) {
             VirtualInstanceNode instance = (VirtualInstanceNode) virtual;
             for (int i = 0; i < instance.entryCount(); i++) {
-                readCache.put(new ReadCacheEntry(instance.field(i).getLocationIdentity(), representation, -1), values.get(i));
+                readCache = readCache.put(new ReadCacheEntry(instance.field(i).getLocationIdentity(), representation, -1), values.get(i));
             }
         }
     }
@@ -114,7 +114,7 @@ public class PEReadEliminationBlockState extends PartialEscapeBlockState<PEReadE
         } else {
             cacheObject = object;
         }
-        readCache.put(new ReadCacheEntry(identity, cacheObject, index), value);
+        readCache = readCache.put(new ReadCacheEntry(identity, cacheObject, index), value);
     }
 
     public ValueNode getReadCache(ValueNode object, LocationIdentity identity, int index, PartialEscapeClosure<?> closure) {
@@ -139,20 +139,14 @@ public class PEReadEliminationBlockState extends PartialEscapeBlockState<PEReadE
     }
 
     public void killReadCache() {
-        readCache.clear();
+        readCache = PersistentHashMap.empty();
     }
 
     public void killReadCache(LocationIdentity identity, int index) {
-        Iterator<Map.Entry<ReadCacheEntry, ValueNode>> iter = readCache.entrySet().iterator();
-        while (iter.hasNext()) {
-            ReadCacheEntry entry = iter.next().getKey();
-            if (entry.identity.equals(identity) && (index == -1 || entry.index == -1 || index == entry.index)) {
-                iter.remove();
-            }
-        }
+        readCache = readCache.removeIf((entry, value) -> entry.identity.equals(identity) && (index == -1 || entry.index == -1 || index == entry.index));
     }
 
-    public Map<ReadCacheEntry, ValueNode> getReadCache() {
+    public PersistentHashMap<ReadCacheEntry, ValueNode> getReadCache() {
         return readCache;
     }
 }
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import jdk.internal.jvmci.meta.ConstantReflectionProvider;
 import jdk.internal.jvmci.meta.JavaConstant;
@@ -36,7 +37,9 @@ import jdk.internal.jvmci.meta.LocationIdentity;
 import jdk.internal.jvmci.meta.MetaAccessProvider;
 import jdk.internal.jvmci.meta.ResolvedJavaType;
 
+import com.oracle.graal.compiler.common.CollectionsFactory;
 import com.oracle.graal.compiler.common.cfg.Loop;
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
@@ -244,7 +247,7 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
             ValueNode firstValue = phi.valueAt(0);
             if (firstValue != null) {
                 firstValue = GraphUtil.unproxify(firstValue);
-                for (Map.Entry<ReadCacheEntry, ValueNode> entry : new ArrayList<>(initialState.getReadCache().entrySet())) {
+                for (Map.Entry<ReadCacheEntry, ValueNode> entry : initialState.getReadCache()) {
                     if (entry.getKey().object == firstValue) {
                         initialState.addReadCache(phi, entry.getKey().identity, entry.getKey().index, entry.getValue(), this);
                     }
@@ -258,17 +261,18 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
         super.processLoopExit(exitNode, initialState, exitState, effects);
 
         if (exitNode.graph().hasValueProxies()) {
-            for (Map.Entry<ReadCacheEntry, ValueNode> entry : exitState.getReadCache().entrySet()) {
-                if (initialState.getReadCache().get(entry.getKey()) != entry.getValue()) {
-                    ValueNode value = exitState.getReadCache(entry.getKey().object, entry.getKey().identity, entry.getKey().index, this);
-                    assert value != null : "Got null from read cache, entry's value:" + entry.getValue();
+            exitState.getReadCache().forEachDifference(initialState.getReadCache(), (key, exitValue, initialValue) -> {
+                if (exitValue != null) {
+                    ValueNode value = exitState.getReadCache(key.object, key.identity, key.index, this);
+                    assert value != null : "Got null from read cache, entry's value:" + exitValue;
                     if (!(value instanceof ProxyNode) || ((ProxyNode) value).proxyPoint() != exitNode) {
                         ProxyNode proxy = new ValueProxyNode(value, exitNode);
                         effects.addFloatingNode(proxy, "readCacheProxy");
-                        entry.setValue(proxy);
+                        exitState.readCache = exitState.readCache.put(key, proxy);
                     }
                 }
-            }
+                return true;
+            });
         }
     }
 
@@ -296,36 +300,49 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
         }
 
         private void mergeReadCache(List<PEReadEliminationBlockState> states) {
-            for (Map.Entry<ReadCacheEntry, ValueNode> entry : states.get(0).readCache.entrySet()) {
-                ReadCacheEntry key = entry.getKey();
-                ValueNode value = entry.getValue();
-                boolean phi = false;
-                for (int i = 1; i < states.size(); i++) {
-                    ValueNode otherValue = states.get(i).readCache.get(key);
-                    if (otherValue == null) {
-                        value = null;
-                        phi = false;
-                        break;
-                    }
-                    if (!phi && otherValue != value) {
-                        phi = true;
+            PersistentHashMap<ReadCacheEntry, ValueNode> firstCache = states.get(0).readCache;
+            Set<ReadCacheEntry> killed = CollectionsFactory.newSet();
+            Set<ReadCacheEntry> needPhi = CollectionsFactory.newSet();
+            for (int i = 1; i < states.size(); i++) {
+                firstCache.forEachDifference(states.get(i).readCache, (key, value, otherValue) -> {
+                    if (value != null) {
+                        (otherValue == null ? killed : needPhi).add(key);
                     }
-                }
-                if (phi) {
-                    PhiNode phiNode = getPhi(entry, value.stamp().unrestricted());
+                    return true;
+                });
+            }
+            PersistentHashMap<ReadCacheEntry, ValueNode> mergedCache = firstCache;
+            for (ReadCacheEntry key : killed) {
+                mergedCache = mergedCache.remove(key);
+            }
+            for (ReadCacheEntry key : needPhi) {
+                if (!killed.contains(key)) {
+                    Map.Entry<ReadCacheEntry, ValueNode> entry = firstCache.getEntry(key);
+                    PhiNode phiNode = getPhi(entry, entry.getValue().stamp().unrestricted());
                     mergeEffects.addFloatingNode(phiNode, "mergeReadCache");
                     for (int i = 0; i < states.size(); i++) {
                         setPhiInput(phiNode, i, states.get(i).getReadCache(key.object, key.identity, key.index, PEReadEliminationClosure.this));
                     }
-                    newState.readCache.put(key, phiNode);
-                } else if (value != null) {
-                    newState.readCache.put(key, value);
+                    mergedCache = mergedCache.put(key, phiNode);
                 }
             }
+            assert newState.readCache.isEmpty();
+            newState.readCache = mergedCache;
+
+            Map<ValueNode, List<PhiNode>> objectPhis = null;
             for (PhiNode phi : getPhis()) {
                 if (phi.getStackKind() == JavaKind.Object) {
-                    for (Map.Entry<ReadCacheEntry, ValueNode> entry : states.get(0).readCache.entrySet()) {
-                        if (entry.getKey().object == getPhiValueAt(phi, 0)) {
+                    if (objectPhis == null) {
+                        objectPhis = Node.newIdentityMap();
+                    }
+                    objectPhis.computeIfAbsent(getPhiValueAt(phi, 0), value -> new ArrayList<>(2)).add(phi);
+                }
+            }
+            if (objectPhis != null) {
+                for (Map.Entry<ReadCacheEntry, ValueNode> entry : firstCache) {
+                    List<PhiNode> phis = objectPhis.get(entry.getKey().object);
+                    if (phis != null) {
+                        for (PhiNode phi : phis) {
                             mergeReadCachePhi(phi, entry.getKey().identity, entry.getKey().index, states);
                         }
                     }
@@ -348,7 +365,7 @@ public class PEReadEliminationClosure extends PartialEscapeClosure<PEReadElimina
             for (int i = 0; i < values.length; i++) {
                 setPhiInput(phiNode, i, values[i]);
             }
-            newState.readCache.put(new ReadCacheEntry(identity, phi, index), phiNode);
+            newState.readCache = newState.readCache.put(new ReadCacheEntry(identity, phi, index), phiNode);
         }
     }
 }
@@ -22,17 +22,18 @@
  */
 package com.oracle.graal.virtual.phases.ea;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import jdk.internal.jvmci.meta.LocationIdentity;
 
-import com.oracle.graal.compiler.common.CollectionsFactory;
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
 import com.oracle.graal.nodes.ValueNode;
 
 public class ReadEliminationBlockState extends EffectsBlockState<ReadEliminationBlockState> {
 
-    final HashMap<CacheEntry<?>, ValueNode> readCache;
+    /**
+     * Persistent, so that cloning a state shares the cache and merges only need to look at the
+     * entries in which the predecessor states differ.
+     */
+    PersistentHashMap<CacheEntry<?>, ValueNode> readCache;
 
     abstract static class CacheEntry<T> {
 
@@ -148,11 +149,11 @@ public class ReadEliminationBlockState extends EffectsBlockState<ReadElimination
     }
 
     public ReadEliminationBlockState() {
-        readCache = CollectionsFactory.newMap();
+        readCache = PersistentHashMap.empty();
     }
 
     public ReadEliminationBlockState(ReadEliminationBlockState other) {
-        readCache = CollectionsFactory.newMap(other.readCache);
+        readCache = other.readCache;
     }
 
     @Override
@@ -166,7 +167,7 @@ public class ReadEliminationBlockState extends EffectsBlockState<ReadElimination
     }
 
     public void addCacheEntry(CacheEntry<?> identifier, ValueNode value) {
-        readCache.put(identifier, value);
+        readCache = readCache.put(identifier, value);
     }
 
     public ValueNode getCacheEntry(CacheEntry<?> identifier) {
@@ -174,14 +175,14 @@ public class ReadEliminationBlockState extends EffectsBlockState<ReadElimination
     }
 
     public void killReadCache() {
-        readCache.clear();
+        readCache = PersistentHashMap.empty();
     }
 
     public void killReadCache(LocationIdentity identity) {
-        readCache.entrySet().removeIf(entry -> entry.getKey().conflicts(identity));
+        readCache = readCache.removeIf((key, value) -> key.conflicts(identity));
     }
 
-    public Map<CacheEntry<?>, ValueNode> getReadCache() {
+    public PersistentHashMap<CacheEntry<?>, ValueNode> getReadCache() {
         return readCache;
     }
 }
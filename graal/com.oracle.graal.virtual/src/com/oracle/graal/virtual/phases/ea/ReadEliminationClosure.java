@@ -24,15 +24,18 @@ package com.oracle.graal.virtual.phases.ea;
 
 import static jdk.internal.jvmci.meta.LocationIdentity.any;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import jdk.internal.jvmci.meta.JavaKind;
 import jdk.internal.jvmci.meta.LocationIdentity;
 
 import com.oracle.graal.compiler.common.CollectionsFactory;
 import com.oracle.graal.compiler.common.type.Stamp;
+import com.oracle.graal.compiler.common.util.PersistentHashMap;
 import com.oracle.graal.graph.Node;
 import com.oracle.graal.nodes.FixedNode;
 import com.oracle.graal.nodes.FixedWithNextNode;
@@ -198,13 +201,14 @@ public class ReadEliminationClosure extends EffectsClosure<ReadEliminationBlockS
     @Override
     protected void processLoopExit(LoopExitNode exitNode, ReadEliminationBlockState initialState, ReadEliminationBlockState exitState, GraphEffectList effects) {
         if (exitNode.graph().hasValueProxies()) {
-            for (Map.Entry<CacheEntry<?>, ValueNode> entry : exitState.getReadCache().entrySet()) {
-                if (initialState.getReadCache().get(entry.getKey()) != entry.getValue()) {
-                    ProxyNode proxy = new ValueProxyNode(exitState.getCacheEntry(entry.getKey()), exitNode);
+            exitState.getReadCache().forEachDifference(initialState.getReadCache(), (key, exitValue, initialValue) -> {
+                if (exitValue != null) {
+                    ProxyNode proxy = new ValueProxyNode(exitValue, exitNode);
                     effects.addFloatingNode(proxy, "readCacheProxy");
-                    entry.setValue(proxy);
+                    exitState.addCacheEntry(key, proxy);
                 }
-            }
+                return true;
+            });
         }
     }
 
@@ -243,40 +247,57 @@ public class ReadEliminationClosure extends EffectsClosure<ReadEliminationBlockS
         }
 
         private void mergeReadCache(List<ReadEliminationBlockState> states) {
-            for (Map.Entry<CacheEntry<?>, ValueNode> entry : states.get(0).readCache.entrySet()) {
-                CacheEntry<?> key = entry.getKey();
-                ValueNode value = entry.getValue();
-                boolean phi = false;
-                for (int i = 1; i < states.size(); i++) {
-                    ValueNode otherValue = states.get(i).readCache.get(key);
-                    if (otherValue == null) {
-                        value = null;
-                        phi = false;
-                        break;
-                    }
-                    if (!phi && otherValue != value) {
-                        phi = true;
+            PersistentHashMap<CacheEntry<?>, ValueNode> firstCache = states.get(0).readCache;
+            /*
+             * The merged cache starts out as the cache of the first predecessor. Only the entries
+             * in which another predecessor differs need to be looked at: they are dropped if the
+             * other predecessor does not have them, and need a phi otherwise.
+             */
+            Set<CacheEntry<?>> killed = CollectionsFactory.newSet();
+            Set<CacheEntry<?>> needPhi = CollectionsFactory.newSet();
+            for (int i = 1; i < states.size(); i++) {
+                firstCache.forEachDifference(states.get(i).readCache, (key, value, otherValue) -> {
+                    if (value != null) {
+                        (otherValue == null ? killed : needPhi).add(key);
                     }
-                }
-                if (phi) {
-                    PhiNode phiNode = getCachedPhi(entry, value.stamp().unrestricted());
+                    return true;
+                });
+            }
+            PersistentHashMap<CacheEntry<?>, ValueNode> mergedCache = firstCache;
+            for (CacheEntry<?> key : killed) {
+                mergedCache = mergedCache.remove(key);
+            }
+            for (CacheEntry<?> key : needPhi) {
+                if (!killed.contains(key)) {
+                    Map.Entry<CacheEntry<?>, ValueNode> entry = firstCache.getEntry(key);
+                    PhiNode phiNode = getCachedPhi(entry, entry.getValue().stamp().unrestricted());
                     mergeEffects.addFloatingNode(phiNode, "mergeReadCache");
                     for (int i = 0; i < states.size(); i++) {
                         setPhiInput(phiNode, i, states.get(i).getCacheEntry(key));
                     }
-                    newState.addCacheEntry(key, phiNode);
-                } else if (value != null) {
-                    newState.addCacheEntry(key, value);
+                    mergedCache = mergedCache.put(key, phiNode);
                 }
             }
+            assert newState.readCache.isEmpty();
+            newState.readCache = mergedCache;
+
+            Map<ValueNode, List<PhiNode>> objectPhis = null;
             for (PhiNode phi : getPhis()) {
                 if (phi.getStackKind() == JavaKind.Object) {
-                    for (Map.Entry<CacheEntry<?>, ValueNode> entry : states.get(0).readCache.entrySet()) {
-                        if (entry.getKey().object == getPhiValueAt(phi, 0)) {
+                    if (objectPhis == null) {
+                        objectPhis = Node.newIdentityMap();
+                    }
+                    objectPhis.computeIfAbsent(getPhiValueAt(phi, 0), value -> new ArrayList<>(2)).add(phi);
+                }
+            }
+            if (objectPhis != null) {
+                for (Map.Entry<CacheEntry<?>, ValueNode> entry : firstCache) {
+                    List<PhiNode> phis = objectPhis.get(entry.getKey().object);
+                    if (phis != null) {
+                        for (PhiNode phi : phis) {
                             mergeReadCachePhi(phi, entry.getKey(), states);
                         }
                     }
-
                 }
             }
         }
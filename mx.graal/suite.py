@@ -196,6 +196,7 @@ suite = {
         "GRAAL_NODEINFO_PROCESSOR",
         "GRAAL_COMPILER_MATCH_PROCESSOR",
         "GRAAL_REPLACEMENTS_VERIFIER",
+        "GRAAL_LIR_PROCESSOR",
         "jvmci:JVMCI_OPTIONS_PROCESSOR",
         "jvmci:JVMCI_SERVICE_PROCESSOR",
       ],
@@ -214,7 +215,8 @@ suite = {
       "checkstyle" : "com.oracle.graal.graph",
       "annotationProcessors" : [
         "jvmci:JVMCI_SERVICE_PROCESSOR",
-        "GRAAL_NODEINFO_PROCESSOR"
+        "GRAAL_NODEINFO_PROCESSOR",
+        "GRAAL_LIR_PROCESSOR",
       ],
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,HotSpot,AMD64",
@@ -229,7 +231,10 @@ suite = {
         "com.oracle.graal.replacements.sparc",
       ],
       "checkstyle" : "com.oracle.graal.graph",
-      "annotationProcessors" : ["jvmci:JVMCI_SERVICE_PROCESSOR"],
+      "annotationProcessors" : [
+        "jvmci:JVMCI_SERVICE_PROCESSOR",
+        "GRAAL_LIR_PROCESSOR",
+      ],
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,HotSpot,SPARC",
     },
@@ -254,7 +259,10 @@ suite = {
         "com.oracle.graal.asm.amd64",
         "com.oracle.graal.hotspot.test",
       ],
-      "annotationProcessors" : ["GRAAL_NODEINFO_PROCESSOR"],
+      "annotationProcessors" : [
+        "GRAAL_NODEINFO_PROCESSOR",
+        "GRAAL_LIR_PROCESSOR",
+      ],
       "checkstyle" : "com.oracle.graal.graph",
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,HotSpot,AMD64,Test",
@@ -380,7 +388,18 @@ suite = {
         "com.oracle.graal.compiler.common",
         "com.oracle.graal.asm",
       ],
-      "annotationProcessors" : ["jvmci:JVMCI_OPTIONS_PROCESSOR"],
+      "annotationProcessors" : [
+        "jvmci:JVMCI_OPTIONS_PROCESSOR",
+        "GRAAL_LIR_PROCESSOR",
+      ],
+      "checkstyle" : "com.oracle.graal.graph",
+      "javaCompliance" : "1.8",
+      "workingSets" : "Graal,LIR",
+    },
+
+    "com.oracle.graal.lir.processor" : {
+      "subDir" : "graal",
+      "sourceDirs" : ["src"],
       "checkstyle" : "com.oracle.graal.graph",
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,LIR",
@@ -406,6 +425,7 @@ suite = {
         "mx:JUNIT",
         "com.oracle.graal.lir",
       ],
+      "annotationProcessors" : ["GRAAL_LIR_PROCESSOR"],
       "checkstyle" : "com.oracle.graal.graph",
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,LIR",
@@ -418,7 +438,10 @@ suite = {
         "com.oracle.graal.lir",
         "com.oracle.graal.asm.amd64",
       ],
-      "annotationProcessors" : ["jvmci:JVMCI_OPTIONS_PROCESSOR"],
+      "annotationProcessors" : [
+        "jvmci:JVMCI_OPTIONS_PROCESSOR",
+        "GRAAL_LIR_PROCESSOR",
+      ],
       "checkstyle" : "com.oracle.graal.graph",
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,LIR,AMD64",
@@ -431,6 +454,7 @@ suite = {
         "com.oracle.graal.asm.sparc",
         "com.oracle.graal.lir",
       ],
+      "annotationProcessors" : ["GRAAL_LIR_PROCESSOR"],
       "checkstyle" : "com.oracle.graal.graph",
       "javaCompliance" : "1.8",
       "workingSets" : "Graal,LIR,SPARC",
@@ -1061,6 +1085,13 @@ suite = {
       ],
     },
 
+    "GRAAL_LIR_PROCESSOR" : {
+      "path" : "build/graal-lir-processor.jar",
+      "subDir" : "graal",
+      "sourcesPath" : "build/graal-lir-processor.src.zip",
+      "dependencies" : ["com.oracle.graal.lir.processor"],
+    },
+
     "GRAAL_COMPILER_MATCH_PROCESSOR" : {
       "path" : "build/graal-compiler-match-processor.jar",
       "subDir" : "graal",